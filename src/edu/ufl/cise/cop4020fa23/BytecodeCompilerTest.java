@@ -0,0 +1,192 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodType;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.codegen.BytecodeCompiler;
+import edu.ufl.cise.cop4020fa23.codegen.CompiledProgram;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+import edu.ufl.cise.cop4020fa23.runtime.ConsoleIO;
+import edu.ufl.cise.cop4020fa23.runtime.Raster;
+
+class BytecodeCompilerTest {
+
+	static Program checked(String input) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeTypeCheckingParser(input).parse();
+	}
+
+	// runs input compiled and interpreted, and checks that both return and write the same, or
+	// fail with the same message at the same location
+	static Object compare(String input, Object... args) throws PLCCompilerException {
+		Program program = checked(input);
+		ByteArrayOutputStream interpreted = new ByteArrayOutputStream();
+		Object expected;
+		try {
+			expected = new Interpreter(new PrintStream(interpreted, true)).run(program, args);
+		} catch (PLCRuntimeException e) {
+			expected = e;
+		}
+		CompiledProgram compiledProgram = BytecodeCompiler.compile(program);
+		ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+		PrintStream out = ConsoleIO.getOut();
+		ConsoleIO.setOut(new PrintStream(compiled, true));
+		Object result;
+		try {
+			result = compiledProgram.run(args);
+		} catch (PLCRuntimeException e) {
+			result = e;
+		} finally {
+			ConsoleIO.setOut(out);
+		}
+		if (expected instanceof PLCRuntimeException e) {
+			assertEquals(e.getMessage(), assertInstanceOf(PLCRuntimeException.class, result).getMessage());
+		} else {
+			assertEquals(expected, result);
+		}
+		assertEquals(interpreted.toString(), compiled.toString());
+		return expected;
+	}
+
+	@Test
+	void intsAndBooleans() throws PLCCompilerException {
+		String input = """
+				int f(int a, int b) <:
+				int c = (a + b) * 2 - a / b;
+				boolean big = c > 20 && !(a == b) || FALSE;
+				write big;
+				do c > 100 -> <: c = c / 2; :> od;
+				^ ? big -> c ** 2 , -c;
+				:>
+				""";
+		assertEquals(-18, compare(input, 7, 3));
+		assertEquals(441, compare(input, 9, 3));
+		assertEquals(6084, compare(input, 90, 3));
+	}
+
+	@Test
+	void stringsAndNestedBlocks() throws PLCCompilerException {
+		String input = """
+				string f(string s, int n) <:
+				string t = s;
+				int i = 1;
+				do i < n -> <: string u = t + "."; t = u; i = i + 1; :> od;
+				if t == "ab..." -> <: write "matched"; :>
+				[] TRUE -> <: <: int j = i; write j; :>; :>
+				fi;
+				^ t;
+				:>
+				""";
+		assertEquals("ab...", compare(input, "ab", 4));
+		assertEquals("ab.", compare(input, "ab", 2));
+	}
+
+	@Test
+	void pixelsAndImages() throws PLCCompilerException {
+		String input = """
+				image f(int w, pixel q) <:
+				image[w,3] a;
+				a[x,y] = [x * 10, y * 20, 1];
+				a[x,y]:blue = x + y;
+				a[1,1] = RED;
+				a[2,y] = q;
+				pixel p = a[3,2] & [255, 1, 255];
+				p:green = 77;
+				write p;
+				write a[1,2]:green;
+				image b = a;
+				b:green = 9;
+				write width b;
+				^ a + b:red - 2;
+				:>
+				""";
+		Raster result = (Raster) compare(input, 4, 0xFF102030);
+		assertEquals(4, result.width());
+	}
+
+	@Test
+	void signature() throws PLCCompilerException {
+		CompiledProgram compiled = BytecodeCompiler.compile(checked("""
+				boolean f(int a, string s, image i, pixel p) <:
+				^ a == 3;
+				:>
+				"""));
+		assertEquals(MethodType.methodType(boolean.class, int.class, String.class, Raster.class, int.class), compiled.handle().type());
+	}
+
+	@Test
+	void badArguments() throws PLCCompilerException {
+		CompiledProgram compiled = BytecodeCompiler.compile(checked("""
+				int f(int a, string s) <:
+				^ a;
+				:>
+				"""));
+		assertEquals(3, compiled.run(3, null));
+		assertThrows(IllegalArgumentException.class, () -> compiled.run("3", "s"));
+		assertThrows(IllegalArgumentException.class, () -> compiled.run(null, "s"));
+		assertThrows(IllegalArgumentException.class, () -> compiled.run(3, 4));
+		assertThrows(IllegalArgumentException.class, () -> compiled.run(3));
+	}
+
+	@Test
+	void runtimeErrors() throws PLCCompilerException {
+		String input = """
+				int f(int a) <:
+				image i;
+				if a == 1 -> <: i = BLUE; :> fi;
+				do a > 6 -> <: write 3 / (a - 7); a = a - 1; :> od;
+				do 6 / (a - 4) > 1 -> <: a = a - 1; :> od;
+				^ 3 / a;
+				:>
+				""";
+		assertEquals(1, compare(input, 2));
+		// in the return, the assignment, a statement in a loop and a guard tested after its block ran
+		for (int a : new int[] { 0, 1, 8, 5 }) {
+			assertInstanceOf(PLCRuntimeException.class, compare(input, a));
+		}
+		assertInstanceOf(PLCRuntimeException.class, compare("pixel f(image a) <: ^ a[1,5]; :>", new Raster(2, 2)));
+		for (String use : InterpreterTest.NO_VALUE) {
+			assertInstanceOf(PLCRuntimeException.class, compare(InterpreterTest.noValue(use)), use);
+		}
+	}
+
+	@Test
+	void pixelLoops() throws PLCCompilerException {
+		// the third loop reads pixels it writes, so it must run x in the outer loop
+		String input = """
+				image f(int w, int h) <:
+				image[w,h] a;
+				a[x,y] = [x * 10, y * 20, x + y];
+				a[x,y]:blue = (x + 2) * y;
+				a[x,y] = ? x > 1 && y < h - 1 -> a[x - 1, y + 1] + [1, 2, 3] , a[x,y];
+				a[x,y]:red = a[x,y]:green / 2;
+				^ a;
+				:>
+				""";
+		Raster result = (Raster) compare(input, 5, 4);
+		assertEquals(5, result.width());
+		compare(input, 1, 4);
+		// im == c reads all of im, which the loop changes as it goes
+		String reads = """
+				pixel f() <:
+				image[2,2] im;
+				im[x,y] = BLUE;
+				image[2,2] c;
+				c[x,y] = BLUE;
+				c[1-1,1-1] = RED;
+				c[1-1,1] = RED;
+				im[x,y] = ? im == c -> GREEN , RED;
+				^ im[1,1-1];
+				:>
+				""";
+		assertEquals(0xFF00FF00, compare(reads));
+	}
+}
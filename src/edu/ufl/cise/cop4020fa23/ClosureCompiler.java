@@ -0,0 +1,808 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Objects;
+
+import edu.ufl.cise.cop4020fa23.Interpreter.Frame;
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+import edu.ufl.cise.cop4020fa23.runtime.IntOps;
+import edu.ufl.cise.cop4020fa23.runtime.PixelOps;
+import edu.ufl.cise.cop4020fa23.runtime.Raster;
+
+/*
+ * Compiles a type checked Program to a tree of closures, which runs it as the Interpreter does.
+ *
+ * Each node is compiled once to a lambda specialized for its type, operator and operands: an
+ * IntNode for an int or pixel expression, a BooleanNode, a RefNode for a string or an image, and
+ * a StatementNode for a statement or declaration.  The switches on types and operators, the
+ * lookup of slots and the parsing of literals are done while compiling, so running a node only
+ * calls the closures of its children.  Compiling costs about as much as one walk of the tree, far
+ * less than generating and loading a class, and the closures run several times faster than the
+ * Interpreter, though slower than the BytecodeCompiler's code.
+ *
+ * Values are kept in an Interpreter.Frame, and runtime errors are given the location of the
+ * statement that failed, found while compiling.
+ *
+ * Expression visit methods return the node for the expression, statement visit methods the
+ * StatementNode.
+ */
+public class ClosureCompiler implements GenericASTVisitor<Object, Void> {
+
+    @FunctionalInterface
+    interface IntNode {
+        int eval(Frame frame) throws PLCRuntimeException;
+    }
+
+    @FunctionalInterface
+    interface BooleanNode {
+        boolean eval(Frame frame) throws PLCRuntimeException;
+    }
+
+    @FunctionalInterface
+    interface RefNode {
+        Object eval(Frame frame) throws PLCRuntimeException;
+    }
+
+    @FunctionalInterface
+    interface StatementNode {
+        /**
+         * @return true if a return statement ran, with the value in frame.result
+         */
+        boolean exec(Frame frame) throws PLCRuntimeException;
+    }
+
+    /**
+     * A program compiled by compile, which may be run any number of times and on several threads.
+     */
+    public static final class ClosureProgram {
+        private final Program program;
+        private final StatementNode body;
+
+        private ClosureProgram(Program program, StatementNode body) {
+            this.program = program;
+            this.body = body;
+        }
+
+        public String name() {
+            return program.getName();
+        }
+
+        /**
+         * Runs the program as Interpreter.run does.
+         */
+        public Object run(Object... args) throws PLCRuntimeException {
+            Frame frame = Frame.of(program, args);
+            body.exec(frame);
+            return frame.result;
+        }
+    }
+
+    private final PrintStream out;
+
+    public ClosureCompiler() {
+        this(System.out);
+    }
+
+    /**
+     * @param out where write statements of the compiled programs print
+     */
+    public ClosureCompiler(PrintStream out) {
+        this.out = out;
+    }
+
+    public ClosureProgram compile(Program program) throws PLCCompilerException {
+        if (program.getType() == null) {
+            throw new IllegalArgumentException("program " + program.getName() + " has not been type checked");
+        }
+        return new ClosureProgram(program, (StatementNode) program.accept(this, null));
+    }
+
+    private IntNode intNode(Expr expr) throws PLCCompilerException {
+        return (IntNode) expr.accept(this, null);
+    }
+
+    private BooleanNode booleanNode(Expr expr) throws PLCCompilerException {
+        return (BooleanNode) expr.accept(this, null);
+    }
+
+    private RefNode refNode(Expr expr) throws PLCCompilerException {
+        return (RefNode) expr.accept(this, null);
+    }
+
+    private StatementNode statementNode(AST node) throws PLCCompilerException {
+        return (StatementNode) node.accept(this, null);
+    }
+
+    // the value of an expr assigned to a pixel, where an int gives a gray pixel
+    private IntNode pixelNode(Expr expr) throws PLCCompilerException {
+        IntNode value = intNode(expr);
+        return expr.getType() == Type.INT ? frame -> PixelOps.gray(value.eval(frame)) : value;
+    }
+
+    // the value of an expr assigned to an image: a Raster, read from the location for a string
+    private RefNode imageNode(Expr expr) throws PLCCompilerException {
+        RefNode value = refNode(expr);
+        return expr.getType() == Type.STRING ? frame -> Raster.read((String) value.eval(frame)) : value;
+    }
+
+    private static IllegalStateException wrongType(Expr expr) {
+        return new IllegalStateException("compiler bug: expression of type " + expr.getType() + " at "
+                + TypeCheckVisitor.locate(expr));
+    }
+
+
+    /* ======================= program and statements ======================= */
+
+    @Override
+    public Object visitProgram(Program program, Void arg) throws PLCCompilerException {
+        return program.getBlock().accept(this, arg);
+    }
+
+    @Override
+    public Object visitBlock(Block block, Void arg) throws PLCCompilerException {
+        List<Block.BlockElem> elems = block.getElems();
+        StatementNode[] nodes = new StatementNode[elems.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = located(statementNode(elems.get(i)), TypeCheckVisitor.locate(elems.get(i)));
+        }
+        if (nodes.length == 1) {
+            return nodes[0];
+        }
+        return (StatementNode) frame -> {
+            for (StatementNode node : nodes) {
+                if (node.exec(frame)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static StatementNode located(StatementNode node, SourceLocation location) {
+        return frame -> {
+            try {
+                return node.exec(frame);
+            } catch (PLCRuntimeException e) {
+                if (e.getLocation() != null) {
+                    throw e;
+                }
+                throw new PLCRuntimeException(location, e.getMessage());
+            }
+        };
+    }
+
+    // the slot may have held a variable of an earlier block, or this one in an earlier iteration,
+    // so a declaration without an initializer resets it
+    @Override
+    public Object visitDeclaration(Declaration declaration, Void arg) throws PLCCompilerException {
+        NameDef nameDef = declaration.getNameDef();
+        Expr initializer = declaration.getInitializer();
+        int slot = nameDef.getSlot();
+        switch (nameDef.getType()) {
+            case INT, PIXEL -> {
+                if (initializer == null) {
+                    return (StatementNode) frame -> {
+                        frame.ints[slot] = 0;
+                        return false;
+                    };
+                }
+                IntNode value = intNode(initializer);
+                return (StatementNode) frame -> {
+                    frame.ints[slot] = value.eval(frame);
+                    return false;
+                };
+            }
+            case BOOLEAN -> {
+                BooleanNode value = initializer == null ? frame -> false : booleanNode(initializer);
+                return (StatementNode) frame -> {
+                    frame.ints[slot] = value.eval(frame) ? 1 : 0;
+                    return false;
+                };
+            }
+            case STRING -> {
+                RefNode value = initializer == null ? frame -> null : refNode(initializer);
+                return (StatementNode) frame -> {
+                    frame.refs[slot] = value.eval(frame);
+                    return false;
+                };
+            }
+            case IMAGE -> {
+                Dimension dimension = nameDef.getDimension();
+                RefNode value = initializer == null ? null : imageNode(initializer);
+                if (dimension == null) {
+                    return (StatementNode) frame -> {
+                        frame.refs[slot] = value == null ? null : ((Raster) value.eval(frame)).copy();
+                        return false;
+                    };
+                }
+                IntNode width = intNode(dimension.getWidth());
+                IntNode height = intNode(dimension.getHeight());
+                return (StatementNode) frame -> {
+                    Raster image = value == null ? null : (Raster) value.eval(frame);
+                    int w = width.eval(frame);
+                    int h = height.eval(frame);
+                    frame.refs[slot] = image == null ? new Raster(w, h) : image.resized(w, h);
+                    return false;
+                };
+            }
+            default -> throw new IllegalStateException("compiler bug: variable " + nameDef.getName() + " of type " + nameDef.getType());
+        }
+    }
+
+    @Override
+    public Object visitAssignmentStatement(AssignmentStatement assignmentStatement, Void arg) throws PLCCompilerException {
+        LValue lValue = assignmentStatement.getlValue();
+        Expr e = assignmentStatement.getE();
+        int slot = lValue.getSlot();
+        ChannelSelector channel = lValue.getChannelSelector();
+        switch (lValue.getVarType()) {
+            case INT -> {
+                IntNode value = intNode(e);
+                return (StatementNode) frame -> {
+                    frame.ints[slot] = value.eval(frame);
+                    return false;
+                };
+            }
+            case BOOLEAN -> {
+                BooleanNode value = booleanNode(e);
+                return (StatementNode) frame -> {
+                    frame.ints[slot] = value.eval(frame) ? 1 : 0;
+                    return false;
+                };
+            }
+            case STRING -> {
+                RefNode value = refNode(e);
+                return (StatementNode) frame -> {
+                    frame.refs[slot] = value.eval(frame);
+                    return false;
+                };
+            }
+            case PIXEL -> {
+                if (channel == null) {
+                    IntNode value = pixelNode(e);
+                    return (StatementNode) frame -> {
+                        frame.ints[slot] = value.eval(frame);
+                        return false;
+                    };
+                }
+                Kind color = channel.color();
+                IntNode value = intNode(e);
+                return (StatementNode) frame -> {
+                    frame.ints[slot] = PixelOps.withChannel(frame.ints[slot], color, value.eval(frame));
+                    return false;
+                };
+            }
+            case IMAGE -> {
+                return assignImage(lValue, e);
+            }
+            default -> throw new IllegalStateException("compiler bug: assignment to " + lValue.getName() + " of type " + lValue.getVarType());
+        }
+    }
+
+    private StatementNode assignImage(LValue lValue, Expr e) throws PLCCompilerException {
+        int slot = lValue.getSlot();
+        String name = lValue.getName();
+        PixelSelector pixel = lValue.getPixelSelector();
+        ChannelSelector channel = lValue.getChannelSelector();
+        if (pixel == null && channel == null && (e.getType() == Type.IMAGE || e.getType() == Type.STRING)) {
+            // an image without a size takes the one of the value
+            RefNode value = imageNode(e);
+            return frame -> {
+                frame.refs[slot] = Raster.assign((Raster) frame.refs[slot], (Raster) value.eval(frame));
+                return false;
+            };
+        }
+        if (pixel == null) {
+            if (channel == null) {
+                IntNode value = pixelNode(e);
+                return frame -> {
+                    target(frame, slot, name).fill(value.eval(frame));
+                    return false;
+                };
+            }
+            Kind color = channel.color();
+            IntNode value = intNode(e);
+            return frame -> {
+                target(frame, slot, name).setChannel(color, value.eval(frame));
+                return false;
+            };
+        }
+        Expr xExpr = pixel.xExpr();
+        Expr yExpr = pixel.yExpr();
+        boolean loopX = isImplicit(xExpr);
+        boolean loopY = isImplicit(yExpr);
+        int xSlot = loopX ? ((IdentExpr) xExpr).getSlot() : -1;
+        int ySlot = loopY ? ((IdentExpr) yExpr).getSlot() : -1;
+        IntNode x = loopX ? null : intNode(xExpr);
+        IntNode y = loopY ? null : intNode(yExpr);
+        Kind color = channel == null ? null : channel.color();
+        IntNode value = channel == null ? pixelNode(e) : intNode(e);
+        if (loopX && loopY) {
+            return DeadCodeEliminator.cannotFail(e) && DeadCodeEliminator.readsNoImage(e)
+                    ? pixelRows(slot, name, xSlot, ySlot, color, value)
+                    : pixelColumns(slot, name, xSlot, ySlot, color, value);
+        }
+        return frame -> {
+            Raster target = target(frame, slot, name);
+            int xFrom = loopX ? 0 : x.eval(frame);
+            int xTo = loopX ? target.width() : xFrom + 1;
+            int yFrom = loopY ? 0 : y.eval(frame);
+            int yTo = loopY ? target.height() : yFrom + 1;
+            for (int i = xFrom; i < xTo; i++) {
+                if (loopX) {
+                    frame.ints[xSlot] = i;
+                }
+                for (int j = yFrom; j < yTo; j++) {
+                    if (loopY) {
+                        frame.ints[ySlot] = j;
+                    }
+                    target.set(i, j, color == null ? value.eval(frame)
+                            : PixelOps.withChannel(target.get(i, j), color, value.eval(frame)));
+                }
+            }
+            return false;
+        };
+    }
+
+    /*
+     * im[x,y] = e over the pixels of im, indexed directly.  As e may read pixels of im, x is the
+     * outer loop like in the Interpreter, unless e cannot fail and so reads no image.
+     */
+    private static StatementNode pixelColumns(int slot, String name, int xSlot, int ySlot, Kind color, IntNode value) {
+        return frame -> {
+            Raster target = target(frame, slot, name);
+            int[] pixels = target.pixels();
+            int width = target.width();
+            int height = target.height();
+            int[] ints = frame.ints;
+            for (int x = 0; x < width; x++) {
+                ints[xSlot] = x;
+                for (int y = 0, i = x; y < height; y++, i += width) {
+                    ints[ySlot] = y;
+                    pixels[i] = color == null ? value.eval(frame) : PixelOps.withChannel(pixels[i], color, value.eval(frame));
+                }
+            }
+            return false;
+        };
+    }
+
+    private static StatementNode pixelRows(int slot, String name, int xSlot, int ySlot, Kind color, IntNode value) {
+        return frame -> {
+            Raster target = target(frame, slot, name);
+            int[] pixels = target.pixels();
+            int width = target.width();
+            int height = target.height();
+            int[] ints = frame.ints;
+            for (int y = 0, row = 0; y < height; y++, row += width) {
+                ints[ySlot] = y;
+                for (int x = 0; x < width; x++) {
+                    ints[xSlot] = x;
+                    pixels[row + x] = color == null ? value.eval(frame)
+                            : PixelOps.withChannel(pixels[row + x], color, value.eval(frame));
+                }
+            }
+            return false;
+        };
+    }
+
+    private static Raster target(Frame frame, int slot, String name) throws PLCRuntimeException {
+        Raster target = (Raster) frame.refs[slot];
+        if (target == null) {
+            throw new PLCRuntimeException("image " + name + " has no size");
+        }
+        return target;
+    }
+
+    // a coordinate that is a name bound by the assignment itself, like x in im[x,y] = ...
+    private static boolean isImplicit(Expr coordinate) {
+        return coordinate instanceof IdentExpr identExpr && identExpr.getNameDef() instanceof SyntheticNameDef;
+    }
+
+    @Override
+    public Object visitWriteStatement(WriteStatement writeStatement, Void arg) throws PLCCompilerException {
+        Expr e = writeStatement.getExpr();
+        switch (e.getType()) {
+            case INT -> {
+                IntNode value = intNode(e);
+                return (StatementNode) frame -> {
+                    out.println(value.eval(frame));
+                    return false;
+                };
+            }
+            case PIXEL -> {
+                IntNode value = intNode(e);
+                return (StatementNode) frame -> {
+                    out.println(PixelOps.toString(value.eval(frame)));
+                    return false;
+                };
+            }
+            case BOOLEAN -> {
+                BooleanNode value = booleanNode(e);
+                return (StatementNode) frame -> {
+                    out.println(value.eval(frame) ? "TRUE" : "FALSE");
+                    return false;
+                };
+            }
+            default -> {
+                RefNode value = refNode(e);
+                return (StatementNode) frame -> {
+                    out.println(value.eval(frame));
+                    return false;
+                };
+            }
+        }
+    }
+
+    private BooleanNode[] guards(List<GuardedBlock> guardedBlocks) throws PLCCompilerException {
+        BooleanNode[] guards = new BooleanNode[guardedBlocks.size()];
+        for (int i = 0; i < guards.length; i++) {
+            guards[i] = booleanNode(guardedBlocks.get(i).getGuard());
+        }
+        return guards;
+    }
+
+    private StatementNode[] blocks(List<GuardedBlock> guardedBlocks) throws PLCCompilerException {
+        StatementNode[] blocks = new StatementNode[guardedBlocks.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = statementNode(guardedBlocks.get(i).getBlock());
+        }
+        return blocks;
+    }
+
+    // the first guarded block whose guard is true is run, if any
+    @Override
+    public Object visitIfStatement(IfStatement ifStatement, Void arg) throws PLCCompilerException {
+        BooleanNode[] guards = guards(ifStatement.getGuardedBlocks());
+        StatementNode[] blocks = blocks(ifStatement.getGuardedBlocks());
+        return (StatementNode) frame -> {
+            for (int i = 0; i < guards.length; i++) {
+                if (guards[i].eval(frame)) {
+                    return blocks[i].exec(frame);
+                }
+            }
+            return false;
+        };
+    }
+
+    // repeats the if statement with the same guarded blocks until no guard is true
+    @Override
+    public Object visitDoStatement(DoStatement doStatement, Void arg) throws PLCCompilerException {
+        BooleanNode[] guards = guards(doStatement.getGuardedBlocks());
+        StatementNode[] blocks = blocks(doStatement.getGuardedBlocks());
+        return (StatementNode) frame -> {
+            next:
+            while (true) {
+                for (int i = 0; i < guards.length; i++) {
+                    if (guards[i].eval(frame)) {
+                        if (blocks[i].exec(frame)) {
+                            return true;
+                        }
+                        continue next;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Object visitReturnStatement(ReturnStatement returnStatement, Void arg) throws PLCCompilerException {
+        Expr e = returnStatement.getE();
+        switch (e.getType()) {
+            case INT, PIXEL -> {
+                IntNode value = intNode(e);
+                return (StatementNode) frame -> {
+                    frame.result = value.eval(frame);
+                    return true;
+                };
+            }
+            case BOOLEAN -> {
+                BooleanNode value = booleanNode(e);
+                return (StatementNode) frame -> {
+                    frame.result = value.eval(frame);
+                    return true;
+                };
+            }
+            default -> {
+                RefNode value = refNode(e);
+                return (StatementNode) frame -> {
+                    frame.result = value.eval(frame);
+                    return true;
+                };
+            }
+        }
+    }
+
+    @Override
+    public Object visitBlockStatement(StatementBlock statementBlock, Void arg) throws PLCCompilerException {
+        return statementBlock.getBlock().accept(this, arg);
+    }
+
+    // the nodes below are compiled with the node containing them
+
+    @Override
+    public Object visitGuardedBlock(GuardedBlock guardedBlock, Void arg) {
+        throw new IllegalStateException("compiler bug: GuardedBlock is handled by its parent");
+    }
+
+    @Override
+    public Object visitNameDef(NameDef nameDef, Void arg) {
+        throw new IllegalStateException("compiler bug: NameDef is handled by its parent");
+    }
+
+    @Override
+    public Object visitDimension(Dimension dimension, Void arg) {
+        throw new IllegalStateException("compiler bug: Dimension is handled by its parent");
+    }
+
+    @Override
+    public Object visitLValue(LValue lValue, Void arg) {
+        throw new IllegalStateException("compiler bug: LValue is handled by its parent");
+    }
+
+    @Override
+    public Object visitPixelSelector(PixelSelector pixelSelector, Void arg) {
+        throw new IllegalStateException("compiler bug: PixelSelector is handled by its parent");
+    }
+
+    @Override
+    public Object visitChannelSelector(ChannelSelector channelSelector, Void arg) {
+        throw new IllegalStateException("compiler bug: ChannelSelector is handled by its parent");
+    }
+
+
+    /* ======================= expressions ======================= */
+
+    @Override
+    public Object visitBinaryExpr(BinaryExpr binaryExpr, Void arg) throws PLCCompilerException {
+        Kind op = binaryExpr.getOpKind();
+        Expr leftExpr = binaryExpr.getLeftExpr();
+        Expr rightExpr = binaryExpr.getRightExpr();
+        switch (binaryExpr.getType()) {
+            case STRING -> {
+                RefNode left = refNode(leftExpr);
+                RefNode right = refNode(rightExpr);
+                return (RefNode) frame -> (String) left.eval(frame) + right.eval(frame);
+            }
+            case IMAGE -> {
+                RefNode left = refNode(leftExpr);
+                if (rightExpr.getType() == Type.INT) {
+                    IntNode right = intNode(rightExpr);
+                    return (RefNode) frame -> ((Raster) left.eval(frame)).binaryScalar(op, right.eval(frame));
+                }
+                RefNode right = refNode(rightExpr);
+                return (RefNode) frame -> ((Raster) left.eval(frame)).binary(op, (Raster) right.eval(frame));
+            }
+            case PIXEL -> {
+                IntNode left = intNode(leftExpr);
+                IntNode right = intNode(rightExpr);
+                if (rightExpr.getType() == Type.PIXEL) {
+                    return (IntNode) frame -> PixelOps.binary(op, left.eval(frame), right.eval(frame));
+                }
+                return (IntNode) frame -> PixelOps.binaryScalar(op, left.eval(frame), right.eval(frame));
+            }
+            case INT -> {
+                return intBinary(op, leftExpr, rightExpr);
+            }
+            case BOOLEAN -> {
+                return booleanBinary(op, leftExpr, rightExpr);
+            }
+            default -> throw wrongType(binaryExpr);
+        }
+    }
+
+    // a literal or a variable as the right operand, as in i + 1 or a * b, is read by the closure
+    // of the operator itself
+    private IntNode intBinary(Kind op, Expr leftExpr, Expr rightExpr) throws PLCCompilerException {
+        IntNode left = intNode(leftExpr);
+        if (rightExpr instanceof NumLitExpr numLitExpr) {
+            int right = Integer.parseInt(numLitExpr.getText());
+            switch (op) {
+                case PLUS -> {
+                    return frame -> left.eval(frame) + right;
+                }
+                case MINUS -> {
+                    return frame -> left.eval(frame) - right;
+                }
+                case TIMES -> {
+                    return frame -> left.eval(frame) * right;
+                }
+                default -> {
+                }
+            }
+        } else if (rightExpr instanceof IdentExpr identExpr) {
+            int slot = identExpr.getSlot();
+            switch (op) {
+                case PLUS -> {
+                    return frame -> left.eval(frame) + frame.ints[slot];
+                }
+                case MINUS -> {
+                    return frame -> left.eval(frame) - frame.ints[slot];
+                }
+                case TIMES -> {
+                    return frame -> left.eval(frame) * frame.ints[slot];
+                }
+                default -> {
+                }
+            }
+        }
+        IntNode right = intNode(rightExpr);
+        return switch (op) {
+            case PLUS -> frame -> left.eval(frame) + right.eval(frame);
+            case MINUS -> frame -> left.eval(frame) - right.eval(frame);
+            case TIMES -> frame -> left.eval(frame) * right.eval(frame);
+            case DIV -> frame -> IntOps.div(left.eval(frame), right.eval(frame));
+            case EXP -> frame -> IntOps.pow(left.eval(frame), right.eval(frame));
+            default -> throw new IllegalStateException("compiler bug: int operator " + op);
+        };
+    }
+
+    private BooleanNode booleanBinary(Kind op, Expr leftExpr, Expr rightExpr) throws PLCCompilerException {
+        switch (op) {
+            // + on booleans is allowed by TypeRules and taken as or
+            case AND, OR, PLUS -> {
+                BooleanNode left = booleanNode(leftExpr);
+                BooleanNode right = booleanNode(rightExpr);
+                return op == Kind.AND ? frame -> left.eval(frame) && right.eval(frame)
+                        : frame -> left.eval(frame) || right.eval(frame);
+            }
+            case EQ -> {
+                switch (leftExpr.getType()) {
+                    case INT, PIXEL -> {
+                        IntNode left = intNode(leftExpr);
+                        IntNode right = intNode(rightExpr);
+                        return frame -> left.eval(frame) == right.eval(frame);
+                    }
+                    case BOOLEAN -> {
+                        BooleanNode left = booleanNode(leftExpr);
+                        BooleanNode right = booleanNode(rightExpr);
+                        return frame -> left.eval(frame) == right.eval(frame);
+                    }
+                    default -> {
+                        RefNode left = refNode(leftExpr);
+                        RefNode right = refNode(rightExpr);
+                        return frame -> Objects.equals(left.eval(frame), right.eval(frame));
+                    }
+                }
+            }
+            default -> {
+                IntNode left = intNode(leftExpr);
+                IntNode right = intNode(rightExpr);
+                return switch (op) {
+                    case LT -> frame -> left.eval(frame) < right.eval(frame);
+                    case GT -> frame -> left.eval(frame) > right.eval(frame);
+                    case LE -> frame -> left.eval(frame) <= right.eval(frame);
+                    case GE -> frame -> left.eval(frame) >= right.eval(frame);
+                    default -> throw new IllegalStateException("compiler bug: boolean operator " + op);
+                };
+            }
+        }
+    }
+
+    @Override
+    public Object visitUnaryExpr(UnaryExpr unaryExpr, Void arg) throws PLCCompilerException {
+        Expr e = unaryExpr.getExpr();
+        switch (unaryExpr.getOp()) {
+            case MINUS -> {
+                IntNode value = intNode(e);
+                return (IntNode) frame -> -value.eval(frame);
+            }
+            case BANG -> {
+                BooleanNode value = booleanNode(e);
+                return (BooleanNode) frame -> !value.eval(frame);
+            }
+            case RES_width -> {
+                RefNode image = refNode(e);
+                return (IntNode) frame -> ((Raster) image.eval(frame)).width();
+            }
+            case RES_height -> {
+                RefNode image = refNode(e);
+                return (IntNode) frame -> ((Raster) image.eval(frame)).height();
+            }
+            default -> throw wrongType(unaryExpr);
+        }
+    }
+
+    @Override
+    public Object visitConditionalExpr(ConditionalExpr conditionalExpr, Void arg) throws PLCCompilerException {
+        BooleanNode guard = booleanNode(conditionalExpr.getGuardExpr());
+        Expr trueExpr = conditionalExpr.getTrueExpr();
+        Expr falseExpr = conditionalExpr.getFalseExpr();
+        switch (conditionalExpr.getType()) {
+            case INT, PIXEL -> {
+                IntNode t = intNode(trueExpr);
+                IntNode f = intNode(falseExpr);
+                return (IntNode) frame -> guard.eval(frame) ? t.eval(frame) : f.eval(frame);
+            }
+            case BOOLEAN -> {
+                BooleanNode t = booleanNode(trueExpr);
+                BooleanNode f = booleanNode(falseExpr);
+                return (BooleanNode) frame -> guard.eval(frame) ? t.eval(frame) : f.eval(frame);
+            }
+            default -> {
+                RefNode t = refNode(trueExpr);
+                RefNode f = refNode(falseExpr);
+                return (RefNode) frame -> guard.eval(frame) ? t.eval(frame) : f.eval(frame);
+            }
+        }
+    }
+
+    @Override
+    public Object visitIdentExpr(IdentExpr identExpr, Void arg) {
+        int slot = identExpr.getSlot();
+        String name = identExpr.getName();
+        return switch (identExpr.getType()) {
+            case INT, PIXEL -> (IntNode) frame -> frame.ints[slot];
+            case BOOLEAN -> (BooleanNode) frame -> frame.ints[slot] != 0;
+            case IMAGE -> (RefNode) frame -> Raster.valueOf((Raster) frame.refs[slot], name);
+            default -> (RefNode) frame -> frame.refs[slot];
+        };
+    }
+
+    // image[x,y] is a PIXEL, image[x,y]:c and pixel:c are INT, image:c is an IMAGE
+    @Override
+    public Object visitPostfixExpr(PostfixExpr postfixExpr, Void arg) throws PLCCompilerException {
+        Expr primary = postfixExpr.primary();
+        PixelSelector pixel = postfixExpr.pixel();
+        ChannelSelector channel = postfixExpr.channel();
+        Kind color = channel == null ? null : channel.color();
+        switch (postfixExpr.getType()) {
+            case IMAGE, STRING -> {
+                RefNode value = refNode(primary);
+                return color == null ? value : (RefNode) frame -> ((Raster) value.eval(frame)).channel(color);
+            }
+            case BOOLEAN -> {
+                return booleanNode(primary);
+            }
+            default -> {
+                IntNode value;
+                if (pixel == null) {
+                    value = intNode(primary);
+                } else {
+                    RefNode image = refNode(primary);
+                    IntNode x = intNode(pixel.xExpr());
+                    IntNode y = intNode(pixel.yExpr());
+                    value = frame -> ((Raster) image.eval(frame)).get(x.eval(frame), y.eval(frame));
+                }
+                return color == null ? value : (IntNode) frame -> PixelOps.channel(value.eval(frame), color);
+            }
+        }
+    }
+
+    @Override
+    public Object visitStringLitExpr(StringLitExpr stringLitExpr, Void arg) {
+        String text = stringLitExpr.getText();
+        String value = text.substring(1, text.length() - 1);
+        return (RefNode) frame -> value;
+    }
+
+    @Override
+    public Object visitNumLitExpr(NumLitExpr numLitExpr, Void arg) {
+        int value = Integer.parseInt(numLitExpr.getText());
+        return (IntNode) frame -> value;
+    }
+
+    @Override
+    public Object visitBooleanLitExpr(BooleanLitExpr booleanLitExpr, Void arg) {
+        boolean value = booleanLitExpr.getText().equals("TRUE");
+        return (BooleanNode) frame -> value;
+    }
+
+    @Override
+    public Object visitConstExpr(ConstExpr constExpr, Void arg) {
+        String name = constExpr.getName();
+        int value = name.equals("Z") ? 255 : PixelOps.constant(name);
+        return (IntNode) frame -> value;
+    }
+
+    @Override
+    public Object visitExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Void arg) throws PLCCompilerException {
+        IntNode red = intNode(expandedPixelExpr.getRed());
+        IntNode green = intNode(expandedPixelExpr.getGreen());
+        IntNode blue = intNode(expandedPixelExpr.getBlue());
+        return (IntNode) frame -> PixelOps.pack(red.eval(frame), green.eval(frame), blue.eval(frame));
+    }
+}
@@ -0,0 +1,133 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+import edu.ufl.cise.cop4020fa23.runtime.Raster;
+
+class ClosureCompilerTest {
+
+	static Program checked(String input) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeTypeCheckingParser(input).parse();
+	}
+
+	// runs input compiled and interpreted, and checks that both return and write the same
+	static Object compare(String input, Object... args) throws PLCCompilerException {
+		Program program = checked(input);
+		ByteArrayOutputStream interpreted = new ByteArrayOutputStream();
+		Object expected = new Interpreter(new PrintStream(interpreted, true)).run(program, args);
+		ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+		assertEquals(expected, new ClosureCompiler(new PrintStream(compiled, true)).compile(program).run(args));
+		assertEquals(interpreted.toString(), compiled.toString());
+		return expected;
+	}
+
+	@Test
+	void intsBooleansAndStrings() throws PLCCompilerException {
+		String input = """
+				int f(int a, int b) <:
+				int c = (a + b) * 2 - a / b;
+				boolean big = c > 20 && !(a == b) || FALSE;
+				write big;
+				do c > 100 -> <: c = c / 2; :> od;
+				^ ? big -> c ** 2 , -c;
+				:>
+				""";
+		assertEquals(-18, compare(input, 7, 3));
+		assertEquals(6084, compare(input, 90, 3));
+		assertEquals("ab...", compare("""
+				string f(string s, int n) <:
+				string t = s;
+				int i = 1;
+				do i < n -> <: string u = t + "."; t = u; i = i + 1; :> od;
+				if t == "ab..." -> <: write "matched"; :>
+				[] TRUE -> <: <: int j = i; write j; :>; :>
+				fi;
+				^ t;
+				:>
+				""", "ab", 4));
+	}
+
+	@Test
+	void images() throws PLCCompilerException {
+		Raster result = (Raster) compare("""
+				image f(int w, pixel q) <:
+				image[w,3] a;
+				a[x,y] = [x * 10, y * 20, 1];
+				a[x,y]:blue = x + y;
+				a[1,1] = RED;
+				a[2,y] = q;
+				pixel p = a[3,2] & [255, 1, 255];
+				p:green = 77;
+				write p;
+				image b = a;
+				b:green = 9;
+				^ a + b:red - 2;
+				:>
+				""", 4, 0xFF102030);
+		assertEquals(3, result.height());
+	}
+
+	@Test
+	void runtimeErrors() throws PLCCompilerException {
+		Program checked = checked("""
+				int f(int a) <:
+				int b = 3;
+				<: ^ b / a; :>;
+				:>
+				""");
+		ClosureCompiler.ClosureProgram program = new ClosureCompiler().compile(checked);
+		assertEquals(1, program.run(3));
+		PLCRuntimeException e = assertThrows(PLCRuntimeException.class, () -> program.run(0));
+		assertNotNull(e.getLocation());
+		// the location of the division, as the Interpreter reports it
+		assertEquals(assertThrows(PLCRuntimeException.class, () -> new Interpreter().run(checked, 0)).getLocation(), e.getLocation());
+		for (String use : InterpreterTest.NO_VALUE) {
+			Program noValue = checked(InterpreterTest.noValue(use));
+			PLCRuntimeException expected = assertThrows(PLCRuntimeException.class, () -> new Interpreter().run(noValue), use);
+			assertEquals(expected.getMessage(),
+					assertThrows(PLCRuntimeException.class, () -> new ClosureCompiler().compile(noValue).run(), use).getMessage());
+		}
+	}
+
+	@Test
+	void pixelLoops() throws PLCCompilerException {
+		// the third loop reads pixels it writes, so it must run x in the outer loop
+		String input = """
+				image f(int w, int h) <:
+				image[w,h] a;
+				a[x,y] = [x * 10, y * 20, x + y];
+				a[x,y]:blue = (x + 2) * y;
+				a[x,y] = ? x > 1 && y < h - 1 -> a[x - 1, y + 1] + [1, 2, 3] , a[x,y];
+				a[x,y]:red = a[x,y]:green / 2;
+				^ a;
+				:>
+				""";
+		Raster result = (Raster) compare(input, 5, 4);
+		assertEquals(5, result.width());
+		compare(input, 1, 4);
+		// im == c reads all of im, which the loop changes as it goes
+		String reads = """
+				pixel f() <:
+				image[2,2] im;
+				im[x,y] = BLUE;
+				image[2,2] c;
+				c[x,y] = BLUE;
+				c[1-1,1-1] = RED;
+				c[1-1,1] = RED;
+				im[x,y] = ? im == c -> GREEN , RED;
+				^ im[1,1-1];
+				:>
+				""";
+		assertEquals(0xFF00FF00, compare(reads));
+	}
+}
@@ -0,0 +1,501 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
+
+/**
+ * Evaluates the repeated subexpressions of a type checked Program once, into temporaries.
+ *
+ * The declarations and assignment, write and return statements between two if, do or block
+ * statements run one after the other.  Within such a run two expressions have the same value if
+ * they apply the same operators to the same variables, none of which was assigned in between,
+ * and, if they read pixels or sizes of images, no image was assigned in between.  This is
+ * decided by numbering values rather than with AST.equals, which compares source positions and
+ * names instead of NameDefs.
+ *
+ * An int, pixel, boolean or string expression with an operator that occurs more than once in a
+ * run is declared as a temporary before the statement of its first occurrence, and each
+ * occurrence reads the temporary.  An occurrence of the initializer of a variable declared
+ * earlier in the run reads the variable, if the variable has the type of the expression; an int
+ * assigned to a pixel or a string assigned to an image is converted, so the variable does not
+ * hold its value.  Evaluating an expression before its statement must not change the program,
+ * so the expression cannot fail (see DeadCodeEliminator.cannotFail), or it is the first thing
+ * its statement evaluates that can fail and it is not in a branch of ? or the right operand of
+ * && or ||.
+ *
+ * In an assignment like im[x,y] = e, e is evaluated for each pixel, so a subexpression of e that
+ * does not depend on the implicit x and y, cannot fail and reads no image (see
+ * DeadCodeEliminator.readsNoImage) is evaluated once, before the loop.  One that reads an image
+ * would miss the pixels the loop writes, as in im[x,y] = ? im == c -> GREEN , RED.
+ * Those that depend on x and y are not shared, as no node declares a temporary in an expression.
+ *
+ * Temporaries are named $t0, $t1, ..., which no program can declare, and take slots after the
+ * ones of the program's variables.  A runtime error in the initializer of a temporary is reported
+ * at the location of the statement it was taken from.  As with the other passes the input is
+ * not modified and unchanged subtrees are shared.
+ */
+public class CommonSubexpressionEliminator {
+
+    // an operator applied to value numbers, with the number of image assignments for one reading images
+    private record Key(Type type, Object op, int a, int b, int c, int images) {
+    }
+
+    private int frameSize;
+    private int temporaries;
+
+    /* the state of the run being numbered */
+    private final Map<Key, Integer> values = new HashMap<>();
+    private final Map<NameDef, Integer> variables = new IdentityHashMap<>();
+    private final Map<Expr, Integer> numbers = new IdentityHashMap<>();
+    private final Set<Integer> varying = new HashSet<>();
+    private final Map<Integer, NameDef> available = new HashMap<>();
+    private int nextNumber;
+    private int images;
+
+    /*
+     * the occurrences found in the run and what to do with them.  Occurrences are numbered in the
+     * order they are found, as a node of a hash-consed program (see ExprInterner) can occur more
+     * than once.
+     */
+    private final Map<Integer, Integer> counts = new HashMap<>();
+    private final Set<Integer> firsts = new HashSet<>();
+    private final Set<Integer> repeats = new HashSet<>();
+    private final Map<Integer, NameDef> reads = new HashMap<>();
+    private int occurrence;
+    private final Map<Integer, NameDef> temps = new HashMap<>();
+
+    /* the statement being scanned */
+    private boolean mayFail;
+    private boolean loop;
+
+    private CommonSubexpressionEliminator(int frameSize) {
+        this.frameSize = frameSize;
+    }
+
+    /**
+     * @return program evaluating its common subexpressions once, or program itself if it has none
+     */
+    public static Program eliminate(Program program) {
+        if (program.getType() == null) {
+            throw new IllegalArgumentException("program " + program.getName() + " has not been type checked");
+        }
+        CommonSubexpressionEliminator eliminator = new CommonSubexpressionEliminator(program.getFrameSize());
+        Block block = eliminator.eliminate(program.getBlock());
+        if (block == program.getBlock()) {
+            return program;
+        }
+        Program result = new Program(program.firstToken(), program.getTypeToken(), program.getNameToken(),
+                program.getParams(), block);
+        result.setType(program.getType());
+        result.setFrameSize(eliminator.frameSize);
+        return result;
+    }
+
+
+    /* ======================= blocks ======================= */
+
+    private Block eliminate(Block block) {
+        List<BlockElem> elems = block.getElems();
+        List<BlockElem> result = new ArrayList<>(elems.size());
+        List<BlockElem> run = new ArrayList<>();
+        boolean changed = false;
+        for (BlockElem elem : elems) {
+            if (elem instanceof Declaration || elem instanceof AssignmentStatement
+                    || elem instanceof WriteStatement || elem instanceof ReturnStatement) {
+                run.add(elem);
+                continue;
+            }
+            changed |= eliminate(run, result);
+            run.clear();
+            BlockElem e = eliminate(elem);
+            result.add(e);
+            changed |= e != elem;
+        }
+        changed |= eliminate(run, result);
+        return changed ? ConstantFolder.withElems(block, result) : block;
+    }
+
+    private BlockElem eliminate(BlockElem elem) {
+        if (elem instanceof StatementBlock statementBlock) {
+            Block block = eliminate(statementBlock.getBlock());
+            return block == statementBlock.getBlock() ? statementBlock : new StatementBlock(statementBlock.firstToken(), block);
+        } else if (elem instanceof IfStatement ifStatement) {
+            List<GuardedBlock> guardedBlocks = eliminate(ifStatement.getGuardedBlocks());
+            return guardedBlocks == null ? ifStatement : new IfStatement(ifStatement.firstToken(), guardedBlocks);
+        } else if (elem instanceof DoStatement doStatement) {
+            List<GuardedBlock> guardedBlocks = eliminate(doStatement.getGuardedBlocks());
+            return guardedBlocks == null ? doStatement : new DoStatement(doStatement.firstToken(), guardedBlocks);
+        }
+        return elem;
+    }
+
+    // the guarded blocks with their blocks rewritten, or null if none changed
+    private List<GuardedBlock> eliminate(List<GuardedBlock> guardedBlocks) {
+        List<GuardedBlock> result = new ArrayList<>(guardedBlocks.size());
+        boolean changed = false;
+        for (GuardedBlock guardedBlock : guardedBlocks) {
+            Block block = eliminate(guardedBlock.getBlock());
+            result.add(block == guardedBlock.getBlock() ? guardedBlock
+                    : new GuardedBlock(guardedBlock.firstToken(), guardedBlock.getGuard(), block));
+            changed |= block != guardedBlock.getBlock();
+        }
+        return changed ? result : null;
+    }
+
+    // adds the elements of run, with temporaries, to result, and returns true if that changed them
+    private boolean eliminate(List<BlockElem> run, List<BlockElem> result) {
+        if (run.isEmpty()) {
+            return false;
+        }
+        for (BlockElem elem : run) {
+            scan(elem);
+        }
+        occurrence = 0;
+        boolean changed = false;
+        for (BlockElem elem : run) {
+            BlockElem e = rewrite(elem, result);
+            result.add(e);
+            changed |= e != elem;
+        }
+        values.clear();
+        variables.clear();
+        numbers.clear();
+        varying.clear();
+        available.clear();
+        counts.clear();
+        firsts.clear();
+        repeats.clear();
+        reads.clear();
+        occurrence = 0;
+        temps.clear();
+        return changed;
+    }
+
+
+    /* ======================= value numbers ======================= */
+
+    private int number(Expr e) {
+        Integer n = numbers.get(e);
+        if (n == null) {
+            n = numberOf(e);
+            numbers.put(e, n);
+        }
+        return n;
+    }
+
+    private int numberOf(Expr e) {
+        if (e instanceof IdentExpr identExpr) {
+            NameDef nameDef = identExpr.getNameDef();
+            Integer n = variables.get(nameDef);
+            if (n == null) {
+                n = assigned(nameDef);
+                if (nameDef instanceof SyntheticNameDef) {
+                    varying.add(n);
+                }
+            }
+            return n;
+        }
+        Key key;
+        int a = -1, b = -1, c = -1;
+        if (e instanceof BinaryExpr binaryExpr) {
+            a = number(binaryExpr.getLeftExpr());
+            b = number(binaryExpr.getRightExpr());
+            key = new Key(e.getType(), binaryExpr.getOpKind(), a, b, c, readsImages(binaryExpr.getLeftExpr()));
+        } else if (e instanceof UnaryExpr unaryExpr) {
+            a = number(unaryExpr.getExpr());
+            key = new Key(e.getType(), unaryExpr.getOp(), a, b, c, readsImages(unaryExpr.getExpr()));
+        } else if (e instanceof ConditionalExpr conditionalExpr) {
+            a = number(conditionalExpr.getGuardExpr());
+            b = number(conditionalExpr.getTrueExpr());
+            c = number(conditionalExpr.getFalseExpr());
+            key = new Key(e.getType(), Kind.QUESTION, a, b, c, 0);
+        } else if (e instanceof ExpandedPixelExpr expandedPixelExpr) {
+            a = number(expandedPixelExpr.getRed());
+            b = number(expandedPixelExpr.getGreen());
+            c = number(expandedPixelExpr.getBlue());
+            key = new Key(e.getType(), Kind.LSQUARE, a, b, c, 0);
+        } else if (e instanceof PostfixExpr postfixExpr) {
+            a = number(postfixExpr.primary());
+            if (postfixExpr.pixel() != null) {
+                b = number(postfixExpr.pixel().xExpr());
+                c = number(postfixExpr.pixel().yExpr());
+            }
+            ChannelSelector channel = postfixExpr.channel();
+            key = new Key(e.getType(), channel == null ? Kind.COLON : channel.color(), a, b, c, readsImages(postfixExpr.primary()));
+        } else {
+            // a literal or a constant
+            key = new Key(e.getType(), e.firstToken().text(), a, b, c, 0);
+        }
+        Integer n = values.get(key);
+        if (n == null) {
+            n = nextNumber++;
+            values.put(key, n);
+            if (varying.contains(a) || varying.contains(b) || varying.contains(c)) {
+                varying.add(n);
+            }
+        }
+        return n;
+    }
+
+    private int readsImages(Expr operand) {
+        return operand.getType() == Type.IMAGE ? images : 0;
+    }
+
+    // gives nameDef a new value number, and forgets the expressions it held
+    private int assigned(NameDef nameDef) {
+        int n = nextNumber++;
+        variables.put(nameDef, n);
+        available.values().removeIf(variable -> variable == nameDef);
+        return n;
+    }
+
+
+    /* ======================= finding occurrences ======================= */
+
+    private static boolean isCandidate(Expr e) {
+        return (e instanceof BinaryExpr || e instanceof UnaryExpr || e instanceof ConditionalExpr
+                || e instanceof ExpandedPixelExpr || e instanceof PostfixExpr) && e.getType() != Type.IMAGE;
+    }
+
+    private static boolean isImplicit(Expr coordinate) {
+        return coordinate instanceof IdentExpr identExpr && identExpr.getNameDef() instanceof SyntheticNameDef;
+    }
+
+    private void scan(BlockElem elem) {
+        mayFail = false;
+        loop = false;
+        if (elem instanceof Declaration declaration) {
+            NameDef nameDef = declaration.getNameDef();
+            Expr initializer = declaration.getInitializer();
+            // creating an image can fail before the initializer is evaluated
+            mayFail = nameDef.getDimension() != null;
+            if (initializer != null) {
+                scan(initializer, false);
+                if (isCandidate(initializer) && nameDef.getType() == initializer.getType()) {
+                    available.put(number(initializer), nameDef);
+                }
+            }
+        } else if (elem instanceof AssignmentStatement assignmentStatement) {
+            LValue lValue = assignmentStatement.getlValue();
+            Expr e = assignmentStatement.getE();
+            PixelSelector pixel = lValue.getPixelSelector();
+            boolean whole = pixel == null && lValue.getChannelSelector() == null;
+            if (lValue.getVarType() == Type.IMAGE) {
+                // the image may be written, and fail, before e is evaluated
+                mayFail = !whole;
+                loop = pixel != null && (isImplicit(pixel.xExpr()) || isImplicit(pixel.yExpr()));
+                if (loop) {
+                    // e may read pixels written by the loop
+                    images++;
+                }
+            }
+            scan(e, false);
+            assigned(lValue.getNameDef());
+            if (lValue.getVarType() == Type.IMAGE) {
+                images++;
+            } else if (whole && isCandidate(e) && lValue.getVarType() == e.getType()) {
+                available.put(number(e), lValue.getNameDef());
+            }
+        } else if (elem instanceof WriteStatement writeStatement) {
+            scan(writeStatement.getExpr(), false);
+        } else if (elem instanceof ReturnStatement returnStatement) {
+            scan(returnStatement.getE(), false);
+        }
+    }
+
+    // visits e and the subexpressions it evaluates, in the order they are evaluated
+    private void scan(Expr e, boolean conditional) {
+        if (isCandidate(e)) {
+            int i = occurrence++;
+            int n = number(e);
+            NameDef variable = available.get(n);
+            if (variable != null) {
+                reads.put(i, variable);
+                return;
+            }
+            Integer count = counts.get(n);
+            if (count != null) {
+                counts.put(n, count + 1);
+                repeats.add(i);
+                return;
+            }
+            boolean canFail = !DeadCodeEliminator.cannotFail(e);
+            boolean readsImage = !DeadCodeEliminator.readsNoImage(e);
+            if (!varying.contains(n) && !(loop && readsImage) && !(canFail && (conditional || loop || mayFail))) {
+                counts.put(n, loop ? 2 : 1);
+                firsts.add(i);
+                if (loop) {
+                    // evaluated for every pixel, so worth a temporary already, and its operands
+                    // are then evaluated once
+                    loop = false;
+                    scanOperands(e, conditional);
+                    loop = true;
+                    return;
+                }
+            }
+        }
+        scanOperands(e, conditional);
+    }
+
+    private void scanOperands(Expr e, boolean conditional) {
+        if (e instanceof BinaryExpr binaryExpr) {
+            scan(binaryExpr.getLeftExpr(), conditional);
+            Kind op = binaryExpr.getOpKind();
+            boolean shortCircuit = binaryExpr.getType() == Type.BOOLEAN && (op == Kind.AND || op == Kind.OR || op == Kind.PLUS);
+            scan(binaryExpr.getRightExpr(), conditional || shortCircuit);
+        } else if (e instanceof UnaryExpr unaryExpr) {
+            scan(unaryExpr.getExpr(), conditional);
+        } else if (e instanceof ConditionalExpr conditionalExpr) {
+            scan(conditionalExpr.getGuardExpr(), conditional);
+            scan(conditionalExpr.getTrueExpr(), true);
+            scan(conditionalExpr.getFalseExpr(), true);
+        } else if (e instanceof ExpandedPixelExpr expandedPixelExpr) {
+            scan(expandedPixelExpr.getRed(), conditional);
+            scan(expandedPixelExpr.getGreen(), conditional);
+            scan(expandedPixelExpr.getBlue(), conditional);
+        } else if (e instanceof PostfixExpr postfixExpr) {
+            scan(postfixExpr.primary(), conditional);
+            if (postfixExpr.pixel() != null) {
+                scan(postfixExpr.pixel().xExpr(), conditional);
+                scan(postfixExpr.pixel().yExpr(), conditional);
+            }
+        }
+        if (!DeadCodeEliminator.cannotFail(e)) {
+            mayFail = true;
+        }
+    }
+
+
+    /* ======================= rewriting ======================= */
+
+    // elem with its occurrences replaced, adding the temporaries it needs to result
+    private BlockElem rewrite(BlockElem elem, List<BlockElem> result) {
+        if (elem instanceof Declaration declaration) {
+            Expr initializer = declaration.getInitializer();
+            if (initializer == null) {
+                return declaration;
+            }
+            Expr e = rewrite(initializer, elem, result);
+            return e == initializer ? declaration : new Declaration(declaration.firstToken(), declaration.getNameDef(), e);
+        } else if (elem instanceof AssignmentStatement assignmentStatement) {
+            Expr e = rewrite(assignmentStatement.getE(), elem, result);
+            return e == assignmentStatement.getE() ? assignmentStatement
+                    : new AssignmentStatement(assignmentStatement.firstToken(), assignmentStatement.getlValue(), e);
+        } else if (elem instanceof WriteStatement writeStatement) {
+            Expr e = rewrite(writeStatement.getExpr(), elem, result);
+            return e == writeStatement.getExpr() ? writeStatement : new WriteStatement(writeStatement.firstToken(), e);
+        } else if (elem instanceof ReturnStatement returnStatement) {
+            Expr e = rewrite(returnStatement.getE(), elem, result);
+            return e == returnStatement.getE() ? returnStatement : new ReturnStatement(returnStatement.firstToken(), e);
+        }
+        return elem;
+    }
+
+    // visits the occurrences in the order scan found them
+    private Expr rewrite(Expr e, BlockElem elem, List<BlockElem> result) {
+        if (!isCandidate(e)) {
+            return rewriteOperands(e, elem, result);
+        }
+        int i = occurrence++;
+        NameDef variable = reads.get(i);
+        if (variable != null) {
+            return read(variable, e);
+        }
+        if (repeats.contains(i)) {
+            return read(temps.get(number(e)), e);
+        }
+        Expr rewritten = rewriteOperands(e, elem, result);
+        if (firsts.contains(i) && counts.get(number(e)) > 1) {
+            NameDef temp = temporary(rewritten, elem);
+            result.add(new Declaration(elem.firstToken(), temp, rewritten));
+            temps.put(number(e), temp);
+            return read(temp, e);
+        }
+        return rewritten;
+    }
+
+    private Expr rewriteOperands(Expr e, BlockElem elem, List<BlockElem> result) {
+        Expr rewritten = e;
+        if (e instanceof BinaryExpr binaryExpr) {
+            Expr left = rewrite(binaryExpr.getLeftExpr(), elem, result);
+            Expr right = rewrite(binaryExpr.getRightExpr(), elem, result);
+            if (left != binaryExpr.getLeftExpr() || right != binaryExpr.getRightExpr()) {
+                rewritten = new BinaryExpr(binaryExpr.firstToken(), left, binaryExpr.getOp(), right);
+            }
+        } else if (e instanceof UnaryExpr unaryExpr) {
+            Expr operand = rewrite(unaryExpr.getExpr(), elem, result);
+            if (operand != unaryExpr.getExpr()) {
+                rewritten = new UnaryExpr(unaryExpr.firstToken(), unaryExpr.getOpToken(), operand);
+            }
+        } else if (e instanceof ConditionalExpr conditionalExpr) {
+            Expr guard = rewrite(conditionalExpr.getGuardExpr(), elem, result);
+            Expr trueExpr = rewrite(conditionalExpr.getTrueExpr(), elem, result);
+            Expr falseExpr = rewrite(conditionalExpr.getFalseExpr(), elem, result);
+            if (guard != conditionalExpr.getGuardExpr() || trueExpr != conditionalExpr.getTrueExpr()
+                    || falseExpr != conditionalExpr.getFalseExpr()) {
+                rewritten = new ConditionalExpr(conditionalExpr.firstToken(), guard, trueExpr, falseExpr);
+            }
+        } else if (e instanceof ExpandedPixelExpr expandedPixelExpr) {
+            Expr red = rewrite(expandedPixelExpr.getRed(), elem, result);
+            Expr green = rewrite(expandedPixelExpr.getGreen(), elem, result);
+            Expr blue = rewrite(expandedPixelExpr.getBlue(), elem, result);
+            if (red != expandedPixelExpr.getRed() || green != expandedPixelExpr.getGreen()
+                    || blue != expandedPixelExpr.getBlue()) {
+                rewritten = new ExpandedPixelExpr(expandedPixelExpr.firstToken(), red, green, blue);
+            }
+        } else if (e instanceof PostfixExpr postfixExpr) {
+            Expr primary = rewrite(postfixExpr.primary(), elem, result);
+            PixelSelector pixel = postfixExpr.pixel();
+            PixelSelector rewrittenPixel = pixel;
+            if (pixel != null) {
+                Expr x = rewrite(pixel.xExpr(), elem, result);
+                Expr y = rewrite(pixel.yExpr(), elem, result);
+                if (x != pixel.xExpr() || y != pixel.yExpr()) {
+                    rewrittenPixel = new PixelSelector(pixel.firstToken(), x, y);
+                }
+            }
+            if (primary != postfixExpr.primary() || rewrittenPixel != pixel) {
+                rewritten = new PostfixExpr(postfixExpr.firstToken(), primary, rewrittenPixel, postfixExpr.channel());
+            }
+        }
+        if (rewritten != e) {
+            rewritten.setType(e.getType());
+        }
+        return rewritten;
+    }
+
+    // a new variable for the value of e, reporting errors at the location of elem
+    private NameDef temporary(Expr e, BlockElem elem) {
+        SourceLocation location = TypeCheckVisitor.locate(elem);
+        String name = "$t" + temporaries++;
+        Kind kind = switch (e.getType()) {
+            case INT -> Kind.RES_int;
+            case PIXEL -> Kind.RES_pixel;
+            case BOOLEAN -> Kind.RES_boolean;
+            case STRING -> Kind.RES_string;
+            default -> throw new IllegalStateException("compiler bug: temporary of type " + e.getType());
+        };
+        IToken typeToken = new Token(kind, 0, 0, kind.name().substring(4).toCharArray(), location);
+        IToken identToken = new Token(Kind.IDENT, 0, name.length(), name.toCharArray(), location);
+        NameDef temp = new NameDef(typeToken, typeToken, null, identToken);
+        temp.setSlot(frameSize++);
+        return temp;
+    }
+
+    // reads variable in place of e
+    private static IdentExpr read(NameDef variable, Expr e) {
+        IdentExpr identExpr = new IdentExpr(new Token(Kind.IDENT, 0, variable.getName().length(),
+                variable.getName().toCharArray(), e.firstToken().sourceLocation()));
+        identExpr.setNameDef(variable);
+        identExpr.setType(variable.getType());
+        return identExpr;
+    }
+}
@@ -0,0 +1,209 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.codegen.BytecodeCompiler;
+import edu.ufl.cise.cop4020fa23.codegen.JavaSourceCompiler;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+import edu.ufl.cise.cop4020fa23.runtime.ConsoleIO;
+import edu.ufl.cise.cop4020fa23.runtime.Raster;
+
+class CommonSubexpressionEliminatorTest {
+
+	static Program checked(String input) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeTypeCheckingParser(input).parse();
+	}
+
+	static Program eliminated(String input) throws PLCCompilerException {
+		return CommonSubexpressionEliminator.eliminate(checked(input));
+	}
+
+	static List<Block.BlockElem> elems(Program program) {
+		return program.getBlock().getElems();
+	}
+
+	static String name(Block.BlockElem declaration) {
+		return ((Declaration) declaration).getNameDef().getName();
+	}
+
+	// the program without common subexpressions returns and writes what the original does
+	static Object compare(String input, Object... args) throws PLCCompilerException {
+		ByteArrayOutputStream original = new ByteArrayOutputStream();
+		Object expected = new Interpreter(new PrintStream(original, true)).run(checked(input), args);
+		ByteArrayOutputStream eliminated = new ByteArrayOutputStream();
+		Object result = new Interpreter(new PrintStream(eliminated, true)).run(eliminated(input), args);
+		if (expected instanceof Raster raster) {
+			assertArrayEquals(raster.pixels(), ((Raster) result).pixels());
+		} else {
+			assertEquals(expected, result);
+		}
+		assertEquals(original.toString(), eliminated.toString());
+		return expected;
+	}
+
+	// what program returns and writes when run by the engine numbered engine
+	static String run(Program program, int engine, Object... args) throws PLCCompilerException {
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		PrintStream stream = new PrintStream(written, true);
+		PrintStream out = ConsoleIO.getOut();
+		ConsoleIO.setOut(stream);
+		try {
+			Object result = switch (engine) {
+				case 0 -> new Interpreter(stream).run(program, args);
+				case 1 -> new ClosureCompiler(stream).compile(program).run(args);
+				case 2 -> BytecodeCompiler.compile(program).run(args);
+				default -> JavaSourceCompiler.compile(program).run(args);
+			};
+			return result + "|" + written;
+		} finally {
+			ConsoleIO.setOut(out);
+		}
+	}
+
+	// the optimized program returns and writes what the original does in every engine
+	static void compareOptimized(String input, Object... args) throws PLCCompilerException {
+		for (int engine = 0; engine < 4; engine++) {
+			assertEquals(run(checked(input), engine, args),
+					run((Program) ComponentFactory.makeOptimizingParser(input).parse(), engine, args), input);
+		}
+	}
+
+	@Test
+	void sharedExpressions() throws PLCCompilerException {
+		String input = """
+				int f(int a, int b) <:
+				int c = (a + b) * (a + b);
+				write a + b;
+				int d = a * b;
+				write a * b;
+				a = a + 1;
+				write a + b;
+				^ c + d;
+				:>
+				""";
+		Program program = eliminated(input);
+		// $t0 = a + b is read three times, a * b is read from d, and a + b after a changed is computed again
+		assertEquals(8, elems(program).size());
+		assertEquals("$t0", name(elems(program).get(0)));
+		IdentExpr read = assertInstanceOf(IdentExpr.class, ((WriteStatement) elems(program).get(2)).getExpr());
+		assertSame(((Declaration) elems(program).get(0)).getNameDef(), read.getNameDef());
+		assertEquals("d", assertInstanceOf(IdentExpr.class, ((WriteStatement) elems(program).get(4)).getExpr()).getName());
+		assertInstanceOf(BinaryExpr.class, ((WriteStatement) elems(program).get(6)).getExpr());
+		assertEquals(checked(input).getFrameSize() + 1, program.getFrameSize());
+		Program unchanged = checked("int f(int a) <: write a + 1; a = a * 2; ^ a + 1; :>");
+		assertSame(unchanged, CommonSubexpressionEliminator.eliminate(unchanged));
+	}
+
+	@Test
+	void evaluationOrder() throws PLCCompilerException {
+		Program program = eliminated("""
+				int f(int a, image im) <:
+				int r = im[a,1]:red;
+				int g = ? a > 1 -> 6 / a , 1;
+				int h = im[a,1]:red + 6 / a;
+				int k = 6 / a;
+				im[1,1] = RED;
+				^ im[a,1]:red + r + g + h + k;
+				:>
+				""");
+		// 6 / a may not be evaluated before g, but is the first thing h evaluates that can fail
+		assertEquals(7, elems(program).size());
+		assertEquals("$t0", name(elems(program).get(2)));
+		BinaryExpr h = (BinaryExpr) ((Declaration) elems(program).get(3)).getInitializer();
+		assertEquals("r", assertInstanceOf(IdentExpr.class, h.getLeftExpr()).getName());
+		assertEquals("$t0", assertInstanceOf(IdentExpr.class, h.getRightExpr()).getName());
+		assertEquals("$t0", assertInstanceOf(IdentExpr.class, ((Declaration) elems(program).get(4)).getInitializer()).getName());
+		// w * 2 is evaluated once, before the loop, but a[1,1] changes in the loop
+		String loops = """
+				image f(int w) <:
+				image[w,w] a;
+				a[x,y] = [x * (w * 2), y, w * 2];
+				a[x,y] = a[x,y] + a[1,1];
+				^ a;
+				:>
+				""";
+		assertEquals(5, elems(eliminated(loops)).size());
+		compare(loops, 3);
+		// im == c reads pixels the loop writes, so it stays in the loop
+		String reads = """
+				pixel f() <:
+				image[2,2] im;
+				im[x,y] = BLUE;
+				image[2,2] c;
+				c[x,y] = BLUE;
+				c[1-1,1-1] = RED;
+				c[1-1,1] = RED;
+				im[x,y] = ? im == c -> GREEN , RED;
+				^ im[1,1-1];
+				:>
+				""";
+		assertEquals(elems(checked(reads)).size(), elems(eliminated(reads)).size());
+		assertEquals(0xFF00FF00, compare(reads));
+	}
+
+	@Test
+	void sameResults() throws PLCCompilerException {
+		String input = """
+				int f(int a, int b) <:
+				int c = a * b + a * b;
+				boolean p = a > b && a * b > 4;
+				do a < 100 -> <: a = a * 2 + b * 3; write b * 3; :> od;
+				if p -> <: write a * b; :> fi;
+				pixel q = [a / b, a / b, 3];
+				write q:red + q:green;
+				^ c + a * b;
+				:>
+				""";
+		assertEquals(456, compare(input, 3, 4));
+		Program program = (Program) ComponentFactory.makeOptimizingParser(input).parse();
+		assertEquals(456, new ClosureCompiler(new PrintStream(new ByteArrayOutputStream())).compile(program).run(3, 4));
+		assertEquals(456, BytecodeCompiler.compile(program).run(3, 4));
+		assertEquals(456, JavaSourceCompiler.compile(program).run(3, 4));
+		Program failing = checked("int f(int a) <: int b = 1 + 6 / a * (6 / a); ^ b; :>");
+		assertEquals(assertThrows(PLCRuntimeException.class, () -> new Interpreter().run(failing, 0)).getLocation(),
+				assertThrows(PLCRuntimeException.class,
+						() -> new Interpreter().run(CommonSubexpressionEliminator.eliminate(failing), 0)).getLocation());
+	}
+
+	// a variable whose value was converted from the expression does not hold the expression
+	@Test
+	void conversions(@TempDir Path dir) throws PLCCompilerException, IOException {
+		compareOptimized("""
+				int f(int a) <:
+				pixel p;
+				p = a + 4;
+				write a + 4;
+				^ a + 4;
+				:>
+				""", 3);
+		File file = dir.resolve("im.png").toFile();
+		ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), "png", file);
+		String path = file.getPath();
+		compareOptimized("""
+				string f(string s) <:
+				image im = s + ".png";
+				write s + ".png";
+				^ s + ".png";
+				:>
+				""", path.substring(0, path.length() - ".png".length()));
+	}
+}
@@ -0,0 +1,65 @@
+package edu.ufl.cise.cop4020fa23;
+
+import edu.ufl.cise.cop4020fa23.exceptions.ErrorCode;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Outcome of running (part of) the front end, for callers that would rather test a flag than
+ * catch an exception.  See ComponentFactory.tryParse and ComponentFactory.tryTypeCheck.
+ *
+ * A failed result keeps the exception that caused it.  With stack traces turned off
+ * (PLCCompilerException.setCaptureStackTrace(false)) that exception is cheap to create.
+ */
+public final class CompileResult<T> {
+
+    private final T value;
+    private final PLCCompilerException error;
+
+    private CompileResult(T value, PLCCompilerException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> CompileResult<T> success(T value) {
+        return new CompileResult<>(value, null);
+    }
+
+    public static <T> CompileResult<T> failure(PLCCompilerException error) {
+        return new CompileResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the result, or null if this is a failure
+     */
+    public T value() {
+        return value;
+    }
+
+    /**
+     * @return the exception describing the failure, or null if this is a success
+     */
+    public PLCCompilerException error() {
+        return error;
+    }
+
+    public ErrorCode errorCode() {
+        return error == null ? null : error.getErrorCode();
+    }
+
+    public SourceLocation location() {
+        return error == null ? null : error.getLocation();
+    }
+
+    public String message() {
+        return error == null ? null : error.getMessage();
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "CompileResult [success]" : "CompileResult [" + errorCode() + ", " + message() + "]";
+    }
+}
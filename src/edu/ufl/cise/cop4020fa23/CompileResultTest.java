@@ -0,0 +1,93 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.Type;
+import edu.ufl.cise.cop4020fa23.exceptions.ErrorCode;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.TypeCheckException;
+
+class CompileResultTest {
+
+	@Test
+	void tryParse() {
+		CompileResult<?> result = ComponentFactory.tryParse("int f() <: ^ 1; :>");
+		assertTrue(result.isSuccess());
+		assertInstanceOf(Program.class, result.value());
+		assertNull(result.error());
+		assertNull(result.errorCode());
+		assertNull(result.location());
+		CompileResult<?> failure = ComponentFactory.tryParse("int f() <: ^ 1 :>");
+		assertFalse(failure.isSuccess());
+		assertNull(failure.value());
+		assertEquals(ErrorCode.SYNTAX, failure.errorCode());
+		assertNotNull(failure.location());
+		assertEquals(failure.error().getMessage(), failure.message());
+	}
+
+	// every front end error has a location and a class-specific code
+	@Test
+	void errorsAreLocated() {
+		CompileResult<?> statement = ComponentFactory.tryParse("void f() <: ) :>");
+		assertEquals(ErrorCode.SYNTAX, statement.errorCode());
+		assertNotNull(statement.location());
+		CompileResult<?> lexical = ComponentFactory.tryParse("void f() <: write \"s; :>");
+		assertEquals(ErrorCode.LEXICAL, lexical.errorCode());
+		assertNotNull(lexical.location());
+		assertEquals(ErrorCode.TYPE, new TypeCheckException("m").getErrorCode());
+		assertEquals(ErrorCode.OTHER, new PLCCompilerException("m").getErrorCode());
+	}
+
+	@Test
+	void tryTypeCheck() {
+		CompileResult<?> result = ComponentFactory.tryTypeCheck("int f() <: ^ 1; :>");
+		assertTrue(result.isSuccess());
+		assertEquals(Type.INT, ((Program) result.value()).getType());
+		CompileResult<?> failure = ComponentFactory.tryTypeCheck("int f() <: ^ 1 + \"s\"; :>");
+		assertFalse(failure.isSuccess());
+		assertEquals(ErrorCode.TYPE, failure.errorCode());
+		assertNotNull(failure.location());
+		assertTrue(failure.message().startsWith(failure.location() + ": "), failure.message());
+		assertTrue(failure.toString().contains("TYPE"), failure.toString());
+	}
+
+	// the type checker locates its errors whether it runs after the parser or fused with it
+	@Test
+	void typeErrorsAreLocated() throws PLCCompilerException {
+		String[] inputs = { "void f() <: int b = \"s\"; :>", "void f() <: c = 1; :>", "void f() <: int a; int a; :>",
+				"int f() <: ^ TRUE; :>", "void f() <: write ? 1 -> 2 , 3; :>", "void f() <: if 1 -> <: :> fi; :>",
+				"void f() <: int a = 1; a:red = 2; :>", "void f() <: int[1,2] a; :>" };
+		for (String input : inputs) {
+			assertNotNull(ComponentFactory.tryTypeCheck(input).location(), input);
+			TypeCheckException e = assertThrows(TypeCheckException.class, () -> ComponentFactory.makeTypeCheckingParser(input).parse(), input);
+			assertNotNull(e.getLocation(), input);
+		}
+	}
+
+	@Test
+	void stacklessExceptions() {
+		boolean capture = PLCCompilerException.isCaptureStackTrace();
+		// the default comes from -Dplc.stacklessExceptions
+		assertEquals(!Boolean.getBoolean("plc.stacklessExceptions"), capture);
+		try {
+			PLCCompilerException.setCaptureStackTrace(false);
+			CompileResult<?> failure = ComponentFactory.tryTypeCheck("int f() <: ^ TRUE; :>");
+			assertEquals(0, failure.error().getStackTrace().length);
+			assertNotNull(failure.location());
+			PLCCompilerException.setCaptureStackTrace(true);
+			assertNotEquals(0, ComponentFactory.tryTypeCheck("int f() <: ^ TRUE; :>").error().getStackTrace().length);
+		} finally {
+			PLCCompilerException.setCaptureStackTrace(capture);
+		}
+	}
+}
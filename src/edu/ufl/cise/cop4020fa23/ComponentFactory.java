@@ -9,10 +9,15 @@
  */
 package edu.ufl.cise.cop4020fa23;
 
+import edu.ufl.cise.cop4020fa23.ast.AST;
 import edu.ufl.cise.cop4020fa23.ast.ASTVisitor;
+import edu.ufl.cise.cop4020fa23.ast.Program;
 import edu.ufl.cise.cop4020fa23.exceptions.LexicalException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 import edu.ufl.cise.cop4020fa23.exceptions.TypeCheckException;
 
+import java.util.List;
+
 /**
  * Factory class providing static methods to create and return various components of the compiler
  */
@@ -38,8 +43,97 @@ public class ComponentFactory {
 			return new Parser(lexer);
 		}
 
+		/**
+		 * Parser that shares structurally identical constant subexpressions (see ExprInterner).
+		 * The interner may be reused across parses, as of an edited source, to share nodes
+		 * between programs as well as within one.
+		 */
+		public static IParser makeHashConsingParser(String input, ExprInterner interner) throws LexicalException {
+			return new Parser(makeLexer(input), interner);
+		}
+
+		/**
+		 * Parser that reports productions to listener instead of building an AST, so parse()
+		 * returns null unless the listener is a TreeBuilder.
+		 */
+		public static Parser makeEventParser(String input, ParseListener listener) throws LexicalException {
+			return new Parser(makeLexer(input), listener);
+		}
+
+		// TypeCheckVisitor keeps the state of each run in a TypeCheckContext, so one instance serves every caller
+		private static final TypeCheckVisitor typeChecker = new TypeCheckVisitor();
+
+		/**
+		 * Returns a shared, thread-safe type checker.  Visit a Program with a null arg, or with a
+		 * new TypeCheckContext; concurrent runs must not share a context.
+		 */
 		public static ASTVisitor makeTypeChecker() throws TypeCheckException {
-			return new TypeCheckVisitor();
+			return typeChecker;
 		}
-		
+
+		/**
+		 * Parser that type checks each node as it is built.  parse() returns the decorated AST,
+		 * exactly as parsing followed by a visit with makeTypeChecker() would.  A type error found
+		 * before a lexical or syntax error later in the input is not reported, see Parser.
+		 */
+		public static IParser makeTypeCheckingParser(String input) throws LexicalException, TypeCheckException {
+			return new Parser(makeLexer(input), null, typeChecker);
+		}
+
+		/**
+		 * Parser that type checks input like makeTypeCheckingParser, then optimizes the AST with
+		 * ConstantFolder, DeadCodeEliminator and CommonSubexpressionEliminator.  The result can be
+		 * run by any engine, but not type checked again.
+		 */
+		public static IParser makeOptimizingParser(String input) throws LexicalException, TypeCheckException {
+			IParser checking = makeTypeCheckingParser(input);
+			return () -> CommonSubexpressionEliminator.eliminate(
+					DeadCodeEliminator.eliminate(ConstantFolder.fold((Program) checking.parse())));
+		}
+
+		/**
+		 * Parses input and reports the outcome as a CompileResult instead of throwing.
+		 */
+		public static CompileResult<AST> tryParse(String input) {
+			return new Parser(makeLexer(input)).tryParse();
+		}
+
+		/**
+		 * Parses and type checks input without stopping at the first type error.  Returns every type
+		 * error found, in source order of discovery, or an empty list if the program is correct.
+		 * A lexical or syntax error still ends the check and is returned alone.
+		 */
+		public static List<PLCCompilerException> collectDiagnostics(String input) {
+			CompileResult<AST> parsed = tryParse(input);
+			if (!parsed.isSuccess()) {
+				return List.of(parsed.error());
+			}
+			return List.copyOf(check(parsed.value()).getDiagnostics());
+		}
+
+		/**
+		 * Parses and type checks input and reports the outcome as a CompileResult instead of throwing.
+		 * On success the value is the decorated AST, otherwise the error is the first one found.
+		 */
+		public static CompileResult<AST> tryTypeCheck(String input) {
+			CompileResult<AST> parsed = tryParse(input);
+			if (!parsed.isSuccess()) {
+				return parsed;
+			}
+			List<TypeCheckException> diagnostics = check(parsed.value()).getDiagnostics();
+			return diagnostics.isEmpty() ? parsed : CompileResult.failure(diagnostics.get(0));
+		}
+
+		// type checks ast, collecting the errors instead of throwing them
+		private static TypeCheckContext check(AST ast) {
+			TypeCheckContext context = new TypeCheckContext(true);
+			try {
+				ast.visit(typeChecker, context);
+			} catch (PLCCompilerException e) {
+				// not thrown while collecting
+				throw new IllegalStateException(e);
+			}
+			return context;
+		}
+
 }
@@ -0,0 +1,184 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.ast.ASTVisitor;
+import edu.ufl.cise.cop4020fa23.ast.AssignmentStatement;
+import edu.ufl.cise.cop4020fa23.ast.Block;
+import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
+import edu.ufl.cise.cop4020fa23.ast.Declaration;
+import edu.ufl.cise.cop4020fa23.ast.DoStatement;
+import edu.ufl.cise.cop4020fa23.ast.GuardedBlock;
+import edu.ufl.cise.cop4020fa23.ast.IfStatement;
+import edu.ufl.cise.cop4020fa23.ast.NameDef;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.ReturnStatement;
+import edu.ufl.cise.cop4020fa23.ast.StatementBlock;
+import edu.ufl.cise.cop4020fa23.ast.WriteStatement;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Checks many programs at once with the single shared TypeCheckVisitor.
+ */
+class ConcurrentTypeCheckTest {
+
+	static final int THREADS = 8;
+	static final int ROUNDS = 50;
+
+	static final String[] PROGRAMS = {
+			"""
+			int f(int a, int b) <:
+			int c = a + b;
+			do c > 1 -> <: c = c - 1; :> od;
+			^c;
+			:>
+			""",
+			"""
+			image g(image im, int w) <:
+			image[w, w] out;
+			out[x,y] = im[y,x];
+			out[x,y]:red = 255;
+			^out;
+			:>
+			""",
+			"""
+			boolean h(string s) <:
+			string t = s + s;
+			if t == s -> <: write t; :>
+			[] TRUE -> <: int t = 3; write t; :>
+			fi;
+			^ t == s;
+			:>
+			""",
+			"""
+			pixel p(int n) <:
+			pixel q = [n, n, n];
+			<: pixel q = q & q; q:green = n; :>;
+			^q;
+			:>
+			""",
+			"""
+			int undeclared() <:
+			^ z;
+			:>
+			""",
+			"""
+			int mismatch() <:
+			int a = "string";
+			^a;
+			:>
+			""",
+			"""
+			void redeclared(int a) <:
+			int b = a;
+			int b = a;
+			:>
+			""",
+			SymbolTableBenchmark.wideProgram(200),
+			SymbolTableBenchmark.deepProgram(50),
+	};
+
+	// the result of type checking, with the types and slots of every decorated block element
+	static String check(String input, ASTVisitor checker) {
+		try {
+			AST ast = ComponentFactory.makeParser(input).parse();
+			ast.visit(checker, null);
+			Program program = (Program) ast;
+			StringBuilder sb = new StringBuilder();
+			sb.append(program.getType()).append(' ').append(program.getFrameSize());
+			for (NameDef param : program.getParams()) {
+				sb.append(' ').append(param.getName()).append('@').append(param.getSlot());
+			}
+			describe(program.getBlock(), sb);
+			return sb.toString();
+		} catch (PLCCompilerException e) {
+			return e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
+
+	static void describe(Block block, StringBuilder sb) {
+		for (BlockElem elem : block.getElems()) {
+			sb.append("\n");
+			if (elem instanceof Declaration d) {
+				sb.append("decl ").append(d.getNameDef().getName()).append('@').append(d.getNameDef().getSlot());
+				if (d.getInitializer() != null) {
+					sb.append(" = ").append(d.getInitializer().getType());
+				}
+			} else if (elem instanceof AssignmentStatement a) {
+				sb.append("assign ").append(a.getlValue().getType()).append('@').append(a.getlValue().getSlot())
+						.append(" = ").append(a.getE().getType());
+			} else if (elem instanceof WriteStatement w) {
+				sb.append("write ").append(w.getExpr().getType());
+			} else if (elem instanceof ReturnStatement r) {
+				sb.append("return ").append(r.getE().getType());
+			} else if (elem instanceof StatementBlock b) {
+				describe(b.getBlock(), sb);
+			} else if (elem instanceof DoStatement d) {
+				describe(d.getGuardedBlocks(), sb);
+			} else if (elem instanceof IfStatement i) {
+				describe(i.getGuardedBlocks(), sb);
+			}
+		}
+	}
+
+	static void describe(List<GuardedBlock> guardedBlocks, StringBuilder sb) {
+		for (GuardedBlock guardedBlock : guardedBlocks) {
+			sb.append("\nguard ").append(guardedBlock.getGuard().getType());
+			describe(guardedBlock.getBlock(), sb);
+		}
+	}
+
+	@Test
+	void typeCheckerIsShared() throws PLCCompilerException {
+		assertSame(ComponentFactory.makeTypeChecker(), ComponentFactory.makeTypeChecker());
+	}
+
+	@Test
+	void concurrentResultsMatchSequential() throws Exception {
+		List<String> expected = new ArrayList<>();
+		for (String program : PROGRAMS) {
+			// a private checker per program, as before the checker was shared
+			expected.add(check(program, new TypeCheckVisitor()));
+		}
+		ASTVisitor shared = ComponentFactory.makeTypeChecker();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<List<String>>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int offset = t;
+				Callable<List<String>> task = () -> {
+					List<String> mismatches = new ArrayList<>();
+					for (int round = 0; round < ROUNDS; round++) {
+						for (int i = 0; i < PROGRAMS.length; i++) {
+							int k = (i + offset) % PROGRAMS.length;
+							String actual = check(PROGRAMS[k], shared);
+							if (!actual.equals(expected.get(k))) {
+								mismatches.add(actual);
+							}
+						}
+					}
+					return mismatches;
+				};
+				futures.add(pool.submit(task));
+			}
+			for (Future<List<String>> future : futures) {
+				assertEquals(List.of(), future.get(60, TimeUnit.SECONDS));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+}
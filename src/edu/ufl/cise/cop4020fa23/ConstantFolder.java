@@ -0,0 +1,499 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.runtime.IntOps;
+import edu.ufl.cise.cop4020fa23.runtime.PixelOps;
+
+/**
+ * Folds the constant expressions of a type checked Program, for any of the Interpreter, the
+ * compilers and the later passes.
+ *
+ * A unary, binary or conditional expression whose operands are literals is replaced by a literal
+ * with its value, as are color constants, [r,g,b] with literal channels and channels of literal
+ * pixels.  A pixel value is a NumLitExpr of type PIXEL whose text is the packed pixel, which
+ * every engine reads as it reads an int; such a program must not be type checked again.  Then
+ * the identities x+0, 0+x, x-0, x*1, 1*x, x/1, x**1, b&&TRUE, TRUE&&b, b||FALSE and FALSE||b are
+ * applied, and FALSE&&b and TRUE||b, which never evaluate b, become a literal.
+ *
+ * Evaluating an expression has no effect other than a runtime error, which folding must keep:
+ * a division by a literal 0 is left for the program to fail on, and x*0 is not folded.
+ *
+ * A runtime error of a write or return statement is reported at TypeCheckVisitor.locate of the
+ * statement, which follows its expression down to an operator or a leaf.  A literal is put at the
+ * position locate gives the expression it replaces, and in the expression of such a statement an
+ * identity or constant guard that would remove the node locate reaches is not applied, so the
+ * error is reported where it is without folding.
+ *
+ * The tree is not modified.  A node is rebuilt, with the annotations of the old one, only if
+ * something below it was folded, so the result shares every unchanged subtree with the input.
+ * Names, NameDefs and LValues are kept, so slots do not change.
+ */
+public class ConstantFolder implements GenericASTVisitor<AST, Void> {
+
+    private static final ConstantFolder folder = new ConstantFolder();
+
+    /**
+     * @return program with its constant expressions folded, or program itself if there are none
+     */
+    public static Program fold(Program program) throws PLCCompilerException {
+        if (program.getType() == null) {
+            throw new IllegalArgumentException("program " + program.getName() + " has not been type checked");
+        }
+        return (Program) program.accept(folder, null);
+    }
+
+    private Expr fold(Expr expr) throws PLCCompilerException {
+        return (Expr) expr.accept(this, null);
+    }
+
+    private Block fold(Block block) throws PLCCompilerException {
+        return (Block) block.accept(this, null);
+    }
+
+    // folds e, keeping the node TypeCheckVisitor.locate reaches from it, see the class comment
+    private Expr foldLocated(Expr e) throws PLCCompilerException {
+        Expr folded = fold(e);
+        if (Objects.equals(TypeCheckVisitor.locate(folded), TypeCheckVisitor.locate(e))) {
+            return folded;
+        }
+        Expr result;
+        if (e instanceof BinaryExpr b) {
+            result = new BinaryExpr(b.firstToken(), fold(b.getLeftExpr()), b.getOp(), fold(b.getRightExpr()));
+        } else if (e instanceof UnaryExpr u) {
+            result = new UnaryExpr(u.firstToken(), u.getOpToken(), foldLocated(u.getExpr()));
+        } else if (e instanceof ConditionalExpr c) {
+            result = new ConditionalExpr(c.firstToken(), foldLocated(c.getGuardExpr()), fold(c.getTrueExpr()),
+                    fold(c.getFalseExpr()));
+        } else if (e instanceof PostfixExpr p) {
+            PixelSelector pixel = p.pixel() == null ? null : (PixelSelector) p.pixel().accept(this, null);
+            result = new PostfixExpr(p.firstToken(), foldLocated(p.primary()), pixel, p.channel());
+        } else if (e instanceof ExpandedPixelExpr p) {
+            result = new ExpandedPixelExpr(p.firstToken(), foldLocated(p.getRed()), fold(p.getGreen()), fold(p.getBlue()));
+        } else {
+            return folded;
+        }
+        result.setType(e.getType());
+        return result;
+    }
+
+
+    /* ======================= literals ======================= */
+
+    private static IToken token(Kind kind, String text, AST at) {
+        return new Token(kind, 0, text.length(), text.toCharArray(), TypeCheckVisitor.locate(at));
+    }
+
+    // an int, or a packed pixel if type is PIXEL, at the position of the expression it replaces
+    static NumLitExpr intLit(int value, Type type, AST at) {
+        NumLitExpr e = new NumLitExpr(token(Kind.NUM_LIT, Integer.toString(value), at));
+        e.setType(type);
+        return e;
+    }
+
+    static BooleanLitExpr booleanLit(boolean value, AST at) {
+        BooleanLitExpr e = new BooleanLitExpr(token(Kind.BOOLEAN_LIT, value ? "TRUE" : "FALSE", at));
+        e.setType(Type.BOOLEAN);
+        return e;
+    }
+
+    static StringLitExpr stringLit(String value, AST at) {
+        StringLitExpr e = new StringLitExpr(token(Kind.STRING_LIT, '"' + value + '"', at));
+        e.setType(Type.STRING);
+        return e;
+    }
+
+    private static boolean isIntLit(Expr e) {
+        return e instanceof NumLitExpr;
+    }
+
+    private static boolean isIntLit(Expr e, int value) {
+        return e instanceof NumLitExpr && intValue(e) == value;
+    }
+
+    private static int intValue(Expr e) {
+        return Integer.parseInt(((NumLitExpr) e).getText());
+    }
+
+    private static boolean isBooleanLit(Expr e, boolean value) {
+        return e instanceof BooleanLitExpr && booleanValue(e) == value;
+    }
+
+    private static boolean booleanValue(Expr e) {
+        return ((BooleanLitExpr) e).getText().equals("TRUE");
+    }
+
+    private static String stringValue(Expr e) {
+        String text = ((StringLitExpr) e).getText();
+        return text.substring(1, text.length() - 1);
+    }
+
+
+    /* ======================= program and statements ======================= */
+
+    @Override
+    public AST visitProgram(Program program, Void arg) throws PLCCompilerException {
+        Block block = fold(program.getBlock());
+        if (block == program.getBlock()) {
+            return program;
+        }
+        Program result = new Program(program.firstToken(), program.getTypeToken(), program.getNameToken(),
+                program.getParams(), block);
+        result.setType(program.getType());
+        result.setFrameSize(program.getFrameSize());
+        return result;
+    }
+
+    @Override
+    public AST visitBlock(Block block, Void arg) throws PLCCompilerException {
+        List<BlockElem> elems = block.getElems();
+        List<BlockElem> folded = new ArrayList<>(elems.size());
+        boolean changed = false;
+        for (BlockElem elem : elems) {
+            BlockElem f = (BlockElem) elem.accept(this, arg);
+            folded.add(f);
+            changed |= f != elem;
+        }
+        return changed ? withElems(block, folded) : block;
+    }
+
+    // a copy of block with elems, which declare the same names, and the same scope snapshots
+    static Block withElems(Block block, List<BlockElem> elems) {
+        Scope[] scopes = null;
+        if (block.getScope(0) != null && elems.size() == block.getElems().size()) {
+            scopes = new Scope[elems.size() + 1];
+            for (int i = 0; i < scopes.length; i++) {
+                scopes[i] = block.getScope(i);
+            }
+        }
+        return new Block(block.firstToken(), elems, scopes);
+    }
+
+    @Override
+    public AST visitDeclaration(Declaration declaration, Void arg) throws PLCCompilerException {
+        Expr initializer = declaration.getInitializer();
+        if (initializer == null) {
+            return declaration;
+        }
+        Expr folded = fold(initializer);
+        return folded == initializer ? declaration : new Declaration(declaration.firstToken(), declaration.getNameDef(), folded);
+    }
+
+    @Override
+    public AST visitAssignmentStatement(AssignmentStatement assignmentStatement, Void arg) throws PLCCompilerException {
+        Expr e = assignmentStatement.getE();
+        Expr folded = fold(e);
+        return folded == e ? assignmentStatement
+                : new AssignmentStatement(assignmentStatement.firstToken(), assignmentStatement.getlValue(), folded);
+    }
+
+    @Override
+    public AST visitWriteStatement(WriteStatement writeStatement, Void arg) throws PLCCompilerException {
+        Expr e = writeStatement.getExpr();
+        Expr folded = foldLocated(e);
+        return folded == e ? writeStatement : new WriteStatement(writeStatement.firstToken(), folded);
+    }
+
+    @Override
+    public AST visitReturnStatement(ReturnStatement returnStatement, Void arg) throws PLCCompilerException {
+        Expr e = returnStatement.getE();
+        Expr folded = foldLocated(e);
+        return folded == e ? returnStatement : new ReturnStatement(returnStatement.firstToken(), folded);
+    }
+
+    // the folded guarded blocks, or null if none changed
+    private List<GuardedBlock> foldGuardedBlocks(List<GuardedBlock> guardedBlocks) throws PLCCompilerException {
+        List<GuardedBlock> folded = new ArrayList<>(guardedBlocks.size());
+        boolean changed = false;
+        for (GuardedBlock guardedBlock : guardedBlocks) {
+            GuardedBlock f = (GuardedBlock) guardedBlock.accept(this, null);
+            folded.add(f);
+            changed |= f != guardedBlock;
+        }
+        return changed ? folded : null;
+    }
+
+    @Override
+    public AST visitIfStatement(IfStatement ifStatement, Void arg) throws PLCCompilerException {
+        List<GuardedBlock> folded = foldGuardedBlocks(ifStatement.getGuardedBlocks());
+        return folded == null ? ifStatement : new IfStatement(ifStatement.firstToken(), folded);
+    }
+
+    @Override
+    public AST visitDoStatement(DoStatement doStatement, Void arg) throws PLCCompilerException {
+        List<GuardedBlock> folded = foldGuardedBlocks(doStatement.getGuardedBlocks());
+        return folded == null ? doStatement : new DoStatement(doStatement.firstToken(), folded);
+    }
+
+    @Override
+    public AST visitGuardedBlock(GuardedBlock guardedBlock, Void arg) throws PLCCompilerException {
+        Expr guard = fold(guardedBlock.getGuard());
+        Block block = fold(guardedBlock.getBlock());
+        return guard == guardedBlock.getGuard() && block == guardedBlock.getBlock() ? guardedBlock
+                : new GuardedBlock(guardedBlock.firstToken(), guard, block);
+    }
+
+    @Override
+    public AST visitBlockStatement(StatementBlock statementBlock, Void arg) throws PLCCompilerException {
+        Block block = fold(statementBlock.getBlock());
+        return block == statementBlock.getBlock() ? statementBlock : new StatementBlock(statementBlock.firstToken(), block);
+    }
+
+    // NameDefs and LValues are kept, with their Dimensions and PixelSelectors, since IdentExprs
+    // and the slots refer to them
+
+    @Override
+    public AST visitNameDef(NameDef nameDef, Void arg) {
+        return nameDef;
+    }
+
+    @Override
+    public AST visitDimension(Dimension dimension, Void arg) {
+        return dimension;
+    }
+
+    @Override
+    public AST visitLValue(LValue lValue, Void arg) {
+        return lValue;
+    }
+
+    @Override
+    public AST visitPixelSelector(PixelSelector pixelSelector, Void arg) throws PLCCompilerException {
+        Expr x = fold(pixelSelector.xExpr());
+        Expr y = fold(pixelSelector.yExpr());
+        return x == pixelSelector.xExpr() && y == pixelSelector.yExpr() ? pixelSelector
+                : new PixelSelector(pixelSelector.firstToken(), x, y);
+    }
+
+    @Override
+    public AST visitChannelSelector(ChannelSelector channelSelector, Void arg) {
+        return channelSelector;
+    }
+
+
+    /* ======================= expressions ======================= */
+
+    @Override
+    public AST visitBinaryExpr(BinaryExpr binaryExpr, Void arg) throws PLCCompilerException {
+        Expr left = fold(binaryExpr.getLeftExpr());
+        Expr right = fold(binaryExpr.getRightExpr());
+        Expr folded = foldBinary(binaryExpr, left, right);
+        if (folded != null) {
+            return folded;
+        }
+        if (left == binaryExpr.getLeftExpr() && right == binaryExpr.getRightExpr()) {
+            return binaryExpr;
+        }
+        BinaryExpr result = new BinaryExpr(binaryExpr.firstToken(), left, binaryExpr.getOp(), right);
+        result.setType(binaryExpr.getType());
+        return result;
+    }
+
+    // the value of binaryExpr with the folded operands left and right, or null if it is not constant
+    private static Expr foldBinary(BinaryExpr binaryExpr, Expr left, Expr right) {
+        Kind op = binaryExpr.getOpKind();
+        switch (binaryExpr.getType()) {
+            case INT -> {
+                if (isIntLit(left) && isIntLit(right)) {
+                    int a = intValue(left);
+                    int b = intValue(right);
+                    switch (op) {
+                        case PLUS -> {
+                            return intLit(a + b, Type.INT, binaryExpr);
+                        }
+                        case MINUS -> {
+                            return intLit(a - b, Type.INT, binaryExpr);
+                        }
+                        case TIMES -> {
+                            return intLit(a * b, Type.INT, binaryExpr);
+                        }
+                        case DIV -> {
+                            // a division by zero fails when it is run
+                            return b == 0 ? null : intLit(a / b, Type.INT, binaryExpr);
+                        }
+                        case EXP -> {
+                            return intLit(IntOps.pow(a, b), Type.INT, binaryExpr);
+                        }
+                        default -> {
+                            return null;
+                        }
+                    }
+                }
+                if ((op == Kind.PLUS || op == Kind.MINUS) && isIntLit(right, 0)
+                        || (op == Kind.TIMES || op == Kind.DIV || op == Kind.EXP) && isIntLit(right, 1)) {
+                    return left;
+                }
+                if (op == Kind.PLUS && isIntLit(left, 0) || op == Kind.TIMES && isIntLit(left, 1)) {
+                    return right;
+                }
+                return null;
+            }
+            case PIXEL -> {
+                if (!isIntLit(left) || !isIntLit(right)) {
+                    return null;
+                }
+                int value = right.getType() == Type.PIXEL ? PixelOps.binary(op, intValue(left), intValue(right))
+                        : PixelOps.binaryScalar(op, intValue(left), intValue(right));
+                return intLit(value, Type.PIXEL, binaryExpr);
+            }
+            case STRING -> {
+                return left instanceof StringLitExpr && right instanceof StringLitExpr
+                        ? stringLit(stringValue(left) + stringValue(right), binaryExpr) : null;
+            }
+            case BOOLEAN -> {
+                return foldBooleanBinary(binaryExpr, op, left, right);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private static Expr foldBooleanBinary(BinaryExpr binaryExpr, Kind op, Expr left, Expr right) {
+        switch (op) {
+            // FALSE && b and TRUE || b do not evaluate b, but b && FALSE and b || TRUE do
+            case AND -> {
+                if (left instanceof BooleanLitExpr) {
+                    return booleanValue(left) ? right : left;
+                }
+                return isBooleanLit(right, true) ? left : null;
+            }
+            // + on booleans is taken as or
+            case OR, PLUS -> {
+                if (left instanceof BooleanLitExpr) {
+                    return booleanValue(left) ? left : right;
+                }
+                return isBooleanLit(right, false) ? left : null;
+            }
+            case LT, GT, LE, GE -> {
+                if (!isIntLit(left) || !isIntLit(right)) {
+                    return null;
+                }
+                int a = intValue(left);
+                int b = intValue(right);
+                boolean value = switch (op) {
+                    case LT -> a < b;
+                    case GT -> a > b;
+                    case LE -> a <= b;
+                    default -> a >= b;
+                };
+                return booleanLit(value, binaryExpr);
+            }
+            case EQ -> {
+                if (isIntLit(left) && isIntLit(right)) {
+                    return booleanLit(intValue(left) == intValue(right), binaryExpr);
+                }
+                if (left instanceof BooleanLitExpr && right instanceof BooleanLitExpr) {
+                    return booleanLit(booleanValue(left) == booleanValue(right), binaryExpr);
+                }
+                if (left instanceof StringLitExpr && right instanceof StringLitExpr) {
+                    return booleanLit(stringValue(left).equals(stringValue(right)), binaryExpr);
+                }
+                return null;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public AST visitUnaryExpr(UnaryExpr unaryExpr, Void arg) throws PLCCompilerException {
+        Expr e = fold(unaryExpr.getExpr());
+        Kind op = unaryExpr.getOp();
+        if (op == Kind.MINUS && isIntLit(e)) {
+            return intLit(-intValue(e), Type.INT, unaryExpr);
+        }
+        if (op == Kind.BANG && e instanceof BooleanLitExpr) {
+            return booleanLit(!booleanValue(e), unaryExpr);
+        }
+        if (e == unaryExpr.getExpr()) {
+            return unaryExpr;
+        }
+        UnaryExpr result = new UnaryExpr(unaryExpr.firstToken(), unaryExpr.getOpToken(), e);
+        result.setType(unaryExpr.getType());
+        return result;
+    }
+
+    @Override
+    public AST visitConditionalExpr(ConditionalExpr conditionalExpr, Void arg) throws PLCCompilerException {
+        Expr guard = fold(conditionalExpr.getGuardExpr());
+        if (guard instanceof BooleanLitExpr) {
+            return fold(booleanValue(guard) ? conditionalExpr.getTrueExpr() : conditionalExpr.getFalseExpr());
+        }
+        Expr trueExpr = fold(conditionalExpr.getTrueExpr());
+        Expr falseExpr = fold(conditionalExpr.getFalseExpr());
+        if (guard == conditionalExpr.getGuardExpr() && trueExpr == conditionalExpr.getTrueExpr()
+                && falseExpr == conditionalExpr.getFalseExpr()) {
+            return conditionalExpr;
+        }
+        ConditionalExpr result = new ConditionalExpr(conditionalExpr.firstToken(), guard, trueExpr, falseExpr);
+        result.setType(conditionalExpr.getType());
+        return result;
+    }
+
+    @Override
+    public AST visitIdentExpr(IdentExpr identExpr, Void arg) {
+        return identExpr;
+    }
+
+    @Override
+    public AST visitPostfixExpr(PostfixExpr postfixExpr, Void arg) throws PLCCompilerException {
+        Expr primary = fold(postfixExpr.primary());
+        PixelSelector pixel = postfixExpr.pixel();
+        PixelSelector foldedPixel = pixel == null ? null : (PixelSelector) pixel.accept(this, arg);
+        ChannelSelector channel = postfixExpr.channel();
+        // a channel of a literal pixel, like RED:green
+        if (pixel == null && channel != null && primary.getType() == Type.PIXEL && isIntLit(primary)) {
+            return intLit(PixelOps.channel(intValue(primary), channel.color()), Type.INT, postfixExpr);
+        }
+        if (primary == postfixExpr.primary() && foldedPixel == pixel) {
+            return postfixExpr;
+        }
+        PostfixExpr result = new PostfixExpr(postfixExpr.firstToken(), primary, foldedPixel, channel);
+        result.setType(postfixExpr.getType());
+        return result;
+    }
+
+    @Override
+    public AST visitStringLitExpr(StringLitExpr stringLitExpr, Void arg) {
+        return stringLitExpr;
+    }
+
+    @Override
+    public AST visitNumLitExpr(NumLitExpr numLitExpr, Void arg) {
+        return numLitExpr;
+    }
+
+    @Override
+    public AST visitBooleanLitExpr(BooleanLitExpr booleanLitExpr, Void arg) {
+        return booleanLitExpr;
+    }
+
+    @Override
+    public AST visitConstExpr(ConstExpr constExpr, Void arg) {
+        String name = constExpr.getName();
+        return name.equals("Z") ? intLit(255, Type.INT, constExpr) : intLit(PixelOps.constant(name), Type.PIXEL, constExpr);
+    }
+
+    @Override
+    public AST visitExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Void arg) throws PLCCompilerException {
+        Expr red = fold(expandedPixelExpr.getRed());
+        Expr green = fold(expandedPixelExpr.getGreen());
+        Expr blue = fold(expandedPixelExpr.getBlue());
+        if (isIntLit(red) && isIntLit(green) && isIntLit(blue)) {
+            return intLit(PixelOps.pack(intValue(red), intValue(green), intValue(blue)), Type.PIXEL, expandedPixelExpr);
+        }
+        if (red == expandedPixelExpr.getRed() && green == expandedPixelExpr.getGreen() && blue == expandedPixelExpr.getBlue()) {
+            return expandedPixelExpr;
+        }
+        ExpandedPixelExpr result = new ExpandedPixelExpr(expandedPixelExpr.firstToken(), red, green, blue);
+        result.setType(expandedPixelExpr.getType());
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+import edu.ufl.cise.cop4020fa23.runtime.PixelOps;
+
+class ConstantFolderTest {
+
+	static Program checked(String input) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeTypeCheckingParser(input).parse();
+	}
+
+	static Program folded(String input) throws PLCCompilerException {
+		return ConstantFolder.fold(checked(input));
+	}
+
+	static List<Block.BlockElem> elems(Program program) {
+		return program.getBlock().getElems();
+	}
+
+	// the folded program returns and writes what the original does
+	static Object compare(String input, Object... args) throws PLCCompilerException {
+		ByteArrayOutputStream original = new ByteArrayOutputStream();
+		Object expected = new Interpreter(new PrintStream(original, true)).run(checked(input), args);
+		ByteArrayOutputStream folded = new ByteArrayOutputStream();
+		assertEquals(expected, new Interpreter(new PrintStream(folded, true)).run(folded(input), args));
+		assertEquals(original.toString(), folded.toString());
+		return expected;
+	}
+
+	@Test
+	void literals() throws PLCCompilerException {
+		Program program = folded("""
+				int f(int a) <:
+				int b = (2 + 3) * 4 - 6 / 3 ** 1;
+				pixel p = [100 + 1, 2 * 3, 7] | BLUE;
+				int g = RED:green + Z;
+				string s = "ab" + "cd";
+				boolean t = ? 3 > 2 -> !FALSE , a > 1;
+				^ b;
+				:>
+				""");
+		NumLitExpr b = assertInstanceOf(NumLitExpr.class, ((Declaration) elems(program).get(0)).getInitializer());
+		assertEquals("18", b.getText());
+		NumLitExpr p = assertInstanceOf(NumLitExpr.class, ((Declaration) elems(program).get(1)).getInitializer());
+		assertEquals(Type.PIXEL, p.getType());
+		assertEquals(PixelOps.pack(101, 6, 255), Integer.parseInt(p.getText()));
+		assertEquals("255", ((NumLitExpr) ((Declaration) elems(program).get(2)).getInitializer()).getText());
+		assertEquals("\"abcd\"", ((StringLitExpr) ((Declaration) elems(program).get(3)).getInitializer()).getText());
+		assertEquals("TRUE", ((BooleanLitExpr) ((Declaration) elems(program).get(4)).getInitializer()).getText());
+	}
+
+	@Test
+	void identities() throws PLCCompilerException {
+		Program program = folded("""
+				boolean f(int a, boolean c) <:
+				int b = (a * 1 + (3 - 3)) ** 1;
+				boolean d = c && TRUE || FALSE;
+				boolean e = FALSE && c;
+				boolean g = c && FALSE;
+				^ d;
+				:>
+				""");
+		IdentExpr b = assertInstanceOf(IdentExpr.class, ((Declaration) elems(program).get(0)).getInitializer());
+		assertEquals("a", b.getName());
+		assertEquals("c", ((IdentExpr) ((Declaration) elems(program).get(1)).getInitializer()).getName());
+		assertEquals("FALSE", ((BooleanLitExpr) ((Declaration) elems(program).get(2)).getInitializer()).getText());
+		// c is evaluated, so the expression stays
+		assertInstanceOf(BinaryExpr.class, ((Declaration) elems(program).get(3)).getInitializer());
+	}
+
+	@Test
+	void sameResults() throws PLCCompilerException {
+		assertEquals(69, compare("""
+				int f(int a) <:
+				int b = 2 * 3 + -(4 - 1);
+				do a < 50 + 10 -> <: a = a * (1 + 1) + b - 5; write a; :> od;
+				pixel p = [a, 2 * 5, 300] + RED;
+				write p;
+				write p:red == 255;
+				^ ? 1 > 2 -> 7 , a + b;
+				:>
+				""", 3));
+		String input = """
+				int f(int a) <:
+				^ a + 6 / (2 - 2);
+				:>
+				""";
+		assertThrows(PLCRuntimeException.class, () -> new Interpreter().run(folded(input), 1));
+	}
+
+	// runtime errors of write and return statements are reported where they are without folding
+	@Test
+	void sameErrorLocations() throws PLCCompilerException {
+		String[] inputs = { "int f(int a) <: ^ 0 + a / (1 - 1); :>", "int f(int a) <: ^ -(a / (2 - 2) * 1); :>",
+				"int f(int a) <: ^ ? 1 > 2 -> 1 , a / (3 - 3); :>", "void f(int a) <: write [0 + a / (1 - 1), 1, 2]; :>",
+				"void f(int a) <: write TRUE && 1 > a / (1 - 1); :>" };
+		for (String input : inputs) {
+			PLCRuntimeException original = assertThrows(PLCRuntimeException.class, () -> new Interpreter().run(checked(input), 1), input);
+			PLCRuntimeException folded = assertThrows(PLCRuntimeException.class, () -> new Interpreter().run(folded(input), 1), input);
+			assertEquals(original.getLocation(), folded.getLocation(), input);
+		}
+	}
+
+	@Test
+	void unchangedSubtreesAreShared() throws PLCCompilerException {
+		Program program = checked("""
+				int f(int a) <:
+				int b = a * 2;
+				^ b + 1 + 2;
+				:>
+				""");
+		Program plain = checked("int f(int a) <: ^ a; :>");
+		assertSame(plain, ConstantFolder.fold(plain));
+		Program folded = ConstantFolder.fold(program);
+		assertSame(elems(program).get(0), elems(folded).get(0));
+		assertEquals(program.getFrameSize(), folded.getFrameSize());
+	}
+}
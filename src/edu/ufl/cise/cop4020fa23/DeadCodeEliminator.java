@@ -0,0 +1,262 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
+
+/**
+ * Removes code of a type checked Program that is never run or has no effect, best after
+ * ConstantFolder has turned constant guards into literals:
+ *
+ *   - a guarded block of an if or do statement whose guard is FALSE, or that follows one whose
+ *     guard is TRUE;
+ *   - an if statement left with no guarded blocks, or whose first guard is TRUE, which becomes
+ *     the StatementBlock of that guard;
+ *   - a do statement left with no guarded blocks;
+ *   - an empty StatementBlock;
+ *   - a declaration of a variable that is never used, if evaluating it cannot fail.  Removing one
+ *     may leave others unused, so this is repeated until there are none.
+ *
+ * As with ConstantFolder the input is not modified, unchanged subtrees are shared, and the slots
+ * of the remaining variables do not change.  A block that lost elements has no scope snapshots.
+ */
+public class DeadCodeEliminator {
+
+    private final Set<NameDef> used = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private DeadCodeEliminator() {
+    }
+
+    /**
+     * @return program without its dead code, or program itself if there is none
+     */
+    public static Program eliminate(Program program) {
+        if (program.getType() == null) {
+            throw new IllegalArgumentException("program " + program.getName() + " has not been type checked");
+        }
+        Program result = program;
+        while (true) {
+            DeadCodeEliminator eliminator = new DeadCodeEliminator();
+            eliminator.use(result.getBlock());
+            Block block = eliminator.eliminate(result.getBlock());
+            if (block == result.getBlock()) {
+                return result;
+            }
+            Program next = new Program(result.firstToken(), result.getTypeToken(), result.getNameToken(),
+                    result.getParams(), block);
+            next.setType(result.getType());
+            next.setFrameSize(result.getFrameSize());
+            result = next;
+        }
+    }
+
+
+    /* ======================= uses of names ======================= */
+
+    // Adds the NameDefs of the names in node to used.
+    private void use(AST node) {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof IdentExpr e) {
+            used.add(e.getNameDef());
+        } else if (node instanceof BinaryExpr e) {
+            use(e.getLeftExpr());
+            use(e.getRightExpr());
+        } else if (node instanceof UnaryExpr e) {
+            use(e.getExpr());
+        } else if (node instanceof ConditionalExpr e) {
+            use(e.getGuardExpr());
+            use(e.getTrueExpr());
+            use(e.getFalseExpr());
+        } else if (node instanceof PostfixExpr e) {
+            use(e.primary());
+            use(e.pixel());
+        } else if (node instanceof ExpandedPixelExpr e) {
+            use(e.getRed());
+            use(e.getGreen());
+            use(e.getBlue());
+        } else if (node instanceof PixelSelector e) {
+            use(e.xExpr());
+            use(e.yExpr());
+        } else if (node instanceof Declaration e) {
+            use(e.getNameDef().getDimension());
+            use(e.getInitializer());
+        } else if (node instanceof Dimension e) {
+            use(e.getWidth());
+            use(e.getHeight());
+        } else if (node instanceof AssignmentStatement e) {
+            used.add(e.getlValue().getNameDef());
+            use(e.getlValue().getPixelSelector());
+            use(e.getE());
+        } else if (node instanceof WriteStatement e) {
+            use(e.getExpr());
+        } else if (node instanceof ReturnStatement e) {
+            use(e.getE());
+        } else if (node instanceof IfStatement e) {
+            useAll(e.getGuardedBlocks());
+        } else if (node instanceof DoStatement e) {
+            useAll(e.getGuardedBlocks());
+        } else if (node instanceof StatementBlock e) {
+            use(e.getBlock());
+        } else if (node instanceof Block e) {
+            for (BlockElem elem : e.getElems()) {
+                use(elem);
+            }
+        }
+    }
+
+    private void useAll(List<GuardedBlock> guardedBlocks) {
+        for (GuardedBlock guardedBlock : guardedBlocks) {
+            use(guardedBlock.getGuard());
+            use(guardedBlock.getBlock());
+        }
+    }
+
+    /**
+     * @return true if evaluating e cannot fail.  Reading an image variable fails if it has no
+     *   value, reading a pixel of an image can be out of bounds, image operations fail on images
+     *   of different sizes, and an int division fails on a divisor of 0 (a pixel division gives
+     *   0).  Whether e reads an image is a separate question, see readsNoImage.
+     */
+    public static boolean cannotFail(Expr e) {
+        if (e instanceof NumLitExpr || e instanceof BooleanLitExpr || e instanceof StringLitExpr
+                || e instanceof ConstExpr) {
+            return true;
+        } else if (e instanceof IdentExpr) {
+            return e.getType() != Type.IMAGE;
+        } else if (e instanceof BinaryExpr b) {
+            if (b.getType() == Type.IMAGE) {
+                return false;
+            }
+            if (b.getOpKind() == Kind.DIV && b.getType() == Type.INT && !(b.getRightExpr() instanceof NumLitExpr n && !n.getText().equals("0"))) {
+                return false;
+            }
+            return cannotFail(b.getLeftExpr()) && cannotFail(b.getRightExpr());
+        } else if (e instanceof UnaryExpr u) {
+            return (u.getOp() == Kind.MINUS || u.getOp() == Kind.BANG) && cannotFail(u.getExpr());
+        } else if (e instanceof ConditionalExpr c) {
+            return cannotFail(c.getGuardExpr()) && cannotFail(c.getTrueExpr()) && cannotFail(c.getFalseExpr());
+        } else if (e instanceof ExpandedPixelExpr p) {
+            return cannotFail(p.getRed()) && cannotFail(p.getGreen()) && cannotFail(p.getBlue());
+        } else if (e instanceof PostfixExpr p) {
+            return p.pixel() == null && p.primary().getType() != Type.IMAGE && cannotFail(p.primary());
+        }
+        return false;
+    }
+
+    /**
+     * @return true if no part of e is an image, so e does not read an image variable
+     */
+    public static boolean readsNoImage(Expr e) {
+        if (e.getType() == Type.IMAGE) {
+            return false;
+        } else if (e instanceof BinaryExpr b) {
+            return readsNoImage(b.getLeftExpr()) && readsNoImage(b.getRightExpr());
+        } else if (e instanceof UnaryExpr u) {
+            return readsNoImage(u.getExpr());
+        } else if (e instanceof ConditionalExpr c) {
+            return readsNoImage(c.getGuardExpr()) && readsNoImage(c.getTrueExpr()) && readsNoImage(c.getFalseExpr());
+        } else if (e instanceof ExpandedPixelExpr p) {
+            return readsNoImage(p.getRed()) && readsNoImage(p.getGreen()) && readsNoImage(p.getBlue());
+        } else if (e instanceof PostfixExpr p) {
+            PixelSelector pixel = p.pixel();
+            return readsNoImage(p.primary())
+                    && (pixel == null || readsNoImage(pixel.xExpr()) && readsNoImage(pixel.yExpr()));
+        }
+        return true;
+    }
+
+    private boolean isDead(Declaration declaration) {
+        NameDef nameDef = declaration.getNameDef();
+        if (used.contains(nameDef)) {
+            return false;
+        }
+        Expr initializer = declaration.getInitializer();
+        if (nameDef.getType() == Type.IMAGE) {
+            // creating or copying an image can fail
+            return nameDef.getDimension() == null && initializer == null;
+        }
+        return initializer == null || cannotFail(initializer);
+    }
+
+
+    /* ======================= elimination ======================= */
+
+    private static boolean isLiteral(Expr guard, boolean value) {
+        return guard instanceof BooleanLitExpr b && b.getText().equals(value ? "TRUE" : "FALSE");
+    }
+
+    private Block eliminate(Block block) {
+        List<BlockElem> elems = block.getElems();
+        List<BlockElem> live = new ArrayList<>(elems.size());
+        boolean changed = false;
+        for (BlockElem elem : elems) {
+            BlockElem result = eliminate(elem);
+            if (result != null) {
+                live.add(result);
+            }
+            changed |= result != elem;
+        }
+        return changed ? ConstantFolder.withElems(block, live) : block;
+    }
+
+    // the element to keep in place of elem, or null to remove it
+    private BlockElem eliminate(BlockElem elem) {
+        if (elem instanceof Declaration declaration) {
+            return isDead(declaration) ? null : declaration;
+        } else if (elem instanceof StatementBlock statementBlock) {
+            Block block = eliminate(statementBlock.getBlock());
+            if (block.getElems().isEmpty()) {
+                return null;
+            }
+            return block == statementBlock.getBlock() ? statementBlock : new StatementBlock(statementBlock.firstToken(), block);
+        } else if (elem instanceof IfStatement ifStatement) {
+            List<GuardedBlock> live = eliminate(ifStatement.getGuardedBlocks());
+            List<GuardedBlock> guardedBlocks = live == null ? ifStatement.getGuardedBlocks() : live;
+            if (guardedBlocks.isEmpty()) {
+                return null;
+            }
+            if (isLiteral(guardedBlocks.get(0).getGuard(), true)) {
+                Block block = guardedBlocks.get(0).getBlock();
+                return block.getElems().isEmpty() ? null : new StatementBlock(ifStatement.firstToken(), block);
+            }
+            return live == null ? ifStatement : new IfStatement(ifStatement.firstToken(), live);
+        } else if (elem instanceof DoStatement doStatement) {
+            List<GuardedBlock> live = eliminate(doStatement.getGuardedBlocks());
+            if (live == null) {
+                return doStatement;
+            }
+            return live.isEmpty() ? null : new DoStatement(doStatement.firstToken(), live);
+        }
+        return elem;
+    }
+
+    // the guarded blocks that can run, or null if that is all of them and none changed
+    private List<GuardedBlock> eliminate(List<GuardedBlock> guardedBlocks) {
+        List<GuardedBlock> live = new ArrayList<>(guardedBlocks.size());
+        boolean changed = false;
+        for (int i = 0; i < guardedBlocks.size(); i++) {
+            GuardedBlock guardedBlock = guardedBlocks.get(i);
+            Expr guard = guardedBlock.getGuard();
+            if (isLiteral(guard, false)) {
+                changed = true;
+                continue;
+            }
+            Block block = eliminate(guardedBlock.getBlock());
+            live.add(block == guardedBlock.getBlock() ? guardedBlock : new GuardedBlock(guardedBlock.firstToken(), guard, block));
+            changed |= block != guardedBlock.getBlock();
+            if (isLiteral(guard, true)) {
+                // the guards after it are never tested
+                changed |= i < guardedBlocks.size() - 1;
+                break;
+            }
+        }
+        return changed ? live : null;
+    }
+}
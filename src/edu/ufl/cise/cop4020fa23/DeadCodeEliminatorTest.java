@@ -0,0 +1,107 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+
+class DeadCodeEliminatorTest {
+
+	static Program checked(String input) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeTypeCheckingParser(input).parse();
+	}
+
+	static Program optimized(String input) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeOptimizingParser(input).parse();
+	}
+
+	static List<Block.BlockElem> elems(Program program) {
+		return program.getBlock().getElems();
+	}
+
+	// the optimized program returns and writes what the original does
+	static Object compare(String input, Object... args) throws PLCCompilerException {
+		ByteArrayOutputStream original = new ByteArrayOutputStream();
+		Object expected = new Interpreter(new PrintStream(original, true)).run(checked(input), args);
+		ByteArrayOutputStream optimized = new ByteArrayOutputStream();
+		assertEquals(expected, new Interpreter(new PrintStream(optimized, true)).run(optimized(input), args));
+		assertEquals(original.toString(), optimized.toString());
+		return expected;
+	}
+
+	@Test
+	void guardedBlocks() throws PLCCompilerException {
+		Program program = optimized("""
+				int f(int a) <:
+				if 1 > 2 -> <: write 1; :>
+				[] a > 3 -> <: write 2; :>
+				[] TRUE -> <: write 3; :>
+				[] a > 4 -> <: write 4; :>
+				fi;
+				if 2 > 1 -> <: a = a + 1; :> [] a > 1 -> <: write 5; :> fi;
+				do FALSE -> <: write 6; :> od;
+				if FALSE -> <: write 7; :> fi;
+				do a < 10 -> <: a = a + 2; :> [] FALSE -> <: write 8; :> od;
+				^ a;
+				:>
+				""");
+		assertEquals(4, elems(program).size());
+		IfStatement first = assertInstanceOf(IfStatement.class, elems(program).get(0));
+		assertEquals(2, first.getGuardedBlocks().size());
+		assertInstanceOf(StatementBlock.class, elems(program).get(1));
+		assertEquals(1, assertInstanceOf(DoStatement.class, elems(program).get(2)).getGuardedBlocks().size());
+	}
+
+	@Test
+	void unusedDeclarations() throws PLCCompilerException {
+		Program program = optimized("""
+				int f(int a, image i) <:
+				int b = a * 2;
+				int c = b + 1;
+				int d = a / a;
+				pixel p = i[1,1];
+				image j;
+				image[2,2] k;
+				^ a;
+				:>
+				""");
+		// b is only used by c, which is unused; the others can fail
+		assertEquals(4, elems(program).size());
+		assertEquals("d", ((Declaration) elems(program).get(0)).getNameDef().getName());
+		assertEquals("k", ((Declaration) elems(program).get(2)).getNameDef().getName());
+	}
+
+	@Test
+	void sameResults() throws PLCCompilerException {
+		String input = """
+				int f(int a) <:
+				int unused = a + 3;
+				if a > 5 -> <: write a; :> [] 1 == 1 -> <: int b = a * a; a = b; :> [] a > 1 -> <: ^ 1; :> fi;
+				do a < 100 -> <: a = a * 3; :> [] 2 < 1 -> <: ^ 2; :> od;
+				if TRUE -> <: ^ a; :> fi;
+				write 9;
+				^ a + 1;
+				:>
+				""";
+		assertEquals(144, compare(input, 4));
+		assertEquals(162, compare(input, 6));
+		Program unchanged = checked("int f(int a) <: do a > 1 -> <: a = a - 1; :> od; ^ a; :>");
+		assertSame(unchanged, DeadCodeEliminator.eliminate(unchanged));
+		assertThrows(PLCRuntimeException.class, () -> new Interpreter().run(optimized("""
+				int f(int a) <:
+				int d = 3 / a;
+				^ a;
+				:>
+				"""), 0));
+	}
+}
@@ -0,0 +1,108 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.SyntaxException;
+import edu.ufl.cise.cop4020fa23.exceptions.TypeCheckException;
+
+class DiagnosticsTest {
+
+	@Test
+	void everyErrorIsReported() {
+		String input = """
+				void p(int a) <:
+				int b = "s";
+				c = a;
+				write d + 1;
+				a = TRUE;
+				if a -> <: :> fi;
+				int b = 2;
+				^ 1;
+				:>
+				""";
+		List<PLCCompilerException> diagnostics = ComponentFactory.collectDiagnostics(input);
+		String[] messages = {
+				"type mismatch in declaration: expected INT, found STRING",
+				"LValue refers to an undefined name: c",
+				// d + 1 is not reported again
+				"variable d not declared in current scope.",
+				"type mismatch in assignment. LValue type: INT, Expr type: BOOLEAN",
+				"guard expression in GuardedBlock must be of type BOOLEAN",
+				"Name already defined in the current scope: b",
+				"mismatched return type :(. Expected VOID but found INT",
+		};
+		int[] columns = {5, 1, 7, 1, 4, 5, 3};
+		assertEquals(messages.length, diagnostics.size(), diagnostics.toString());
+		int line = 0;
+		for (int i = 0; i < messages.length; i++) {
+			PLCCompilerException e = diagnostics.get(i);
+			assertThat(e, instanceOf(TypeCheckException.class));
+			SourceLocation location = e.getLocation();
+			assertNotNull(location);
+			assertEquals(location + ": " + messages[i], e.getMessage());
+			assertEquals(columns[i], location.column());
+			assertTrue(location.line() > line);
+			line = location.line();
+		}
+	}
+
+	@Test
+	void cascadesAreSuppressed() {
+		String input = """
+				int p() <:
+				int a = (x + 1) * 2 - (? x -> 1 , 2);
+				a = y[1,2]:red + a;
+				^ -a;
+				:>
+				""";
+		List<PLCCompilerException> diagnostics = ComponentFactory.collectDiagnostics(input);
+		assertEquals(3, diagnostics.size(), diagnostics.toString());
+		assertTrue(diagnostics.get(0).getMessage().endsWith("variable x not declared in current scope."));
+		assertTrue(diagnostics.get(1).getMessage().endsWith("variable x not declared in current scope."));
+		assertTrue(diagnostics.get(2).getMessage().endsWith("variable y not declared in current scope."));
+	}
+
+	@Test
+	void correctProgram() {
+		String input = """
+				image p(image im) <:
+				im[x,y] = im[y,x];
+				^ im;
+				:>
+				""";
+		assertEquals(List.of(), ComponentFactory.collectDiagnostics(input));
+	}
+
+	@Test
+	void syntaxErrorStopsTheCheck() {
+		List<PLCCompilerException> diagnostics = ComponentFactory.collectDiagnostics("int p() <: ^ 1 :>");
+		assertEquals(1, diagnostics.size());
+		assertThat(diagnostics.get(0), instanceOf(SyntaxException.class));
+	}
+
+	@Test
+	void firstErrorStillThrownByDefault() throws PLCCompilerException {
+		String input = """
+				void p() <:
+				int b = "s";
+				c = 1;
+				:>
+				""";
+		AST ast = ComponentFactory.makeParser(input).parse();
+		TypeCheckException e = assertThrows(TypeCheckException.class, () -> ast.visit(ComponentFactory.makeTypeChecker(), null));
+		assertNotNull(e.getLocation());
+		assertEquals(e.getLocation() + ": type mismatch in declaration: expected INT, found STRING", e.getMessage());
+	}
+
+}
@@ -0,0 +1,223 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.Random;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.ast.BinaryExpr;
+import edu.ufl.cise.cop4020fa23.ast.BooleanLitExpr;
+import edu.ufl.cise.cop4020fa23.ast.ConditionalExpr;
+import edu.ufl.cise.cop4020fa23.ast.ConstExpr;
+import edu.ufl.cise.cop4020fa23.ast.ExpandedPixelExpr;
+import edu.ufl.cise.cop4020fa23.ast.Expr;
+import edu.ufl.cise.cop4020fa23.ast.IdentExpr;
+import edu.ufl.cise.cop4020fa23.ast.IntExprVisitor;
+import edu.ufl.cise.cop4020fa23.ast.NumLitExpr;
+import edu.ufl.cise.cop4020fa23.ast.PostfixExpr;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.ReturnStatement;
+import edu.ufl.cise.cop4020fa23.ast.StringLitExpr;
+import edu.ufl.cise.cop4020fa23.ast.UnaryExpr;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Compares double dispatch through visit/accept methods with a switch on AST.nodeKind(), run with
+ *   java edu.ufl.cise.cop4020fa23.DispatchBenchmark
+ *
+ *   check:  type checking a program of n random int expressions, as TypeCheckVisitor does it.
+ *   eval:   evaluating one random expression of n nodes, by an IntExprVisitor (acceptInt) and by
+ *           a switch on nodeKind().  The expressions mix three node classes, so the accept call
+ *           site is megamorphic.
+ */
+public class DispatchBenchmark {
+
+    static final int REPEAT = 5;
+
+    static void randomExpr(Random random, int depth, StringBuilder sb) {
+        if (depth == 0) {
+            sb.append("abc".charAt(random.nextInt(3)));
+            return;
+        }
+        switch (random.nextInt(4)) {
+            case 0 -> {
+                sb.append("-(");
+                randomExpr(random, depth - 1, sb);
+                sb.append(')');
+            }
+            default -> {
+                sb.append('(');
+                randomExpr(random, depth - 1, sb);
+                sb.append(" +-*".charAt(1 + random.nextInt(3)));
+                randomExpr(random, depth - 1, sb);
+                sb.append(')');
+            }
+        }
+    }
+
+    static String checkProgram(int n) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("void check(int a, int b, int c) <:\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("a = ");
+            randomExpr(random, 4, sb);
+            sb.append(";\n");
+        }
+        return sb.append(":>\n").toString();
+    }
+
+    static long timeTypeCheck(String input) throws PLCCompilerException {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < REPEAT; r++) {
+            AST ast = ComponentFactory.makeParser(input).parse();
+            long start = System.nanoTime();
+            ast.visit(ComponentFactory.makeTypeChecker(), null);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    // a checked expression over the parameters a, b and c, whose slots are 0, 1 and 2
+    static Expr evalExpr(int depth) throws PLCCompilerException {
+        StringBuilder sb = new StringBuilder("int eval(int a, int b, int c) <:\n^ ");
+        randomExpr(new Random(7), depth, sb);
+        Program program = (Program) ComponentFactory.makeTypeCheckingParser(sb.append(";\n:>\n").toString()).parse();
+        return ((ReturnStatement) program.getBlock().getElems().get(0)).getE();
+    }
+
+    static final class VisitorEvaluator implements IntExprVisitor<int[]> {
+        @Override
+        public int visitIntBinaryExpr(BinaryExpr binaryExpr, int[] frame) throws PLCCompilerException {
+            int left = binaryExpr.getLeftExpr().acceptInt(this, frame);
+            int right = binaryExpr.getRightExpr().acceptInt(this, frame);
+            return switch (binaryExpr.getOpKind()) {
+                case PLUS -> left + right;
+                case MINUS -> left - right;
+                default -> left * right;
+            };
+        }
+
+        @Override
+        public int visitIntUnaryExpr(UnaryExpr unaryExpr, int[] frame) throws PLCCompilerException {
+            return -unaryExpr.getExpr().acceptInt(this, frame);
+        }
+
+        @Override
+        public int visitIntIdentExpr(IdentExpr identExpr, int[] frame) {
+            return frame[identExpr.getSlot()];
+        }
+
+        @Override
+        public int visitIntPostfixExpr(PostfixExpr postfixExpr, int[] frame) throws PLCCompilerException {
+            // parenthesized expressions are parsed as PostfixExpr without selectors
+            return postfixExpr.primary().acceptInt(this, frame);
+        }
+
+        @Override
+        public int visitIntBooleanLitExpr(BooleanLitExpr booleanLitExpr, int[] frame) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int visitIntConditionalExpr(ConditionalExpr conditionalExpr, int[] frame) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int visitIntConstExpr(ConstExpr constExpr, int[] frame) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int visitIntExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, int[] frame) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int visitIntNumLitExpr(NumLitExpr numLitExpr, int[] frame) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int visitIntStringLitExpr(StringLitExpr stringLitExpr, int[] frame) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static int switchEval(Expr expr, int[] frame) {
+        switch (expr.nodeKind()) {
+            case BINARY_EXPR -> {
+                BinaryExpr binaryExpr = (BinaryExpr) expr;
+                int left = switchEval(binaryExpr.getLeftExpr(), frame);
+                int right = switchEval(binaryExpr.getRightExpr(), frame);
+                return switch (binaryExpr.getOpKind()) {
+                    case PLUS -> left + right;
+                    case MINUS -> left - right;
+                    default -> left * right;
+                };
+            }
+            case UNARY_EXPR -> {
+                return -switchEval(((UnaryExpr) expr).getExpr(), frame);
+            }
+            case IDENT_EXPR -> {
+                return frame[((IdentExpr) expr).getSlot()];
+            }
+            case POSTFIX_EXPR -> {
+                return switchEval(((PostfixExpr) expr).primary(), frame);
+            }
+            default -> throw new UnsupportedOperationException(expr.nodeKind().toString());
+        }
+    }
+
+    static int countNodes(Expr expr) {
+        if (expr instanceof BinaryExpr binaryExpr) {
+            return 1 + countNodes(binaryExpr.getLeftExpr()) + countNodes(binaryExpr.getRightExpr());
+        } else if (expr instanceof UnaryExpr unaryExpr) {
+            return 1 + countNodes(unaryExpr.getExpr());
+        } else if (expr instanceof PostfixExpr postfixExpr) {
+            return 1 + countNodes(postfixExpr.primary());
+        }
+        return 1;
+    }
+
+    interface Evaluation {
+        int run(Expr expr, int[] frame) throws PLCCompilerException;
+    }
+
+    // best of REPEAT runs of rounds evaluations, in ns per node
+    static double timeEval(Evaluation evaluation, Expr expr, int rounds) throws PLCCompilerException {
+        int[] frame = {3, 5, 7};
+        long best = Long.MAX_VALUE;
+        int sink = 0;
+        for (int r = 0; r < REPEAT; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                frame[0] = i;
+                sink += evaluation.run(expr, frame);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return (double) best / rounds / countNodes(expr);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String program = checkProgram(100_000);
+        for (int i = 0; i < 3; i++) {
+            timeTypeCheck(program);
+        }
+        System.out.printf("check: %d statements in %.2f ms%n", 100_000, timeTypeCheck(program) / 1e6);
+
+        Expr expr = evalExpr(12);
+        VisitorEvaluator visitor = new VisitorEvaluator();
+        Evaluation byVisitor = (e, frame) -> e.acceptInt(visitor, frame);
+        Evaluation bySwitch = DispatchBenchmark::switchEval;
+        for (int i = 0; i < 3; i++) {
+            timeEval(byVisitor, expr, 200);
+            timeEval(bySwitch, expr, 200);
+        }
+        System.out.printf("eval: %d nodes, acceptInt %.2f ns/node, switch %.2f ns/node%n", countNodes(expr),
+                timeEval(byVisitor, expr, 5000), timeEval(bySwitch, expr, 5000));
+    }
+
+}
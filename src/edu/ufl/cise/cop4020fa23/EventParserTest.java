@@ -0,0 +1,66 @@
+/*Copyright 2023 by Beverly A Sanders
+ *
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the
+ * University of Florida during the fall semester 2023 as part of the course project.
+ *
+ * No other use is authorized.
+ *
+ * This code may not be posted on a public web site either during or after the course.
+ */
+
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Runs every test in ParserTest_starter on the AST built by a TreeBuilder that gets the events of
+ * the Parser through another listener, which checks that every production is exited in order.
+ */
+class EventParserTest extends ParserTest_starter {
+
+	static class Nesting implements ParseListener {
+		final ParseListener next;
+		final Deque<Production> open = new ArrayDeque<>();
+
+		Nesting(ParseListener next) {
+			this.next = next;
+		}
+
+		@Override
+		public void enter(Production production, IToken token) throws PLCCompilerException {
+			open.push(production);
+			next.enter(production, token);
+		}
+
+		@Override
+		public void exit(Production production, IToken token) throws PLCCompilerException {
+			assertEquals(open.pop(), production);
+			next.exit(production, token);
+		}
+
+		@Override
+		public void terminal(IToken token) throws PLCCompilerException {
+			next.terminal(token);
+		}
+	}
+
+	@Override
+	AST getAST(String input) throws PLCCompilerException {
+		TreeBuilder builder = new TreeBuilder();
+		Nesting nesting = new Nesting(builder);
+		assertNull(ComponentFactory.makeEventParser(input, nesting).parse());
+		assertTrue(nesting.open.isEmpty());
+		AST ast = builder.getAST();
+		assertEquals(ComponentFactory.makeParser(input).parse(), ast);
+		return ast;
+	}
+
+}
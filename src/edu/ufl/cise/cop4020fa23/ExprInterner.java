@@ -0,0 +1,159 @@
+package edu.ufl.cise.cop4020fa23;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Hash-consing table for expression nodes, used by the Parser when one is supplied
+ * (see ComponentFactory.makeHashConsingParser).
+ *
+ * Nodes are keyed on structure only: the node class, the operator or literal kind, the literal
+ * text and the shared children.  Only closed, well-typed subtrees are shared: literals,
+ * ConstExprs, and Unary/Binary/Conditional/ExpandedPixel expressions whose operands are shared
+ * and valid for them.  Their types are worked out here, with TypeRules, and kept in a side table,
+ * so an expression the type checker would reject is never shared and every occurrence of a shared
+ * node gets the same type.  Anything that mentions an identifier is left alone, because its type
+ * (and NameDef) depends on the scope it appears in.
+ *
+ * A shared node keeps the tokens of its first occurrence, so its own positions mean nothing.
+ * Errors are reported at the token TypeCheckVisitor.locate finds by following one child of each
+ * node down from the node in error, so TreeBuilder does not intern that child, and the tokens
+ * of every occurrence that can be reported stay in the node of that occurrence.  Sharing happens
+ * within one program, and between parses of the same or an edited source with one interner, as
+ * in an editor.
+ */
+public class ExprInterner {
+
+    private final Map<Key, Expr> table = new HashMap<>();
+    // the shared nodes, with their types
+    private final Map<Expr, Type> types = new IdentityHashMap<>();
+
+    /**
+     * Returns the shared instance that is structurally identical to e, or e itself if it cannot
+     * be shared.  The operands of e are interned first, so the result may be a copy of e with
+     * shared operands.
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Expr> E intern(E e) {
+        return (E) share(e);
+    }
+
+    /** Number of distinct shared nodes. */
+    public int size() {
+        return table.size();
+    }
+
+    private Expr share(Expr e) {
+        if (types.containsKey(e)) {
+            return e;
+        }
+        Expr node = e;
+        Key key;
+        Type type;
+        if (e instanceof NumLitExpr || e instanceof StringLitExpr || e instanceof BooleanLitExpr || e instanceof ConstExpr) {
+            key = new Key(e.getClass(), e.firstToken().kind(), e.firstToken().text(), null, null, null);
+            type = e instanceof NumLitExpr ? Type.INT
+                    : e instanceof StringLitExpr ? Type.STRING
+                    : e instanceof BooleanLitExpr ? Type.BOOLEAN
+                    : ((ConstExpr) e).getName().equals("Z") ? Type.INT : Type.PIXEL;
+        } else if (e instanceof UnaryExpr u) {
+            Expr operand = share(u.getExpr());
+            type = types.containsKey(operand) ? TypeRules.unaryResult(u.getOp(), types.get(operand)) : null;
+            if (type == null) {
+                return e;
+            }
+            key = new Key(UnaryExpr.class, u.getOp(), null, operand, null, null);
+            if (operand != u.getExpr()) {
+                node = new UnaryExpr(u.firstToken(), u.getOpToken(), operand);
+            }
+        } else if (e instanceof BinaryExpr b) {
+            Expr left = share(b.getLeftExpr());
+            Expr right = share(b.getRightExpr());
+            type = types.containsKey(left) && types.containsKey(right)
+                    ? TypeRules.binaryResult(b.getOpKind(), types.get(left), types.get(right))
+                    : null;
+            if (type == null) {
+                return e;
+            }
+            key = new Key(BinaryExpr.class, b.getOpKind(), null, left, right, null);
+            if (left != b.getLeftExpr() || right != b.getRightExpr()) {
+                node = new BinaryExpr(b.firstToken(), left, b.getOp(), right);
+            }
+        } else if (e instanceof ConditionalExpr c) {
+            Expr guard = share(c.getGuardExpr());
+            Expr trueExpr = share(c.getTrueExpr());
+            Expr falseExpr = share(c.getFalseExpr());
+            type = types.get(trueExpr);
+            if (types.get(guard) != Type.BOOLEAN || type == null || type != types.get(falseExpr)) {
+                return e;
+            }
+            key = new Key(ConditionalExpr.class, null, null, guard, trueExpr, falseExpr);
+            if (guard != c.getGuardExpr() || trueExpr != c.getTrueExpr() || falseExpr != c.getFalseExpr()) {
+                node = new ConditionalExpr(c.firstToken(), guard, trueExpr, falseExpr);
+            }
+        } else if (e instanceof ExpandedPixelExpr p) {
+            Expr red = share(p.getRed());
+            Expr green = share(p.getGreen());
+            Expr blue = share(p.getBlue());
+            if (types.get(red) != Type.INT || types.get(green) != Type.INT || types.get(blue) != Type.INT) {
+                return e;
+            }
+            type = Type.PIXEL;
+            key = new Key(ExpandedPixelExpr.class, null, null, red, green, blue);
+            if (red != p.getRed() || green != p.getGreen() || blue != p.getBlue()) {
+                node = new ExpandedPixelExpr(p.firstToken(), red, green, blue);
+            }
+        } else {
+            return e;
+        }
+        Expr shared = table.putIfAbsent(key, node);
+        if (shared != null) {
+            return shared;
+        }
+        if (node != e) {
+            // checked already, if type checking is fused with parsing
+            node.setType(e.getType());
+        }
+        types.put(node, type);
+        return node;
+    }
+
+    // children are already shared, so they are compared by identity
+    private static final class Key {
+        final Class<?> nodeClass;
+        final Kind kind;
+        final String text;
+        final Expr a, b, c;
+        final int hash;
+
+        Key(Class<?> nodeClass, Kind kind, String text, Expr a, Expr b, Expr c) {
+            this.nodeClass = nodeClass;
+            this.kind = kind;
+            this.text = text;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.hash = Objects.hash(nodeClass, kind, text, System.identityHashCode(a),
+                    System.identityHashCode(b), System.identityHashCode(c));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key other))
+                return false;
+            return hash == other.hash && nodeClass == other.nodeClass && kind == other.kind
+                    && Objects.equals(text, other.text) && a == other.a && b == other.b && c == other.c;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.BinaryExpr;
+import edu.ufl.cise.cop4020fa23.ast.Declaration;
+import edu.ufl.cise.cop4020fa23.ast.Expr;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.ReturnStatement;
+import edu.ufl.cise.cop4020fa23.ast.UnaryExpr;
+import edu.ufl.cise.cop4020fa23.ast.WriteStatement;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+class ExprInternerTest {
+
+	static Program parse(String input, ExprInterner interner) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeHashConsingParser(input, interner).parse();
+	}
+
+	static Expr initializer(Program program, int index) {
+		return ((Declaration) program.getBlock().getElems().get(index)).getInitializer();
+	}
+
+	static List<String> diagnostics(Program program) throws PLCCompilerException {
+		TypeCheckContext context = new TypeCheckContext(true);
+		program.visit(ComponentFactory.makeTypeChecker(), context);
+		List<String> messages = new ArrayList<>();
+		for (PLCCompilerException e : context.getDiagnostics()) {
+			messages.add(e.getMessage());
+		}
+		return messages;
+	}
+
+	static final String INPUT = """
+			int f(int a) <:
+			int b = (1 + 2) * 3;
+			int c = (1 + 2) * 3;
+			int d = a + 2;
+			^ b + c + d;
+			:>
+			""";
+
+	@Test
+	void sharing() throws PLCCompilerException {
+		ExprInterner interner = new ExprInterner();
+		Program first = parse(INPUT, interner);
+		// equal subtrees in one program are one node
+		BinaryExpr b = (BinaryExpr) initializer(first, 0);
+		assertSame(b, initializer(first, 1));
+		BinaryExpr d = (BinaryExpr) initializer(first, 2);
+		assertSame(((BinaryExpr) b.getLeftExpr()).getRightExpr(), d.getRightExpr());
+		// parsing the source again, or an edited one, adds nothing
+		int size = interner.size();
+		Program edited = parse(INPUT.replace("int c =", "\n\nint c  ="), interner);
+		assertEquals(size, interner.size());
+		assertSame(b, initializer(edited, 0));
+		assertSame(b, initializer(edited, 1));
+		// but not those that mention a name
+		assertNotSame(d, initializer(edited, 2));
+	}
+
+	@Test
+	void locatedOccurrences() throws PLCCompilerException {
+		ExprInterner interner = new ExprInterner();
+		Program program = parse("""
+				int f() <:
+				int b = (1 + 2) * 3;
+				write (1 + 2) * 3;
+				^ -(1 + 2);
+				:>
+				""", interner);
+		// errors about a write or a return are located in its expression, so that keeps its
+		// own first node, whose operands are shared
+		BinaryExpr b = (BinaryExpr) initializer(program, 0);
+		BinaryExpr write = (BinaryExpr) ((WriteStatement) program.getBlock().getElems().get(1)).getExpr();
+		assertNotSame(b, write);
+		assertNotEquals(b.getOp().sourceLocation(), write.getOp().sourceLocation());
+		assertSame(b.getLeftExpr(), write.getLeftExpr());
+		assertSame(b.getRightExpr(), write.getRightExpr());
+		UnaryExpr negation = (UnaryExpr) ((ReturnStatement) program.getBlock().getElems().get(2)).getE();
+		BinaryExpr operand = (BinaryExpr) negation.getExpr();
+		assertNotSame(b.getLeftExpr(), operand);
+		assertNotEquals(((BinaryExpr) b.getLeftExpr()).getOp().sourceLocation(), operand.getOp().sourceLocation());
+	}
+
+	@Test
+	void sameParseResults() throws PLCCompilerException {
+		String errors = """
+				void f() <:
+				int b = (1 + 2) * 3;
+				write (1 + 2) * 3 + "s";
+				int a = (1 + 2) * 3 + "s";
+				if 1 + 2 -> <: write 1 + 2; :> fi;
+				int c = ? 1 + 2 -> 1 , 2;
+				int d = [1 + 2, "s", 3];
+				int e = -(1 + 2 == 3);
+				^ TRUE;
+				:>
+				""";
+		ExprInterner interner = new ExprInterner();
+		for (String input : new String[] { INPUT, errors, INPUT, errors }) {
+			Program plain = (Program) ComponentFactory.makeParser(input).parse();
+			Program shared = parse(input, interner);
+			// every error is located at its own occurrence
+			assertEquals(diagnostics(plain), diagnostics(shared));
+		}
+		Program program = parse(INPUT, interner);
+		program.visit(ComponentFactory.makeTypeChecker(), null);
+		assertEquals(22, new Interpreter().run(program, 2));
+		// checked as it is parsed
+		Program fused = (Program) new Parser(ComponentFactory.makeLexer(INPUT), interner, new TypeCheckVisitor()).parse();
+		assertSame(initializer(program, 0), initializer(fused, 1));
+		assertEquals(22, new Interpreter().run(fused, 2));
+	}
+
+	@Test
+	void optimizeShared() throws PLCCompilerException {
+		String input = """
+				int f() <:
+				int b = 1 + 2;
+				b = b * 2;
+				int c = 1 + 2;
+				^ b + c;
+				:>
+				""";
+		Program program = parse(input, new ExprInterner());
+		program.visit(ComponentFactory.makeTypeChecker(), null);
+		// the one node for 1 + 2 is evaluated into a temporary at its first occurrence only
+		Program optimized = CommonSubexpressionEliminator.eliminate(program);
+		assertEquals(9, new Interpreter().run(optimized));
+	}
+}
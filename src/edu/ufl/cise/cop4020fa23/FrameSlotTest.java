@@ -0,0 +1,120 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.ast.ASTVisitor;
+import edu.ufl.cise.cop4020fa23.ast.AssignmentStatement;
+import edu.ufl.cise.cop4020fa23.ast.BinaryExpr;
+import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
+import edu.ufl.cise.cop4020fa23.ast.Declaration;
+import edu.ufl.cise.cop4020fa23.ast.IdentExpr;
+import edu.ufl.cise.cop4020fa23.ast.LValue;
+import edu.ufl.cise.cop4020fa23.ast.PixelSelector;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.StatementBlock;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Frame slots assigned to names by the type checker.
+ */
+class FrameSlotTest {
+
+	Program check(String input) throws PLCCompilerException {
+		AST ast = ComponentFactory.makeParser(input).parse();
+		ASTVisitor typeChecker = ComponentFactory.makeTypeChecker();
+		ast.visit(typeChecker, null);
+		return (Program) ast;
+	}
+
+	@Test
+	void paramsAndDeclarations() throws PLCCompilerException {
+		String input = """
+				void p(int a, string b) <:
+				int c = a;
+				c = a + 1;
+				:>
+				""";
+		Program program = check(input);
+		assertEquals(0, program.getParams().get(0).getSlot());
+		assertEquals(1, program.getParams().get(1).getSlot());
+		List<BlockElem> elems = program.getBlock().getElems();
+		Declaration c = (Declaration) elems.get(0);
+		assertEquals(2, c.getNameDef().getSlot());
+		assertEquals(0, ((IdentExpr) c.getInitializer()).getSlot());
+		AssignmentStatement assignment = (AssignmentStatement) elems.get(1);
+		assertEquals(2, assignment.getlValue().getSlot());
+		assertEquals(0, ((IdentExpr) ((BinaryExpr) assignment.getE()).getLeftExpr()).getSlot());
+		assertEquals(3, program.getFrameSize());
+	}
+
+	@Test
+	void siblingBlocksReuseSlots() throws PLCCompilerException {
+		String input = """
+				int p() <:
+				int a = 1;
+				<: int b = a; int a = b; :>;
+				<: int c = a; :>;
+				^a;
+				:>
+				""";
+		Program program = check(input);
+		List<BlockElem> elems = program.getBlock().getElems();
+		List<BlockElem> first = ((StatementBlock) elems.get(1)).getBlock().getElems();
+		List<BlockElem> second = ((StatementBlock) elems.get(2)).getBlock().getElems();
+		Declaration b = (Declaration) first.get(0);
+		Declaration innerA = (Declaration) first.get(1);
+		Declaration c = (Declaration) second.get(0);
+		assertEquals(1, b.getNameDef().getSlot());
+		// a shadowed name gets its own slot
+		assertEquals(2, innerA.getNameDef().getSlot());
+		assertEquals(1, ((IdentExpr) innerA.getInitializer()).getSlot());
+		assertEquals(1, c.getNameDef().getSlot());
+		assertEquals(0, ((IdentExpr) c.getInitializer()).getSlot());
+		assertEquals(3, program.getFrameSize());
+	}
+
+	@Test
+	void implicitPixelCoordinates() throws PLCCompilerException {
+		String input = """
+				void p(image im) <:
+				im[x,y] = [x,y,0];
+				:>
+				""";
+		Program program = check(input);
+		AssignmentStatement assignment = (AssignmentStatement) program.getBlock().getElems().get(0);
+		LValue lValue = assignment.getlValue();
+		assertEquals(0, lValue.getSlot());
+		PixelSelector pixelSelector = lValue.getPixelSelector();
+		int x = ((IdentExpr) pixelSelector.xExpr()).getSlot();
+		int y = ((IdentExpr) pixelSelector.yExpr()).getSlot();
+		assertEquals(1, x);
+		assertEquals(2, y);
+		assertNotEquals(x, y);
+		assertEquals(3, program.getFrameSize());
+	}
+
+	@Test
+	void fusedParserAssignsSameSlots() throws PLCCompilerException {
+		String input = """
+				void p(image im, int n) <:
+				int i = 1;
+				do i < n -> <: int j = i; im[x,y] = [j,y,x]; i = i + 1; :> od;
+				:>
+				""";
+		Program separate = check(input);
+		Program fused = (Program) ComponentFactory.makeTypeCheckingParser(input).parse();
+		assertEquals(separate, fused);
+		assertEquals(separate.getFrameSize(), fused.getFrameSize());
+		assertEquals(separate.getParams().get(1).getSlot(), fused.getParams().get(1).getSlot());
+		Declaration i = (Declaration) separate.getBlock().getElems().get(0);
+		Declaration fusedI = (Declaration) fused.getBlock().getElems().get(0);
+		assertEquals(i.getNameDef().getSlot(), fusedI.getNameDef().getSlot());
+	}
+
+}
@@ -0,0 +1,39 @@
+/*Copyright 2023 by Beverly A Sanders
+ *
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the
+ * University of Florida during the fall semester 2023 as part of the course project.
+ *
+ * No other use is authorized.
+ *
+ * This code may not be posted on a public web site either during or after the course.
+ */
+
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.exceptions.LexicalException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.SyntaxException;
+
+/**
+ * Runs every test in TypeCheckTest_starter with type checking fused into the parser.
+ */
+class FusedTypeCheckTest extends TypeCheckTest_starter {
+
+	@Override
+	AST getDecoratedAST(String input) throws PLCCompilerException {
+		return ComponentFactory.makeTypeCheckingParser(input).parse();
+	}
+
+	// as with parse-then-check, a later lexical or syntax error wins over a type error
+	@Test
+	void laterSyntaxError() {
+		assertThrows(SyntaxException.class, () -> getDecoratedAST("void f() <: int a = \"s\"; write a :>"));
+		assertThrows(LexicalException.class, () -> getDecoratedAST("void f() <: int a = \"s\"; write @; :>"));
+	}
+
+}
@@ -9,6 +9,8 @@
  */
 package edu.ufl.cise.cop4020fa23;
 
+import java.util.function.Consumer;
+
 import edu.ufl.cise.cop4020fa23.exceptions.LexicalException;
 
 /**
@@ -16,4 +18,18 @@ import edu.ufl.cise.cop4020fa23.exceptions.LexicalException;
  */
 public interface ILexer {
 	IToken next() throws LexicalException;
+
+	/**
+	 * Like next(), but passes an error to errors and returns null instead of throwing, for
+	 * callers that report errors without exceptions.  The default catches the exception of
+	 * next(); Lexer overrides it to report errors without throwing.
+	 */
+	default IToken next(Consumer<LexicalException> errors) {
+		try {
+			return next();
+		} catch (LexicalException e) {
+			errors.accept(e);
+			return null;
+		}
+	}
 }
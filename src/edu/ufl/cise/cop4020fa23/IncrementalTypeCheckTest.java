@@ -0,0 +1,304 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.AssignmentStatement;
+import edu.ufl.cise.cop4020fa23.ast.Block;
+import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
+import edu.ufl.cise.cop4020fa23.ast.Declaration;
+import edu.ufl.cise.cop4020fa23.ast.DoStatement;
+import edu.ufl.cise.cop4020fa23.ast.IdentExpr;
+import edu.ufl.cise.cop4020fa23.ast.NameDef;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.Type;
+import edu.ufl.cise.cop4020fa23.ast.WriteStatement;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+class IncrementalTypeCheckTest {
+
+	static Program parse(String input) throws PLCCompilerException {
+		return (Program) ComponentFactory.makeParser(input).parse();
+	}
+
+	// parsed and checked from scratch
+	static Program checked(String input) throws PLCCompilerException {
+		Program program = parse(input);
+		program.visit(ComponentFactory.makeTypeChecker(), new TypeCheckContext(true));
+		return program;
+	}
+
+	static List<String> messages(List<? extends PLCCompilerException> diagnostics) {
+		List<String> messages = new ArrayList<>();
+		for (PLCCompilerException e : diagnostics) {
+			messages.add(e.getMessage());
+		}
+		return messages;
+	}
+
+	// what program returns and writes
+	static String run(Program program, Object... args) throws PLCCompilerException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Object result = new Interpreter(new PrintStream(out, true)).run(program, args);
+		return result + "|" + out;
+	}
+
+	// Checks v1, replaces its element at index by the one of v2, and compares with a full check of v2.
+	// The edited elements have the same length, so the tokens after them are at the same positions.
+	static IncrementalTypeChecker edit(String v1, String v2, int index, int expectedChecked) throws PLCCompilerException {
+		IncrementalTypeChecker checker = new IncrementalTypeChecker(parse(v1));
+		assertEquals(messages(ComponentFactory.collectDiagnostics(v1)), messages(checker.getDiagnostics()));
+		BlockElem oldElem = checker.getProgram().getBlock().getElems().get(index);
+		BlockElem newElem = parse(v2).getBlock().getElems().get(index);
+		assertEquals(expectedChecked, checker.replace(oldElem, List.of(newElem)));
+		assertEquals(checked(v2), checker.getProgram());
+		assertEquals(messages(ComponentFactory.collectDiagnostics(v2)), messages(checker.getDiagnostics()));
+		return checker;
+	}
+
+	@Test
+	void editIntroducesError() throws PLCCompilerException {
+		String v1 = """
+				void p(int a) <:
+				int b = a + 100;
+				write b;
+				:>
+				""";
+		String v2 = """
+				void p(int a) <:
+				int b = a + "s";
+				write b;
+				:>
+				""";
+		IncrementalTypeChecker checker = edit(v1, v2, 0, 2);
+		assertEquals(1, checker.getDiagnostics().size());
+		checker.replace(checker.getProgram().getBlock().getElems().get(0), List.of(parse(v1).getBlock().getElems().get(0)));
+		assertEquals(List.of(), checker.getDiagnostics());
+	}
+
+	@Test
+	void declarationChangeRebindsUsers() throws PLCCompilerException {
+		String v1 = """
+				void p() <:
+				int b = 100000;
+				int c = 2;
+				write c;
+				write b + 1;
+				:>
+				""";
+		String v2 = """
+				void p() <:
+				string b = "s";
+				int c = 2;
+				write c;
+				write b + 1;
+				:>
+				""";
+		// only the element using b is checked again
+		IncrementalTypeChecker checker = edit(v1, v2, 0, 2);
+		List<BlockElem> elems = checker.getProgram().getBlock().getElems();
+		WriteStatement write = (WriteStatement) elems.get(3);
+		assertEquals(Type.ERROR, write.getExpr().getType());
+		Declaration b = (Declaration) elems.get(0);
+		assertEquals(Type.STRING, b.getNameDef().getType());
+		assertEquals(b.getNameDef(), checker.getProgram().getBlock().getScope(4).lookup("b"));
+	}
+
+	@Test
+	void insertMovesSlots() throws PLCCompilerException {
+		String v1 = """
+				int p() <:
+				int a = 1;
+				int c = a;
+				^ c;
+				:>
+				""";
+		IncrementalTypeChecker checker = new IncrementalTypeChecker(parse(v1));
+		Block block = checker.getProgram().getBlock();
+		Program v2 = parse("""
+				int p() <:
+				int b = 2;
+				int c = b;
+				^ c;
+				:>
+				""");
+		List<BlockElem> inserted = List.of(v2.getBlock().getElems().get(0));
+		// a again, then b; c and the return are checked again as their slots move
+		assertEquals(4, checker.replace(block.getElems().get(0), List.of(block.getElems().get(0), inserted.get(0))));
+		List<BlockElem> elems = checker.getProgram().getBlock().getElems();
+		assertEquals(4, elems.size());
+		assertEquals(1, ((Declaration) elems.get(1)).getNameDef().getSlot());
+		assertEquals(2, ((Declaration) elems.get(2)).getNameDef().getSlot());
+		assertEquals(0, ((IdentExpr) ((Declaration) elems.get(2)).getInitializer()).getSlot());
+		assertEquals(3, checker.getProgram().getFrameSize());
+		assertEquals(List.of(), checker.getDiagnostics());
+	}
+
+	@Test
+	void redeclarationMovesSlots() throws PLCCompilerException {
+		String v1 = """
+				int p() <:
+				int a = 5;
+				int a = 6;
+				int c = 5;
+				write c;
+				^ b + c;
+				:>
+				""";
+		String v2 = """
+				int p() <:
+				int a = 5;
+				int b = 6;
+				int c = 5;
+				write c;
+				^ b + c;
+				:>
+				""";
+		// b takes the slot the redeclaration did not, so c and the statements after it move
+		IncrementalTypeChecker checker = edit(v1, v2, 1, 4);
+		assertEquals(run(checked(v2)), run(checker.getProgram()));
+		List<BlockElem> elems = checker.getProgram().getBlock().getElems();
+		assertEquals(2, ((Declaration) elems.get(2)).getNameDef().getSlot());
+		// and back: c is checked again, as its slot moves back
+		checker.replace(elems.get(1), List.of(parse(v1).getBlock().getElems().get(1)));
+		assertEquals(1, ((Declaration) checker.getProgram().getBlock().getElems().get(2)).getNameDef().getSlot());
+	}
+
+	@Test
+	void usersOfRecheckedDeclarations() throws PLCCompilerException {
+		String v1 = """
+				int p(int n) <:
+				int b = 1;
+				int c = b + n;
+				int d = 3;
+				write c;
+				^ c + d;
+				:>
+				""";
+		String v2 = v1.replace("int b = 1;", "int b = 7;");
+		// c uses b, so it gets a new NameDef, and the statements using c are checked again
+		IncrementalTypeChecker checker = edit(v1, v2, 0, 4);
+		assertEquals(run(checked(v2), 2), run(checker.getProgram(), 2));
+		List<BlockElem> elems = checker.getProgram().getBlock().getElems();
+		NameDef c = ((Declaration) elems.get(1)).getNameDef();
+		assertSame(c, ((IdentExpr) ((WriteStatement) elems.get(3)).getExpr()).getNameDef());
+	}
+
+	@Test
+	void deleteLeavesUsersUndefined() throws PLCCompilerException {
+		String input = """
+				void p() <:
+				int a = 1;
+				a = a + 1;
+				:>
+				""";
+		IncrementalTypeChecker checker = new IncrementalTypeChecker(parse(input));
+		Block block = checker.getProgram().getBlock();
+		assertEquals(1, checker.replace(block.getElems().get(0), List.of()));
+		AssignmentStatement assignment = (AssignmentStatement) checker.getProgram().getBlock().getElems().get(0);
+		assertNull(assignment.getlValue().getNameDef());
+		List<String> messages = messages(checker.getDiagnostics());
+		assertEquals(2, messages.size());
+		assertTrue(messages.get(0).endsWith("LValue refers to an undefined name: a"));
+		assertTrue(messages.get(1).endsWith("variable a not declared in current scope."));
+	}
+
+	@Test
+	void laterBlocksSeeRenamedDeclaration() throws PLCCompilerException {
+		String v1 = """
+				void p() <:
+				int a = 1;
+				do FALSE -> <: write 1; :> od;
+				:>
+				""";
+		String v2 = """
+				void p() <:
+				int z = 1;
+				do FALSE -> <: write 1; :> od;
+				:>
+				""";
+		// the do statement does not use either name, its block only gets new scope snapshots
+		IncrementalTypeChecker checker = edit(v1, v2, 0, 1);
+		DoStatement doStatement = (DoStatement) checker.getProgram().getBlock().getElems().get(1);
+		Block nested = doStatement.getGuardedBlocks().get(0).getBlock();
+		assertNull(nested.getScope(0).lookup("a"));
+		assertEquals(((Declaration) checker.getProgram().getBlock().getElems().get(0)).getNameDef(), nested.getScope(1).lookup("z"));
+	}
+
+	@Test
+	void nestedEdit() throws PLCCompilerException {
+		String v1 = """
+				void p(int n) <:
+				int i = 1;
+				do i < n -> <: int j = i + 1000; i = j + 1; :> od;
+				write i;
+				:>
+				""";
+		String v2 = """
+				void p(int n) <:
+				int i = 1;
+				do i < n -> <: boolean j = TRUE; i = j + 1; :> od;
+				write i;
+				:>
+				""";
+		IncrementalTypeChecker checker = new IncrementalTypeChecker(parse(v1));
+		Program before = checker.getProgram();
+		DoStatement doStatement = (DoStatement) before.getBlock().getElems().get(1);
+		BlockElem oldElem = doStatement.getGuardedBlocks().get(0).getBlock().getElems().get(0);
+		DoStatement newDo = (DoStatement) parse(v2).getBlock().getElems().get(1);
+		BlockElem newElem = newDo.getGuardedBlocks().get(0).getBlock().getElems().get(0);
+		// j = TRUE, then the assignment using j
+		assertEquals(2, checker.replace(oldElem, List.of(newElem)));
+		assertEquals(checked(v2), checker.getProgram());
+		assertEquals(messages(ComponentFactory.collectDiagnostics(v2)), messages(checker.getDiagnostics()));
+		// the statements around the do statement are shared with the previous version
+		assertEquals(before.getBlock().getElems().get(2), checker.getProgram().getBlock().getElems().get(2));
+		assertEquals(1, checker.getDiagnostics().size());
+		Block nested = ((DoStatement) checker.getProgram().getBlock().getElems().get(1)).getGuardedBlocks().get(0).getBlock();
+		assertEquals(Type.BOOLEAN, nested.getScope(1).lookup("j").getType());
+	}
+
+	// the previous version of the program is left as it was
+	@Test
+	void previousVersionUnchanged() throws PLCCompilerException {
+		String v1 = """
+				void p() <:
+				int a = 1;
+				do a < 3 -> <: a = a + 1; :> od;
+				write a;
+				:>
+				""";
+		IncrementalTypeChecker checker = new IncrementalTypeChecker(parse(v1));
+		Program before = checker.getProgram();
+		NameDef a = ((Declaration) before.getBlock().getElems().get(0)).getNameDef();
+		Block nested = ((DoStatement) before.getBlock().getElems().get(1)).getGuardedBlocks().get(0).getBlock();
+		AssignmentStatement assignment = (AssignmentStatement) nested.getElems().get(0);
+		IdentExpr write = (IdentExpr) ((WriteStatement) before.getBlock().getElems().get(2)).getExpr();
+		List<Integer> slots = List.of(a.getSlot(), assignment.getlValue().getSlot(), write.getSlot());
+		BlockElem string = parse("void p() <: string a = \"s\"; :>").getBlock().getElems().get(0);
+		checker.replace(before.getBlock().getElems().get(0), List.of(string));
+		assertEquals(slots, List.of(a.getSlot(), assignment.getlValue().getSlot(), write.getSlot()));
+		assertSame(a, before.getBlock().getScope(1).lookup("a"));
+		assertSame(a, nested.getScope(0).lookup("a"));
+		// the users of a were checked again as copies
+		assertSame(a, assignment.getlValue().getNameDef());
+		assertEquals(Type.INT, assignment.getE().getType());
+		assertSame(a, write.getNameDef());
+		assertEquals(a.getSlot(), write.getSlot());
+		assertEquals(List.of(), messages(new IncrementalTypeChecker(before).getDiagnostics()));
+		assertEquals("null|3\n", run(before));
+		Block newNested = ((DoStatement) checker.getProgram().getBlock().getElems().get(1)).getGuardedBlocks().get(0).getBlock();
+		assertNotSame(nested, newNested);
+		assertEquals(Type.STRING, newNested.getScope(0).lookup("a").getType());
+	}
+}
@@ -0,0 +1,713 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.TypeCheckException;
+
+/**
+ * Keeps a type checked Program up to date while its block elements (declarations and statements)
+ * are replaced by newly parsed ones, as in an editor.
+ *
+ * While checking, it records for every block element the block containing it, the blocks nested
+ * in it, the names it uses or declares, and the errors found in it.  replace() then checks the
+ * new elements, and re-checks only the later elements of the same block, or nested in them, that
+ * use or redeclare a name declared by an old or new element, in program order.  Declared types are
+ * explicit, so no other element can change.  A declaration checked again gets a new NameDef, so
+ * the elements using its name are re-checked as well.  If the new elements take a different
+ * number of frame slots than the old one, or a re-checked declaration does (a redeclaration
+ * becomes valid, or the other way round), the slots of the rest of the block move, and all of it
+ * is re-checked.
+ *
+ * Errors are collected as with TypeCheckContext(true), and every Block of getProgram() has its
+ * scope snapshots, see Block.getScope.  The nodes of a program it returned are never modified
+ * again, so a previous version can still be read, from any thread, while the next edit is checked:
+ * the program given to the constructor, an element checked again, and an element of the program
+ * given again to replace() are checked as fresh copies.  The checker itself is not thread-safe.
+ */
+public class IncrementalTypeChecker {
+
+    // what was recorded while checking one block element
+    private static final class ElemInfo {
+        Block parent;
+        final List<Block> childBlocks = new ArrayList<>(0);
+        final Set<String> names = new HashSet<>();
+        List<TypeCheckException> diagnostics = List.of();
+    }
+
+    private Program program;
+    private int frameSize;
+    private final List<TypeCheckException> programDiagnostics;
+    private final Map<BlockElem, ElemInfo> elems = new IdentityHashMap<>();
+    // the element a block is nested in; absent for the block of the program
+    private final Map<Block, BlockElem> blockOwners = new IdentityHashMap<>();
+    // the elements that use or declare each name
+    private final Map<String, Set<BlockElem>> elemsByName = new HashMap<>();
+    // the elements of the blocks changed by the current replace(), until it builds the new blocks
+    private final Map<Block, List<BlockElem>> edits = new IdentityHashMap<>();
+    private final Recorder recorder = new Recorder();
+    private static final Copier copier = new Copier();
+
+    public IncrementalTypeChecker(Program program) throws PLCCompilerException {
+        program = (Program) program.accept(copier, null);
+        this.program = program;
+        TypeCheckContext context = new TypeCheckContext(true);
+        recorder.begin(context);
+        program.visit(recorder, context);
+        // the elements have claimed the rest
+        programDiagnostics = recorder.claim(0);
+        frameSize = program.getFrameSize();
+        Scope entry = Scope.EMPTY;
+        Set<String> declared = new HashSet<>();
+        for (NameDef param : program.getParams()) {
+            entry = declare(entry, declared, param);
+        }
+        setBlock(publish(program.getBlock(), entry, Set.of()));
+    }
+
+    /**
+     * @return the current program.  Each replace() builds new nodes for the blocks it changes, or
+     *   whose snapshots change, and for the nodes enclosing them, up to the Program.  All other
+     *   nodes are kept.
+     */
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * @return every type error in the current program, grouped by block element
+     */
+    public List<TypeCheckException> getDiagnostics() {
+        List<TypeCheckException> diagnostics = new ArrayList<>(programDiagnostics);
+        collectDiagnostics(program.getBlock(), diagnostics);
+        return diagnostics;
+    }
+
+    private void collectDiagnostics(Block block, List<TypeCheckException> diagnostics) {
+        for (BlockElem elem : block.getElems()) {
+            ElemInfo info = elems.get(elem);
+            diagnostics.addAll(info.diagnostics);
+            for (Block child : info.childBlocks) {
+                collectDiagnostics(child, diagnostics);
+            }
+        }
+    }
+
+    /**
+     * Replaces oldElem, an element of some block of the current program, by the given elements
+     * (none to delete it), and brings types, name bindings, frame slots and diagnostics up to date.
+     * The new elements are checked in place, unless they are already in the program.
+     *
+     * @return the number of block elements checked, including nested ones only if re-checked on
+     *   their own
+     */
+    public int replace(BlockElem oldElem, List<? extends BlockElem> replacements) throws PLCCompilerException {
+        ElemInfo oldInfo = elems.get(oldElem);
+        if (oldInfo == null) {
+            throw new IllegalArgumentException("not an element of the current program: " + oldElem);
+        }
+        Block block = oldInfo.parent;
+        List<BlockElem> oldElems = block.getElems();
+        int index = indexOf(oldElems, oldElem);
+
+        Set<String> changedNames = new HashSet<>();
+        declaredNames(List.of(oldElem), changedNames);
+        declaredNames(replacements, changedNames);
+        List<Dependent> dependents = dependents(block, index, changedNames);
+        int oldSlots = slotsTaken(oldElem);
+
+        List<BlockElem> inserted = new ArrayList<>(replacements.size());
+        for (BlockElem elem : replacements) {
+            // an element of the previous program is kept there as it is
+            inserted.add(elem == oldElem || elems.containsKey(elem) ? (BlockElem) elem.accept(copier, null) : elem);
+        }
+        forget(oldElem);
+        List<BlockElem> newElems = new ArrayList<>(oldElems);
+        newElems.remove(index);
+        newElems.addAll(index, inserted);
+        edits.put(block, newElems);
+
+        TypeCheckContext context = contextBefore(block, index);
+        for (BlockElem elem : inserted) {
+            recorder.checkElem(elem, block);
+        }
+        updateFrameSize(context);
+        int checked = inserted.size();
+        // the elements of block from position rest on are all checked again, as their slots move
+        int rest = slotsTaken(inserted) == oldSlots ? oldElems.size() : index + 1;
+        for (Dependent dependent : dependents) {
+            int position = dependent.path().get(0);
+            if (position >= rest) {
+                break;
+            }
+            BlockElem copy = recheck(dependent.elem());
+            checked++;
+            if (dependent.path().size() == 1 && slotsTaken(copy) != slotsTaken(dependent.elem())) {
+                rest = position + 1;
+            }
+        }
+        for (int i = rest; i < oldElems.size(); i++) {
+            recheck(oldElems.get(i));
+            checked++;
+        }
+        publish();
+        return checked;
+    }
+
+    // adds the names declared directly by elems to names
+    private static void declaredNames(List<? extends BlockElem> elems, Set<String> names) {
+        for (BlockElem elem : elems) {
+            if (elem instanceof Declaration declaration) {
+                names.add(declaration.getNameDef().getName());
+            }
+        }
+    }
+
+    // the number of frame slots taken by the declarations among elems that are not redeclarations
+    private static int slotsTaken(List<? extends BlockElem> elems) {
+        int count = 0;
+        for (BlockElem elem : elems) {
+            count += slotsTaken(elem);
+        }
+        return count;
+    }
+
+    private static int slotsTaken(BlockElem elem) {
+        return elem instanceof Declaration declaration && declaration.getNameDef().getSlot() >= 0 ? 1 : 0;
+    }
+
+    // an element to check again, with its path from the block edited (see pathIn)
+    private record Dependent(List<Integer> path, BlockElem elem) {
+    }
+
+    // The elements after index in block, or nested in them, that may change when the names are
+    // redeclared, in program order.  An element nested in another dependent is re-checked with it.
+    private List<Dependent> dependents(Block block, int index, Set<String> names) {
+        List<BlockElem> blockElems = block.getElems();
+        Map<BlockElem, Integer> positions = new IdentityHashMap<>();
+        for (int i = index + 1; i < blockElems.size(); i++) {
+            positions.put(blockElems.get(i), i);
+        }
+        TreeMap<List<Integer>, BlockElem> candidates = new TreeMap<>(IncrementalTypeChecker::compare);
+        Deque<String> pending = new ArrayDeque<>(names);
+        Set<String> seen = new HashSet<>(names);
+        while (!pending.isEmpty()) {
+            for (BlockElem elem : elemsByName.getOrDefault(pending.pop(), Set.of())) {
+                List<Integer> path = pathIn(elem, block, positions);
+                if (path != null && candidates.put(path, elem) == null && elem instanceof Declaration declaration
+                        && seen.add(declaration.getNameDef().getName())) {
+                    // a new NameDef for the name
+                    pending.push(declaration.getNameDef().getName());
+                }
+            }
+        }
+        // the elements nested in a candidate follow it
+        List<Dependent> dependents = new ArrayList<>();
+        List<Integer> last = null;
+        for (Map.Entry<List<Integer>, BlockElem> candidate : candidates.entrySet()) {
+            List<Integer> path = candidate.getKey();
+            if (last == null || path.size() <= last.size() || !path.subList(0, last.size()).equals(last)) {
+                dependents.add(new Dependent(path, candidate.getValue()));
+                last = path;
+            }
+        }
+        return dependents;
+    }
+
+    // The path from block to elem: the position in block of the element containing it, then for
+    // each nested block the index of the block among those of its owner and the position in the
+    // block.  null unless the first position is one of positions.
+    private List<Integer> pathIn(BlockElem elem, Block block, Map<BlockElem, Integer> positions) {
+        List<Integer> path = new ArrayList<>();
+        for (BlockElem e = elem; ; ) {
+            Block parent = elems.get(e).parent;
+            if (parent == block) {
+                Integer position = positions.get(e);
+                if (position == null) {
+                    return null;
+                }
+                path.add(position);
+                Collections.reverse(path);
+                return path;
+            }
+            BlockElem owner = blockOwners.get(parent);
+            if (owner == null) {
+                return null;
+            }
+            path.add(indexOf(elemsOf(parent), e));
+            List<Block> childBlocks = elems.get(owner).childBlocks;
+            int child = 0;
+            while (childBlocks.get(child) != parent) {
+                child++;
+            }
+            path.add(child);
+            e = owner;
+        }
+    }
+
+    // orders paths as their elements are in the program
+    private static int compare(List<Integer> a, List<Integer> b) {
+        for (int i = 0; i < a.size() && i < b.size(); i++) {
+            int c = Integer.compare(a.get(i), b.get(i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+
+    private BlockElem ownerOf(BlockElem elem) {
+        return blockOwners.get(elems.get(elem).parent);
+    }
+
+    // checks a copy of elem in its place, since the previous program keeps elem, and returns the copy
+    private BlockElem recheck(BlockElem elem) throws PLCCompilerException {
+        Block parent = elems.get(elem).parent;
+        List<BlockElem> parentElems = edits.computeIfAbsent(parent, block -> new ArrayList<>(block.getElems()));
+        int index = indexOf(parentElems, elem);
+        forget(elem);
+        BlockElem copy = (BlockElem) elem.accept(copier, null);
+        parentElems.set(index, copy);
+        TypeCheckContext context = contextBefore(parent, index);
+        recorder.checkElem(copy, parent);
+        updateFrameSize(context);
+        return copy;
+    }
+
+    // the elements of block, as edited by the current replace()
+    private List<BlockElem> elemsOf(Block block) {
+        return edits.getOrDefault(block, block.getElems());
+    }
+
+    // A context with the symbol table as it is just before the element at index in block: the
+    // parameters, and the declarations before it in each enclosing block.  Those have been checked,
+    // and keep the slots they were given.
+    private TypeCheckContext contextBefore(Block block, int index) {
+        Deque<Block> blocks = new ArrayDeque<>();
+        Deque<Integer> ends = new ArrayDeque<>();
+        blocks.push(block);
+        ends.push(index);
+        for (BlockElem owner = blockOwners.get(block); owner != null; owner = ownerOf(owner)) {
+            Block parent = elems.get(owner).parent;
+            blocks.push(parent);
+            ends.push(indexOf(elemsOf(parent), owner));
+        }
+        TypeCheckContext context = new TypeCheckContext(true);
+        recorder.begin(context);
+        recorder.enterProgram(program.getTypeToken(), context);
+        for (NameDef param : program.getParams()) {
+            declare(context, param);
+        }
+        while (!blocks.isEmpty()) {
+            List<BlockElem> blockElems = elemsOf(blocks.pop());
+            int end = ends.pop();
+            recorder.enterScope(context);
+            for (int i = 0; i < end; i++) {
+                if (blockElems.get(i) instanceof Declaration declaration) {
+                    declare(context, declaration.getNameDef());
+                }
+            }
+        }
+        return context;
+    }
+
+    private static void declare(TypeCheckContext context, NameDef nameDef) {
+        // a redeclaration has no slot, and was reported with the element that declared it
+        if (nameDef.getSlot() >= 0) {
+            context.symbolTable.reinsert(nameDef);
+        }
+    }
+
+    private void updateFrameSize(TypeCheckContext context) {
+        frameSize = Math.max(frameSize, context.symbolTable.getFrameSize());
+    }
+
+    // the scope after nameDef is declared in a block that has already declared the names in declared
+    private static Scope declare(Scope scope, Set<String> declared, NameDef nameDef) {
+        // a redeclaration in the same block is an error and hides nothing
+        return declared.add(nameDef.getName()) ? scope.with(nameDef.getName(), nameDef) : scope;
+    }
+
+    // Builds the new blocks for the current replace(), and the nodes enclosing them up to the Program.
+    private void publish() {
+        Set<Block> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Block block : edits.keySet()) {
+            for (Block b = block; b != null && touched.add(b); ) {
+                BlockElem owner = blockOwners.get(b);
+                b = owner == null ? null : elems.get(owner).parent;
+            }
+        }
+        Block block = program.getBlock();
+        setBlock(publish(block, block.getScope(0), touched));
+        edits.clear();
+    }
+
+    // Builds the new version of block, whose first snapshot is entry: a Block with its edited
+    // elements and the snapshots of each position.  The elements with a nested block that is
+    // touched, or whose first snapshot changes, are replaced by copies with new versions of their
+    // blocks.  Snapshots are shared with the old block as long as the same names are declared.
+    // What was recorded for the old nodes moves to the new ones.
+    private Block publish(Block block, Scope entry, Set<Block> touched) {
+        List<BlockElem> oldElems = block.getElems();
+        List<BlockElem> blockElems = new ArrayList<>(elemsOf(block));
+        Scope[] scopes = new Scope[blockElems.size() + 1];
+        Set<String> declared = new HashSet<>();
+        Scope scope = entry;
+        boolean same = entry == block.getScope(0);
+        // the position after the last old declaration matched
+        int old = 0;
+        for (int i = 0; i < blockElems.size(); i++) {
+            scopes[i] = scope;
+            BlockElem elem = blockElems.get(i);
+            ElemInfo info = elems.get(elem);
+            Map<Block, Block> newBlocks = new IdentityHashMap<>();
+            for (Block child : info.childBlocks) {
+                if (touched.contains(child) || child.getScope(0) != scope) {
+                    newBlocks.put(child, publish(child, scope, touched));
+                }
+            }
+            if (!newBlocks.isEmpty()) {
+                BlockElem newElem = withBlocks(elem, child -> newBlocks.getOrDefault(child, child));
+                move(elem, newElem, newBlocks);
+                blockElems.set(i, newElem);
+            }
+            if (elem instanceof Declaration declaration) {
+                NameDef nameDef = declaration.getNameDef();
+                if (same) {
+                    while (old < oldElems.size() && !(oldElems.get(old) instanceof Declaration)) {
+                        old++;
+                    }
+                    same = old < oldElems.size() && ((Declaration) oldElems.get(old)).getNameDef() == nameDef;
+                    old++;
+                }
+                if (same) {
+                    declared.add(nameDef.getName());
+                    scope = block.getScope(old);
+                } else {
+                    scope = declare(scope, declared, nameDef);
+                }
+            }
+        }
+        scopes[blockElems.size()] = scope;
+        Block newBlock = new Block(block.firstToken(), blockElems, scopes);
+        for (BlockElem elem : blockElems) {
+            elems.get(elem).parent = newBlock;
+        }
+        return newBlock;
+    }
+
+    // moves what was recorded for elem to newElem, a copy with the new versions of some nested blocks
+    private void move(BlockElem elem, BlockElem newElem, Map<Block, Block> newBlocks) {
+        ElemInfo info = elems.remove(elem);
+        elems.put(newElem, info);
+        for (String name : info.names) {
+            Set<BlockElem> users = elemsByName.get(name);
+            users.remove(elem);
+            users.add(newElem);
+        }
+        info.childBlocks.replaceAll(child -> newBlocks.getOrDefault(child, child));
+        for (Block child : info.childBlocks) {
+            blockOwners.put(child, newElem);
+        }
+        for (Block child : newBlocks.keySet()) {
+            blockOwners.remove(child);
+        }
+    }
+
+    private void setBlock(Block block) {
+        Program newProgram = new Program(program.firstToken(), program.getTypeToken(), program.getNameToken(),
+                program.getParams(), block);
+        newProgram.setType(program.getType());
+        newProgram.setFrameSize(frameSize);
+        program = newProgram;
+    }
+
+    // removes what was recorded for elem and everything nested in it
+    private void forget(BlockElem elem) {
+        ElemInfo info = elems.remove(elem);
+        for (String name : info.names) {
+            Set<BlockElem> users = elemsByName.get(name);
+            users.remove(elem);
+            if (users.isEmpty()) {
+                elemsByName.remove(name);
+            }
+        }
+        for (Block child : info.childBlocks) {
+            blockOwners.remove(child);
+            for (BlockElem childElem : child.getElems()) {
+                forget(childElem);
+            }
+        }
+    }
+
+    /**
+     * @return elem, or a copy of it in which each block nested directly in it is replaced by
+     *   f(block)
+     */
+    static BlockElem withBlocks(BlockElem elem, UnaryOperator<Block> f) {
+        if (elem instanceof StatementBlock statementBlock) {
+            return new StatementBlock(statementBlock.firstToken(), f.apply(statementBlock.getBlock()));
+        } else if (elem instanceof DoStatement doStatement) {
+            return new DoStatement(doStatement.firstToken(), withBlocks(doStatement.getGuardedBlocks(), f));
+        } else if (elem instanceof IfStatement ifStatement) {
+            return new IfStatement(ifStatement.firstToken(), withBlocks(ifStatement.getGuardedBlocks(), f));
+        }
+        return elem;
+    }
+
+    private static List<GuardedBlock> withBlocks(List<GuardedBlock> guardedBlocks, UnaryOperator<Block> f) {
+        List<GuardedBlock> result = new ArrayList<>(guardedBlocks.size());
+        for (GuardedBlock guardedBlock : guardedBlocks) {
+            result.add(new GuardedBlock(guardedBlock.firstToken(), guardedBlock.getGuard(), f.apply(guardedBlock.getBlock())));
+        }
+        return result;
+    }
+
+    private static int indexOf(List<BlockElem> elems, BlockElem elem) {
+        for (int i = 0; i < elems.size(); i++) {
+            if (elems.get(i) == elem) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("element not in its block: " + elem);
+    }
+
+
+    // Type checks like TypeCheckVisitor, recording the elements of each block as it goes.
+    private final class Recorder extends TypeCheckVisitor {
+        private final Deque<BlockElem> current = new ArrayDeque<>();
+        private TypeCheckContext context;
+        // the diagnostics of context already attributed to an element
+        private BitSet claimed;
+
+        void begin(TypeCheckContext context) {
+            this.context = context;
+            claimed = new BitSet();
+        }
+
+        // the diagnostics reported since start and not attributed to a nested element
+        List<TypeCheckException> claim(int start) {
+            List<TypeCheckException> all = context.getDiagnostics();
+            List<TypeCheckException> own = new ArrayList<>(0);
+            for (int i = claimed.nextClearBit(start); i < all.size(); i = claimed.nextClearBit(i + 1)) {
+                own.add(all.get(i));
+            }
+            claimed.set(start, all.size());
+            return own.isEmpty() ? List.of() : own;
+        }
+
+        void checkElem(BlockElem elem, Block parent) throws PLCCompilerException {
+            ElemInfo info = new ElemInfo();
+            info.parent = parent;
+            elems.put(elem, info);
+            if (elem instanceof Declaration declaration) {
+                record(elem, declaration.getNameDef().getName());
+            }
+            int start = context.getDiagnostics().size();
+            current.push(elem);
+            elem.visit(this, context);
+            current.pop();
+            info.diagnostics = claim(start);
+        }
+
+        private void record(BlockElem elem, String name) {
+            if (elems.get(elem).names.add(name)) {
+                elemsByName.computeIfAbsent(name, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(elem);
+            }
+        }
+
+        @Override
+        public Object visitBlock(Block block, Object arg) throws PLCCompilerException {
+            BlockElem owner = current.peek();
+            if (owner != null) {
+                blockOwners.put(block, owner);
+                elems.get(owner).childBlocks.add(block);
+            }
+            enterScope(context);
+            for (BlockElem elem : block.getElems()) {
+                checkElem(elem, block);
+            }
+            leaveScope(context);
+            return null;
+        }
+
+        @Override
+        public Object visitIdentExpr(IdentExpr identExpr, Object arg) throws PLCCompilerException {
+            if (!current.isEmpty()) {
+                record(current.peek(), identExpr.getName());
+            }
+            return super.visitIdentExpr(identExpr, arg);
+        }
+
+        @Override
+        public Object visitLValue(LValue lValue, Object arg) throws PLCCompilerException {
+            record(current.peek(), lValue.getName());
+            return super.visitLValue(lValue, arg);
+        }
+    }
+
+
+    // Copies a tree into new nodes with the same tokens and no annotations, ready to be checked.
+    // ChannelSelectors have no annotations and are shared.
+    private static final class Copier implements GenericASTVisitor<AST, Void> {
+
+        @SuppressWarnings("unchecked")
+        private <T extends AST> T copy(T node) throws PLCCompilerException {
+            return node == null ? null : (T) node.accept(this, null);
+        }
+
+        private <T extends AST> List<T> copy(List<T> nodes) throws PLCCompilerException {
+            List<T> result = new ArrayList<>(nodes.size());
+            for (T node : nodes) {
+                result.add(copy(node));
+            }
+            return result;
+        }
+
+        @Override
+        public AST visitProgram(Program program, Void arg) throws PLCCompilerException {
+            return new Program(program.firstToken(), program.getTypeToken(), program.getNameToken(),
+                    copy(program.getParams()), copy(program.getBlock()));
+        }
+
+        @Override
+        public AST visitBlock(Block block, Void arg) throws PLCCompilerException {
+            return new Block(block.firstToken(), copy(block.getElems()));
+        }
+
+        @Override
+        public AST visitDeclaration(Declaration declaration, Void arg) throws PLCCompilerException {
+            return new Declaration(declaration.firstToken(), copy(declaration.getNameDef()), copy(declaration.getInitializer()));
+        }
+
+        @Override
+        public AST visitAssignmentStatement(AssignmentStatement assignmentStatement, Void arg) throws PLCCompilerException {
+            return new AssignmentStatement(assignmentStatement.firstToken(), copy(assignmentStatement.getlValue()),
+                    copy(assignmentStatement.getE()));
+        }
+
+        @Override
+        public AST visitWriteStatement(WriteStatement writeStatement, Void arg) throws PLCCompilerException {
+            return new WriteStatement(writeStatement.firstToken(), copy(writeStatement.getExpr()));
+        }
+
+        @Override
+        public AST visitReturnStatement(ReturnStatement returnStatement, Void arg) throws PLCCompilerException {
+            return new ReturnStatement(returnStatement.firstToken(), copy(returnStatement.getE()));
+        }
+
+        @Override
+        public AST visitIfStatement(IfStatement ifStatement, Void arg) throws PLCCompilerException {
+            return new IfStatement(ifStatement.firstToken(), copy(ifStatement.getGuardedBlocks()));
+        }
+
+        @Override
+        public AST visitDoStatement(DoStatement doStatement, Void arg) throws PLCCompilerException {
+            return new DoStatement(doStatement.firstToken(), copy(doStatement.getGuardedBlocks()));
+        }
+
+        @Override
+        public AST visitGuardedBlock(GuardedBlock guardedBlock, Void arg) throws PLCCompilerException {
+            return new GuardedBlock(guardedBlock.firstToken(), copy(guardedBlock.getGuard()), copy(guardedBlock.getBlock()));
+        }
+
+        @Override
+        public AST visitBlockStatement(StatementBlock statementBlock, Void arg) throws PLCCompilerException {
+            return new StatementBlock(statementBlock.firstToken(), copy(statementBlock.getBlock()));
+        }
+
+        @Override
+        public AST visitNameDef(NameDef nameDef, Void arg) throws PLCCompilerException {
+            return new NameDef(nameDef.firstToken(), nameDef.getTypeToken(), copy(nameDef.getDimension()), nameDef.getIdentToken());
+        }
+
+        @Override
+        public AST visitDimension(Dimension dimension, Void arg) throws PLCCompilerException {
+            return new Dimension(dimension.firstToken(), copy(dimension.getWidth()), copy(dimension.getHeight()));
+        }
+
+        @Override
+        public AST visitLValue(LValue lValue, Void arg) throws PLCCompilerException {
+            return new LValue(lValue.firstToken(), lValue.getNameToken(), copy(lValue.getPixelSelector()), lValue.getChannelSelector());
+        }
+
+        @Override
+        public AST visitPixelSelector(PixelSelector pixelSelector, Void arg) throws PLCCompilerException {
+            return new PixelSelector(pixelSelector.firstToken(), copy(pixelSelector.xExpr()), copy(pixelSelector.yExpr()));
+        }
+
+        @Override
+        public AST visitChannelSelector(ChannelSelector channelSelector, Void arg) {
+            return channelSelector;
+        }
+
+        @Override
+        public AST visitBinaryExpr(BinaryExpr binaryExpr, Void arg) throws PLCCompilerException {
+            return new BinaryExpr(binaryExpr.firstToken(), copy(binaryExpr.getLeftExpr()), binaryExpr.getOp(),
+                    copy(binaryExpr.getRightExpr()));
+        }
+
+        @Override
+        public AST visitUnaryExpr(UnaryExpr unaryExpr, Void arg) throws PLCCompilerException {
+            return new UnaryExpr(unaryExpr.firstToken(), unaryExpr.getOpToken(), copy(unaryExpr.getExpr()));
+        }
+
+        @Override
+        public AST visitConditionalExpr(ConditionalExpr conditionalExpr, Void arg) throws PLCCompilerException {
+            return new ConditionalExpr(conditionalExpr.firstToken(), copy(conditionalExpr.getGuardExpr()),
+                    copy(conditionalExpr.getTrueExpr()), copy(conditionalExpr.getFalseExpr()));
+        }
+
+        @Override
+        public AST visitPostfixExpr(PostfixExpr postfixExpr, Void arg) throws PLCCompilerException {
+            return new PostfixExpr(postfixExpr.firstToken(), copy(postfixExpr.primary()), copy(postfixExpr.pixel()),
+                    postfixExpr.channel());
+        }
+
+        @Override
+        public AST visitExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Void arg) throws PLCCompilerException {
+            return new ExpandedPixelExpr(expandedPixelExpr.firstToken(), copy(expandedPixelExpr.getRed()),
+                    copy(expandedPixelExpr.getGreen()), copy(expandedPixelExpr.getBlue()));
+        }
+
+        @Override
+        public AST visitIdentExpr(IdentExpr identExpr, Void arg) {
+            return new IdentExpr(identExpr.firstToken());
+        }
+
+        @Override
+        public AST visitNumLitExpr(NumLitExpr numLitExpr, Void arg) {
+            return new NumLitExpr(numLitExpr.firstToken());
+        }
+
+        @Override
+        public AST visitStringLitExpr(StringLitExpr stringLitExpr, Void arg) {
+            return new StringLitExpr(stringLitExpr.firstToken());
+        }
+
+        @Override
+        public AST visitBooleanLitExpr(BooleanLitExpr booleanLitExpr, Void arg) {
+            return new BooleanLitExpr(booleanLitExpr.firstToken());
+        }
+
+        @Override
+        public AST visitConstExpr(ConstExpr constExpr, Void arg) {
+            return new ConstExpr(constExpr.firstToken());
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Unsynchronized stack of ints, for the type checker's bookkeeping in place of Stack<Integer>.
+ */
+final class IntStack {
+    private int[] elements;
+    private int size;
+
+    IntStack() {
+        elements = new int[16];
+    }
+
+    void push(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+    }
+
+    int pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return elements[--size];
+    }
+
+    int peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return elements[size - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
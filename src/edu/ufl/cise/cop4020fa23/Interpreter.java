@@ -0,0 +1,560 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Objects;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+import edu.ufl.cise.cop4020fa23.runtime.IntOps;
+import edu.ufl.cise.cop4020fa23.runtime.PixelOps;
+import edu.ufl.cise.cop4020fa23.runtime.Raster;
+
+/*
+ * Runs a type checked Program by walking its tree.
+ *
+ * Variables live in a Frame indexed by NameDef.getSlot(): int, pixel (packed, see PixelOps) and
+ * boolean (0 or 1) values in an int[], strings and images (Raster) in an Object[].  Expressions
+ * are evaluated by the visitor matching their type, so int, pixel and boolean values are never
+ * boxed: acceptInt for INT and PIXEL, acceptBoolean for BOOLEAN, and accept, which returns the
+ * value as an Object, for STRING and IMAGE.  The statement visit methods return null.
+ *
+ * Images are shared by reference between variables, except where a declaration or an assignment
+ * to a whole image copies one.  The implicit x and y of an assignment like im[x,y] = e range over
+ * the columns and rows of im, x in the outer loop.
+ *
+ * Like TypeCheckVisitor the interpreter has no fields other than its output, and a run's state
+ * is in the Frame, so one instance may run programs on several threads writing to the same stream.
+ */
+public class Interpreter implements GenericASTVisitor<Object, Interpreter.Frame>,
+        IntExprVisitor<Interpreter.Frame>, BooleanExprVisitor<Interpreter.Frame> {
+
+    public static final class Frame {
+        final int[] ints;
+        final Object[] refs;
+        boolean returned;
+        Object result;
+
+        Frame(int size) {
+            ints = new int[size];
+            refs = new Object[size];
+        }
+
+        // a frame for program with args, as taken by run, in the slots of its parameters
+        static Frame of(Program program, Object... args) {
+            if (program.getType() == null) {
+                throw new IllegalArgumentException("program " + program.getName() + " has not been type checked");
+            }
+            List<NameDef> params = program.getParams();
+            if (args.length != params.size()) {
+                throw new IllegalArgumentException(program.getName() + " expects " + params.size() + " arguments, found " + args.length);
+            }
+            Frame frame = new Frame(program.getFrameSize());
+            for (int i = 0; i < args.length; i++) {
+                NameDef param = params.get(i);
+                Object arg = args[i];
+                int slot = param.getSlot();
+                switch (param.getType()) {
+                    case INT, PIXEL -> frame.ints[slot] = (Integer) arg;
+                    case BOOLEAN -> frame.ints[slot] = (Boolean) arg ? 1 : 0;
+                    case STRING -> frame.refs[slot] = (String) arg;
+                    case IMAGE -> frame.refs[slot] = (Raster) arg;
+                    default -> throw new IllegalArgumentException("parameter " + param.getName() + " has type " + param.getType());
+                }
+            }
+            return frame;
+        }
+    }
+
+    private final PrintStream out;
+
+    public Interpreter() {
+        this(System.out);
+    }
+
+    /**
+     * @param out where write statements print
+     */
+    public Interpreter(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Runs program with args for its parameters: an Integer for an int or a (packed) pixel, a
+     * Boolean, a String or a Raster.
+     *
+     * @return the value returned by the program, boxed in the same way, or null for a void program
+     * @throws PLCRuntimeException if the program fails while running
+     */
+    public Object run(Program program, Object... args) throws PLCCompilerException {
+        return program.accept(this, Frame.of(program, args));
+    }
+
+    // the value of expr, boxed
+    private Object value(Expr expr, Frame frame) throws PLCCompilerException {
+        return switch (expr.getType()) {
+            case INT, PIXEL -> expr.acceptInt(this, frame);
+            case BOOLEAN -> expr.acceptBoolean(this, frame);
+            default -> expr.accept(this, frame);
+        };
+    }
+
+    // the value of an expr assigned to a pixel, where an int gives a gray pixel
+    private int pixelValue(Expr expr, Frame frame) throws PLCCompilerException {
+        int value = expr.acceptInt(this, frame);
+        return expr.getType() == Type.INT ? PixelOps.gray(value) : value;
+    }
+
+    // the value of an expr assigned to an image: a Raster, read from the location for a string
+    private Raster imageValue(Expr expr, Frame frame) throws PLCCompilerException {
+        Object value = expr.accept(this, frame);
+        return expr.getType() == Type.STRING ? Raster.read((String) value) : (Raster) value;
+    }
+
+    private static IllegalStateException wrongType(Expr expr, String expected) {
+        return new IllegalStateException("compiler bug: " + expected + " expected, " + expr.getType() + " found at "
+                + TypeCheckVisitor.locate(expr));
+    }
+
+
+    /* ======================= program and statements ======================= */
+
+    @Override
+    public Object visitProgram(Program program, Frame frame) throws PLCCompilerException {
+        program.getBlock().accept(this, frame);
+        return frame.result;
+    }
+
+    @Override
+    public Object visitBlock(Block block, Frame frame) throws PLCCompilerException {
+        for (Block.BlockElem elem : block.getElems()) {
+            try {
+                elem.accept(this, frame);
+            } catch (PLCRuntimeException e) {
+                if (e.getLocation() != null) {
+                    throw e;
+                }
+                throw new PLCRuntimeException(TypeCheckVisitor.locate(elem), e.getMessage());
+            }
+            if (frame.returned) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitDeclaration(Declaration declaration, Frame frame) throws PLCCompilerException {
+        NameDef nameDef = declaration.getNameDef();
+        Expr initializer = declaration.getInitializer();
+        int slot = nameDef.getSlot();
+        // the slot may have held a variable of an earlier block, or this one in an earlier iteration
+        switch (nameDef.getType()) {
+            case INT, PIXEL -> frame.ints[slot] = initializer == null ? 0 : initializer.acceptInt(this, frame);
+            case BOOLEAN -> frame.ints[slot] = initializer != null && initializer.acceptBoolean(this, frame) ? 1 : 0;
+            case STRING -> frame.refs[slot] = initializer == null ? null : initializer.accept(this, frame);
+            case IMAGE -> {
+                Dimension dimension = nameDef.getDimension();
+                Raster value = initializer == null ? null : imageValue(initializer, frame);
+                if (dimension != null) {
+                    int width = dimension.getWidth().acceptInt(this, frame);
+                    int height = dimension.getHeight().acceptInt(this, frame);
+                    frame.refs[slot] = value == null ? new Raster(width, height) : value.resized(width, height);
+                } else {
+                    frame.refs[slot] = value == null ? null : value.copy();
+                }
+            }
+            default -> throw new IllegalStateException("compiler bug: variable " + nameDef.getName() + " of type " + nameDef.getType());
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitAssignmentStatement(AssignmentStatement assignmentStatement, Frame frame) throws PLCCompilerException {
+        LValue lValue = assignmentStatement.getlValue();
+        Expr e = assignmentStatement.getE();
+        int slot = lValue.getSlot();
+        ChannelSelector channel = lValue.getChannelSelector();
+        switch (lValue.getVarType()) {
+            case INT -> frame.ints[slot] = e.acceptInt(this, frame);
+            case BOOLEAN -> frame.ints[slot] = e.acceptBoolean(this, frame) ? 1 : 0;
+            case STRING -> frame.refs[slot] = e.accept(this, frame);
+            case PIXEL -> frame.ints[slot] = channel == null ? pixelValue(e, frame)
+                    : PixelOps.withChannel(frame.ints[slot], channel.color(), e.acceptInt(this, frame));
+            case IMAGE -> assignImage(lValue, e, frame);
+            default -> throw new IllegalStateException("compiler bug: assignment to " + lValue.getName() + " of type " + lValue.getVarType());
+        }
+        return null;
+    }
+
+    private void assignImage(LValue lValue, Expr e, Frame frame) throws PLCCompilerException {
+        int slot = lValue.getSlot();
+        Raster target = (Raster) frame.refs[slot];
+        PixelSelector pixel = lValue.getPixelSelector();
+        ChannelSelector channel = lValue.getChannelSelector();
+        if (pixel == null && channel == null && (e.getType() == Type.IMAGE || e.getType() == Type.STRING)) {
+            // an image without a size takes the one of the value
+            frame.refs[slot] = Raster.assign(target, imageValue(e, frame));
+            return;
+        }
+        if (target == null) {
+            throw new PLCRuntimeException("image " + lValue.getName() + " has no size");
+        }
+        if (pixel == null) {
+            if (channel == null) {
+                target.fill(pixelValue(e, frame));
+            } else {
+                target.setChannel(channel.color(), e.acceptInt(this, frame));
+            }
+            return;
+        }
+        Expr xExpr = pixel.xExpr();
+        Expr yExpr = pixel.yExpr();
+        boolean loopX = isImplicit(xExpr);
+        boolean loopY = isImplicit(yExpr);
+        int xSlot = loopX ? ((IdentExpr) xExpr).getSlot() : -1;
+        int ySlot = loopY ? ((IdentExpr) yExpr).getSlot() : -1;
+        int xFrom = loopX ? 0 : xExpr.acceptInt(this, frame);
+        int xTo = loopX ? target.width() : xFrom + 1;
+        int yFrom = loopY ? 0 : yExpr.acceptInt(this, frame);
+        int yTo = loopY ? target.height() : yFrom + 1;
+        for (int x = xFrom; x < xTo; x++) {
+            if (loopX) {
+                frame.ints[xSlot] = x;
+            }
+            for (int y = yFrom; y < yTo; y++) {
+                if (loopY) {
+                    frame.ints[ySlot] = y;
+                }
+                target.set(x, y, channel == null ? pixelValue(e, frame)
+                        : PixelOps.withChannel(target.get(x, y), channel.color(), e.acceptInt(this, frame)));
+            }
+        }
+    }
+
+    // a coordinate that is a name bound by the assignment itself, like x in im[x,y] = ...
+    private static boolean isImplicit(Expr coordinate) {
+        return coordinate instanceof IdentExpr identExpr && identExpr.getNameDef() instanceof SyntheticNameDef;
+    }
+
+    @Override
+    public Object visitWriteStatement(WriteStatement writeStatement, Frame frame) throws PLCCompilerException {
+        Expr e = writeStatement.getExpr();
+        switch (e.getType()) {
+            case INT -> out.println(e.acceptInt(this, frame));
+            case PIXEL -> out.println(PixelOps.toString(e.acceptInt(this, frame)));
+            case BOOLEAN -> out.println(e.acceptBoolean(this, frame) ? "TRUE" : "FALSE");
+            default -> out.println(e.accept(this, frame));
+        }
+        return null;
+    }
+
+    // the first guarded block whose guard is true is run, if any
+    @Override
+    public Object visitIfStatement(IfStatement ifStatement, Frame frame) throws PLCCompilerException {
+        for (GuardedBlock guardedBlock : ifStatement.getGuardedBlocks()) {
+            if (guardedBlock.getGuard().acceptBoolean(this, frame)) {
+                guardedBlock.getBlock().accept(this, frame);
+                break;
+            }
+        }
+        return null;
+    }
+
+    // repeats the if statement with the same guarded blocks until no guard is true
+    @Override
+    public Object visitDoStatement(DoStatement doStatement, Frame frame) throws PLCCompilerException {
+        List<GuardedBlock> guardedBlocks = doStatement.getGuardedBlocks();
+        boolean ran;
+        do {
+            ran = false;
+            for (GuardedBlock guardedBlock : guardedBlocks) {
+                if (guardedBlock.getGuard().acceptBoolean(this, frame)) {
+                    guardedBlock.getBlock().accept(this, frame);
+                    ran = true;
+                    break;
+                }
+            }
+        } while (ran && !frame.returned);
+        return null;
+    }
+
+    @Override
+    public Object visitReturnStatement(ReturnStatement returnStatement, Frame frame) throws PLCCompilerException {
+        frame.result = value(returnStatement.getE(), frame);
+        frame.returned = true;
+        return null;
+    }
+
+    @Override
+    public Object visitBlockStatement(StatementBlock statementBlock, Frame frame) throws PLCCompilerException {
+        return statementBlock.getBlock().accept(this, frame);
+    }
+
+    // the nodes below are only run through the node containing them
+
+    @Override
+    public Object visitGuardedBlock(GuardedBlock guardedBlock, Frame frame) {
+        throw new IllegalStateException("compiler bug: GuardedBlock is handled by its parent");
+    }
+
+    @Override
+    public Object visitNameDef(NameDef nameDef, Frame frame) {
+        throw new IllegalStateException("compiler bug: NameDef is handled by its parent");
+    }
+
+    @Override
+    public Object visitDimension(Dimension dimension, Frame frame) {
+        throw new IllegalStateException("compiler bug: Dimension is handled by its parent");
+    }
+
+    @Override
+    public Object visitLValue(LValue lValue, Frame frame) {
+        throw new IllegalStateException("compiler bug: LValue is handled by its parent");
+    }
+
+    @Override
+    public Object visitPixelSelector(PixelSelector pixelSelector, Frame frame) {
+        throw new IllegalStateException("compiler bug: PixelSelector is handled by its parent");
+    }
+
+    @Override
+    public Object visitChannelSelector(ChannelSelector channelSelector, Frame frame) {
+        throw new IllegalStateException("compiler bug: ChannelSelector is handled by its parent");
+    }
+
+
+    /* ======================= expressions as Objects ======================= */
+
+    @Override
+    public Object visitBinaryExpr(BinaryExpr binaryExpr, Frame frame) throws PLCCompilerException {
+        switch (binaryExpr.getType()) {
+            case STRING -> {
+                return (String) binaryExpr.getLeftExpr().accept(this, frame) + binaryExpr.getRightExpr().accept(this, frame);
+            }
+            case IMAGE -> {
+                Raster left = (Raster) binaryExpr.getLeftExpr().accept(this, frame);
+                Expr right = binaryExpr.getRightExpr();
+                return right.getType() == Type.INT ? left.binaryScalar(binaryExpr.getOpKind(), right.acceptInt(this, frame))
+                        : left.binary(binaryExpr.getOpKind(), (Raster) right.accept(this, frame));
+            }
+            default -> {
+                return value(binaryExpr, frame);
+            }
+        }
+    }
+
+    @Override
+    public Object visitUnaryExpr(UnaryExpr unaryExpr, Frame frame) throws PLCCompilerException {
+        return value(unaryExpr, frame);
+    }
+
+    @Override
+    public Object visitConditionalExpr(ConditionalExpr conditionalExpr, Frame frame) throws PLCCompilerException {
+        return conditionalExpr.getGuardExpr().acceptBoolean(this, frame) ? conditionalExpr.getTrueExpr().accept(this, frame)
+                : conditionalExpr.getFalseExpr().accept(this, frame);
+    }
+
+    @Override
+    public Object visitIdentExpr(IdentExpr identExpr, Frame frame) throws PLCCompilerException {
+        return switch (identExpr.getType()) {
+            case STRING -> frame.refs[identExpr.getSlot()];
+            case IMAGE -> Raster.valueOf((Raster) frame.refs[identExpr.getSlot()], identExpr.getName());
+            default -> value(identExpr, frame);
+        };
+    }
+
+    @Override
+    public Object visitPostfixExpr(PostfixExpr postfixExpr, Frame frame) throws PLCCompilerException {
+        if (postfixExpr.getType() != Type.IMAGE && postfixExpr.getType() != Type.STRING) {
+            return value(postfixExpr, frame);
+        }
+        Object primary = postfixExpr.primary().accept(this, frame);
+        ChannelSelector channel = postfixExpr.channel();
+        return channel == null ? primary : ((Raster) primary).channel(channel.color());
+    }
+
+    @Override
+    public Object visitStringLitExpr(StringLitExpr stringLitExpr, Frame frame) {
+        String text = stringLitExpr.getText();
+        return text.substring(1, text.length() - 1);
+    }
+
+    @Override
+    public Object visitNumLitExpr(NumLitExpr numLitExpr, Frame frame) throws PLCCompilerException {
+        return value(numLitExpr, frame);
+    }
+
+    @Override
+    public Object visitBooleanLitExpr(BooleanLitExpr booleanLitExpr, Frame frame) throws PLCCompilerException {
+        return value(booleanLitExpr, frame);
+    }
+
+    @Override
+    public Object visitConstExpr(ConstExpr constExpr, Frame frame) throws PLCCompilerException {
+        return value(constExpr, frame);
+    }
+
+    @Override
+    public Object visitExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Frame frame) throws PLCCompilerException {
+        return value(expandedPixelExpr, frame);
+    }
+
+
+    /* ======================= int and pixel expressions ======================= */
+
+    @Override
+    public int visitIntBinaryExpr(BinaryExpr binaryExpr, Frame frame) throws PLCCompilerException {
+        Kind op = binaryExpr.getOpKind();
+        int left = binaryExpr.getLeftExpr().acceptInt(this, frame);
+        int right = binaryExpr.getRightExpr().acceptInt(this, frame);
+        if (binaryExpr.getType() == Type.PIXEL) {
+            return binaryExpr.getRightExpr().getType() == Type.PIXEL ? PixelOps.binary(op, left, right)
+                    : PixelOps.binaryScalar(op, left, right);
+        }
+        return switch (op) {
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case TIMES -> left * right;
+            case DIV -> IntOps.div(left, right);
+            case EXP -> IntOps.pow(left, right);
+            default -> throw new IllegalStateException("compiler bug: int operator " + op);
+        };
+    }
+
+    @Override
+    public int visitIntUnaryExpr(UnaryExpr unaryExpr, Frame frame) throws PLCCompilerException {
+        Expr e = unaryExpr.getExpr();
+        return switch (unaryExpr.getOp()) {
+            case MINUS -> -e.acceptInt(this, frame);
+            case RES_width -> ((Raster) e.accept(this, frame)).width();
+            case RES_height -> ((Raster) e.accept(this, frame)).height();
+            default -> throw wrongType(unaryExpr, "INT");
+        };
+    }
+
+    @Override
+    public int visitIntConditionalExpr(ConditionalExpr conditionalExpr, Frame frame) throws PLCCompilerException {
+        return conditionalExpr.getGuardExpr().acceptBoolean(this, frame) ? conditionalExpr.getTrueExpr().acceptInt(this, frame)
+                : conditionalExpr.getFalseExpr().acceptInt(this, frame);
+    }
+
+    @Override
+    public int visitIntIdentExpr(IdentExpr identExpr, Frame frame) {
+        return frame.ints[identExpr.getSlot()];
+    }
+
+    @Override
+    public int visitIntNumLitExpr(NumLitExpr numLitExpr, Frame frame) {
+        return Integer.parseInt(numLitExpr.getText());
+    }
+
+    @Override
+    public int visitIntConstExpr(ConstExpr constExpr, Frame frame) {
+        String name = constExpr.getName();
+        return name.equals("Z") ? 255 : PixelOps.constant(name);
+    }
+
+    @Override
+    public int visitIntExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Frame frame) throws PLCCompilerException {
+        return PixelOps.pack(expandedPixelExpr.getRed().acceptInt(this, frame), expandedPixelExpr.getGreen().acceptInt(this, frame),
+                expandedPixelExpr.getBlue().acceptInt(this, frame));
+    }
+
+    // image[x,y] is a PIXEL, image[x,y]:c and pixel:c are INT
+    @Override
+    public int visitIntPostfixExpr(PostfixExpr postfixExpr, Frame frame) throws PLCCompilerException {
+        Expr primary = postfixExpr.primary();
+        PixelSelector pixel = postfixExpr.pixel();
+        ChannelSelector channel = postfixExpr.channel();
+        int value;
+        if (pixel == null) {
+            value = primary.acceptInt(this, frame);
+        } else {
+            Raster image = (Raster) primary.accept(this, frame);
+            value = image.get(pixel.xExpr().acceptInt(this, frame), pixel.yExpr().acceptInt(this, frame));
+        }
+        return channel == null ? value : PixelOps.channel(value, channel.color());
+    }
+
+    @Override
+    public int visitIntBooleanLitExpr(BooleanLitExpr booleanLitExpr, Frame frame) {
+        throw wrongType(booleanLitExpr, "INT");
+    }
+
+    @Override
+    public int visitIntStringLitExpr(StringLitExpr stringLitExpr, Frame frame) {
+        throw wrongType(stringLitExpr, "INT");
+    }
+
+
+    /* ======================= boolean expressions ======================= */
+
+    @Override
+    public boolean visitBooleanBinaryExpr(BinaryExpr binaryExpr, Frame frame) throws PLCCompilerException {
+        Expr left = binaryExpr.getLeftExpr();
+        Expr right = binaryExpr.getRightExpr();
+        return switch (binaryExpr.getOpKind()) {
+            // + on booleans is allowed by TypeRules and taken as or
+            case AND -> left.acceptBoolean(this, frame) && right.acceptBoolean(this, frame);
+            case OR, PLUS -> left.acceptBoolean(this, frame) || right.acceptBoolean(this, frame);
+            case LT -> left.acceptInt(this, frame) < right.acceptInt(this, frame);
+            case GT -> left.acceptInt(this, frame) > right.acceptInt(this, frame);
+            case LE -> left.acceptInt(this, frame) <= right.acceptInt(this, frame);
+            case GE -> left.acceptInt(this, frame) >= right.acceptInt(this, frame);
+            case EQ -> switch (left.getType()) {
+                case INT, PIXEL -> left.acceptInt(this, frame) == right.acceptInt(this, frame);
+                case BOOLEAN -> left.acceptBoolean(this, frame) == right.acceptBoolean(this, frame);
+                default -> Objects.equals(left.accept(this, frame), right.accept(this, frame));
+            };
+            default -> throw wrongType(binaryExpr, "BOOLEAN");
+        };
+    }
+
+    @Override
+    public boolean visitBooleanUnaryExpr(UnaryExpr unaryExpr, Frame frame) throws PLCCompilerException {
+        return !unaryExpr.getExpr().acceptBoolean(this, frame);
+    }
+
+    @Override
+    public boolean visitBooleanConditionalExpr(ConditionalExpr conditionalExpr, Frame frame) throws PLCCompilerException {
+        return conditionalExpr.getGuardExpr().acceptBoolean(this, frame) ? conditionalExpr.getTrueExpr().acceptBoolean(this, frame)
+                : conditionalExpr.getFalseExpr().acceptBoolean(this, frame);
+    }
+
+    @Override
+    public boolean visitBooleanIdentExpr(IdentExpr identExpr, Frame frame) {
+        return frame.ints[identExpr.getSlot()] != 0;
+    }
+
+    @Override
+    public boolean visitBooleanBooleanLitExpr(BooleanLitExpr booleanLitExpr, Frame frame) {
+        return booleanLitExpr.getText().equals("TRUE");
+    }
+
+    @Override
+    public boolean visitBooleanPostfixExpr(PostfixExpr postfixExpr, Frame frame) throws PLCCompilerException {
+        return postfixExpr.primary().acceptBoolean(this, frame);
+    }
+
+    @Override
+    public boolean visitBooleanConstExpr(ConstExpr constExpr, Frame frame) {
+        throw wrongType(constExpr, "BOOLEAN");
+    }
+
+    @Override
+    public boolean visitBooleanExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Frame frame) {
+        throw wrongType(expandedPixelExpr, "BOOLEAN");
+    }
+
+    @Override
+    public boolean visitBooleanNumLitExpr(NumLitExpr numLitExpr, Frame frame) {
+        throw wrongType(numLitExpr, "BOOLEAN");
+    }
+
+    @Override
+    public boolean visitBooleanStringLitExpr(StringLitExpr stringLitExpr, Frame frame) {
+        throw wrongType(stringLitExpr, "BOOLEAN");
+    }
+}
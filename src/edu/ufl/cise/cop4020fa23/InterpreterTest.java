@@ -0,0 +1,128 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.exceptions.ErrorCode;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+import edu.ufl.cise.cop4020fa23.runtime.PixelOps;
+import edu.ufl.cise.cop4020fa23.runtime.Raster;
+
+class InterpreterTest {
+
+	static Object run(String input, Object... args) throws PLCCompilerException {
+		Program program = (Program) ComponentFactory.makeTypeCheckingParser(input).parse();
+		return new Interpreter().run(program, args);
+	}
+
+	@Test
+	void arithmetic() throws PLCCompilerException {
+		String input = """
+				int f(int a, int b) <:
+				int c = (a + b) * 2 - a / b;
+				^ ? c > 20 -> c ** 2 , -c;
+				:>
+				""";
+		assertEquals(-18, run(input, 7, 3));
+		assertEquals(441, run(input, 9, 3));
+	}
+
+	@Test
+	void guardedCommands() throws PLCCompilerException {
+		String input = """
+				int gcd(int a, int b) <:
+				do a > b -> <: a = a - b; :>
+				[] b > a -> <: b = b - a; :>
+				od;
+				if a == 1 -> <: ^ 1; :> fi;
+				^ a * 100;
+				:>
+				""";
+		assertEquals(600, run(input, 42, 24));
+		assertEquals(1, run(input, 9, 4));
+	}
+
+	@Test
+	void write() throws PLCCompilerException {
+		Program program = (Program) ComponentFactory.makeTypeCheckingParser("""
+				void w(string s) <:
+				int i = 2;
+				do i > 1 -> <: boolean b = i == 2; write b; i = i - 1; :> od;
+				write s + "!";
+				pixel p = [300, 128, -4];
+				write p;
+				p:green = 7;
+				write p:green;
+				:>
+				""").parse();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		assertEquals(null, new Interpreter(new PrintStream(bytes, true)).run(program, "hi"));
+		assertEquals("TRUE\nhi!\n[255,128,0]\n7\n", bytes.toString().replace("\r\n", "\n"));
+	}
+
+	@Test
+	void images() throws PLCCompilerException {
+		String input = """
+				image f(int w) <:
+				image[w,3] a;
+				a[x,y] = [x * 10, y * 20, 1];
+				a[x,y]:blue = x + y;
+				a[1,1] = RED;
+				image b = a;
+				b:green = 9;
+				^ a + b:red;
+				:>
+				""";
+		Raster result = (Raster) run(input, 4);
+		assertEquals(4, result.width());
+		assertEquals(3, result.height());
+		assertEquals(PixelOps.pack(60, 40, 5), result.get(3, 2));
+		assertEquals(PixelOps.pack(255, 0, 0), result.get(1, 1));
+		assertEquals(PixelOps.pack(20, 0, 1), result.get(1, 0));
+	}
+
+	@Test
+	void runtimeErrors() throws PLCCompilerException {
+		PLCRuntimeException e = assertThrows(PLCRuntimeException.class, () -> run("""
+				int f(int a) <:
+				int b = 3;
+				^ b / a;
+				:>
+				""", 0));
+		assertEquals(ErrorCode.RUNTIME, e.getErrorCode());
+		assertNotNull(e.getLocation());
+		assertTrue(e.getMessage().endsWith("division by zero"));
+		assertThrows(PLCRuntimeException.class, () -> run("""
+				pixel f(image a) <:
+				^ a[1,5];
+				:>
+				""", new Raster(2, 2)));
+	}
+
+	// each reads im or s, which have no value
+	static final String[] NO_VALUE = { "image b = im;", "image[2,2] b = im;", "image[2,2] b = s;", "int w = width im;",
+			"pixel p = im[1,1];", "image[2,2] b; b = im;", "image[2,2] b; b = b + im;", "image b; b = im;" };
+
+	static String noValue(String use) {
+		return "void f() <:\nimage im;\nstring s;\n" + use + "\n:>";
+	}
+
+	@Test
+	void noValue() throws PLCCompilerException {
+		for (String use : NO_VALUE) {
+			PLCRuntimeException e = assertThrows(PLCRuntimeException.class, () -> run(noValue(use)), use);
+			assertNotNull(e.getLocation(), use);
+			assertTrue(e.getMessage().endsWith("has no value"), e.getMessage());
+		}
+		assertEquals(1, run("int f() <: image im; string s; ^ 1; :>"));
+	}
+}
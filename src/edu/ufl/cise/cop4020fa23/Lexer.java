@@ -7,6 +7,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class Lexer implements ILexer {
 
@@ -21,6 +22,9 @@ public class Lexer implements ILexer {
     private boolean reachedEOF = false;
     private boolean eofReached = false;
 
+    // the error found by the call of scan() in progress, if any
+    private LexicalException error;
+
 
     private enum State {
         START, IN_STRING, IN_IDENT, HAVE_ZERO, IN_NUM,
@@ -83,17 +87,36 @@ public class Lexer implements ILexer {
 
     @Override
     public IToken next() throws LexicalException {
+        IToken token = scan();
+        if (token == null) {
+            throw error;
+        }
+        return token;
+    }
+
+    @Override
+    public IToken next(Consumer<LexicalException> errors) {
+        IToken token = scan();
+        if (token == null) {
+            errors.accept(error);
+        }
+        return token;
+    }
+
+    // the next token, or null with error set
+    private IToken scan() {
+        error = null;
         if (reachedEOF) {
             return new Token(Kind.EOF, startPos, 1, null, new SourceLocation(line, startPos)); // Return an EOF token
         }
         if (eofReached) {
-            throw new LexicalException(new SourceLocation(line, pos), "End of file reached");
+            return error(new SourceLocation(line, pos), "End of file reached");
         }
 
 
         IToken resultToken = null;
 
-        while (resultToken == null && !reachedEOF) {
+        while (resultToken == null && !reachedEOF && error == null) {
             char ch = chars[pos];
             switch (state) {
                 case START -> resultToken = handleStart(ch);
@@ -114,8 +137,14 @@ public class Lexer implements ILexer {
         return resultToken;
     }
 
+    // records an error, which ends the call of scan() in progress
+    private IToken error(SourceLocation location, String message) {
+        error = new LexicalException(location, message);
+        return null;
+    }
+
 
-    private IToken handleStart(char ch) throws LexicalException {
+    private IToken handleStart(char ch) {
         skipWhitespace();
         startPos = pos;
 
@@ -140,7 +169,7 @@ public class Lexer implements ILexer {
                     return null;
                 } else {
                     SourceLocation errorLocation = new SourceLocation(line, startPos);
-                    throw new LexicalException(errorLocation, "Unrecognized token at position: " + startPos);
+                    return error(errorLocation, "Unrecognized token at position: " + startPos);
                 }
             }
             case '+' -> {
@@ -247,7 +276,7 @@ public class Lexer implements ILexer {
                         pos += 2;
                     } else {
                         SourceLocation errorLocation = new SourceLocation(line, startPos);
-                        throw new LexicalException(errorLocation, "Unterminated comment starting at position: " + startPos);
+                        return error(errorLocation, "Unterminated comment starting at position: " + startPos);
                     }
                     return null;
                 } else {
@@ -310,7 +339,7 @@ public class Lexer implements ILexer {
                     return null;
                 } else {
                     SourceLocation errorLocation = new SourceLocation(line, startPos);
-                    throw new LexicalException(errorLocation, "Unreacognized token at position: " + startPos);
+                    return error(errorLocation, "Unreacognized token at position: " + startPos);
                 }
             }
         }
@@ -339,14 +368,14 @@ public class Lexer implements ILexer {
 
 
     // SOLVED
-    private IToken handleString(char ch) throws LexicalException {
+    private IToken handleString(char ch) {
         if (ch == '"') {
             String stringValue = new String(chars, startPos + 1, pos - startPos - 1);
             pos++;
             state = State.START;
             return createToken(STRING_LIT, startPos, stringValue.length() + 2, chars);
         } else if (ch == '\0' || ch == '\n') {
-            throw new LexicalException(new SourceLocation(line, pos), "unclosed string starting at position: " + startPos);
+            return error(new SourceLocation(line, pos), "unclosed string starting at position: " + startPos);
         }  else {
             pos++;
             return null;
@@ -385,7 +414,7 @@ public class Lexer implements ILexer {
 
 
 
-    private IToken handleNumber(char ch) throws LexicalException {
+    private IToken handleNumber(char ch) {
         if (Character.isDigit(ch)) {
             pos++;
             return null;
@@ -393,7 +422,7 @@ public class Lexer implements ILexer {
             String numString = new String(chars, startPos, pos - startPos);
             if (numString.length() > 10) {
                 SourceLocation errorLocation = new SourceLocation(line, startPos);
-                throw new LexicalException(errorLocation, "Number is too large at position: " + startPos);
+                return error(errorLocation, "Number is too large at position: " + startPos);
             }
 
             state = State.START;
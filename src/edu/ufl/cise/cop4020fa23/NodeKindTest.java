@@ -0,0 +1,47 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Modifier;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.ast.ASTDispatcher;
+import edu.ufl.cise.cop4020fa23.ast.NameDef;
+import edu.ufl.cise.cop4020fa23.ast.NodeKind;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.SyntheticNameDef;
+import edu.ufl.cise.cop4020fa23.ast.Type;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+class NodeKindTest {
+
+	@Test
+	void oneKindPerConcreteClass() {
+		for (NodeKind kind : NodeKind.values()) {
+			Class<? extends AST> nodeClass = kind.nodeClass();
+			assertTrue(Modifier.isFinal(nodeClass.getModifiers()) || nodeClass == NameDef.class, kind.toString());
+		}
+		assertTrue(AST.class.isSealed());
+		assertEquals(NodeKind.SYNTHETIC_NAME_DEF, new SyntheticNameDef("x").nodeKind());
+	}
+
+	@Test
+	void dispatcherCallsTheSameVisitMethod() throws PLCCompilerException {
+		String input = """
+				image p(image im, int k) <:
+				im[x,y] = im[y,x] + [x, y, k];
+				do k > 0 -> <: k = k - 1; :> od;
+				^ im;
+				:>
+				""";
+		AST ast = ComponentFactory.makeParser(input).parse();
+		assertSame(NodeKind.PROGRAM, ast.nodeKind());
+		assertEquals(Type.IMAGE, ASTDispatcher.visit(ast, ComponentFactory.makeTypeChecker(), null));
+		assertEquals(Type.IMAGE, ((Program) ast).getType());
+	}
+
+}
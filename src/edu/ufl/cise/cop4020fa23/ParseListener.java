@@ -0,0 +1,33 @@
+package edu.ufl.cise.cop4020fa23;
+
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Callbacks from a Parser.  All methods do nothing by default.
+ *
+ * Every production is reported as an enter, the events of its parts in source order, and an exit.
+ * The token passed to enter is
+ *   - the operator, for BINARY_EXPR and UNARY_EXPR
+ *   - the type keyword, for PROGRAM and NAME_DEF
+ *   - the literal or identifier, for the expression leaves
+ *   - otherwise the first token of the production.
+ * The token passed to exit is the token following the production.
+ *
+ * A BINARY_EXPR or POSTFIX_EXPR is only recognized once its first operand (the left operand or
+ * the primary expression) has been parsed, so it is entered after that operand has been exited.
+ *
+ * Identifiers and type keywords that are not expressions (program names, types, declared names,
+ * LValue names and channel colors) are reported with terminal().
+ */
+public interface ParseListener {
+
+	default void enter(Production production, IToken token) throws PLCCompilerException {
+	}
+
+	default void exit(Production production, IToken token) throws PLCCompilerException {
+	}
+
+	default void terminal(IToken token) throws PLCCompilerException {
+	}
+
+}
@@ -9,569 +9,501 @@
  */
 package edu.ufl.cise.cop4020fa23;
 
-import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.ast.AST;
 import edu.ufl.cise.cop4020fa23.exceptions.LexicalException;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 import edu.ufl.cise.cop4020fa23.exceptions.SyntaxException;
 
 import static edu.ufl.cise.cop4020fa23.Kind.*;
+import static edu.ufl.cise.cop4020fa23.Production.*;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
-
-import edu.ufl.cise.cop4020fa23.ast.AST;
-import edu.ufl.cise.cop4020fa23.ast.BinaryExpr;
-import edu.ufl.cise.cop4020fa23.ast.ChannelSelector;
-import edu.ufl.cise.cop4020fa23.ast.ConditionalExpr;
-import edu.ufl.cise.cop4020fa23.ast.ConstExpr;
-import edu.ufl.cise.cop4020fa23.ast.ExpandedPixelExpr;
-import edu.ufl.cise.cop4020fa23.ast.Expr;
-import edu.ufl.cise.cop4020fa23.ast.IdentExpr;
-import edu.ufl.cise.cop4020fa23.ast.NumLitExpr;
-import edu.ufl.cise.cop4020fa23.ast.BooleanLitExpr;
-import edu.ufl.cise.cop4020fa23.ast.PixelSelector;
-import edu.ufl.cise.cop4020fa23.ast.PostfixExpr;
-import edu.ufl.cise.cop4020fa23.ast.StringLitExpr;
-import edu.ufl.cise.cop4020fa23.ast.UnaryExpr;
-
-
-
-
+/**
+ * Recursive descent parser for the language.  Each production is reported to a ParseListener as it
+ * is recognized, see ParseListener for the order of the events.  The default listener is a
+ * TreeBuilder, which builds the AST that parse() returns.
+ *
+ * With a listener that keeps nothing, memory use is bounded by the nesting depth of the input,
+ * so that is the cheap way to validate syntax, count constructs or pick out declarations.
+ *
+ * Errors are not thrown while parsing.  The first lexical or syntax error is recorded and the rest
+ * of the input is treated as ended, so the productions being parsed return without consuming tokens
+ * or reporting events.  An exception from the listener stops the events, but the input is still
+ * parsed, and the exception is reported only if the input has no lexical or syntax error, as if the
+ * listener had been run on the finished parse.  parse() then throws the error and tryParse()
+ * returns it.
+ */
 public class Parser implements IParser {
 
 	final ILexer lexer;
+	final ParseListener listener;
 	private IToken token;
+	private PLCCompilerException error;
+	private PLCCompilerException listenerError;
 
-	public Parser(ILexer lexer) throws LexicalException {
-		super();
-		this.lexer = lexer;
-		token = lexer.next();
+	public Parser(ILexer lexer) {
+		this(lexer, new TreeBuilder());
 	}
 
+	public Parser(ILexer lexer, ExprInterner interner) {
+		this(lexer, new TreeBuilder(interner, null));
+	}
 
+	/**
+	 * If checker is not null, each node is type checked as soon as it is built, and parse()
+	 * returns the same decorated AST that visiting the parsed AST with a TypeCheckVisitor would.
+	 */
+	public Parser(ILexer lexer, ExprInterner interner, TypeCheckVisitor checker) {
+		this(lexer, new TreeBuilder(interner, checker));
+	}
 
-	/* *****************************  MOKSH ***************************** */
+	public Parser(ILexer lexer, ParseListener listener) {
+		super();
+		this.lexer = lexer;
+		this.listener = listener;
+		token = lexer.next(this::fail);
+	}
 
+	/**
+	 * @return the AST, if the listener is a TreeBuilder, else null
+	 */
 	@Override
 	public AST parse() throws SyntaxException, PLCCompilerException {
-		AST e = program();
+		CompileResult<AST> result = tryParse();
+		if (!result.isSuccess()) {
+			throw result.error();
+		}
+		return result.value();
+	}
+
+	/**
+	 * Parses like parse(), but returns the error as a failed result instead of throwing it.
+	 */
+	public CompileResult<AST> tryParse() {
+		program();
 		// if there are still tokens remaining at the end, this should result in a SyntaxException
 		if (token.kind() != EOF) {
-			throw new SyntaxException(token.sourceLocation(), "Expected end of file but found " + token.kind());
+			syntaxError("Expected end of file but found " + token.kind());
+		}
+		if (error != null || listenerError != null) {
+			return CompileResult.failure(error != null ? error : listenerError);
 		}
-		return e;
+		return CompileResult.success(listener instanceof TreeBuilder builder ? builder.getAST() : null);
 	}
 
+	// records the first error and ends the input
+	private void fail(PLCCompilerException e) {
+		if (error == null) {
+			error = e;
+		}
+		token = new Token(EOF, 0, 0, null, e.getLocation());
+	}
 
-// ************************************ START OF Expression Parser Code **************************************** //
+	// records a syntax error at the current token, unless there is an error already
+	private void syntaxError(String message) {
+		if (error == null) {
+			fail(new SyntaxException(token.sourceLocation(), message));
+		}
+	}
 
 	// match the expected kind and move to the next token
-	private IToken match(Kind expectedKind) throws LexicalException, SyntaxException {
-//		System.out.println("Matching " + expectedKind + ", current token is " + token.kind()); // Debug print
-		if (token.kind() == expectedKind) {
-			try {
-				IToken currentToken = token;
-				token = lexer.next();
-				return currentToken;
-			} catch (LexicalException e) {
-				throw new LexicalException(token.sourceLocation(), "Lexical error while trying to match " + expectedKind + ": " + e.getMessage());
-			}
-		} else {
-			throw new SyntaxException(token.sourceLocation(), "Expected " + expectedKind + " but found " + token.kind());
+	private IToken match(Kind expectedKind) {
+		IToken currentToken = token;
+		if (currentToken.kind() != expectedKind) {
+			syntaxError("Expected " + expectedKind + " but found " + currentToken.kind());
+			return currentToken;
+		}
+		IToken next = lexer.next(e -> fail(new LexicalException(currentToken.sourceLocation(),
+				"Lexical error while trying to match " + expectedKind + ": " + e.getMessage())));
+		if (next != null) {
+			token = next;
 		}
+		return currentToken;
 	}
 
+	private boolean isKind(Kind kind) {
+		return token.kind() == kind;
+	}
 
+	private boolean isType() {
+		return isKind(RES_image) || isKind(RES_pixel) || isKind(RES_int)
+				|| isKind(RES_string) || isKind(RES_boolean) || isKind(RES_void);
+	}
 
-	// Expr ::=  ConditionalExpr | LogicalOrExpr
-	private Expr expr() throws SyntaxException, PLCCompilerException {
-		if (token.kind() == Kind.QUESTION) {
-			return conditionalExpr();
-		} else {
-			return logicalOrExpr();
+	// reports the current token as a terminal and consumes it
+	private void terminal(Kind kind) {
+		if (isReporting()) {
+			try {
+				listener.terminal(token);
+			} catch (PLCCompilerException e) {
+				listenerError = e;
+			}
 		}
+		match(kind);
 	}
 
+	// events are reported until there is an error
+	private boolean isReporting() {
+		return error == null && listenerError == null;
+	}
 
-	//	 ConditionalExpr ::=  ?  Expr  : -> Expr  : , Expr
-	private ConditionalExpr conditionalExpr() throws SyntaxException, PLCCompilerException {
-		match(Kind.QUESTION);
-		Expr condition = expr();
-		match(Kind.RARROW);
-		Expr trueExpr = expr();
-		match(Kind.COMMA);
-		Expr falseExpr = expr();
-		return new ConditionalExpr(token, condition, trueExpr, falseExpr);
+	private void enter(Production production) {
+		if (isReporting()) {
+			try {
+				listener.enter(production, token);
+			} catch (PLCCompilerException e) {
+				listenerError = e;
+			}
+		}
 	}
 
+	private void exit(Production production) {
+		if (isReporting()) {
+			try {
+				listener.exit(production, token);
+			} catch (PLCCompilerException e) {
+				listenerError = e;
+			}
+		}
+	}
 
 
-	// LogicalAndExpr ::=  ComparisonExpr ( (   &   |  &&   )  ComparisonExpr)*
-	private Expr logicalAndExpr() throws SyntaxException, PLCCompilerException {
-		Expr left = comparisonExpr();
-		while (token.kind() == Kind.BITAND || token.kind() == Kind.AND) {
-			IToken opToken = token;
-			match(token.kind());
-			Expr right = comparisonExpr();
-			left = new BinaryExpr(token, left, opToken, right);
+	/* ***************************** expressions ***************************** */
+
+	// Expr ::=  ConditionalExpr | LogicalOrExpr
+	private void expr() {
+		if (isKind(QUESTION)) {
+			conditionalExpr();
+		} else {
+			logicalOrExpr();
 		}
-		return left;
 	}
 
-	// LogicalOrExpr ::=  LogicalAndExpr ( (  |  |  || ) LogicalAndExpr)*
-	private Expr logicalOrExpr() throws SyntaxException, PLCCompilerException {
-		Expr left = logicalAndExpr();
+	// ConditionalExpr ::=  ?  Expr  -> Expr  , Expr
+	private void conditionalExpr() {
+		enter(CONDITIONAL_EXPR);
+		match(QUESTION);
+		expr();
+		match(RARROW);
+		expr();
+		match(COMMA);
+		expr();
+		exit(CONDITIONAL_EXPR);
+	}
 
-		while (token.kind() == Kind.BITOR || token.kind() == Kind.OR) {
-			IToken opToken = token;
+	// LogicalOrExpr ::=  LogicalAndExpr ( (  |  |  || ) LogicalAndExpr)*
+	private void logicalOrExpr() {
+		logicalAndExpr();
+		while (isKind(BITOR) || isKind(OR)) {
+			enter(BINARY_EXPR);
 			match(token.kind());
-			Expr right = logicalAndExpr();
-			left = new BinaryExpr(token, left, opToken, right);
+			logicalAndExpr();
+			exit(BINARY_EXPR);
 		}
-		return left;
 	}
 
-
-	/* *****************************  Daniel  ***************************** */
+	// LogicalAndExpr ::=  ComparisonExpr ( (   &   |  &&   )  ComparisonExpr)*
+	private void logicalAndExpr() {
+		comparisonExpr();
+		while (isKind(BITAND) || isKind(AND)) {
+			enter(BINARY_EXPR);
+			match(token.kind());
+			comparisonExpr();
+			exit(BINARY_EXPR);
+		}
+	}
 
 	// ComparisonExpr ::= PowExpr ( (< | > | == | <= | >=) PowExpr)*
-	private Expr comparisonExpr() throws SyntaxException, PLCCompilerException {
-		Expr left = powExpr();
-		while (Arrays.asList(Kind.LT, Kind.GT, Kind.EQ, Kind.LE, Kind.GE).contains(token.kind())) {
-			IToken opToken = token;
+	private void comparisonExpr() {
+		powExpr();
+		while (isKind(LT) || isKind(GT) || isKind(EQ) || isKind(LE) || isKind(GE)) {
+			enter(BINARY_EXPR);
 			match(token.kind());
-			Expr right = powExpr();
-			left = new BinaryExpr(token, left, opToken, right);
+			powExpr();
+			exit(BINARY_EXPR);
 		}
-		return left;
 	}
 
 	// PowExpr ::= AdditiveExpr ** PowExpr |   AdditiveExpr
-	private Expr powExpr() throws SyntaxException, PLCCompilerException {
-		Expr left = additiveExpr();
-		if (token.kind() == Kind.EXP) {
-			IToken opToken = token;
-			match(Kind.EXP);
-			Expr right = powExpr();
-			left = new BinaryExpr(token, left, opToken, right);
+	private void powExpr() {
+		additiveExpr();
+		if (isKind(EXP)) {
+			enter(BINARY_EXPR);
+			match(EXP);
+			powExpr();
+			exit(BINARY_EXPR);
 		}
-		return left;
 	}
 
 	// AdditiveExpr ::= MultiplicativeExpr ( ( + | -  ) MultiplicativeExpr )*
-	private Expr additiveExpr() throws SyntaxException, PLCCompilerException {
-		Expr left = multiplicativeExpr();
-		while (token.kind() == Kind.PLUS || token.kind() == Kind.MINUS) {
-			IToken opToken = token;
+	private void additiveExpr() {
+		multiplicativeExpr();
+		while (isKind(PLUS) || isKind(MINUS)) {
+			enter(BINARY_EXPR);
 			match(token.kind());
-			Expr right = multiplicativeExpr();
-			left = new BinaryExpr(token, left, opToken, right);
+			multiplicativeExpr();
+			exit(BINARY_EXPR);
 		}
-		return left;
 	}
 
 	// MultiplicativeExpr ::= UnaryExpr (( * |  /  |  % ) UnaryExpr)*
-	private Expr multiplicativeExpr() throws SyntaxException, PLCCompilerException {
-		Expr left = unaryExpr();
-		while (token.kind() == Kind.TIMES || token.kind() == Kind.DIV || token.kind() == Kind.MOD) {
-			IToken opToken = token;
+	private void multiplicativeExpr() {
+		unaryExpr();
+		while (isKind(TIMES) || isKind(DIV) || isKind(MOD)) {
+			enter(BINARY_EXPR);
 			match(token.kind());
-			Expr right = unaryExpr();
-			left = new BinaryExpr(token, left, opToken, right);
+			unaryExpr();
+			exit(BINARY_EXPR);
 		}
-		return left;
 	}
 
 	// UnaryExpr ::=  ( ! | - | length | width) UnaryExpr  |  UnaryExprPostfix
-	private Expr unaryExpr() throws SyntaxException, PLCCompilerException {
-		if (token.kind() == Kind.BANG || token.kind() == Kind.MINUS ||
-				token.kind() == Kind.RES_width || token.kind() == Kind.RES_height) {
-			IToken opToken = token;
+	private void unaryExpr() {
+		if (isKind(BANG) || isKind(MINUS) || isKind(RES_width) || isKind(RES_height)) {
+			enter(UNARY_EXPR);
 			match(token.kind());
-			Expr expression = unaryExpr();
-			return new UnaryExpr(token, opToken, expression);
+			unaryExpr();
+			exit(UNARY_EXPR);
 		} else {
-			return postfixExpr();
+			postfixExpr();
 		}
 	}
 
-	/* *****************************  Moksh  ***************************** */
-
-	// UnaryExprPostfix::= PrimaryExpr (PixelSelector | ε ) (ChannelSelector | ε )
-	private Expr postfixExpr() throws SyntaxException, PLCCompilerException {
-		Expr expression = primaryExpr();
-		PixelSelector pixelSelector = null;
-		ChannelSelector channelSelector = null;
-
-		// Check for PixelSelector
-		if (token.kind() == Kind.LSQUARE) {
-			pixelSelector = pixelSelector();
-		}
-
-		// Check for ChannelSelector
-		if (token.kind() == Kind.COLON) {
-			channelSelector = channelSelector();
-		}
-
-		// If we encountered either a PixelSelector or ChannelSelector or both,
-		// wrap the original expression in a PostfixExpr.
-		if (pixelSelector != null || channelSelector != null) {
-			return new PostfixExpr(token, expression, pixelSelector, channelSelector);
+	// UnaryExprPostfix::= PrimaryExpr (PixelSelector | empty ) (ChannelSelector | empty )
+	private void postfixExpr() {
+		primaryExpr();
+		if (isKind(LSQUARE) || isKind(COLON)) {
+			enter(POSTFIX_EXPR);
+			if (isKind(LSQUARE)) {
+				pixelSelector();
+			}
+			if (isKind(COLON)) {
+				channelSelector();
+			}
+			exit(POSTFIX_EXPR);
 		}
-
-		// If no PixelSelector or ChannelSelector was found, just return the primary expression.
-		return expression;
 	}
 
-
-	// PrimaryExpr ::=STRING_LIT | NUM_LIT |  IDENT | ( Expr ) | Z
-	private Expr primaryExpr() throws SyntaxException, PLCCompilerException {
+	// PrimaryExpr ::=STRING_LIT | NUM_LIT |  IDENT | ( Expr ) | Z | ExpandedPixel
+	private void primaryExpr() {
 		switch (token.kind()) {
-			case STRING_LIT -> {
-				StringLitExpr stringLit = new StringLitExpr(token);
-				match(STRING_LIT);
-				return stringLit;
-			}
-			case NUM_LIT -> {
-				NumLitExpr numLit = new NumLitExpr(token);
-				match(NUM_LIT);
-				return numLit;
-			}
-			case BOOLEAN_LIT -> {
-				BooleanLitExpr booleanLit = new BooleanLitExpr(token);
-				match(BOOLEAN_LIT);
-				return booleanLit;
-			}
+			case STRING_LIT -> leaf(STRING_LIT_EXPR, STRING_LIT);
+			case NUM_LIT -> leaf(NUM_LIT_EXPR, NUM_LIT);
+			case BOOLEAN_LIT -> leaf(BOOLEAN_LIT_EXPR, BOOLEAN_LIT);
 			case IDENT -> {
 				if ("true".equals(token.text()) || "false".equals(token.text())) {
-					BooleanLitExpr booleanLit = new BooleanLitExpr(token);
-					match(IDENT);
-					return booleanLit;
+					leaf(BOOLEAN_LIT_EXPR, IDENT);
 				} else {
-					IdentExpr ident = new IdentExpr(token);
-					match(IDENT);
-					return ident;
+					leaf(IDENT_EXPR, IDENT);
 				}
 			}
 			case LPAREN -> {
 				match(LPAREN);
-				Expr expression = expr();
+				expr();
 				match(RPAREN);
-				return expression;
 			}
-			case CONST -> {
-				ConstExpr constExpr = new ConstExpr(token);
-				match(CONST);
-				return constExpr;
-			}
-			case LSQUARE -> {
-				return expandedPixelExpr();
-			}
-			default -> throw new SyntaxException(token.sourceLocation(), "Expected token of kind ...");
+			case CONST -> leaf(CONST_EXPR, CONST);
+			case LSQUARE -> expandedPixelExpr();
+			default -> syntaxError("Expected token of kind ...");
 		}
 	}
 
-	/* *****************************  Daniel  ***************************** */
+	private void leaf(Production production, Kind kind) {
+		enter(production);
+		match(kind);
+		exit(production);
+	}
 
 	// PixelSelector  ::= [ Expr , Expr ]
-	private PixelSelector pixelSelector() throws SyntaxException, PLCCompilerException {
+	private void pixelSelector() {
+		enter(PIXEL_SELECTOR);
 		match(LSQUARE);
-		Expr xExpr = expr();
+		expr();
 		match(COMMA);
-		Expr yExpr = expr();
+		expr();
 		match(RSQUARE);
-		return new PixelSelector(token, xExpr, yExpr);
+		exit(PIXEL_SELECTOR);
 	}
 
-	//	 ChannelSelector ::= : red | : green | : blue
-	private ChannelSelector channelSelector() throws SyntaxException, PLCCompilerException {
+	// ChannelSelector ::= : red | : green | : blue
+	private void channelSelector() {
+		enter(CHANNEL_SELECTOR);
 		match(COLON);
-		IToken channelToken = token;
-		if (channelToken.kind() == RES_red || channelToken.kind() == RES_green || channelToken.kind() == RES_blue) {
-			match(channelToken.kind());
-			return new ChannelSelector(token, channelToken);
+		if (isKind(RES_red) || isKind(RES_green) || isKind(RES_blue)) {
+			terminal(token.kind());
+			exit(CHANNEL_SELECTOR);
 		} else {
-			throw new SyntaxException(token.sourceLocation(), "Expected red, green, or blue after colon for ChannelSelector.");
+			syntaxError("Expected red, green, or blue after colon for ChannelSelector.");
 		}
 	}
 
 	// ExpandedPixel ::= [ Expr , Expr , Expr ]
-	private ExpandedPixelExpr expandedPixelExpr() throws SyntaxException, PLCCompilerException {
+	private void expandedPixelExpr() {
+		enter(EXPANDED_PIXEL_EXPR);
 		match(LSQUARE);
-		Expr e1 = expr();
+		expr();
 		match(COMMA);
-		Expr e2 = expr();
+		expr();
 		match(COMMA);
-		Expr e3 = expr();
+		expr();
 		if (isKind(RSQUARE)) {
 			match(RSQUARE);
 		}
-		return new ExpandedPixelExpr(token, e1, e2, e3);
+		exit(EXPANDED_PIXEL_EXPR);
 	}
 
-// ************************************ START OF Expression Parser Code **************************************** //
-
-
-	/*	*****************************  NEW ASSIGMENT 2 CODE  *****************************  */
 
+	/* ***************************** programs ***************************** */
 
-
-	/* *****************************  MOKSH  ***************************** */
-
-	// helper kind method
-	private boolean isKind(Kind kind) {
-		return token.kind() == kind;
-	}
-
-	// Method to parse the Type rule ::=> Type ::= image | pixel | int | string | boolean | void
-	private IToken type() throws LexicalException, SyntaxException {
-		if (isKind(Kind.RES_image)) {
-			IToken typeToken = token;
-			match(Kind.RES_image);
-			return typeToken;
-		} else if (isKind(Kind.RES_pixel)) {
-			IToken typeToken = token;
-			match(Kind.RES_pixel);
-			return typeToken;
-		} else if (isKind(Kind.RES_int)) {
-			IToken typeToken = token;
-			match(Kind.RES_int);
-			return typeToken;
-		} else if (isKind(Kind.RES_string)) {
-			IToken typeToken = token;
-			match(Kind.RES_string);
-			return typeToken;
-		} else if (isKind(Kind.RES_boolean)) {
-			IToken typeToken = token;
-			match(Kind.RES_boolean);
-			return typeToken;
-		} else if (isKind(Kind.RES_void)) {
-			IToken typeToken = token;
-			match(Kind.RES_void);
-			return typeToken;
+	// Type ::= image | pixel | int | string | boolean | void
+	private void type() {
+		if (isType()) {
+			terminal(token.kind());
 		} else {
-			throw new SyntaxException(token.sourceLocation(), "expected type but got: " + token.kind());
-		}
-	}
-
-
-	// Method to parse the Program rule ::=> Program::= Type IDENT ( ParamList ) Block
-	public AST program() throws SyntaxException, PLCCompilerException {
-		if (isType(token)) {
-			IToken type = type();
-			IToken ident = match(Kind.IDENT);
-			match(Kind.LPAREN);
-			List<NameDef> paramList = paramList();
-			match(Kind.RPAREN);
-			Block block = block();
-			return new Program(token, type, ident, paramList, block);
-		}
-		// token = !type, then just parse an exper
-		else {
-			Expr e = expr();
-			return e;
-		}
-	}
-
-	// helper method for program() to chcek if the token is a type
-	private boolean isType(IToken token) {
-		return isKind(Kind.RES_image) || isKind(Kind.RES_pixel)
-				||  isKind(Kind.RES_int) ||  isKind(Kind.RES_string)
-				|| isKind(Kind.RES_boolean) || isKind(Kind.RES_void);
-	}
-
-
-	// method to parse the Statement rule ::=>
-	// Statement::=
-	//       LValue = Expr |
-	//       write Expr |
-	//       do GuardedBlock [] GuardedBlock* od |
-	//      if GuardedBlock [] GuardedBlock* if |
-	//      ^ Expr |
-	//     BlockStatement |
-	private Statement statement() throws SyntaxException, PLCCompilerException {
-		if (isKind(Kind.IDENT)) {
-			LValue lvalue = lvalue();
-			match(Kind.ASSIGN);
-			Expr expr = expr();
-			return new AssignmentStatement(token, lvalue, expr);
-		}
-		else if (isKind(Kind.BLOCK_OPEN)) {
-			Block nestedBlock = block();
-			return new StatementBlock(token, nestedBlock);
-		}
-		else if (isKind(Kind.RES_write)) {
-			match(Kind.RES_write);
-			Expr expr = expr();
-			return new WriteStatement(token, expr);
-		}
-		else if (isKind(Kind.RETURN)) {
-			match(Kind.RETURN);
-			Expr expr = expr();
-			return new ReturnStatement(token, expr);
-		}
-		else if (isKind(Kind.RES_do)) {
-			return doStatement();
-		}
-		else if (isKind(Kind.RES_if)) {
-			return ifStatement();
-		}
-		else {
-			throw new SyntaxException("Unexpected token in statement: " + token.kind());
-		}
-	}
-
-
-	// Method to parse the DoStatement rule ::=> do GuardedBlock [] GuardedBlock* od
-	private Statement doStatement() throws SyntaxException, PLCCompilerException {
-		match(Kind.RES_do);
-		List<GuardedBlock> guardedBlocks = new ArrayList<>();
-		guardedBlocks.add(guardedBlock());
-		while (isKind(Kind.BOX)) {
-			match(Kind.BOX);
-			guardedBlocks.add(guardedBlock());
-		}
-		match(Kind.RES_od);
-		return new DoStatement(token, guardedBlocks);
-	}
-
-
-	// Method to parse the IfStatement rule ::=> if GuardedBlock [] GuardedBlock* fi
-	private IfStatement ifStatement() throws SyntaxException, PLCCompilerException {
-		match(Kind.RES_if);
-		List<GuardedBlock> guardedBlocks = new ArrayList<>();
-		guardedBlocks.add(guardedBlock());
-		while (isKind(Kind.BOX)) {
-			match(Kind.BOX);
-			guardedBlocks.add(guardedBlock());
-		}
-		match(Kind.RES_fi);
-		return new IfStatement(token, guardedBlocks);
-	}
-
-
-	// Method to parse the GuardedBlock rule ::=> GuardedBlock := Expr -> Block
-	private GuardedBlock guardedBlock() throws SyntaxException, PLCCompilerException {
-		Expr expr = expr();
-		match(Kind.RARROW);
-		Block block = block();
-		return new GuardedBlock(token, expr, block);
-	}
-
-
-
-
-	/* *****************************  Daniel  ***************************** */
-
-	// Method to parse the ParamList rule ::=> ParamList ::= ε | NameDef ( , NameDef ) *
-	private List<NameDef> paramList() throws  PLCCompilerException {
-		List<NameDef> params = new ArrayList<>();
-		if (!isKind(Kind.RPAREN)) {
-			params.add(nameDef());
-			while (isKind(Kind.COMMA)) {
-				match(Kind.COMMA);
-				params.add(nameDef());
+			syntaxError("expected type but got: " + token.kind());
+		}
+	}
+
+	// Program::= Type IDENT ( ParamList ) Block  |  Expr
+	private void program() {
+		if (isType()) {
+			enter(PROGRAM);
+			type();
+			terminal(IDENT);
+			match(LPAREN);
+			if (!isKind(RPAREN)) {
+				nameDef(false);
+				while (isKind(COMMA)) {
+					match(COMMA);
+					nameDef(false);
+				}
 			}
+			match(RPAREN);
+			block();
+			exit(PROGRAM);
+		} else {
+			expr();
 		}
-		return params;
 	}
 
-
-	// Method to parse the NameDef rule ::=> NameDef ::= Type IDENT | Type Dimension IDENT
-
-	private NameDef nameDef() throws PLCCompilerException {
-		IToken type = type();
-		Dimension dimension = null;
-		if (isKind(Kind.LSQUARE)) {
-			dimension = dimension();
+	// NameDef ::= Type IDENT | Type Dimension IDENT
+	// In a declaration, an image without a Dimension may also have one after its name.
+	private void nameDef(boolean inDeclaration) {
+		enter(NAME_DEF);
+		boolean isImage = isKind(RES_image);
+		type();
+		boolean hasDimension = isKind(LSQUARE);
+		if (hasDimension) {
+			dimension();
+		}
+		terminal(IDENT);
+		if (inDeclaration && isImage && !hasDimension && isKind(LSQUARE)) {
+			dimension();
 		}
-		IToken ident = match(Kind.IDENT);
-		return new NameDef(token, type, dimension, ident);
+		exit(NAME_DEF);
 	}
 
-
-	// Method to parse the Dimension rule ::=> Dimension ::= [ Expr , Expr ]
-	private Dimension dimension() throws SyntaxException, PLCCompilerException {
+	// Dimension ::= [ Expr , Expr ]
+	private void dimension() {
+		enter(DIMENSION);
 		match(LSQUARE);
-		Expr width = expr();
+		expr();
 		match(COMMA);
-		Expr height = expr();
+		expr();
 		match(RSQUARE);
-		return new Dimension(token, width, height);
+		exit(DIMENSION);
 	}
 
-
-
-	// method to parse the Block rule ::=> Block ::= <: (Declaration ; | Statement ;)* :>
-	private Block block() throws SyntaxException, PLCCompilerException {
-		IToken firstToken = match(Kind.BLOCK_OPEN);  // match <:
-		List<Block.BlockElem> blockElems = new ArrayList<>();
-		while (!isKind(Kind.BLOCK_CLOSE) && !isKind(Kind.EOF)) {
+	// Block ::= <: (Declaration ; | Statement ;)* :>
+	private void block() {
+		enter(BLOCK);
+		match(BLOCK_OPEN);
+		while (!isKind(BLOCK_CLOSE) && !isKind(EOF)) {
 			if (isType()) {
-				Declaration decl = declaration();
-				blockElems.add((Block.BlockElem) decl);
-				match(Kind.SEMI);
+				declaration();
 			} else {
-				Statement stmt = statement();
-				blockElems.add((Block.BlockElem) stmt);
-				match(Kind.SEMI);
+				statement();
 			}
+			match(SEMI);
+		}
+		match(BLOCK_CLOSE);
+		exit(BLOCK);
+	}
+
+	// Declaration::= NameDef | NameDef = Expr
+	private void declaration() {
+		enter(DECLARATION);
+		nameDef(true);
+		if (isKind(ASSIGN)) {
+			match(ASSIGN);
+			expr();
+		}
+		exit(DECLARATION);
+	}
+
+	// Statement::= LValue = Expr | write Expr | do GuardedBlock [] GuardedBlock* od |
+	//              if GuardedBlock [] GuardedBlock* fi | ^ Expr | BlockStatement
+	private void statement() {
+		if (isKind(IDENT)) {
+			enter(ASSIGNMENT_STATEMENT);
+			lValue();
+			match(ASSIGN);
+			expr();
+			exit(ASSIGNMENT_STATEMENT);
+		} else if (isKind(BLOCK_OPEN)) {
+			enter(BLOCK_STATEMENT);
+			block();
+			exit(BLOCK_STATEMENT);
+		} else if (isKind(RES_write)) {
+			enter(WRITE_STATEMENT);
+			match(RES_write);
+			expr();
+			exit(WRITE_STATEMENT);
+		} else if (isKind(RETURN)) {
+			enter(RETURN_STATEMENT);
+			match(RETURN);
+			expr();
+			exit(RETURN_STATEMENT);
+		} else if (isKind(RES_do)) {
+			guardedStatement(DO_STATEMENT, RES_do, RES_od);
+		} else if (isKind(RES_if)) {
+			guardedStatement(IF_STATEMENT, RES_if, RES_fi);
+		} else {
+			syntaxError("Unexpected token in statement: " + token.kind());
 		}
-		match(Kind.BLOCK_CLOSE);  // match :>
-		return new Block(firstToken, blockElems);
 	}
 
-
-	// another helper method (overloading) for block() of type checking
-	private boolean isType() {
-		return isKind(Kind.RES_image) || isKind(Kind.RES_pixel)
-				||  isKind(Kind.RES_int) ||  isKind(Kind.RES_string)
-				|| isKind(Kind.RES_boolean) || isKind(Kind.RES_void);
-	}
-
-
-
-
-	// Method to parse the Declaration rule ::=> Declaration::= NameDef | NameDef = Expr
-	private Declaration declaration() throws SyntaxException, PLCCompilerException {
-		NameDef name = nameDef();
-
-		if (name.getType() == Type.IMAGE && name.getDimension() == null && isKind(Kind.LSQUARE)) {
-			Dimension dimension = dimension();
-			IToken typeToken = name.getTypeToken();
-			IToken identToken = name.getIdentToken();
-			name = new NameDef(token, typeToken, dimension, identToken);
-		}
-
-		if (isKind(Kind.ASSIGN)) {
-			match(Kind.ASSIGN);
-			Expr expr = expr();
-			return new Declaration(name.getTypeToken(), name, expr);
-		} else {
-			return new Declaration(name.getTypeToken(), name, null);
+	// do GuardedBlock [] GuardedBlock* od   |   if GuardedBlock [] GuardedBlock* fi
+	private void guardedStatement(Production production, Kind open, Kind close) {
+		enter(production);
+		match(open);
+		guardedBlock();
+		while (isKind(BOX)) {
+			match(BOX);
+			guardedBlock();
 		}
+		match(close);
+		exit(production);
 	}
 
+	// GuardedBlock := Expr -> Block
+	private void guardedBlock() {
+		enter(GUARDED_BLOCK);
+		expr();
+		match(RARROW);
+		block();
+		exit(GUARDED_BLOCK);
+	}
 
-
-
-
-
-	// method to parse the LValue rule ::=> LValue ::= IDENT (PixelSelectorIn | ε ) (ChannelSelector | ε )
-	private LValue lvalue() throws LexicalException, PLCCompilerException {
-		IToken ident = match(Kind.IDENT);
-		PixelSelector pixelSelector = null;
-		ChannelSelector channelSelector = null;
-		if (isKind(Kind.LSQUARE)) {
-			pixelSelector = pixelSelector();
+	// LValue ::= IDENT (PixelSelector | empty ) (ChannelSelector | empty )
+	private void lValue() {
+		enter(LVALUE);
+		terminal(IDENT);
+		if (isKind(LSQUARE)) {
+			pixelSelector();
 		}
-		if (isKind(Kind.COLON)) {
-			channelSelector = channelSelector();
+		if (isKind(COLON)) {
+			channelSelector();
 		}
-		return new LValue(token, ident, pixelSelector, channelSelector);
+		exit(LVALUE);
 	}
-
-
 }
@@ -0,0 +1,175 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.BinaryExpr;
+import edu.ufl.cise.cop4020fa23.ast.BooleanExprVisitor;
+import edu.ufl.cise.cop4020fa23.ast.BooleanLitExpr;
+import edu.ufl.cise.cop4020fa23.ast.ConditionalExpr;
+import edu.ufl.cise.cop4020fa23.ast.ConstExpr;
+import edu.ufl.cise.cop4020fa23.ast.ExpandedPixelExpr;
+import edu.ufl.cise.cop4020fa23.ast.Expr;
+import edu.ufl.cise.cop4020fa23.ast.IdentExpr;
+import edu.ufl.cise.cop4020fa23.ast.IntExprVisitor;
+import edu.ufl.cise.cop4020fa23.ast.NumLitExpr;
+import edu.ufl.cise.cop4020fa23.ast.PostfixExpr;
+import edu.ufl.cise.cop4020fa23.ast.StringLitExpr;
+import edu.ufl.cise.cop4020fa23.ast.UnaryExpr;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+class PrimitiveVisitorTest {
+
+	// evaluates constant int and boolean expressions, with x bound to arg
+	static class Evaluator implements IntExprVisitor<int[]>, BooleanExprVisitor<int[]> {
+
+		int evalInt(Expr e, int[] arg) throws PLCCompilerException {
+			return e.acceptInt(this, arg);
+		}
+
+		boolean evalBoolean(Expr e, int[] arg) throws PLCCompilerException {
+			return e.acceptBoolean(this, arg);
+		}
+
+		@Override
+		public int visitIntBinaryExpr(BinaryExpr binaryExpr, int[] arg) throws PLCCompilerException {
+			int left = evalInt(binaryExpr.getLeftExpr(), arg);
+			int right = evalInt(binaryExpr.getRightExpr(), arg);
+			return switch (binaryExpr.getOpKind()) {
+			case PLUS -> left + right;
+			case MINUS -> left - right;
+			case TIMES -> left * right;
+			case DIV -> left / right;
+			default -> throw new UnsupportedOperationException();
+			};
+		}
+
+		@Override
+		public int visitIntConditionalExpr(ConditionalExpr conditionalExpr, int[] arg) throws PLCCompilerException {
+			return evalBoolean(conditionalExpr.getGuardExpr(), arg) ? evalInt(conditionalExpr.getTrueExpr(), arg)
+					: evalInt(conditionalExpr.getFalseExpr(), arg);
+		}
+
+		@Override
+		public int visitIntIdentExpr(IdentExpr identExpr, int[] arg) throws PLCCompilerException {
+			return arg[0];
+		}
+
+		@Override
+		public int visitIntNumLitExpr(NumLitExpr numLitExpr, int[] arg) throws PLCCompilerException {
+			return Integer.parseInt(numLitExpr.getText());
+		}
+
+		@Override
+		public int visitIntUnaryExpr(UnaryExpr unaryExpr, int[] arg) throws PLCCompilerException {
+			return -evalInt(unaryExpr.getExpr(), arg);
+		}
+
+		@Override
+		public int visitIntBooleanLitExpr(BooleanLitExpr booleanLitExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int visitIntConstExpr(ConstExpr constExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int visitIntExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int visitIntPostfixExpr(PostfixExpr postfixExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int visitIntStringLitExpr(StringLitExpr stringLitExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		// boolean expressions
+
+		@Override
+		public boolean visitBooleanBinaryExpr(BinaryExpr binaryExpr, int[] arg) throws PLCCompilerException {
+			return switch (binaryExpr.getOpKind()) {
+			case AND -> evalBoolean(binaryExpr.getLeftExpr(), arg) && evalBoolean(binaryExpr.getRightExpr(), arg);
+			case LT -> evalInt(binaryExpr.getLeftExpr(), arg) < evalInt(binaryExpr.getRightExpr(), arg);
+			case EQ -> evalInt(binaryExpr.getLeftExpr(), arg) == evalInt(binaryExpr.getRightExpr(), arg);
+			default -> throw new UnsupportedOperationException();
+			};
+		}
+
+		@Override
+		public boolean visitBooleanBooleanLitExpr(BooleanLitExpr booleanLitExpr, int[] arg) throws PLCCompilerException {
+			return booleanLitExpr.getText().equals("TRUE");
+		}
+
+		@Override
+		public boolean visitBooleanUnaryExpr(UnaryExpr unaryExpr, int[] arg) throws PLCCompilerException {
+			return !evalBoolean(unaryExpr.getExpr(), arg);
+		}
+
+		@Override
+		public boolean visitBooleanConditionalExpr(ConditionalExpr conditionalExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean visitBooleanConstExpr(ConstExpr constExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean visitBooleanExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean visitBooleanIdentExpr(IdentExpr identExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean visitBooleanNumLitExpr(NumLitExpr numLitExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean visitBooleanPostfixExpr(PostfixExpr postfixExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean visitBooleanStringLitExpr(StringLitExpr stringLitExpr, int[] arg) throws PLCCompilerException {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	static Expr parse(String input) throws PLCCompilerException {
+		return (Expr) ComponentFactory.makeExpressionParser(input).parse();
+	}
+
+	@Test
+	void intExpressions() throws PLCCompilerException {
+		Evaluator evaluator = new Evaluator();
+		assertEquals(7, evaluator.evalInt(parse("1 + 2 * 3"), new int[] {0}));
+		assertEquals(-12, evaluator.evalInt(parse("-(x * 4)"), new int[] {3}));
+		assertEquals(10, evaluator.evalInt(parse("? x < 5 -> 10 , 20"), new int[] {3}));
+		assertEquals(20, evaluator.evalInt(parse("? x < 5 && TRUE -> 10 , 20"), new int[] {5}));
+	}
+
+	@Test
+	void booleanExpressions() throws PLCCompilerException {
+		Evaluator evaluator = new Evaluator();
+		assertTrue(evaluator.evalBoolean(parse("x + 1 == 4"), new int[] {3}));
+		assertFalse(evaluator.evalBoolean(parse("!TRUE"), new int[] {0}));
+		assertFalse(evaluator.evalBoolean(parse("TRUE && 2 < x"), new int[] {1}));
+	}
+
+}
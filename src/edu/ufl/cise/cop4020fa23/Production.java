@@ -0,0 +1,43 @@
+/*Copyright 2023 by Beverly A Sanders
+ *
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the
+ * University of Florida during the fall semester 2023 as part of the course project.
+ *
+ * No other use is authorized.
+ *
+ * This code may not be posted on a public web site either during or after the course.
+ */
+package edu.ufl.cise.cop4020fa23;
+
+/**
+ *  enum representing the grammar productions reported to a ParseListener.
+ *  There is one for each kind of AST node the Parser builds.
+ */
+public enum Production {
+	PROGRAM,
+	NAME_DEF,
+	DIMENSION,
+	BLOCK,
+	DECLARATION,
+	ASSIGNMENT_STATEMENT,
+	LVALUE,
+	WRITE_STATEMENT,
+	RETURN_STATEMENT,
+	DO_STATEMENT,
+	IF_STATEMENT,
+	GUARDED_BLOCK,
+	BLOCK_STATEMENT,
+	CONDITIONAL_EXPR,
+	BINARY_EXPR,
+	UNARY_EXPR,
+	POSTFIX_EXPR,
+	PIXEL_SELECTOR,
+	CHANNEL_SELECTOR,
+	EXPANDED_PIXEL_EXPR,
+	IDENT_EXPR,
+	NUM_LIT_EXPR,
+	STRING_LIT_EXPR,
+	BOOLEAN_LIT_EXPR,
+	CONST_EXPR;
+
+}
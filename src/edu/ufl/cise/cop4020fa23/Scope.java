@@ -0,0 +1,216 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.ufl.cise.cop4020fa23.ast.NameDef;
+
+/**
+ * An immutable map from each visible name to its declaration.  with() returns a new Scope and
+ * leaves this one unchanged, sharing all but O(log n) of its nodes (a hash array mapped trie), so
+ * the type checker can afford to keep a snapshot at every position of every Block (see
+ * Block.getScope).  Snapshots stay valid after checking and can be queried from any thread.
+ */
+public final class Scope {
+
+    public static final Scope EMPTY = new Scope(BitmapNode.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    private Scope(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the declaration of name visible here, or null
+     */
+    public NameDef lookup(String name) {
+        return root.get(name, name.hashCode(), 0);
+    }
+
+    /**
+     * @return this scope with nameDef added, hiding any other declaration of its name
+     */
+    public Scope with(NameDef nameDef) {
+        return with(nameDef.getName(), nameDef);
+    }
+
+    /**
+     * Same as with(nameDef), for a caller that has name = nameDef.getName() at hand.
+     */
+    public Scope with(String name, NameDef nameDef) {
+        int hash = name.hashCode();
+        NameDef old = root.get(name, hash, 0);
+        if (old == nameDef) {
+            return this;
+        }
+        return new Scope(root.put(nameDef, name, hash, 0), old == null ? size + 1 : size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the visible declarations whose names start with prefix, sorted by name
+     */
+    public List<NameDef> withPrefix(String prefix) {
+        List<NameDef> result = new ArrayList<>();
+        root.collect(prefix, result);
+        result.sort(Comparator.comparing(NameDef::getName));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        List<String> names = new ArrayList<>();
+        for (NameDef nameDef : withPrefix("")) {
+            names.add(nameDef.getName());
+        }
+        return "Scope " + names;
+    }
+
+
+    private abstract static class Node {
+        abstract NameDef get(String name, int hash, int shift);
+
+        abstract Node put(NameDef nameDef, String name, int hash, int shift);
+
+        abstract void collect(String prefix, List<NameDef> result);
+    }
+
+    // Up to 32 entries, one for each value of the next 5 bits of the hash present in bitmap.  An
+    // entry is a name and its NameDef, or null and a Node holding the names sharing those bits.
+    // Names are kept because NameDef.getName() builds a new String on each call.
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] entries;
+
+        BitmapNode(int bitmap, Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        @Override
+        NameDef get(String name, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object key = entries[index];
+            if (key == null) {
+                return ((Node) entries[index + 1]).get(name, hash, shift + BITS);
+            }
+            return key.equals(name) ? (NameDef) entries[index + 1] : null;
+        }
+
+        @Override
+        Node put(NameDef nameDef, String name, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] newEntries = new Object[entries.length + 2];
+                System.arraycopy(entries, 0, newEntries, 0, index);
+                newEntries[index] = name;
+                newEntries[index + 1] = nameDef;
+                System.arraycopy(entries, index, newEntries, index + 2, entries.length - index);
+                return new BitmapNode(bitmap | bit, newEntries);
+            }
+            Object[] newEntries = entries.clone();
+            String key = (String) entries[index];
+            if (key == null) {
+                newEntries[index + 1] = ((Node) entries[index + 1]).put(nameDef, name, hash, shift + BITS);
+            } else if (key.equals(name)) {
+                newEntries[index + 1] = nameDef;
+            } else {
+                newEntries[index] = null;
+                newEntries[index + 1] = pair(key, (NameDef) entries[index + 1], name, nameDef, hash, shift + BITS);
+            }
+            return new BitmapNode(bitmap, newEntries);
+        }
+
+        // a node holding two different names whose hashes agree below shift
+        private static Node pair(String a, NameDef nameDefA, String b, NameDef nameDefB, int hashB, int shift) {
+            int hashA = a.hashCode();
+            if (hashA == hashB) {
+                return new CollisionNode(hashA, new Object[] {a, nameDefA, b, nameDefB});
+            }
+            int indexA = (hashA >>> shift) & MASK;
+            int indexB = (hashB >>> shift) & MASK;
+            if (indexA == indexB) {
+                return new BitmapNode(1 << indexA, new Object[] {null, pair(a, nameDefA, b, nameDefB, hashB, shift + BITS)});
+            }
+            return new BitmapNode((1 << indexA) | (1 << indexB), indexA < indexB
+                    ? new Object[] {a, nameDefA, b, nameDefB}
+                    : new Object[] {b, nameDefB, a, nameDefA});
+        }
+
+        @Override
+        void collect(String prefix, List<NameDef> result) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (entries[i] == null) {
+                    ((Node) entries[i + 1]).collect(prefix, result);
+                } else if (((String) entries[i]).startsWith(prefix)) {
+                    result.add((NameDef) entries[i + 1]);
+                }
+            }
+        }
+    }
+
+    // names whose hashes are all equal, as name, NameDef pairs
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Object[] entries;
+
+        CollisionNode(int hash, Object[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        @Override
+        NameDef get(String name, int hash, int shift) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (entries[i].equals(name)) {
+                    return (NameDef) entries[i + 1];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(NameDef nameDef, String name, int hash, int shift) {
+            if (hash != this.hash) {
+                // agrees with this hash only up to shift
+                Node split = new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] {null, this});
+                return split.put(nameDef, name, hash, shift);
+            }
+            int i = 0;
+            while (i < entries.length && !entries[i].equals(name)) {
+                i += 2;
+            }
+            Object[] newEntries = Arrays.copyOf(entries, Math.max(entries.length, i + 2));
+            newEntries[i] = name;
+            newEntries[i + 1] = nameDef;
+            return new CollisionNode(hash, newEntries);
+        }
+
+        @Override
+        void collect(String prefix, List<NameDef> result) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (((String) entries[i]).startsWith(prefix)) {
+                    result.add((NameDef) entries[i + 1]);
+                }
+            }
+        }
+    }
+}
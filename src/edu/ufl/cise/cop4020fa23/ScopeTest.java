@@ -0,0 +1,109 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.ast.Block;
+import edu.ufl.cise.cop4020fa23.ast.Declaration;
+import edu.ufl.cise.cop4020fa23.ast.IfStatement;
+import edu.ufl.cise.cop4020fa23.ast.NameDef;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.SyntheticNameDef;
+import edu.ufl.cise.cop4020fa23.ast.Type;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+class ScopeTest {
+
+	@Test
+	void persistence() {
+		List<Scope> versions = new ArrayList<>();
+		List<NameDef> nameDefs = new ArrayList<>();
+		Scope scope = Scope.EMPTY;
+		for (int i = 0; i < 2000; i++) {
+			versions.add(scope);
+			NameDef nameDef = new SyntheticNameDef("n" + i);
+			nameDefs.add(nameDef);
+			scope = scope.with(nameDef);
+		}
+		for (int v = 0; v < versions.size(); v += 97) {
+			Scope version = versions.get(v);
+			assertEquals(v, version.size());
+			for (int i = 0; i < 2000; i++) {
+				if (i < v) {
+					assertSame(nameDefs.get(i), version.lookup("n" + i));
+				} else {
+					assertNull(version.lookup("n" + i));
+				}
+			}
+		}
+		assertEquals(List.of(nameDefs.get(1), nameDefs.get(10), nameDefs.get(11)), versions.get(12).withPrefix("n1"));
+	}
+
+	@Test
+	void shadowingAndCollisions() {
+		// "Aa", "BB" and "AaBB", "BBAa" have equal hash codes
+		NameDef aa = new SyntheticNameDef("Aa");
+		NameDef bb = new SyntheticNameDef("BB");
+		NameDef aabb = new SyntheticNameDef("AaBB");
+		NameDef bbaa = new SyntheticNameDef("BBAa");
+		Scope outer = Scope.EMPTY.with(aa).with(bb).with(aabb).with(bbaa);
+		assertEquals(4, outer.size());
+		NameDef inner = new SyntheticNameDef("BB");
+		Scope scope = outer.with(inner);
+		assertEquals(4, scope.size());
+		assertSame(inner, scope.lookup("BB"));
+		assertSame(bb, outer.lookup("BB"));
+		assertSame(aa, scope.lookup("Aa"));
+		assertSame(bbaa, scope.lookup("BBAa"));
+		assertNull(scope.lookup("C#"));
+		assertEquals(List.of(aa, aabb), scope.withPrefix("Aa"));
+	}
+
+	static final String INPUT = """
+			int p(int a) <:
+			int b = a;
+			if b > 2 -> <: string a = "s"; write a; :> fi;
+			int c = b;
+			^ c;
+			:>
+			""";
+
+	static void checkSnapshots(Program program) {
+		NameDef a = program.getParams().get(0);
+		Block block = program.getBlock();
+		assertEquals(List.of(a), block.getScope(0).withPrefix(""));
+		NameDef b = ((Declaration) block.getElems().get(0)).getNameDef();
+		Block nested = ((IfStatement) block.getElems().get(1)).getGuardedBlocks().get(0).getBlock();
+		assertSame(block.getScope(1), nested.getScope(0));
+		assertSame(a, nested.getScope(0).lookup("a"));
+		assertEquals(Type.STRING, nested.getScope(1).lookup("a").getType());
+		assertSame(b, nested.getScope(2).lookup("b"));
+		assertEquals(List.of("a", "b", "c"), block.getScope(4).withPrefix("").stream().map(NameDef::getName).toList());
+		assertNull(block.getScope(2).lookup("c"));
+	}
+
+	@Test
+	void blockSnapshots() throws PLCCompilerException {
+		AST ast = ComponentFactory.makeParser(INPUT).parse();
+		TypeCheckContext context = new TypeCheckContext(false, true);
+		ast.visit(ComponentFactory.makeTypeChecker(), context);
+		checkSnapshots(context.withScopes((Program) ast));
+		assertNull(((Program) ast).getBlock().getScope(0));
+		checkSnapshots(new IncrementalTypeChecker((Program) ComponentFactory.makeParser(INPUT).parse()).getProgram());
+	}
+
+	@Test
+	void noSnapshotsByDefault() throws PLCCompilerException {
+		AST ast = ComponentFactory.makeParser(INPUT).parse();
+		ast.visit(ComponentFactory.makeTypeChecker(), null);
+		assertNull(((Program) ast).getBlock().getScope(0));
+	}
+
+}
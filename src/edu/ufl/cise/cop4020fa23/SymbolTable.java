@@ -1,38 +1,101 @@
 package edu.ufl.cise.cop4020fa23;
 
 import edu.ufl.cise.cop4020fa23.ast.NameDef;
-import edu.ufl.cise.cop4020fa23.exceptions.TypeCheckException;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Stack;
 
 class SymbolTable {
-    private final HashMap<String, LinkedList<Symbol>> table;
-    private final Stack<Integer> scopeStack;
+
+    // the visible declarations of one name, innermost on top
+    private static final class Chain {
+        private Symbol[] symbols = new Symbol[2];
+        private int size;
+
+        void push(Symbol symbol) {
+            if (size == symbols.length) {
+                symbols = Arrays.copyOf(symbols, size * 2);
+            }
+            symbols[size++] = symbol;
+        }
+
+        void pop() {
+            symbols[--size] = null;
+        }
+
+        Symbol head() {
+            return size == 0 ? null : symbols[size - 1];
+        }
+    }
+
+    private final HashMap<String, Chain> table;
+    private final IntStack scopeStack;
     private int currentScope;
     private int nextScope;
+    // Chains inserted into, in insertion order.  A scope's entries are the ones logged
+    // after the mark recorded when it was entered, and each is at the head of its chain.
+    private Chain[] undoLog;
+    private int undoSize;
+    private final IntStack undoMarks;
+    // serial numbers of the scopes on scopeStack
+    private final BitSet liveScopes;
+    // largest number of names in scope at once
+    private int frameSize;
+    // The visible names as a persistent map, and what it was when each live scope was entered.
+    // null unless snapshots are recorded.
+    private Scope visible;
+    private Scope[] enclosingVisible;
 
     public SymbolTable() {
+        this(false);
+    }
+
+    /**
+     * @param recordScopes if true, keep the visible names in a Scope as well, see snapshot()
+     */
+    public SymbolTable(boolean recordScopes) {
         table = new HashMap<>();
-        scopeStack = new Stack<>();
+        scopeStack = new IntStack();
         currentScope = 0;
         nextScope = 1;
         scopeStack.push(currentScope);
+        undoLog = new Chain[16];
+        undoMarks = new IntStack();
+        undoMarks.push(0);
+        if (recordScopes) {
+            visible = Scope.EMPTY;
+            enclosingVisible = new Scope[16];
+            enclosingVisible[0] = Scope.EMPTY;
+        }
+        liveScopes = new BitSet();
+        liveScopes.set(currentScope);
     }
 
     public void enterScope() {
         currentScope = nextScope++;
         scopeStack.push(currentScope);
+        if (visible != null) {
+            if (undoMarks.size() == enclosingVisible.length) {
+                enclosingVisible = Arrays.copyOf(enclosingVisible, enclosingVisible.length * 2);
+            }
+            enclosingVisible[undoMarks.size()] = visible;
+        }
+        undoMarks.push(undoSize);
+        liveScopes.set(currentScope);
     }
 
     public void leaveScope() {
         if (!scopeStack.isEmpty()) {
-            int oldScope = scopeStack.pop();
-            for (LinkedList<Symbol> list : table.values()) {
-                while (!list.isEmpty() && list.getFirst().getSerialNumber() == oldScope) {
-                    list.removeFirst();
-                }
+            liveScopes.clear(scopeStack.pop());
+            int mark = undoMarks.pop();
+            if (visible != null) {
+                visible = enclosingVisible[undoMarks.size()];
+                enclosingVisible[undoMarks.size()] = null;
+            }
+            while (undoSize > mark) {
+                undoLog[--undoSize].pop();
+                undoLog[undoSize] = null;
             }
             if (!scopeStack.isEmpty()) {
                 currentScope = scopeStack.peek();
@@ -41,41 +104,87 @@ class SymbolTable {
     }
 
 
-    public void insert(NameDef nameDef) throws TypeCheckException {
+    /**
+     * Declares nameDef in the current scope, giving it the next free slot.
+     *
+     * @return false, inserting nothing, if another declaration of the name is in the current scope
+     */
+    public boolean insert(NameDef nameDef) {
 //        System.out.println("Inserting to SymbolTable: " + nameDef.getName() + " in scope " + currentScope);
         String name = nameDef.getName();
-        LinkedList<Symbol> list = table.get(name);
-        if (list == null) {
-            list = new LinkedList<>();
-            table.put(name, list);
+        Chain chain = table.get(name);
+        if (chain == null) {
+            chain = new Chain();
+            table.put(name, chain);
         } else {
-            for (Symbol symbol : list) {
-                if (symbol.getSerialNumber() == currentScope) {
-                    if (symbol.getNameDef() == nameDef) {
-                        // same declaration is being inserted again.
-                        return;
-                    } else {
-                        throw new TypeCheckException("Name already defined in the current scope: " + name);
-                    }
-                }
+            Symbol head = chain.head();
+            // inner scopes have been popped, so a declaration in the current scope is at the head
+            if (head != null && head.getSerialNumber() == currentScope) {
+                // unless the same declaration is being inserted again
+                return head.getNameDef() == nameDef;
             }
         }
-        Symbol symbol = new Symbol(name, currentScope, nameDef);
-        list.addFirst(symbol);
+        // one undo log entry per visible declaration, so its size is the next free frame slot
+        nameDef.setSlot(undoSize);
+        push(chain, nameDef);
+        return true;
+    }
+
+    /**
+     * Makes nameDef, which was given its slot when inserted into another table, visible again
+     * without assigning the slot again, so nameDef is not modified.  Its slot must be the one
+     * insert would give it, and no name may be declared twice in a scope.
+     */
+    void reinsert(NameDef nameDef) {
+        if (nameDef.getSlot() != undoSize) {
+            throw new IllegalStateException("compiler bug: " + nameDef.getName() + " has slot " + nameDef.getSlot() + ", not " + undoSize);
+        }
+        push(table.computeIfAbsent(nameDef.getName(), name -> new Chain()), nameDef);
+    }
+
+    private void push(Chain chain, NameDef nameDef) {
+        String name = nameDef.getName();
+        frameSize = Math.max(frameSize, undoSize + 1);
+        chain.push(new Symbol(name, currentScope, nameDef));
+        if (visible != null) {
+            visible = visible.with(name, nameDef);
+        }
+        if (undoSize == undoLog.length) {
+            undoLog = Arrays.copyOf(undoLog, undoSize * 2);
+        }
+        undoLog[undoSize++] = chain;
+    }
+
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    // A frame slot for a name bound outside the table for a short time, like the implicit x and y
+    // of an assignment.  index numbers the names bound at once.
+    int temporarySlot(int index) {
+        int slot = undoSize + index;
+        frameSize = Math.max(frameSize, slot + 1);
+        return slot;
     }
 
 
+    /**
+     * @return the names visible now, or null if not recording scopes.  Unlike the table, the
+     *   result is not changed by later inserts or by leaving the scope.
+     */
+    public Scope snapshot() {
+        return visible;
+    }
+
+
+    // Chains are newest first and leaveScope removes a scope's entries, so the head is the
+    // innermost visible declaration.
     public NameDef lookup(String name) {
-        LinkedList<Symbol> list = table.get(name);
-        if (list != null) {
-            for (int i = scopeStack.size() - 1; i >= 0; i--) {
-                int scope = scopeStack.get(i);
-                for (Symbol symbol : list) {
-                    if (symbol.getSerialNumber() == scope) {
-                        return symbol.getNameDef();
-                    }
-                }
-            }
+        Chain chain = table.get(name);
+        Symbol symbol = chain == null ? null : chain.head();
+        if (symbol != null && liveScopes.get(symbol.getSerialNumber())) {
+            return symbol.getNameDef();
         }
         return null;
     }
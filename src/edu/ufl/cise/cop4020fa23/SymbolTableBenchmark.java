@@ -0,0 +1,126 @@
+package edu.ufl.cise.cop4020fa23;
+
+import edu.ufl.cise.cop4020fa23.ast.AST;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Scaling benchmark for type checking, run with
+ *   java edu.ufl.cise.cop4020fa23.SymbolTableBenchmark [maxNames]
+ *
+ * For each size n it generates three programs and reports the time to type check the parsed AST.
+ *   wide:  n variables declared in the program block, followed by n assignments to them:
+ *          n inserts and 2n lookups in one scope, which is left once with all n names.
+ *   deep:  n variables, one declared in each of n nested blocks, each block also assigning
+ *          to the variable of the outermost block (a lookup through the whole scope stack).
+ *   pixel: n assignments to pixels of an image, each with implicitly declared x and y, which
+ *          are bound in the TypeCheckContext rather than in a scope of their own.
+ * Time per name should stay flat as n grows.  The bytes columns are the heap allocated by the
+ * type checker per name, measured with com.sun.management.ThreadMXBean where available.
+ */
+public class SymbolTableBenchmark {
+
+    static final int REPEAT = 5;
+
+    static String wideProgram(int n) {
+        StringBuilder sb = new StringBuilder("void wide() <:\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("int v").append(i).append(" = ").append(i + 1).append(";\n");
+        }
+        for (int i = 0; i < n; i++) {
+            sb.append("v").append(i).append(" = v").append(i).append(" + 1;\n");
+        }
+        return sb.append(":>\n").toString();
+    }
+
+    static String pixelProgram(int n) {
+        StringBuilder sb = new StringBuilder("image pixels(image im, int k) <:\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("im[x,y] = im[y,x] + [x, y, k];\n");
+        }
+        return sb.append("^im;\n:>\n").toString();
+    }
+
+    static String deepProgram(int n) {
+        StringBuilder sb = new StringBuilder("void deep() <:\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("int v").append(i).append(" = 1;\nv0 = v").append(i).append(";\n<:\n");
+        }
+        for (int i = 0; i < n; i++) {
+            sb.append(":>;\n");
+        }
+        return sb.append(":>\n").toString();
+    }
+
+    static final com.sun.management.ThreadMXBean threads = threadMXBean();
+
+    static com.sun.management.ThreadMXBean threadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    static long allocatedBytes() {
+        return threads == null ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // best of REPEAT runs: {nanoseconds, bytes allocated}
+    static long[] timeTypeCheck(String input) throws PLCCompilerException {
+        long best = Long.MAX_VALUE;
+        long bytes = Long.MAX_VALUE;
+        for (int r = 0; r < REPEAT; r++) {
+            AST ast = ComponentFactory.makeParser(input).parse();
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            ast.visit(ComponentFactory.makeTypeChecker(), null);
+            best = Math.min(best, System.nanoTime() - start);
+            bytes = Math.min(bytes, allocatedBytes() - allocated);
+        }
+        return new long[] {best, bytes};
+    }
+
+    static void run(int maxNames) throws PLCCompilerException {
+        List<Map.Entry<String, IntFunction<String>>> shapes = List.of(
+                Map.entry("wide", SymbolTableBenchmark::wideProgram),
+                Map.entry("deep", SymbolTableBenchmark::deepProgram),
+                Map.entry("pixel", SymbolTableBenchmark::pixelProgram));
+        // warm up
+        for (Map.Entry<String, IntFunction<String>> shape : shapes) {
+            timeTypeCheck(shape.getValue().apply(1000));
+        }
+        System.out.printf("%6s %10s %10s %10s %10s%n", "shape", "names", "ms", "ns/name", "bytes/name");
+        for (Map.Entry<String, IntFunction<String>> shape : shapes) {
+            for (int n = 1000; n <= maxNames; n *= 10) {
+                long[] result = timeTypeCheck(shape.getValue().apply(n));
+                System.out.printf("%6s %10d %10.2f %10d %10d%n",
+                        shape.getKey(), n, result[0] / 1e6, result[0] / n, result[1] / n);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxNames = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Throwable[] failure = new Throwable[1];
+        // deep nesting recurses once per block in both the parser and the type checker
+        Thread thread = new Thread(null, () -> {
+            try {
+                run(maxNames);
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        }, "benchmark", 1L << 30);
+        thread.start();
+        thread.join();
+        if (failure[0] != null) {
+            throw new RuntimeException(failure[0]);
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+package edu.ufl.cise.cop4020fa23;
+
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.TypeCheckException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * ParseListener that builds the AST, the listener of every Parser made without one.  After
+ * Parser.parse() returns, getAST() is the AST it returned.
+ *
+ * With an ExprInterner, the expression children of each node are shared through it, except the
+ * one errors about the node are located at.  With a TypeCheckVisitor,
+ * every node is type checked as soon as it is built, and getAST() is the same decorated AST that
+ * visiting the parsed AST with a TypeCheckVisitor would give.
+ */
+public class TreeBuilder implements ParseListener {
+
+    // a production that has been entered but not yet exited
+    private static final class Frame {
+        final Production production;
+        final IToken token;
+        final List<AST> children = new ArrayList<>(3);
+        List<IToken> terminals;
+        // the name an LValue refers to, when checking
+        NameDef nameDef;
+
+        Frame(Production production, IToken token) {
+            this.production = production;
+            this.token = token;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T extends AST> T child(int i) {
+            return (T) children.get(i);
+        }
+
+        // the child with the given class, or null
+        <T extends AST> T child(Class<T> nodeClass) {
+            for (AST child : children) {
+                if (nodeClass.isInstance(child)) {
+                    return nodeClass.cast(child);
+                }
+            }
+            return null;
+        }
+
+        <T extends AST> List<T> children(Class<T> nodeClass) {
+            List<T> list = new ArrayList<>(children.size());
+            for (AST child : children) {
+                if (nodeClass.isInstance(child)) {
+                    list.add(nodeClass.cast(child));
+                }
+            }
+            return list;
+        }
+
+        IToken terminal(int i) {
+            return terminals.get(i);
+        }
+    }
+
+    private final Frame root = new Frame(null, null);
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final ExprInterner interner; // null unless hash-consing was requested
+    private final TypeCheckVisitor checker; // null unless type checking is fused with parsing
+    private final TypeCheckContext context; // state of the fused type check, null if not fused
+
+    public TreeBuilder() {
+        this(null, null);
+    }
+
+    /**
+     * @param interner shares the expression nodes, or null
+     * @param checker checks each node as it is built, or null
+     */
+    public TreeBuilder(ExprInterner interner, TypeCheckVisitor checker) {
+        this.interner = interner;
+        this.checker = checker;
+        this.context = checker == null ? null : new TypeCheckContext();
+    }
+
+    public AST getAST() {
+        return root.children.isEmpty() ? null : root.children.get(0);
+    }
+
+    private Frame current() {
+        return frames.isEmpty() ? root : frames.peek();
+    }
+
+    @Override
+    public void enter(Production production, IToken token) throws PLCCompilerException {
+        Frame parent = current();
+        Frame frame = new Frame(production, token);
+        if (production == Production.BINARY_EXPR || production == Production.POSTFIX_EXPR) {
+            // the first operand has already been built as a child of the enclosing production
+            List<AST> siblings = parent.children;
+            frame.children.add(siblings.remove(siblings.size() - 1));
+        }
+        if (checker != null) {
+            switch (production) {
+                case BLOCK -> {
+                    // a guard is checked before the names of its block are in scope
+                    if (parent.production == Production.GUARDED_BLOCK) {
+                        report(checker.checkGuard(parent.child(0)));
+                    }
+                    checker.enterScope(context);
+                }
+                case DO_STATEMENT -> checker.enterScope(context);
+                case PIXEL_SELECTOR -> {
+                    // unknown names in the pixel selector of an LValue are implicitly declared
+                    if (parent.production == Production.LVALUE) {
+                        context.inLValueContext = true;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        frames.push(frame);
+    }
+
+    @Override
+    public void terminal(IToken token) throws PLCCompilerException {
+        Frame frame = current();
+        if (frame.terminals == null) {
+            frame.terminals = new ArrayList<>(2);
+        }
+        frame.terminals.add(token);
+        if (checker != null) {
+            if (frame.production == Production.PROGRAM && frame.terminals.size() == 2) {
+                // the type and the name, before the parameters
+                checker.enterProgram(frame.terminal(0), context);
+            } else if (frame.production == Production.LVALUE) {
+                frame.nameDef = context.lookup(token.text());
+                if (frame.nameDef == null) {
+                    throw TypeCheckVisitor.undefinedLValueName(token.text(), token.sourceLocation());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void exit(Production production, IToken token) throws PLCCompilerException {
+        Frame frame = frames.pop();
+        if (interner != null) {
+            share(frame);
+        }
+        AST node = build(frame, token);
+        if (checker != null) {
+            check(frame, node);
+        }
+        current().children.add(node);
+    }
+
+    // token is the token following the production, which is the firstToken of most nodes
+    private AST build(Frame f, IToken token) {
+        return switch (f.production) {
+            case PROGRAM -> new Program(token, f.terminal(0), f.terminal(1), f.children(NameDef.class), f.child(Block.class));
+            case NAME_DEF -> new NameDef(token, f.terminal(0), f.child(Dimension.class), f.terminal(1));
+            case DIMENSION -> new Dimension(token, f.child(0), f.child(1));
+            case BLOCK -> new Block(f.token, f.children(Block.BlockElem.class));
+            case DECLARATION -> {
+                NameDef nameDef = f.child(0);
+                Expr initializer = f.children.size() > 1 ? f.child(1) : null;
+                yield new Declaration(nameDef.getTypeToken(), nameDef, initializer);
+            }
+            case ASSIGNMENT_STATEMENT -> new AssignmentStatement(token, f.child(0), f.child(1));
+            case LVALUE -> new LValue(token, f.terminal(0), f.child(PixelSelector.class), f.child(ChannelSelector.class));
+            case WRITE_STATEMENT -> new WriteStatement(token, f.child(0));
+            case RETURN_STATEMENT -> new ReturnStatement(token, f.child(0));
+            case DO_STATEMENT -> new DoStatement(token, f.children(GuardedBlock.class));
+            case IF_STATEMENT -> new IfStatement(token, f.children(GuardedBlock.class));
+            case GUARDED_BLOCK -> new GuardedBlock(token, f.child(0), f.child(1));
+            case BLOCK_STATEMENT -> new StatementBlock(token, f.child(0));
+            case CONDITIONAL_EXPR -> new ConditionalExpr(token, f.child(0), f.child(1), f.child(2));
+            case BINARY_EXPR -> new BinaryExpr(token, f.child(0), f.token, f.child(1));
+            case UNARY_EXPR -> new UnaryExpr(token, f.token, f.child(0));
+            case POSTFIX_EXPR -> new PostfixExpr(token, f.child(0), f.child(PixelSelector.class), f.child(ChannelSelector.class));
+            case PIXEL_SELECTOR -> new PixelSelector(token, f.child(0), f.child(1));
+            case CHANNEL_SELECTOR -> new ChannelSelector(token, f.terminal(0));
+            case EXPANDED_PIXEL_EXPR -> new ExpandedPixelExpr(token, f.child(0), f.child(1), f.child(2));
+            case IDENT_EXPR -> new IdentExpr(f.token);
+            case NUM_LIT_EXPR -> new NumLitExpr(f.token);
+            case STRING_LIT_EXPR -> new StringLitExpr(f.token);
+            case BOOLEAN_LIT_EXPR -> new BooleanLitExpr(f.token);
+            case CONST_EXPR -> new ConstExpr(f.token);
+        };
+    }
+
+    /*
+     * Interns the expression children of f but the one TypeCheckVisitor.locate follows from the
+     * node of f, which keeps the tokens errors about the node are reported at.  That child is
+     * interned with the node, if the node is interned in turn.
+     */
+    private void share(Frame f) {
+        int located = switch (f.production) {
+            case UNARY_EXPR, CONDITIONAL_EXPR, POSTFIX_EXPR, EXPANDED_PIXEL_EXPR, PIXEL_SELECTOR, DIMENSION,
+                    WRITE_STATEMENT, RETURN_STATEMENT, GUARDED_BLOCK -> 0;
+            default -> -1;
+        };
+        List<AST> children = f.children;
+        for (int i = 0; i < children.size(); i++) {
+            if (i != located && children.get(i) instanceof Expr expr) {
+                children.set(i, interner.intern(expr));
+            }
+        }
+    }
+
+    // the fused type check of node, just built for the production of f
+    private void check(Frame f, AST node) throws PLCCompilerException {
+        report(switch (f.production) {
+            case PROGRAM -> {
+                checker.leaveProgram((Program) node, context);
+                yield null;
+            }
+            // a parameter; a declared name is checked with its declaration
+            case NAME_DEF -> current().production == Production.PROGRAM ? checker.checkNameDef((NameDef) node, context) : null;
+            case DIMENSION -> checker.checkDimension((Dimension) node);
+            case BLOCK, DO_STATEMENT -> {
+                checker.leaveScope(context);
+                yield null;
+            }
+            case DECLARATION -> checker.checkDeclaration((Declaration) node, context);
+            case ASSIGNMENT_STATEMENT -> {
+                checker.leaveAssignment(context);
+                yield checker.checkAssignmentStatement((AssignmentStatement) node);
+            }
+            case LVALUE -> {
+                LValue lValue = (LValue) node;
+                lValue.setNameDef(f.nameDef);
+                yield checker.checkLValue(lValue);
+            }
+            case WRITE_STATEMENT -> checker.checkWriteStatement((WriteStatement) node);
+            case RETURN_STATEMENT -> checker.checkReturnStatement((ReturnStatement) node, context);
+            case IF_STATEMENT, GUARDED_BLOCK, BLOCK_STATEMENT -> null;
+            case PIXEL_SELECTOR -> {
+                if (current().production == Production.LVALUE) {
+                    context.inLValueContext = false;
+                }
+                yield checker.checkPixelSelector((PixelSelector) node);
+            }
+            case CHANNEL_SELECTOR -> checker.checkChannelSelector((ChannelSelector) node);
+            default -> checker.checkExpr((Expr) node, context);
+        });
+    }
+
+    // a listener reports an error by throwing it, which ends the parse
+    private static void report(TypeCheckException error) throws TypeCheckException {
+        if (error != null) {
+            throw error;
+        }
+    }
+
+}
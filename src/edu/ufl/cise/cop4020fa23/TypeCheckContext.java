@@ -0,0 +1,139 @@
+package edu.ufl.cise.cop4020fa23;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.ufl.cise.cop4020fa23.ast.Block;
+import edu.ufl.cise.cop4020fa23.ast.NameDef;
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.ast.SyntheticNameDef;
+import edu.ufl.cise.cop4020fa23.ast.Type;
+import edu.ufl.cise.cop4020fa23.exceptions.TypeCheckException;
+
+/**
+ * The mutable state of one type checking run.  TypeCheckVisitor itself holds no state, so a
+ * single instance can check any number of programs concurrently as long as each run has its
+ * own context, passed as the arg of visit.  visitProgram creates one when arg is null.
+ */
+public final class TypeCheckContext {
+
+    final SymbolTable symbolTable;
+
+    // return types of the enclosing programs
+    final Deque<Type> returnTypeStack = new ArrayDeque<>();
+
+    // true while checking the pixel selector of an LValue, where unknown names are implicitly declared
+    boolean inLValueContext;
+
+    // Names implicitly declared by the pixel selector of the current assignment.  They live only
+    // until the end of the assignment, so they are kept here instead of in a scope of their own.
+    private NameDef[] implicitNames = new NameDef[2];
+    private int implicitCount;
+    // the usual implicit names, reused by every assignment of the run
+    private final SyntheticNameDef x = new SyntheticNameDef("x");
+    private final SyntheticNameDef y = new SyntheticNameDef("y");
+
+    // null unless errors are collected instead of thrown
+    private final List<TypeCheckException> diagnostics;
+    // the snapshots of each checked Block, null unless scopes are recorded
+    private final Map<Block, Scope[]> scopes;
+
+    public TypeCheckContext() {
+        this(false);
+    }
+
+    /**
+     * @param collectDiagnostics if true, type errors are recorded and checking carries on, see
+     *   getDiagnostics().  Otherwise the first error is thrown.
+     */
+    public TypeCheckContext(boolean collectDiagnostics) {
+        this(collectDiagnostics, false);
+    }
+
+    /**
+     * @param recordScopes if true, a snapshot of the names visible at each position of each checked
+     *   Block is kept, see withScopes.  Costs a few hundred bytes per declaration.
+     */
+    public TypeCheckContext(boolean collectDiagnostics, boolean recordScopes) {
+        diagnostics = collectDiagnostics ? new ArrayList<>() : null;
+        symbolTable = new SymbolTable(recordScopes);
+        scopes = recordScopes ? new IdentityHashMap<>() : null;
+    }
+
+    public boolean isCollectingDiagnostics() {
+        return diagnostics != null;
+    }
+
+    /**
+     * @return the errors found so far, in the order they were found, each with the location of
+     *   the offending construct.  Errors caused only by an earlier error are not included.
+     */
+    public List<TypeCheckException> getDiagnostics() {
+        return diagnostics == null ? List.of() : diagnostics;
+    }
+
+    public boolean isRecordingScopes() {
+        return scopes != null;
+    }
+
+    void recordScopes(Block block, Scope[] blockScopes) {
+        scopes.put(block, blockScopes);
+    }
+
+    /**
+     * @return a copy of program, checked with this context, whose blocks have the snapshots
+     *   recorded for them, see Block.getScope.  The blocks and the statements containing them are
+     *   new nodes, all other nodes are shared with program.
+     */
+    public Program withScopes(Program program) {
+        if (scopes == null) {
+            throw new IllegalStateException("scopes are not recorded");
+        }
+        Program result = new Program(program.firstToken(), program.getTypeToken(), program.getNameToken(),
+                program.getParams(), withScopes(program.getBlock()));
+        result.setType(program.getType());
+        result.setFrameSize(program.getFrameSize());
+        return result;
+    }
+
+    private Block withScopes(Block block) {
+        List<Block.BlockElem> elems = new ArrayList<>(block.getElems().size());
+        for (Block.BlockElem elem : block.getElems()) {
+            elems.add(IncrementalTypeChecker.withBlocks(elem, this::withScopes));
+        }
+        return new Block(block.firstToken(), elems, scopes.get(block));
+    }
+
+    void report(TypeCheckException e) {
+        diagnostics.add(e);
+    }
+
+    NameDef lookup(String name) {
+        for (int i = 0; i < implicitCount; i++) {
+            if (implicitNames[i].getName().equals(name)) {
+                return implicitNames[i];
+            }
+        }
+        return symbolTable.lookup(name);
+    }
+
+    NameDef bindImplicitName(String name) {
+        SyntheticNameDef nameDef = name.equals("x") ? x : name.equals("y") ? y : new SyntheticNameDef(name);
+        nameDef.setSlot(symbolTable.temporarySlot(implicitCount));
+        if (implicitCount == implicitNames.length) {
+            implicitNames = Arrays.copyOf(implicitNames, implicitCount * 2);
+        }
+        implicitNames[implicitCount++] = nameDef;
+        return nameDef;
+    }
+
+    void unbindImplicitNames() {
+        Arrays.fill(implicitNames, 0, implicitCount, null);
+        implicitCount = 0;
+    }
+}
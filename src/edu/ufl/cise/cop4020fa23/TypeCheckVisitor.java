@@ -1,29 +1,165 @@
 package edu.ufl.cise.cop4020fa23;
 
-import java.util.Stack;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Deque;
+import java.util.List;
 
 import edu.ufl.cise.cop4020fa23.ast.*;
 import edu.ufl.cise.cop4020fa23.exceptions.*;
 import edu.ufl.cise.cop4020fa23.SymbolTable;
 
+/*
+ * Each visit method visits the children of a node and then calls the matching check method,
+ * which applies the typing rule for that node alone, using the types already stored in its
+ * children.  The check methods and the scope helpers are also called directly by the Parser
+ * when it runs in fused mode (ComponentFactory.makeTypeCheckingParser), so both paths must
+ * leave the symbol table in the same state at every point.
+ *
+ * A check method returns the error it finds, or null, rather than throwing it.  The error is
+ * only thrown, by fail, when the context does not collect diagnostics, so collecting them
+ * (ComponentFactory.collectDiagnostics, tryTypeCheck) throws nothing.
+ *
+ * The visitor has no fields: all the state of a run is in the TypeCheckContext passed as arg,
+ * so one instance may be shared between threads.
+ */
 public class TypeCheckVisitor implements ASTVisitor {
 
-    private SymbolTable symbolTable;
-    private Map<NumLitExpr, Type> numLitExprMap = new HashMap<>();
-
 //    helper strings for context
-    private static final String IN_LVALUE_CONTEXT = "IN_LVALUE_CONTEXT";
     public static final String IN_PIXEL_EXPRESSION_CONTEXT = "IN_PIXEL_EXPRESSION_CONTEXT";
 
-    Type currentReturnType = null;
+    public TypeCheckVisitor() {
+    }
+
+    private static TypeCheckContext context(Object arg) {
+        if (arg instanceof TypeCheckContext context) {
+            return context;
+        }
+        throw new IllegalArgumentException("type checking starts at a Program, or needs a TypeCheckContext as arg");
+    }
+
+
+    /* ======================= diagnostics ======================= */
+
+    // Called with an error found while checking node, which is given the location of node if it
+    // has none.  Unless the context collects diagnostics the error is rethrown.  Otherwise it is
+    // recorded, unless it was caused by an operand that had already failed, and node gets the
+    // error type so that its parents do not report again.
+    private Type fail(AST node, TypeCheckException e, Object arg) throws TypeCheckException {
+        TypeCheckContext context = context(arg);
+        TypeCheckException located = e.getLocation() != null ? e : new TypeCheckException(locate(node), e.getMessage());
+        if (!context.isCollectingDiagnostics()) {
+            throw located;
+        }
+        if (!hasFailedOperand(node)) {
+            context.report(located);
+        }
+        if (node instanceof Expr expr) {
+            expr.setType(Type.ERROR);
+        } else if (node instanceof LValue lValue) {
+            lValue.setType(Type.ERROR);
+        }
+        return Type.ERROR;
+    }
+
+    private static boolean failed(Expr expr) {
+        return expr != null && expr.getType() == Type.ERROR;
+    }
+
+    private static boolean hasFailedOperand(AST node) {
+        if (node instanceof BinaryExpr e) {
+            return failed(e.getLeftExpr()) || failed(e.getRightExpr());
+        } else if (node instanceof UnaryExpr e) {
+            return failed(e.getExpr());
+        } else if (node instanceof ConditionalExpr e) {
+            return failed(e.getGuardExpr()) || failed(e.getTrueExpr()) || failed(e.getFalseExpr());
+        } else if (node instanceof PostfixExpr e) {
+            return failed(e.primary()) || (e.pixel() != null && hasFailedOperand(e.pixel()));
+        } else if (node instanceof ExpandedPixelExpr e) {
+            return failed(e.getRed()) || failed(e.getGreen()) || failed(e.getBlue());
+        } else if (node instanceof PixelSelector e) {
+            return failed(e.xExpr()) || failed(e.yExpr());
+        } else if (node instanceof Dimension e) {
+            return failed(e.getWidth()) || failed(e.getHeight());
+        } else if (node instanceof Declaration e) {
+            return failed(e.getInitializer());
+        } else if (node instanceof AssignmentStatement e) {
+            return e.getlValue().getType() == Type.ERROR || failed(e.getE());
+        } else if (node instanceof WriteStatement e) {
+            return failed(e.getExpr());
+        } else if (node instanceof ReturnStatement e) {
+            return failed(e.getE());
+        } else if (node instanceof GuardedBlock e) {
+            return failed(e.getGuard());
+        }
+        return false;
+    }
+
+    /**
+     * @return the location of the first token that belongs to node, which is where errors about
+     *   node are reported.  Most nodes are built with the token after them as firstToken.
+     */
+    public static SourceLocation locate(AST node) {
+        if (node instanceof BinaryExpr e) {
+            return e.getOp().sourceLocation();
+        } else if (node instanceof UnaryExpr e) {
+            return locate(e.getExpr());
+        } else if (node instanceof ConditionalExpr e) {
+            return locate(e.getGuardExpr());
+        } else if (node instanceof PostfixExpr e) {
+            return locate(e.primary());
+        } else if (node instanceof ExpandedPixelExpr e) {
+            return locate(e.getRed());
+        } else if (node instanceof PixelSelector e) {
+            return locate(e.xExpr());
+        } else if (node instanceof Dimension e) {
+            return locate(e.getWidth());
+        } else if (node instanceof NameDef e) {
+            return e instanceof SyntheticNameDef ? null : e.getIdentToken().sourceLocation();
+        } else if (node instanceof Declaration e) {
+            return locate(e.getNameDef());
+        } else if (node instanceof LValue e) {
+            return e.getNameToken().sourceLocation();
+        } else if (node instanceof AssignmentStatement e) {
+            return locate(e.getlValue());
+        } else if (node instanceof WriteStatement e) {
+            return locate(e.getExpr());
+        } else if (node instanceof ReturnStatement e) {
+            return locate(e.getE());
+        } else if (node instanceof GuardedBlock e) {
+            return locate(e.getGuard());
+        }
+        return node.firstToken().sourceLocation();
+    }
+
+
+    /* ======================= scope helpers ======================= */
+
+    void enterScope(TypeCheckContext context) {
+        context.symbolTable.enterScope();
+    }
+
+    void leaveScope(TypeCheckContext context) {
+        context.symbolTable.leaveScope();
+    }
+
+    // called after the LValue and expression of an assignment are checked
+    void leaveAssignment(TypeCheckContext context) {
+        context.unbindImplicitNames();
+    }
 
-    // creatinf stack to store return types of functions/programs
-    private Stack<Type> returnTypeStack = new Stack<>();
+    // called before the parameters of a program are checked
+    void enterProgram(IToken typeToken, TypeCheckContext context) {
+        Type returnType = Type.valueOf(typeToken.text().toUpperCase());
+        context.returnTypeStack.push(returnType);
+        context.symbolTable.enterScope();
+    }
 
-    public TypeCheckVisitor() throws TypeCheckException {
-        this.symbolTable = new SymbolTable();
+    // called after the block of a program has been checked
+    Type leaveProgram(Program program, TypeCheckContext context) {
+        context.symbolTable.leaveScope();
+        context.returnTypeStack.pop();
+        program.setFrameSize(context.symbolTable.getFrameSize());
+        program.setType(Type.kind2type(program.getTypeToken().kind()));
+        return program.getType();
     }
 
 
@@ -32,83 +168,95 @@ public class TypeCheckVisitor implements ASTVisitor {
 
     @Override
     public Object visitProgram(Program program, Object arg) throws TypeCheckException, PLCCompilerException {
-        // Convert typeToken to Type
-        String returnTypeString = program.getTypeToken().text();
-        Type returnType = Type.valueOf(returnTypeString.toUpperCase());
-        returnTypeStack.push(returnType);
-        program.setType(Type.kind2type(program.getTypeToken().kind()));
-        symbolTable.enterScope();
+        TypeCheckContext context = arg instanceof TypeCheckContext c ? c : new TypeCheckContext();
+        enterProgram(program.getTypeToken(), context);
         for (NameDef param : program.getParams()) {
-            param.visit(this, arg);
+            param.visit(this, context);
         }
-        program.getBlock().visit(this, arg);
-        symbolTable.leaveScope();
-        returnTypeStack.pop();
-        return program.getType();
+        program.getBlock().visit(this, context);
+        return leaveProgram(program, context);
     }
 
 
     @Override
     public Object visitBlock(Block block, Object arg) throws TypeCheckException, PLCCompilerException {
-//        System.out.println("Entering scope");
-        symbolTable.enterScope();
-        for (Block.BlockElem elem : block.getElems()) {
-            elem.visit(this, arg);
+        TypeCheckContext context = context(arg);
+        List<Block.BlockElem> elems = block.getElems();
+        Scope[] scopes = context.isRecordingScopes() ? new Scope[elems.size() + 1] : null;
+        enterScope(context);
+        for (int i = 0; i < elems.size(); i++) {
+            if (scopes != null) {
+                scopes[i] = context.symbolTable.snapshot();
+            }
+            elems.get(i).visit(this, context);
         }
-//        System.out.println("Leaving scope");
-        symbolTable.leaveScope();
+        if (scopes != null) {
+            scopes[elems.size()] = context.symbolTable.snapshot();
+            context.recordScopes(block, scopes);
+        }
+        leaveScope(context);
         return null;
     }
 
 
     @Override
     public Object visitNameDef(NameDef nameDef, Object arg) throws TypeCheckException {
+        TypeCheckException error = checkNameDef(nameDef, context(arg));
+        if (error != null) {
+            fail(nameDef, error, arg);
+        }
+        return nameDef;
+    }
+
+    TypeCheckException checkNameDef(NameDef nameDef, TypeCheckContext context) {
         Type nameDefType = nameDef.getType();
         if (nameDef.getDimension() != null) {
             if (nameDefType != Type.IMAGE) {
-                throw new TypeCheckException("not valid type for NameDef with Dimension: " + nameDefType + ". Expected IMAGE.");
+                return new TypeCheckException(locate(nameDef), "not valid type for NameDef with Dimension: " + nameDefType + ". Expected IMAGE.");
             }
         } else {
             if (nameDefType != Type.INT && nameDefType != Type.BOOLEAN &&
                     nameDefType != Type.STRING && nameDefType != Type.PIXEL &&
                     nameDefType != Type.IMAGE) {
-                throw new TypeCheckException("not valid type for NameDef: " + nameDefType);
+                return new TypeCheckException(locate(nameDef), "not valid type for NameDef: " + nameDefType);
             }
         }
-        symbolTable.insert(nameDef);
-        return nameDef;
+        if (!context.symbolTable.insert(nameDef)) {
+            return new TypeCheckException(locate(nameDef), "Name already defined in the current scope: " + nameDef.getName());
+        }
+        return null;
     }
 
 
     @Override
     public Object visitDeclaration(Declaration declaration, Object arg) throws PLCCompilerException, TypeCheckException {
         Expr initializer = declaration.getInitializer();
-        Type initType = null;
         if (initializer != null) {
-            initType = (Type) initializer.visit(this, arg);
+            initializer.visit(this, arg);
         }
-
-        NameDef nameDef = declaration.getNameDef();
-        nameDef.visit(this, arg);
-        Type declaredType = nameDef.getType();
-
-        Dimension dimension = nameDef.getDimension();
+        Dimension dimension = declaration.getNameDef().getDimension();
         if (dimension != null) {
             dimension.visit(this, arg);
         }
+        TypeCheckException error = checkDeclaration(declaration, context(arg));
+        return error == null ? declaration.getNameDef().getType() : fail(declaration, error, arg);
+    }
+
+    TypeCheckException checkDeclaration(Declaration declaration, TypeCheckContext context) {
+        Expr initializer = declaration.getInitializer();
+        NameDef nameDef = declaration.getNameDef();
+        TypeCheckException error = checkNameDef(nameDef, context);
+        if (error != null) {
+            return error;
+        }
+        Type declaredType = nameDef.getType();
         if (initializer != null) {
-            if (initializer instanceof PostfixExpr) {
-                PostfixExpr postfixExpr = (PostfixExpr) initializer;
-                if (postfixExpr.channel() != null) {
-                    initType = Type.INT;
-                }
-            }
+            Type initType = initializer.getType();
             if (initType != declaredType && !(initType == Type.STRING && declaredType == Type.IMAGE)) {
-                throw new TypeCheckException("type mismatch in declaration: expected " + declaredType + ", found " + initType);
+                return new TypeCheckException(locate(declaration), "type mismatch in declaration: expected " + declaredType + ", found " + initType);
             }
         }
-        symbolTable.insert(nameDef);
-        return declaredType;
+        return null;
     }
 
 
@@ -116,128 +264,92 @@ public class TypeCheckVisitor implements ASTVisitor {
     @Override
     public Object visitConditionalExpr(ConditionalExpr conditionalExpr, Object arg) throws TypeCheckException, PLCCompilerException {
         Type guardType = (Type) conditionalExpr.getGuardExpr().visit(this, arg);
-        if (guardType != Type.BOOLEAN) {
-            throw new TypeCheckException("guard expression in a conditional must evaluate to a BOOLEAN type");
+        if (guardType != Type.BOOLEAN && !context(arg).isCollectingDiagnostics()) {
+            throw new TypeCheckException(locate(conditionalExpr), "guard expression in a conditional must evaluate to a BOOLEAN type");
         }
-        Type trueType = (Type) conditionalExpr.getTrueExpr().visit(this, arg);
-        Type falseType = (Type) conditionalExpr.getFalseExpr().visit(this, arg);
+        conditionalExpr.getTrueExpr().visit(this, arg);
+        conditionalExpr.getFalseExpr().visit(this, arg);
+        TypeCheckException error = checkConditionalExpr(conditionalExpr);
+        return error == null ? conditionalExpr.getType() : fail(conditionalExpr, error, arg);
+    }
+
+    TypeCheckException checkConditionalExpr(ConditionalExpr conditionalExpr) {
+        if (conditionalExpr.getGuardExpr().getType() != Type.BOOLEAN) {
+            return new TypeCheckException(locate(conditionalExpr), "guard expression in a conditional must evaluate to a BOOLEAN type");
+        }
+        Type trueType = conditionalExpr.getTrueExpr().getType();
+        Type falseType = conditionalExpr.getFalseExpr().getType();
         if (trueType != falseType) {
-            throw new TypeCheckException("the types of the true and false expressions in a conditional must be the same");
+            return new TypeCheckException(locate(conditionalExpr), "the types of the true and false expressions in a conditional must be the same");
         }
         conditionalExpr.setType(trueType);
-        return trueType;
+        return null;
     }
 
     @Override
     public Object visitBinaryExpr(BinaryExpr binaryExpr, Object arg) throws TypeCheckException, PLCCompilerException {
-        Expr left = binaryExpr.getLeftExpr();
-        Expr right = binaryExpr.getRightExpr();
-
-        Type leftType = (Type) left.visit(this, arg);
-        Type rightType = (Type) right.visit(this, arg);
-
-        switch (binaryExpr.getOpKind()) {
-            case PLUS:
-                if (leftType == rightType) {
-                    binaryExpr.setType(leftType);
-                    return leftType;
-                }
-                break;
-            case MINUS:
-            case TIMES:
-            case DIV:
-                if ((leftType == Type.INT || leftType == Type.PIXEL || leftType == Type.IMAGE) && leftType == rightType) {
-                    binaryExpr.setType(leftType);
-                    return leftType;
-                } else if ((leftType == Type.PIXEL || leftType == Type.IMAGE) && rightType == Type.INT) {
-                    binaryExpr.setType(leftType);
-                    return leftType;
-                }
-                break;
-            case BITAND:
-            case BITOR:
-                if (leftType == Type.PIXEL && rightType == Type.PIXEL) {
-                    binaryExpr.setType(Type.PIXEL);
-                    return Type.PIXEL;
-                }
-                break;
-            case AND:
-            case OR:
-                if (leftType == Type.BOOLEAN && rightType == Type.BOOLEAN) {
-                    binaryExpr.setType(Type.BOOLEAN);
-                    return Type.BOOLEAN;
-                }
-                break;
-            case LT:
-            case GT:
-            case LE:
-            case GE:
-                if (leftType == Type.INT && rightType == Type.INT) {
-                    binaryExpr.setType(Type.BOOLEAN);
-                    return Type.BOOLEAN;
-                }
-                break;
-            case EQ:
-                if (leftType == rightType) {
-                    binaryExpr.setType(Type.BOOLEAN);
-                    return Type.BOOLEAN;
-                }
-                break;
-            case EXP:
-                if (leftType == Type.INT && rightType == Type.INT) {
-                    binaryExpr.setType(Type.INT);
-                    return Type.INT;
-                } else if (leftType == Type.PIXEL && rightType == Type.INT) {
-                    binaryExpr.setType(Type.PIXEL);
-                    return Type.PIXEL;
-                }
-                break;
-            default:
-                throw new TypeCheckException("unsupported binary operation: " + binaryExpr.getOpKind());
-        }
-
-        throw new TypeCheckException("mismatched types in binary expression: " + leftType + ", " + rightType);
+        binaryExpr.getLeftExpr().visit(this, arg);
+        binaryExpr.getRightExpr().visit(this, arg);
+        TypeCheckException error = checkBinaryExpr(binaryExpr);
+        return error == null ? binaryExpr.getType() : fail(binaryExpr, error, arg);
+    }
+
+    TypeCheckException checkBinaryExpr(BinaryExpr binaryExpr) {
+        Type leftType = binaryExpr.getLeftExpr().getType();
+        Type rightType = binaryExpr.getRightExpr().getType();
+        Kind op = binaryExpr.getOpKind();
+
+        Type resultType = TypeRules.binaryResult(op, leftType, rightType);
+        if (resultType == null) {
+            if (!TypeRules.isBinaryOperator(op)) {
+                return new TypeCheckException(locate(binaryExpr), "unsupported binary operation: " + op);
+            }
+            return new TypeCheckException(locate(binaryExpr), "mismatched types in binary expression: " + leftType + ", " + rightType);
+        }
+        binaryExpr.setType(resultType);
+        return null;
     }
 
 
     @Override
     public Object visitUnaryExpr(UnaryExpr unaryExpr, Object arg) throws TypeCheckException, PLCCompilerException {
-        Type operandType = (Type) unaryExpr.getExpr().visit(this, arg);
-        Type resultType;
-        switch (unaryExpr.getOp()) {
-            case MINUS:
-                if (operandType == Type.INT) {
-                    resultType = Type.INT;
-                } else {
-                    throw new TypeCheckException("not valid op type for unary negation");
-                }
-                break;
-            case BANG:
-                if (operandType == Type.BOOLEAN) {
-                    resultType = Type.BOOLEAN;
-                } else {
-                    throw new TypeCheckException("not valid op type for unary NOT");
-                }
-                break;
-            case RES_width:
-            case RES_height:
-                if (operandType == Type.IMAGE) {
-                    resultType = Type.INT;
-                } else {
-                    throw new TypeCheckException("not valid op type for unary " + unaryExpr.getOp());
-                }
-                break;
-            default:
-                throw new TypeCheckException("unrecognized unary operator");
+        unaryExpr.getExpr().visit(this, arg);
+        TypeCheckException error = checkUnaryExpr(unaryExpr);
+        return error == null ? unaryExpr.getType() : fail(unaryExpr, error, arg);
+    }
+
+    TypeCheckException checkUnaryExpr(UnaryExpr unaryExpr) {
+        Type operandType = unaryExpr.getExpr().getType();
+        Kind op = unaryExpr.getOp();
+        Type resultType = TypeRules.unaryResult(op, operandType);
+        if (resultType == null) {
+            return new TypeCheckException(locate(unaryExpr), switch (op) {
+                case MINUS -> "not valid op type for unary negation";
+                case BANG -> "not valid op type for unary NOT";
+                case RES_width, RES_height -> "not valid op type for unary " + op;
+                default -> "unrecognized unary operator";
+            });
         }
         unaryExpr.setType(resultType);
-        return resultType;
+        return null;
     }
 
 
     @Override
     public Object visitPostfixExpr(PostfixExpr postfixExpr, Object arg) throws TypeCheckException, PLCCompilerException {
-        Type primaryType = (Type) postfixExpr.primary().visit(this, arg);
+        postfixExpr.primary().visit(this, arg);
+        if (postfixExpr.pixel() != null) {
+            postfixExpr.pixel().visit(this, arg);
+        }
+        if (postfixExpr.channel() != null) {
+            postfixExpr.channel().visit(this, arg);
+        }
+        TypeCheckException error = checkPostfixExpr(postfixExpr);
+        return error == null ? postfixExpr.getType() : fail(postfixExpr, error, arg);
+    }
+
+    TypeCheckException checkPostfixExpr(PostfixExpr postfixExpr) {
+        Type primaryType = postfixExpr.primary().getType();
         PixelSelector pixelSelector = postfixExpr.pixel();
         ChannelSelector channelSelector = postfixExpr.channel();
 
@@ -245,22 +357,17 @@ public class TypeCheckVisitor implements ASTVisitor {
             postfixExpr.setType(primaryType);
         } else if (primaryType == Type.IMAGE && pixelSelector != null && channelSelector == null) {
             postfixExpr.setType(Type.PIXEL);
-            pixelSelector.visit(this, arg);
         } else if (primaryType == Type.IMAGE && pixelSelector != null && channelSelector != null) {
             postfixExpr.setType(Type.INT);
-            pixelSelector.visit(this, arg);
-            channelSelector.visit(this, arg);
         } else if (primaryType == Type.IMAGE && pixelSelector == null && channelSelector != null) {
             postfixExpr.setType(Type.IMAGE);
-            channelSelector.visit(this, arg);
         } else if (primaryType == Type.PIXEL && pixelSelector == null && channelSelector != null) {
             postfixExpr.setType(Type.INT);
-            channelSelector.visit(this, arg);
         } else {
-            throw new TypeCheckException("not valid combo in PostfixExpr.");
+            return new TypeCheckException(locate(postfixExpr), "not valid combo in PostfixExpr.");
         }
 
-        return primaryType;
+        return null;
     }
 
 
@@ -282,21 +389,23 @@ public class TypeCheckVisitor implements ASTVisitor {
 
     @Override
     public Object visitIdentExpr(IdentExpr identExpr, Object arg) throws TypeCheckException, PLCCompilerException {
+        TypeCheckContext context = context(arg);
         String name = identExpr.getName();
-        NameDef nameDef = symbolTable.lookup(name);
+        NameDef nameDef = context.lookup(name);
 
         if (nameDef == null) {
 
-            if (IN_LVALUE_CONTEXT.equals(arg)) {
-                SyntheticNameDef syntheticNameDef = new SyntheticNameDef(name);
-                symbolTable.insert(syntheticNameDef);
+            if (context.inLValueContext) {
+                NameDef syntheticNameDef = context.bindImplicitName(name);
+                identExpr.setNameDef(syntheticNameDef);
                 identExpr.setType(Type.INT);
                 return Type.INT;
             } else {
-                throw new TypeCheckException("variable " + name + " not declared in current scope.");
+                return fail(identExpr, new TypeCheckException(locate(identExpr), "variable " + name + " not declared in current scope."), arg);
             }
         }
 
+        identExpr.setNameDef(nameDef);
         identExpr.setType(nameDef.getType());
         return nameDef.getType();
     }
@@ -324,183 +433,207 @@ public class TypeCheckVisitor implements ASTVisitor {
 
     @Override
     public Object visitChannelSelector(ChannelSelector channelSelector, Object arg) throws TypeCheckException, PLCCompilerException {
+        TypeCheckException error = checkChannelSelector(channelSelector);
+        return error == null ? Type.INT : fail(channelSelector, error, arg);
+    }
+
+    TypeCheckException checkChannelSelector(ChannelSelector channelSelector) {
         Kind colorKind = channelSelector.color();
         if (colorKind != Kind.RES_red && colorKind != Kind.RES_green && colorKind != Kind.RES_blue) {
-            throw new TypeCheckException("Not valid color channel: " + colorKind);
+            return new TypeCheckException(locate(channelSelector), "Not valid color channel: " + colorKind);
         }
-        return Type.INT;
+        return null;
     }
 
 
 
     @Override
     public Object visitPixelSelector(PixelSelector pixelSelector, Object arg) throws TypeCheckException, PLCCompilerException {
+        pixelSelector.xExpr().visit(this, arg);
+        pixelSelector.yExpr().visit(this, arg);
+        TypeCheckException error = checkPixelSelector(pixelSelector);
+        return error == null ? Type.IMAGE : fail(pixelSelector, error, arg);
+    }
+
+    // implicit coordinates in the pixel selector of an LValue are bound by visitIdentExpr
+    TypeCheckException checkPixelSelector(PixelSelector pixelSelector) {
         Expr xExpr = pixelSelector.xExpr();
         Expr yExpr = pixelSelector.yExpr();
 
-        Type xType = (Type) xExpr.visit(this, arg);
-        Type yType = (Type) yExpr.visit(this, arg);
-
-        if (xType != Type.INT || yType != Type.INT) {
-            throw new TypeCheckException("PixelSelector coordinates should be of type INT.");
+        if (xExpr.getType() != Type.INT || yExpr.getType() != Type.INT) {
+            return new TypeCheckException(locate(pixelSelector), "PixelSelector coordinates should be of type INT.");
         }
 
-        if (IN_LVALUE_CONTEXT.equals(arg)) {
-            if (xExpr instanceof IdentExpr) {
-                IdentExpr xIdentExpr = (IdentExpr) xExpr;
-                if (symbolTable.lookup(xIdentExpr.getName()) == null) {
-                    SyntheticNameDef syntheticNameDef = new SyntheticNameDef(xIdentExpr.getName());
-                    symbolTable.enterScope();
-                    symbolTable.insert(syntheticNameDef);
-                    symbolTable.leaveScope();
-                }
-            }
-
-            if (yExpr instanceof IdentExpr) {
-                IdentExpr yIdentExpr = (IdentExpr) yExpr;
-                if (symbolTable.lookup(yIdentExpr.getName()) == null) {
-                    SyntheticNameDef syntheticNameDef = new SyntheticNameDef(yIdentExpr.getName());
-                    symbolTable.enterScope();
-                    symbolTable.insert(syntheticNameDef);
-                    symbolTable.leaveScope();
-                }
-            }
-        }
-
-        return Type.IMAGE;
+        return null;
     }
 
     /* ======================= MOKSH ======================= */
 
     @Override
     public Object visitExpandedPixelExpr(ExpandedPixelExpr expr, Object arg) throws TypeCheckException, PLCCompilerException {
-        Type redType = (Type) expr.getRed().visit(this, arg);
-        Type greenType = (Type) expr.getGreen().visit(this, arg);
-        Type blueType = (Type) expr.getBlue().visit(this, arg);
+        expr.getRed().visit(this, arg);
+        expr.getGreen().visit(this, arg);
+        expr.getBlue().visit(this, arg);
+        TypeCheckException error = checkExpandedPixelExpr(expr);
+        return error == null ? Type.PIXEL : fail(expr, error, arg);
+    }
+
+    TypeCheckException checkExpandedPixelExpr(ExpandedPixelExpr expr) {
+        Type redType = expr.getRed().getType();
+        Type greenType = expr.getGreen().getType();
+        Type blueType = expr.getBlue().getType();
 
         if (redType != Type.INT || greenType != Type.INT || blueType != Type.INT) {
-            throw new TypeCheckException("all components of an ExpandedPixelExpr must be of type INT");
+            return new TypeCheckException(locate(expr), "all components of an ExpandedPixelExpr must be of type INT");
         }
 
-        return Type.PIXEL;
+        expr.setType(Type.PIXEL);
+        return null;
     }
 
     @Override
     public Object visitDimension(Dimension dimension, Object arg) throws TypeCheckException, PLCCompilerException {
-        Type widthType = (Type) dimension.getWidth().visit(this, arg);
-        Type heightType = (Type) dimension.getHeight().visit(this, arg);
+        dimension.getWidth().visit(this, arg);
+        dimension.getHeight().visit(this, arg);
+        TypeCheckException error = checkDimension(dimension);
+        return error == null ? Type.INT : fail(dimension, error, arg);
+    }
+
+    TypeCheckException checkDimension(Dimension dimension) {
+        Type widthType = dimension.getWidth().getType();
+        Type heightType = dimension.getHeight().getType();
 
         if (widthType != Type.INT || heightType != Type.INT) {
-            throw new TypeCheckException("width and height in dimension must be of type INT");
+            return new TypeCheckException(locate(dimension), "width and height in dimension must be of type INT");
         }
 
-        return Type.INT;
+        return null;
     }
 
 
     @Override
     public Object visitLValue(LValue lValue, Object arg) throws TypeCheckException, PLCCompilerException {
-        NameDef nameDef = lValue.getNameDef();
+        if (resolveLValue(lValue, context(arg)) == null) {
+            fail(lValue, undefinedLValueName(lValue.getName(), locate(lValue)), arg);
+        }
+        if (lValue.getPixelSelector() != null) {
+            lValue.getPixelSelector().visit(this, arg);
+        }
+        if (lValue.getChannelSelector() != null) {
+            lValue.getChannelSelector().visit(this, arg);
+        }
+        if (lValue.getNameDef() == null) {
+            // the undefined name has been reported
+            return Type.ERROR;
+        }
+        TypeCheckException error = checkLValue(lValue);
+        return error == null ? lValue.getType() : fail(lValue, error, arg);
+    }
 
+    // the name of an LValue is resolved before its pixel selector can introduce synthetic names;
+    // null if it is not defined
+    NameDef resolveLValue(LValue lValue, TypeCheckContext context) {
+        NameDef nameDef = lValue.getNameDef();
         if (nameDef == null) {
-            nameDef = symbolTable.lookup(lValue.getName());
-            if (nameDef == null) {
-                throw new TypeCheckException("LValue refers to an undefined name: " + lValue.getName());
-            }
+            nameDef = context.lookup(lValue.getName());
+            lValue.setNameDef(nameDef);
         }
+        return nameDef;
+    }
 
-        Type varType = nameDef.getType();
+    static TypeCheckException undefinedLValueName(String name, SourceLocation location) {
+        return new TypeCheckException(location, "LValue refers to an undefined name: " + name);
+    }
+
+    TypeCheckException checkLValue(LValue lValue) {
+        Type varType = lValue.getVarType();
 
         PixelSelector pixelSelector = lValue.getPixelSelector();
         ChannelSelector channelSelector = lValue.getChannelSelector();
 
         if (pixelSelector != null && varType != Type.IMAGE) {
-            throw new TypeCheckException("PixelSelector present, but LValue varType is not IMAGE. found: " + varType);
+            return new TypeCheckException(locate(lValue), "PixelSelector present, but LValue varType is not IMAGE. found: " + varType);
         }
 
         if (channelSelector != null && (varType != Type.PIXEL && varType != Type.IMAGE)) {
-            throw new TypeCheckException("ChannelSelector present, but LValue varType is not PIXEL or IMAGE. found: " + varType);
+            return new TypeCheckException(locate(lValue), "ChannelSelector present, but LValue varType is not PIXEL or IMAGE. found: " + varType);
         }
 
         if (pixelSelector == null && channelSelector == null) {
             lValue.setType(varType);
         } else if (varType == Type.IMAGE && pixelSelector != null && channelSelector == null) {
             lValue.setType(Type.PIXEL);
-            if (arg instanceof LValue) {
-                symbolTable.enterScope();
-                symbolTable.insert(new SyntheticNameDef("x"));
-                symbolTable.insert(new SyntheticNameDef("y"));
-                pixelSelector.visit(this, arg);
-                symbolTable.leaveScope();
-            } else {
-                pixelSelector.visit(this, arg);
-            }
         } else if (varType == Type.IMAGE && pixelSelector != null && channelSelector != null) {
             lValue.setType(Type.INT);
-            pixelSelector.visit(this, arg);
-            channelSelector.visit(this, arg);
         } else if (varType == Type.IMAGE && pixelSelector == null && channelSelector != null) {
             lValue.setType(Type.INT);
-            channelSelector.visit(this, arg);
         } else if (varType == Type.PIXEL && pixelSelector == null && channelSelector != null) {
             lValue.setType(Type.INT);
-            channelSelector.visit(this, arg);
         } else {
-            throw new TypeCheckException("Invalid combination in LValue.");
+            return new TypeCheckException(locate(lValue), "Invalid combination in LValue.");
         }
 
-        return lValue.getType();
+        return null;
     }
 
 
 
     @Override
     public Object visitAssignmentStatement(AssignmentStatement assignmentStatement, Object arg) throws TypeCheckException, PLCCompilerException {
-//        System.out.println("Visiting Assignment Statement: " + assignmentStatement.getlValue().getName());
+        TypeCheckContext context = context(arg);
         LValue lValue = assignmentStatement.getlValue();
-        Type lValueType;
-        symbolTable.enterScope();
         if (lValue.getPixelSelector() != null) {
-            lValueType = (Type) lValue.visit(this, IN_LVALUE_CONTEXT);
+            context.inLValueContext = true;
+            lValue.visit(this, context);
+            context.inLValueContext = false;
         } else {
-            lValueType = (Type) lValue.visit(this, arg);
+            lValue.visit(this, context);
         }
-        Type exprType = (Type) assignmentStatement.getE().visit(this, arg);
-        symbolTable.leaveScope();
+        assignmentStatement.getE().visit(this, context);
+        leaveAssignment(context);
+        TypeCheckException error = checkAssignmentStatement(assignmentStatement);
+        return error == null ? assignmentStatement.getE().getType() : fail(assignmentStatement, error, arg);
+    }
+
+    TypeCheckException checkAssignmentStatement(AssignmentStatement assignmentStatement) {
+        Type lValueType = assignmentStatement.getlValue().getType();
+        Type exprType = assignmentStatement.getE().getType();
         if (!(lValueType == exprType
                 || (lValueType == Type.PIXEL && exprType == Type.INT)
                 || (lValueType == Type.IMAGE && (exprType == Type.PIXEL || exprType == Type.INT || exprType == Type.STRING)))) {
-            throw new TypeCheckException("type mismatch in assignment. LValue type: " + lValueType + ", Expr type: " + exprType);
+            return new TypeCheckException(locate(assignmentStatement), "type mismatch in assignment. LValue type: " + lValueType + ", Expr type: " + exprType);
         }
-        return exprType;
+        return null;
     }
 
 
 
     @Override
     public Object visitWriteStatement(WriteStatement writeStatement, Object arg) throws TypeCheckException, PLCCompilerException {
-        Expr expr = writeStatement.getExpr();
-        Type exprType = (Type) expr.visit(this, arg);
+        writeStatement.getExpr().visit(this, arg);
+        TypeCheckException error = checkWriteStatement(writeStatement);
+        return error == null ? writeStatement.getExpr().getType() : fail(writeStatement, error, arg);
+    }
+
+    TypeCheckException checkWriteStatement(WriteStatement writeStatement) {
+        Type exprType = writeStatement.getExpr().getType();
         if (exprType == null) {
-            throw new TypeCheckException("type of the expression in WriteStatement has not been found yet.");
+            return new TypeCheckException(locate(writeStatement), "type of the expression in WriteStatement has not been found yet.");
         }
-        return exprType;
+        return null;
     }
 
 
     @Override
     public Object visitDoStatement(DoStatement doStatement, Object arg) throws TypeCheckException, PLCCompilerException {
-        symbolTable.enterScope();
+        TypeCheckContext context = context(arg);
+        enterScope(context);
         try {
             for (GuardedBlock gBlock : doStatement.getGuardedBlocks()) {
-                Type guardType = (Type) gBlock.getGuard().visit(this, arg);
-                if (guardType != Type.BOOLEAN) {
-                    throw new TypeCheckException("guard expression in DoStatement must be of type BOOLEAN");
-                }
-                gBlock.getBlock().visit(this, arg);
+                gBlock.visit(this, context);
             }
         } finally {
-            symbolTable.leaveScope();
+            leaveScope(context);
         }
         return doStatement;
     }
@@ -509,35 +642,46 @@ public class TypeCheckVisitor implements ASTVisitor {
     @Override
     public Object visitIfStatement(IfStatement ifStatement, Object arg) throws TypeCheckException, PLCCompilerException {
         for (GuardedBlock gBlock : ifStatement.getGuardedBlocks()) {
-            Type guardType = (Type) gBlock.getGuard().visit(this, arg);
-            if (guardType != Type.BOOLEAN) {
-                throw new TypeCheckException("guard expression in IfStatement's GuardedBlock must be of type BOOLEAN");
-            }
+            gBlock.visit(this, arg);
         }
         return ifStatement;
     }
 
     @Override
     public Object visitGuardedBlock(GuardedBlock guardedBlock, Object arg) throws TypeCheckException, PLCCompilerException {
-        Type guardType = (Type) guardedBlock.getGuard().visit(this, arg);
+        guardedBlock.getGuard().visit(this, arg);
+        TypeCheckException error = checkGuard(guardedBlock.getGuard());
+        Type guardType = error == null ? guardedBlock.getGuard().getType() : fail(guardedBlock, error, arg);
+        guardedBlock.getBlock().visit(this, arg);
+        return guardType;
+    }
+
+    TypeCheckException checkGuard(Expr guard) {
+        Type guardType = guard.getType();
         if (guardType != Type.BOOLEAN) {
-            throw new TypeCheckException("guard expression in GuardedBlock must be of type BOOLEAN");
+            return new TypeCheckException(locate(guard), "guard expression in GuardedBlock must be of type BOOLEAN");
         }
-        return guardType;
+        return null;
     }
 
     @Override
     public Object visitReturnStatement(ReturnStatement returnStatement, Object arg) throws TypeCheckException, PLCCompilerException {
-        Expr returnedExpr = returnStatement.getE();
-        Type returnedType = (Type) returnedExpr.visit(this, arg);
+        returnStatement.getE().visit(this, arg);
+        TypeCheckException error = checkReturnStatement(returnStatement, context(arg));
+        return error == null ? returnStatement.getE().getType() : fail(returnStatement, error, arg);
+    }
+
+    TypeCheckException checkReturnStatement(ReturnStatement returnStatement, TypeCheckContext context) {
+        Type returnedType = returnStatement.getE().getType();
+        Deque<Type> returnTypeStack = context.returnTypeStack;
         if (returnTypeStack.isEmpty()) {
-            throw new TypeCheckException("unexpected :( return statement outside of function or method scope.");
+            return new TypeCheckException(locate(returnStatement), "unexpected :( return statement outside of function or method scope.");
         }
         Type expectedReturnType = returnTypeStack.peek();
         if (returnedType != expectedReturnType) {
-            throw new TypeCheckException("mismatched return type :(. Expected " + expectedReturnType + " but found " + returnedType);
+            return new TypeCheckException(locate(returnStatement), "mismatched return type :(. Expected " + expectedReturnType + " but found " + returnedType);
         }
-        return returnedType;
+        return null;
     }
 
 
@@ -548,5 +692,27 @@ public class TypeCheckVisitor implements ASTVisitor {
     }
 
 
+    /* ======================= fused mode ======================= */
+
+    /**
+     * Types a newly parsed expression whose children have already been typed.
+     * context.inLValueContext is set inside the pixel selector of an LValue, as in visitAssignmentStatement.
+     */
+    TypeCheckException checkExpr(Expr expr, TypeCheckContext context) throws PLCCompilerException {
+        if (expr instanceof BinaryExpr binaryExpr) {
+            return checkBinaryExpr(binaryExpr);
+        } else if (expr instanceof UnaryExpr unaryExpr) {
+            return checkUnaryExpr(unaryExpr);
+        } else if (expr instanceof ConditionalExpr conditionalExpr) {
+            return checkConditionalExpr(conditionalExpr);
+        } else if (expr instanceof PostfixExpr postfixExpr) {
+            return checkPostfixExpr(postfixExpr);
+        } else if (expr instanceof ExpandedPixelExpr expandedPixelExpr) {
+            return checkExpandedPixelExpr(expandedPixelExpr);
+        }
+        // leaves have no children, so visiting them is the same as checking them
+        expr.visit(this, context);
+        return null;
+    }
 
 }
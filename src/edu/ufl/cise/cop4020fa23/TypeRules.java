@@ -0,0 +1,97 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static edu.ufl.cise.cop4020fa23.Kind.*;
+import static edu.ufl.cise.cop4020fa23.ast.Type.*;
+
+import edu.ufl.cise.cop4020fa23.ast.Type;
+
+/**
+ * Typing rules of the binary and unary operators, as tables of result types indexed by the
+ * operator kind and the operand types.  A null result means the operand types are not valid
+ * for the operator.  Anything that needs to know what an operator produces (the type checker,
+ * a code generator) should ask here instead of repeating the rules.
+ */
+public final class TypeRules {
+
+    private static final int TYPES = Type.values().length;
+
+    // result of left op right, at (op.ordinal() * TYPES + left.ordinal()) * TYPES + right.ordinal()
+    private static final Type[] BINARY = new Type[Kind.values().length * TYPES * TYPES];
+    private static final boolean[] IS_BINARY = new boolean[Kind.values().length];
+
+    // result of op operand, at op.ordinal() * TYPES + operand.ordinal()
+    private static final Type[] UNARY = new Type[Kind.values().length * TYPES];
+    private static final boolean[] IS_UNARY = new boolean[Kind.values().length];
+
+    static {
+        // VOID and ERROR are not the types of values
+        for (Type t : new Type[] {INT, BOOLEAN, STRING, PIXEL, IMAGE}) {
+            binary(PLUS, t, t, t);
+            binary(EQ, t, t, BOOLEAN);
+        }
+        for (Kind op : new Kind[] {MINUS, TIMES, DIV}) {
+            binary(op, INT, INT, INT);
+            binary(op, PIXEL, PIXEL, PIXEL);
+            binary(op, IMAGE, IMAGE, IMAGE);
+            binary(op, PIXEL, INT, PIXEL);
+            binary(op, IMAGE, INT, IMAGE);
+        }
+        for (Kind op : new Kind[] {BITAND, BITOR}) {
+            binary(op, PIXEL, PIXEL, PIXEL);
+        }
+        for (Kind op : new Kind[] {AND, OR}) {
+            binary(op, BOOLEAN, BOOLEAN, BOOLEAN);
+        }
+        for (Kind op : new Kind[] {LT, GT, LE, GE}) {
+            binary(op, INT, INT, BOOLEAN);
+        }
+        binary(EXP, INT, INT, INT);
+        binary(EXP, PIXEL, INT, PIXEL);
+
+        unary(MINUS, INT, INT);
+        unary(BANG, BOOLEAN, BOOLEAN);
+        unary(RES_width, IMAGE, INT);
+        unary(RES_height, IMAGE, INT);
+    }
+
+    private static void binary(Kind op, Type left, Type right, Type result) {
+        BINARY[(op.ordinal() * TYPES + left.ordinal()) * TYPES + right.ordinal()] = result;
+        IS_BINARY[op.ordinal()] = true;
+    }
+
+    private static void unary(Kind op, Type operand, Type result) {
+        UNARY[op.ordinal() * TYPES + operand.ordinal()] = result;
+        IS_UNARY[op.ordinal()] = true;
+    }
+
+    private TypeRules() {
+    }
+
+    /**
+     * @return the type of left op right, or null if op does not apply to these types
+     */
+    public static Type binaryResult(Kind op, Type left, Type right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        return BINARY[(op.ordinal() * TYPES + left.ordinal()) * TYPES + right.ordinal()];
+    }
+
+    public static boolean isBinaryOperator(Kind op) {
+        return IS_BINARY[op.ordinal()];
+    }
+
+    /**
+     * @return the type of op operand, or null if op does not apply to this type
+     */
+    public static Type unaryResult(Kind op, Type operand) {
+        if (operand == null) {
+            return null;
+        }
+        return UNARY[op.ordinal() * TYPES + operand.ordinal()];
+    }
+
+    public static boolean isUnaryOperator(Kind op) {
+        return IS_UNARY[op.ordinal()];
+    }
+}
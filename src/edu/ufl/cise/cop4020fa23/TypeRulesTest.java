@@ -0,0 +1,101 @@
+package edu.ufl.cise.cop4020fa23;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ufl.cise.cop4020fa23.ast.Type;
+
+class TypeRulesTest {
+
+	static boolean isValueType(Type type) {
+		return type != Type.VOID && type != Type.ERROR;
+	}
+
+	// the rules as TypeCheckVisitor spelled them out before they moved into tables, for the types of values
+	static Type binaryReference(Kind op, Type left, Type right) {
+		switch (op) {
+		case PLUS:
+			return left == right && isValueType(left) ? left : null;
+		case MINUS:
+		case TIMES:
+		case DIV:
+			if ((left == Type.INT || left == Type.PIXEL || left == Type.IMAGE) && left == right) {
+				return left;
+			} else if ((left == Type.PIXEL || left == Type.IMAGE) && right == Type.INT) {
+				return left;
+			}
+			return null;
+		case BITAND:
+		case BITOR:
+			return left == Type.PIXEL && right == Type.PIXEL ? Type.PIXEL : null;
+		case AND:
+		case OR:
+			return left == Type.BOOLEAN && right == Type.BOOLEAN ? Type.BOOLEAN : null;
+		case LT:
+		case GT:
+		case LE:
+		case GE:
+			return left == Type.INT && right == Type.INT ? Type.BOOLEAN : null;
+		case EQ:
+			return left == right && isValueType(left) ? Type.BOOLEAN : null;
+		case EXP:
+			if (left == Type.INT && right == Type.INT) {
+				return Type.INT;
+			} else if (left == Type.PIXEL && right == Type.INT) {
+				return Type.PIXEL;
+			}
+			return null;
+		default:
+			return null;
+		}
+	}
+
+	static Type unaryReference(Kind op, Type operand) {
+		return switch (op) {
+		case MINUS -> operand == Type.INT ? Type.INT : null;
+		case BANG -> operand == Type.BOOLEAN ? Type.BOOLEAN : null;
+		case RES_width, RES_height -> operand == Type.IMAGE ? Type.INT : null;
+		default -> null;
+		};
+	}
+
+	@Test
+	void binaryTableMatchesRules() {
+		for (Kind op : Kind.values()) {
+			for (Type left : Type.values()) {
+				for (Type right : Type.values()) {
+					assertEquals(binaryReference(op, left, right), TypeRules.binaryResult(op, left, right),
+							op + " " + left + " " + right);
+				}
+			}
+		}
+	}
+
+	@Test
+	void unaryTableMatchesRules() {
+		for (Kind op : Kind.values()) {
+			for (Type operand : Type.values()) {
+				assertEquals(unaryReference(op, operand), TypeRules.unaryResult(op, operand), op + " " + operand);
+			}
+		}
+	}
+
+	@Test
+	void operators() {
+		assertTrue(TypeRules.isBinaryOperator(Kind.EXP));
+		assertTrue(TypeRules.isBinaryOperator(Kind.MINUS));
+		assertFalse(TypeRules.isBinaryOperator(Kind.MOD));
+		assertFalse(TypeRules.isBinaryOperator(Kind.BANG));
+		assertTrue(TypeRules.isUnaryOperator(Kind.MINUS));
+		assertTrue(TypeRules.isUnaryOperator(Kind.RES_width));
+		assertFalse(TypeRules.isUnaryOperator(Kind.PLUS));
+		assertNull(TypeRules.binaryResult(Kind.PLUS, null, null));
+		assertNull(TypeRules.binaryResult(Kind.PLUS, Type.VOID, Type.VOID));
+		assertNull(TypeRules.binaryResult(Kind.EQ, Type.ERROR, Type.ERROR));
+	}
+
+}
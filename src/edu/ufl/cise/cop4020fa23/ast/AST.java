@@ -15,17 +15,30 @@ import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.TypeCheckVisitor;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public abstract class AST {
+public abstract sealed class AST permits Block, Block.BlockElem, ChannelSelector, Dimension, Expr,
+		GuardedBlock, LValue, NameDef, PixelSelector, Program {
 
 	public final IToken firstToken;
 
+	final NodeKind nodeKind;
+
 	public AST(IToken firstToken) {
 		super();
 		this.firstToken = firstToken;
+		this.nodeKind = NodeKind.of(getClass());
 	}
 
 	public abstract Object visit(ASTVisitor v, Object arg) throws PLCCompilerException;
 
+	public abstract <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException;
+
+	/**
+	 * @return the concrete class of this node, for dispatching with a switch (see ASTDispatcher)
+	 */
+	public final NodeKind nodeKind() {
+		return nodeKind;
+	}
+
 	public IToken firstToken() {
 		return firstToken;
 	}
@@ -38,18 +51,48 @@ public abstract class AST {
 		return firstToken.sourceLocation().column();
 	}
 
+	/*
+	 * Nodes are immutable apart from the type annotations added during type checking,
+	 * which do not take part in equality, so the hash is computed once and cached.
+	 * 0 means "not yet computed"; a subtree that really hashes to 0 is just recomputed.
+	 */
+	private int hash;
+
 	@Override
-	public int hashCode() {
-		return Objects.hash(firstToken);
+	public final int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = structuralHashCode();
+			hash = h;
+		}
+		return h;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
+	public final boolean equals(Object obj) {
 		if (this == obj)
 			return true;
 		if ((obj == null) || (getClass() != obj.getClass()))
 			return false;
 		AST other = (AST) obj;
+		if (hashCode() != other.hashCode())
+			return false;
+		return structuralEquals(other);
+	}
+
+	/**
+	 * Computes the hash of this subtree.  Normally called only once per node (see hashCode).
+	 * Subclasses combine super.structuralHashCode() with the hashes of their own fields.
+	 */
+	protected int structuralHashCode() {
+		return Objects.hash(firstToken);
+	}
+
+	/**
+	 * Compares the fields of this node with those of other.
+	 * Precondition: other != this, other has the same class and the same hashCode.
+	 */
+	protected boolean structuralEquals(AST other) {
 		return Objects.equals(firstToken, other.firstToken);
 	}
 
@@ -0,0 +1,85 @@
+/*Copyright 2023 by Beverly A Sanders
+ * 
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the 
+ * University of Florida during the fall semester 2023 as part of the course project.  
+ * 
+ * No other use is authorized. 
+ * 
+ * This code may not be posted on a public web site either during or after the course.  
+ */
+package edu.ufl.cise.cop4020fa23.ast;
+
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Calls the visit method for a node with a switch on its NodeKind.  Same result as node.visit(v,
+ * arg), but the call site of the node stays monomorphic, which lets the JIT inline through
+ * passes that see every kind of node.
+ */
+public final class ASTDispatcher {
+
+	private ASTDispatcher() {
+	}
+
+	public static Object visit(AST node, ASTVisitor v, Object arg) throws PLCCompilerException {
+		return switch (node.nodeKind) {
+		case ASSIGNMENT_STATEMENT -> v.visitAssignmentStatement((AssignmentStatement) node, arg);
+		case BINARY_EXPR -> v.visitBinaryExpr((BinaryExpr) node, arg);
+		case BLOCK -> v.visitBlock((Block) node, arg);
+		case BOOLEAN_LIT_EXPR -> v.visitBooleanLitExpr((BooleanLitExpr) node, arg);
+		case CHANNEL_SELECTOR -> v.visitChannelSelector((ChannelSelector) node, arg);
+		case CONDITIONAL_EXPR -> v.visitConditionalExpr((ConditionalExpr) node, arg);
+		case CONST_EXPR -> v.visitConstExpr((ConstExpr) node, arg);
+		case DECLARATION -> v.visitDeclaration((Declaration) node, arg);
+		case DIMENSION -> v.visitDimension((Dimension) node, arg);
+		case DO_STATEMENT -> v.visitDoStatement((DoStatement) node, arg);
+		case EXPANDED_PIXEL_EXPR -> v.visitExpandedPixelExpr((ExpandedPixelExpr) node, arg);
+		case GUARDED_BLOCK -> v.visitGuardedBlock((GuardedBlock) node, arg);
+		case IDENT_EXPR -> v.visitIdentExpr((IdentExpr) node, arg);
+		case IF_STATEMENT -> v.visitIfStatement((IfStatement) node, arg);
+		case LVALUE -> v.visitLValue((LValue) node, arg);
+		case NAME_DEF -> v.visitNameDef((NameDef) node, arg);
+		case NUM_LIT_EXPR -> v.visitNumLitExpr((NumLitExpr) node, arg);
+		case PIXEL_SELECTOR -> v.visitPixelSelector((PixelSelector) node, arg);
+		case POSTFIX_EXPR -> v.visitPostfixExpr((PostfixExpr) node, arg);
+		case PROGRAM -> v.visitProgram((Program) node, arg);
+		case RETURN_STATEMENT -> v.visitReturnStatement((ReturnStatement) node, arg);
+		case STATEMENT_BLOCK -> v.visitBlockStatement((StatementBlock) node, arg);
+		case STRING_LIT_EXPR -> v.visitStringLitExpr((StringLitExpr) node, arg);
+		case SYNTHETIC_NAME_DEF -> v.visitNameDef((SyntheticNameDef) node, arg);
+		case UNARY_EXPR -> v.visitUnaryExpr((UnaryExpr) node, arg);
+		case WRITE_STATEMENT -> v.visitWriteStatement((WriteStatement) node, arg);
+		};
+	}
+
+	public static <R, A> R accept(AST node, GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return switch (node.nodeKind) {
+		case ASSIGNMENT_STATEMENT -> v.visitAssignmentStatement((AssignmentStatement) node, arg);
+		case BINARY_EXPR -> v.visitBinaryExpr((BinaryExpr) node, arg);
+		case BLOCK -> v.visitBlock((Block) node, arg);
+		case BOOLEAN_LIT_EXPR -> v.visitBooleanLitExpr((BooleanLitExpr) node, arg);
+		case CHANNEL_SELECTOR -> v.visitChannelSelector((ChannelSelector) node, arg);
+		case CONDITIONAL_EXPR -> v.visitConditionalExpr((ConditionalExpr) node, arg);
+		case CONST_EXPR -> v.visitConstExpr((ConstExpr) node, arg);
+		case DECLARATION -> v.visitDeclaration((Declaration) node, arg);
+		case DIMENSION -> v.visitDimension((Dimension) node, arg);
+		case DO_STATEMENT -> v.visitDoStatement((DoStatement) node, arg);
+		case EXPANDED_PIXEL_EXPR -> v.visitExpandedPixelExpr((ExpandedPixelExpr) node, arg);
+		case GUARDED_BLOCK -> v.visitGuardedBlock((GuardedBlock) node, arg);
+		case IDENT_EXPR -> v.visitIdentExpr((IdentExpr) node, arg);
+		case IF_STATEMENT -> v.visitIfStatement((IfStatement) node, arg);
+		case LVALUE -> v.visitLValue((LValue) node, arg);
+		case NAME_DEF -> v.visitNameDef((NameDef) node, arg);
+		case NUM_LIT_EXPR -> v.visitNumLitExpr((NumLitExpr) node, arg);
+		case PIXEL_SELECTOR -> v.visitPixelSelector((PixelSelector) node, arg);
+		case POSTFIX_EXPR -> v.visitPostfixExpr((PostfixExpr) node, arg);
+		case PROGRAM -> v.visitProgram((Program) node, arg);
+		case RETURN_STATEMENT -> v.visitReturnStatement((ReturnStatement) node, arg);
+		case STATEMENT_BLOCK -> v.visitBlockStatement((StatementBlock) node, arg);
+		case STRING_LIT_EXPR -> v.visitStringLitExpr((StringLitExpr) node, arg);
+		case SYNTHETIC_NAME_DEF -> v.visitNameDef((SyntheticNameDef) node, arg);
+		case UNARY_EXPR -> v.visitUnaryExpr((UnaryExpr) node, arg);
+		case WRITE_STATEMENT -> v.visitWriteStatement((WriteStatement) node, arg);
+		};
+	}
+}
@@ -17,7 +17,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class AssignmentStatement extends Statement {
+public final class AssignmentStatement extends Statement {
 	
 	final LValue lValue;
 	final Expr e;
@@ -42,12 +42,17 @@ public class AssignmentStatement extends Statement {
 		return v.visitAssignmentStatement(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitAssignmentStatement(this, arg);
+	}
+
 
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(e, lValue);
 		return result;
 	}
@@ -55,12 +60,8 @@ public class AssignmentStatement extends Statement {
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		AssignmentStatement other = (AssignmentStatement) obj;
 		return Objects.equals(e, other.e) && Objects.equals(lValue, other.lValue);
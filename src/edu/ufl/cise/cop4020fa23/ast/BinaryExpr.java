@@ -15,7 +15,7 @@ import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.Kind;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class BinaryExpr extends Expr {
+public final class BinaryExpr extends Expr {
 
 	final Expr leftExpr;
 	final IToken op;
@@ -64,18 +64,31 @@ public class BinaryExpr extends Expr {
 	}
 
 	@Override
-	public int hashCode() {
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitBinaryExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntBinaryExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanBinaryExpr(this, arg);
+	}
+
+	@Override
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(leftExpr, rightExpr);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		BinaryExpr other = (BinaryExpr) obj;
 		return Objects.equals(leftExpr, other.leftExpr) && Objects.equals(rightExpr, other.rightExpr);
@@ -13,14 +13,15 @@ import java.util.List;
 import java.util.Objects;
 
 import edu.ufl.cise.cop4020fa23.IToken;
+import edu.ufl.cise.cop4020fa23.Scope;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
 /**
  * 
  */
-public class Block extends AST {
+public final class Block extends AST {
 
-	public abstract static class BlockElem extends AST {
+	public abstract static sealed class BlockElem extends AST permits Declaration, Statement {
 
 		public BlockElem(IToken firstToken) {
 			super(firstToken);
@@ -28,14 +29,26 @@ public class Block extends AST {
 	}
 
 	final List<BlockElem> elems;
+	// scopes[i] is visible just before elems.get(i), and scopes[elems.size()] at the end
+	final Scope[] scopes;
 
 	/**
 	 * @param firstToken
 	 * @param elems
 	 */
 	public Block(IToken firstToken, List<BlockElem> elems) {
+		this(firstToken, elems, null);
+	}
+
+	/**
+	 * @param firstToken
+	 * @param elems
+	 * @param scopes the names visible at each position, see getScope, or null
+	 */
+	public Block(IToken firstToken, List<BlockElem> elems, Scope[] scopes) {
 		super(firstToken);
 		this.elems = elems;
+		this.scopes = scopes;
 	}
 
 	@Override
@@ -44,20 +57,21 @@ public class Block extends AST {
 	}
 
 	@Override
-	public int hashCode() {
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitBlock(this, arg);
+	}
+
+	@Override
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(elems);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		Block other = (Block) obj;
 		return Objects.equals(elems, other.elems);
@@ -70,6 +84,16 @@ public class Block extends AST {
 		return elems;
 	}
 
+	/**
+	 * @param index 0 to getElems().size()
+	 * @return the names visible just before the element at index, or at the end of the block if
+	 *   index is getElems().size().  null unless the block was built with its snapshots, as by
+	 *   TypeCheckContext.withScopes and IncrementalTypeChecker.
+	 */
+	public Scope getScope(int index) {
+		return scopes == null ? null : scopes[index];
+	}
+
 	@Override
 	public String toString() {
 		return "Block [elems=" + elems + "]";
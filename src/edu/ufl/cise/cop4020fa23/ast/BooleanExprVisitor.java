@@ -0,0 +1,41 @@
+/*Copyright 2023 by Beverly A Sanders
+ * 
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the 
+ * University of Florida during the fall semester 2023 as part of the course project.  
+ * 
+ * No other use is authorized. 
+ * 
+ * This code may not be posted on a public web site either during or after the course.  
+ */
+package edu.ufl.cise.cop4020fa23.ast;
+
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * A visitor of BOOLEAN expressions returning an unboxed boolean.  Expressions accept it with
+ * Expr.acceptBoolean.
+ *
+ * @param <A> the argument passed down the tree
+ */
+public interface BooleanExprVisitor<A> {
+
+	boolean visitBooleanBinaryExpr(BinaryExpr binaryExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanBooleanLitExpr(BooleanLitExpr booleanLitExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanConditionalExpr(ConditionalExpr conditionalExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanConstExpr(ConstExpr constExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanIdentExpr(IdentExpr identExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanNumLitExpr(NumLitExpr numLitExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanPostfixExpr(PostfixExpr postfixExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanStringLitExpr(StringLitExpr stringLitExpr, A arg) throws PLCCompilerException;
+
+	boolean visitBooleanUnaryExpr(UnaryExpr unaryExpr, A arg) throws PLCCompilerException;
+}
@@ -12,7 +12,7 @@ package edu.ufl.cise.cop4020fa23.ast;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class BooleanLitExpr extends Expr {
+public final class BooleanLitExpr extends Expr {
 
 	/**
 	 * @param firstToken
@@ -27,17 +27,18 @@ public class BooleanLitExpr extends Expr {
 	}
 
 	@Override
-	public int hashCode() {
-		return super.hashCode();
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanLitExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntBooleanLitExpr(this, arg);
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
-			return false;
-		return true;
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanBooleanLitExpr(this, arg);
 	}
 
 	public String getText() {
@@ -13,7 +13,7 @@ import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.Kind;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class ChannelSelector extends AST {
+public final class ChannelSelector extends AST {
 
 	final IToken color;
 
@@ -22,23 +22,14 @@ public class ChannelSelector extends AST {
 		return v.visitChannelSelector(this, arg);
 	}
 
-	public ChannelSelector(IToken firstToken, IToken color) {
-		super(firstToken);
-		this.color = color;
-	}
-
 	@Override
-	public int hashCode() {
-		return super.hashCode();
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitChannelSelector(this, arg);
 	}
 
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
-			return false;
-		return true;
+	public ChannelSelector(IToken firstToken, IToken color) {
+		super(firstToken);
+		this.color = color;
 	}
 
 	@Override
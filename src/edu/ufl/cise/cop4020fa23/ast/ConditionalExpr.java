@@ -14,7 +14,7 @@ import java.util.Objects;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class ConditionalExpr extends Expr {
+public final class ConditionalExpr extends Expr {
 
 	final Expr guard;
 	final Expr trueExpr;
@@ -39,18 +39,31 @@ public class ConditionalExpr extends Expr {
 	}
 
 	@Override
-	public int hashCode() {
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitConditionalExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntConditionalExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanConditionalExpr(this, arg);
+	}
+
+	@Override
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(falseExpr, guard, trueExpr);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		ConditionalExpr other = (ConditionalExpr) obj;
 		return Objects.equals(falseExpr, other.falseExpr) && Objects.equals(guard, other.guard)
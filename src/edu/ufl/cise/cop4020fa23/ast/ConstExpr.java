@@ -12,7 +12,7 @@ package edu.ufl.cise.cop4020fa23.ast;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class ConstExpr extends Expr {
+public final class ConstExpr extends Expr {
 
 	public ConstExpr(IToken firstToken) {
 		super(firstToken);
@@ -24,17 +24,18 @@ public class ConstExpr extends Expr {
 	}
 
 	@Override
-	public int hashCode() {
-		return super.hashCode();
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitConstExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntConstExpr(this, arg);
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
-			return false;
-		return true;
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanConstExpr(this, arg);
 	}
 
 	@Override
@@ -17,7 +17,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class Declaration extends Block.BlockElem {
+public final class Declaration extends Block.BlockElem {
   
 	final NameDef nameDef;
 	final Expr initializer;
@@ -35,20 +35,21 @@ public class Declaration extends Block.BlockElem {
 	public Object visit(ASTVisitor v, Object arg) throws PLCCompilerException {
 		return v.visitDeclaration(this, arg);
 	}
+
 	@Override
-	public int hashCode() {
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitDeclaration(this, arg);
+	}
+	@Override
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(initializer, nameDef);
 		return result;
 	}
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		Declaration other = (Declaration) obj;
 		return Objects.equals(initializer, other.initializer) && Objects.equals(nameDef, other.nameDef);
@@ -17,7 +17,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class Dimension extends AST {
+public final class Dimension extends AST {
 
 	final Expr width;
 	final Expr height;
@@ -42,6 +42,11 @@ public class Dimension extends AST {
 		return v.visitDimension(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitDimension(this, arg);
+	}
+
 
 
 	/**
@@ -63,9 +68,9 @@ public class Dimension extends AST {
 
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(height, width);
 		return result;
 	}
@@ -73,12 +78,8 @@ public class Dimension extends AST {
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		Dimension other = (Dimension) obj;
 		return Objects.equals(height, other.height) && Objects.equals(width, other.width);
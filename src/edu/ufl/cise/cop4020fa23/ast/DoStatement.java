@@ -18,7 +18,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class DoStatement extends Statement {
+public final class DoStatement extends Statement {
 
 	
 	final List<GuardedBlock> guardedBlocks;
@@ -41,6 +41,11 @@ public class DoStatement extends Statement {
 		return v.visitDoStatement(this,arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitDoStatement(this, arg);
+	}
+
 
 
 	public List<GuardedBlock> getGuardedBlocks() {
@@ -50,9 +55,9 @@ public class DoStatement extends Statement {
 
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(guardedBlocks);
 		return result;
 	}
@@ -60,12 +65,8 @@ public class DoStatement extends Statement {
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		DoStatement other = (DoStatement) obj;
 		return Objects.equals(guardedBlocks, other.guardedBlocks);
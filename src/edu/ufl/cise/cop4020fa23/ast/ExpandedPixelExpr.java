@@ -17,7 +17,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  *
  */
-public class ExpandedPixelExpr extends Expr {
+public final class ExpandedPixelExpr extends Expr {
 
 	final Expr red;
 	final Expr green;
@@ -37,18 +37,16 @@ public class ExpandedPixelExpr extends Expr {
 	}
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(blue, green, red);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		ExpandedPixelExpr other = (ExpandedPixelExpr) obj;
 		return Objects.equals(blue, other.blue) && Objects.equals(green, other.green) && Objects.equals(red, other.red);
@@ -59,6 +57,21 @@ public class ExpandedPixelExpr extends Expr {
 		return v.visitExpandedPixelExpr(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitExpandedPixelExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntExpandedPixelExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanExpandedPixelExpr(this, arg);
+	}
+
 	public Expr getRed() {
 		return red;
 	}
@@ -10,13 +10,25 @@
 package edu.ufl.cise.cop4020fa23.ast;
 
 import edu.ufl.cise.cop4020fa23.IToken;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public abstract class Expr extends AST {
+public abstract sealed class Expr extends AST permits BinaryExpr, BooleanLitExpr, ConditionalExpr, ConstExpr,
+		ExpandedPixelExpr, IdentExpr, NumLitExpr, PostfixExpr, StringLitExpr, UnaryExpr {
 
 	public Expr(IToken firstToken) {
 		super(firstToken);
 	}
 
+	/**
+	 * Visits this expression with a visitor that returns an int, without boxing.
+	 */
+	public abstract <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException;
+
+	/**
+	 * Visits this expression with a visitor that returns a boolean, without boxing.
+	 */
+	public abstract <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException;
+
 	Type type;  
 
 	public Type getType() {
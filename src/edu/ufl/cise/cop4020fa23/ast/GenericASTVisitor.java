@@ -0,0 +1,72 @@
+/*Copyright 2023 by Beverly A Sanders
+ * 
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the 
+ * University of Florida during the fall semester 2023 as part of the course project.  
+ * 
+ * No other use is authorized. 
+ * 
+ * This code may not be posted on a public web site either during or after the course.  
+ */
+package edu.ufl.cise.cop4020fa23.ast;
+
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * ASTVisitor with the result and argument types as type parameters, so results need no casts
+ * and visitors need no state smuggled through Object.  Nodes accept it with AST.accept.
+ *
+ * @param <R> the result of each visit method, Void if none
+ * @param <A> the argument passed down the tree
+ */
+public interface GenericASTVisitor<R, A> {
+
+	R visitAssignmentStatement(AssignmentStatement assignmentStatement, A arg) throws PLCCompilerException;
+
+	R visitBinaryExpr(BinaryExpr binaryExpr, A arg) throws PLCCompilerException;
+
+	R visitBlock(Block block, A arg) throws PLCCompilerException;
+
+	R visitBlockStatement(StatementBlock statementBlock, A arg) throws PLCCompilerException;
+
+	R visitBooleanLitExpr(BooleanLitExpr booleanLitExpr, A arg) throws PLCCompilerException;
+
+	R visitChannelSelector(ChannelSelector channelSelector, A arg) throws PLCCompilerException;
+
+	R visitConditionalExpr(ConditionalExpr conditionalExpr, A arg) throws PLCCompilerException;
+
+	R visitConstExpr(ConstExpr constExpr, A arg) throws PLCCompilerException;
+
+	R visitDeclaration(Declaration declaration, A arg) throws PLCCompilerException;
+
+	R visitDimension(Dimension dimension, A arg) throws PLCCompilerException;
+
+	R visitDoStatement(DoStatement doStatement, A arg) throws PLCCompilerException;
+
+	R visitExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, A arg) throws PLCCompilerException;
+
+	R visitGuardedBlock(GuardedBlock guardedBlock, A arg) throws PLCCompilerException;
+
+	R visitIdentExpr(IdentExpr identExpr, A arg) throws PLCCompilerException;
+
+	R visitIfStatement(IfStatement ifStatement, A arg) throws PLCCompilerException;
+
+	R visitLValue(LValue lValue, A arg) throws PLCCompilerException;
+
+	R visitNameDef(NameDef nameDef, A arg) throws PLCCompilerException;
+
+	R visitNumLitExpr(NumLitExpr numLitExpr, A arg) throws PLCCompilerException;
+
+	R visitPixelSelector(PixelSelector pixelSelector, A arg) throws PLCCompilerException;
+
+	R visitPostfixExpr(PostfixExpr postfixExpr, A arg) throws PLCCompilerException;
+
+	R visitProgram(Program program, A arg) throws PLCCompilerException;
+
+	R visitReturnStatement(ReturnStatement returnStatement, A arg) throws PLCCompilerException;
+
+	R visitStringLitExpr(StringLitExpr stringLitExpr, A arg) throws PLCCompilerException;
+
+	R visitUnaryExpr(UnaryExpr unaryExpr, A arg) throws PLCCompilerException;
+
+	R visitWriteStatement(WriteStatement writeStatement, A arg) throws PLCCompilerException;
+}
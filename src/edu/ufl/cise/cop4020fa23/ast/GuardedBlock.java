@@ -17,7 +17,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class GuardedBlock extends AST{
+public final class GuardedBlock extends AST{
 	
 	final Expr guard;
 	final Block block;
@@ -35,20 +35,21 @@ public class GuardedBlock extends AST{
 	public Object visit(ASTVisitor v, Object arg) throws PLCCompilerException {
 		return v.visitGuardedBlock(this,arg);
 	}
+
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitGuardedBlock(this, arg);
+	}
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(block, guard);
 		return result;
 	}
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		GuardedBlock other = (GuardedBlock) obj;
 		return Objects.equals(block, other.block) && Objects.equals(guard, other.guard);
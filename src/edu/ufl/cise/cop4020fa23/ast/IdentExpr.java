@@ -15,9 +15,10 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class IdentExpr extends Expr {
+public final class IdentExpr extends Expr {
 	
 	NameDef nameDef; //the name def declaring this ident.  Set during type checking, null until then. 
+	int slot = -1; //frame index of nameDef, copied when nameDef is set
 
 	public IdentExpr(IToken firstToken) {
 		super(firstToken);
@@ -27,6 +28,21 @@ public class IdentExpr extends Expr {
 	public Object visit(ASTVisitor v, Object arg) throws PLCCompilerException {
 		return v.visitIdentExpr(this, arg);
 	}
+
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitIdentExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntIdentExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanIdentExpr(this, arg);
+	}
  
 	public String getName() {
 		return firstToken.text();
@@ -43,5 +59,13 @@ public class IdentExpr extends Expr {
 	
 	public void setNameDef(NameDef def) {
 		this.nameDef = def;
+		this.slot = def == null ? -1 : def.getSlot();
+	}
+
+	/**
+	 * @return the frame index of the variable, see NameDef.getSlot()
+	 */
+	public int getSlot() {
+		return slot;
 	}
 }
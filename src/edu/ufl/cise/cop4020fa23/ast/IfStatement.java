@@ -18,7 +18,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class IfStatement extends Statement {
+public final class IfStatement extends Statement {
 
 	final List<GuardedBlock> guardedBlocks;
 	
@@ -40,12 +40,17 @@ public class IfStatement extends Statement {
 		return v.visitIfStatement(this,arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitIfStatement(this, arg);
+	}
+
 
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(guardedBlocks);
 		return result;
 	}
@@ -53,12 +58,8 @@ public class IfStatement extends Statement {
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		IfStatement other = (IfStatement) obj;
 		return Objects.equals(guardedBlocks, other.guardedBlocks);
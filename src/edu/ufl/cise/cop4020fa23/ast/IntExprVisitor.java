@@ -0,0 +1,43 @@
+/*Copyright 2023 by Beverly A Sanders
+ * 
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the 
+ * University of Florida during the fall semester 2023 as part of the course project.  
+ * 
+ * No other use is authorized. 
+ * 
+ * This code may not be posted on a public web site either during or after the course.  
+ */
+package edu.ufl.cise.cop4020fa23.ast;
+
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * A visitor of expressions returning an unboxed int, for expressions of type INT or PIXEL (a pixel
+ * is an int with the red, green and blue channels in bits 16-23, 8-15 and 0-7, and 0xFF in the
+ * alpha bits 24-31, as in java.awt.image.BufferedImage.TYPE_INT_ARGB).  Expressions accept it
+ * with Expr.acceptInt.
+ *
+ * @param <A> the argument passed down the tree
+ */
+public interface IntExprVisitor<A> {
+
+	int visitIntBinaryExpr(BinaryExpr binaryExpr, A arg) throws PLCCompilerException;
+
+	int visitIntBooleanLitExpr(BooleanLitExpr booleanLitExpr, A arg) throws PLCCompilerException;
+
+	int visitIntConditionalExpr(ConditionalExpr conditionalExpr, A arg) throws PLCCompilerException;
+
+	int visitIntConstExpr(ConstExpr constExpr, A arg) throws PLCCompilerException;
+
+	int visitIntExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, A arg) throws PLCCompilerException;
+
+	int visitIntIdentExpr(IdentExpr identExpr, A arg) throws PLCCompilerException;
+
+	int visitIntNumLitExpr(NumLitExpr numLitExpr, A arg) throws PLCCompilerException;
+
+	int visitIntPostfixExpr(PostfixExpr postfixExpr, A arg) throws PLCCompilerException;
+
+	int visitIntStringLitExpr(StringLitExpr stringLitExpr, A arg) throws PLCCompilerException;
+
+	int visitIntUnaryExpr(UnaryExpr unaryExpr, A arg) throws PLCCompilerException;
+}
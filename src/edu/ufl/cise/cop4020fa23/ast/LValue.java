@@ -15,12 +15,13 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class LValue extends AST {
+public final class LValue extends AST {
 
 	final IToken nameToken;
 	final PixelSelector pixelSelector;
 	final ChannelSelector channelSelector;
 	NameDef nameDef;
+	int slot = -1; //frame index of nameDef, copied when nameDef is set
 
 	Type inferredType;
 	/**
@@ -39,6 +40,11 @@ public class LValue extends AST {
 	public Object visit(ASTVisitor v, Object arg) throws PLCCompilerException {
 		return v.visitLValue(this, arg);
 	}
+
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitLValue(this, arg);
+	}
 	public IToken getNameToken() {
 		return nameToken;
 	}
@@ -66,6 +72,14 @@ public class LValue extends AST {
 	}
 	public void setNameDef(NameDef nameDef) {
 		this.nameDef = nameDef;
+		this.slot = nameDef == null ? -1 : nameDef.getSlot();
+	}
+
+	/**
+	 * @return the frame index of the variable, see NameDef.getSlot()
+	 */
+	public int getSlot() {
+		return slot;
 	}
 
 	/* precondition:  namdDef != null */
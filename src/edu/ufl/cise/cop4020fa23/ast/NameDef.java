@@ -17,12 +17,13 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class NameDef extends AST {
+public sealed class NameDef extends AST permits SyntheticNameDef {
 	
 	final IToken typeToken;
 	final IToken identToken;
 	final Dimension dimension;	
 	String javaName;
+	int slot = -1; //index in the program's frame.  Set during type checking, -1 until then.
 	
 //	/**
 //	 * @param firstToken
@@ -43,23 +44,24 @@ public class NameDef extends AST {
 		return v.visitNameDef(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitNameDef(this, arg);
+	}
+
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(dimension, identToken, typeToken);
 		return result;
 	}
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		NameDef other = (NameDef) obj;
 		return Objects.equals(dimension, other.dimension) && Objects.equals(identToken, other.identToken)
@@ -96,22 +98,40 @@ public class NameDef extends AST {
 		return getIdentToken().text();
 	}
 
+	/**
+	 * @return the index of this variable in the frame of its program, or -1 if not type checked.
+	 * Slots are reused after the scope declaring a name closes, so a slot is only meaningful
+	 * while this name is in scope.
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
+	public void setSlot(int slot) {
+		this.slot = slot;
+		javaName = null;
+	}
+
 	@Override
 	public String toString() {
 		return "NameDef [type=" + getType() + ", name=" + getName() + ", dimension=" + dimension + "]";
 	}
 
-//	/**
-//	 * @param string
-//	 */
-//	public void setJavaName(String string) {
-//		javaName = string;
-//	}
-//
-//	public String getJavaName() {
-//		if (javaName != null) return javaName;
-//		throw new IllegalStateException("javaName not initialized");
-//	}
+	/**
+	 * @return the name of this variable in generated Java source.  The slot is appended, which
+	 * makes the name unique among the variables in scope and keeps it from being a Java keyword.
+	 */
+	public String getJavaName() {
+		if (javaName == null) {
+			if (slot < 0) throw new IllegalStateException("javaName not initialized");
+			javaName = javaName(getName(), slot);
+		}
+		return javaName;
+	}
+
+	public static String javaName(String name, int slot) {
+		return name + "$" + slot;
+	}
 
 	
 }
@@ -0,0 +1,69 @@
+/*Copyright 2023 by Beverly A Sanders
+ * 
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the 
+ * University of Florida during the fall semester 2023 as part of the course project.  
+ * 
+ * No other use is authorized. 
+ * 
+ * This code may not be posted on a public web site either during or after the course.  
+ */
+package edu.ufl.cise.cop4020fa23.ast;
+
+/**
+ * One constant for each concrete class of AST node, see AST.nodeKind().  Switching on it reaches
+ * the code for a node with a table jump instead of a virtual call to visit.
+ */
+public enum NodeKind {
+	ASSIGNMENT_STATEMENT(AssignmentStatement.class),
+	BINARY_EXPR(BinaryExpr.class),
+	BLOCK(Block.class),
+	BOOLEAN_LIT_EXPR(BooleanLitExpr.class),
+	CHANNEL_SELECTOR(ChannelSelector.class),
+	CONDITIONAL_EXPR(ConditionalExpr.class),
+	CONST_EXPR(ConstExpr.class),
+	DECLARATION(Declaration.class),
+	DIMENSION(Dimension.class),
+	DO_STATEMENT(DoStatement.class),
+	EXPANDED_PIXEL_EXPR(ExpandedPixelExpr.class),
+	GUARDED_BLOCK(GuardedBlock.class),
+	IDENT_EXPR(IdentExpr.class),
+	IF_STATEMENT(IfStatement.class),
+	LVALUE(LValue.class),
+	NAME_DEF(NameDef.class),
+	NUM_LIT_EXPR(NumLitExpr.class),
+	PIXEL_SELECTOR(PixelSelector.class),
+	POSTFIX_EXPR(PostfixExpr.class),
+	PROGRAM(Program.class),
+	RETURN_STATEMENT(ReturnStatement.class),
+	STATEMENT_BLOCK(StatementBlock.class),
+	STRING_LIT_EXPR(StringLitExpr.class),
+	SYNTHETIC_NAME_DEF(SyntheticNameDef.class),
+	UNARY_EXPR(UnaryExpr.class),
+	WRITE_STATEMENT(WriteStatement.class);
+
+	private final Class<? extends AST> nodeClass;
+
+	NodeKind(Class<? extends AST> nodeClass) {
+		this.nodeClass = nodeClass;
+	}
+
+	public Class<? extends AST> nodeClass() {
+		return nodeClass;
+	}
+
+	private static final ClassValue<NodeKind> KINDS = new ClassValue<>() {
+		@Override
+		protected NodeKind computeValue(Class<?> type) {
+			for (NodeKind kind : values()) {
+				if (kind.nodeClass == type) {
+					return kind;
+				}
+			}
+			throw new IllegalArgumentException("not an AST node class: " + type);
+		}
+	};
+
+	static NodeKind of(Class<? extends AST> nodeClass) {
+		return KINDS.get(nodeClass);
+	}
+}
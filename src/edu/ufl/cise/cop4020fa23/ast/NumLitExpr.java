@@ -12,7 +12,7 @@ package edu.ufl.cise.cop4020fa23.ast;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class NumLitExpr extends Expr {
+public final class NumLitExpr extends Expr {
 
 	/**
 	 * @param firstToken
@@ -26,6 +26,21 @@ public class NumLitExpr extends Expr {
 		return v.visitNumLitExpr(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitNumLitExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntNumLitExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanNumLitExpr(this, arg);
+	}
+
 	public String getText() {
 		return firstToken.text();
 	}
@@ -14,7 +14,7 @@ import java.util.Objects;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class PixelSelector extends AST {
+public final class PixelSelector extends AST {
 
 	final Expr xExpr;
 	final Expr yExpr;
@@ -24,6 +24,11 @@ public class PixelSelector extends AST {
 		return v.visitPixelSelector(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitPixelSelector(this, arg);
+	}
+
 	/**
 	 * @param firstToken
 	 * @param xExpr
@@ -36,18 +41,16 @@ public class PixelSelector extends AST {
 	}
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(xExpr, yExpr);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		PixelSelector other = (PixelSelector) obj;
 		return Objects.equals(xExpr, other.xExpr) && Objects.equals(yExpr, other.yExpr);
@@ -14,7 +14,7 @@ import java.util.Objects;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class PostfixExpr extends Expr {
+public final class PostfixExpr extends Expr {
 
 	final Expr primary;
 	final PixelSelector pixel;
@@ -39,18 +39,31 @@ public class PostfixExpr extends Expr {
 	}
 
 	@Override
-	public int hashCode() {
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitPostfixExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntPostfixExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanPostfixExpr(this, arg);
+	}
+
+	@Override
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(channel, pixel, primary);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		PostfixExpr other = (PostfixExpr) obj;
 		return Objects.equals(channel, other.channel) && Objects.equals(pixel, other.pixel)
@@ -19,7 +19,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class Program extends AST {
+public final class Program extends AST {
 
 	final IToken typeToken;
 	final IToken nameToken;
@@ -27,6 +27,7 @@ public class Program extends AST {
 	final Block block;
 	
 	Type type;
+	int frameSize; //number of slots needed for the variables of the program.  Set during type checking.
 	
 	/**
 	 * @param firstToken
@@ -49,23 +50,24 @@ public class Program extends AST {
 		return v.visitProgram(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitProgram(this, arg);
+	}
+
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(block, nameToken, params, typeToken);
 		return result;
 	}
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		Program other = (Program) obj;
 		return Objects.equals(block, other.block) && Objects.equals(nameToken, other.nameToken)
@@ -104,6 +106,16 @@ public class Program extends AST {
 	}
 
 
+	public int getFrameSize() {
+		return frameSize;
+	}
+
+
+	public void setFrameSize(int frameSize) {
+		this.frameSize = frameSize;
+	}
+
+
 	@Override
 	public String toString() {
 		return "Program [type=" + typeToken + ", name=" + nameToken.text() + ", params=" + params + ", block=" + block + "]";
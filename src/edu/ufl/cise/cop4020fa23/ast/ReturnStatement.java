@@ -17,7 +17,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class ReturnStatement extends Statement {
+public final class ReturnStatement extends Statement {
 	
 	final Expr e;
 	
@@ -39,12 +39,17 @@ public class ReturnStatement extends Statement {
 		return v.visitReturnStatement(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitReturnStatement(this, arg);
+	}
+
 
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(e);
 		return result;
 	}
@@ -52,12 +57,8 @@ public class ReturnStatement extends Statement {
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		ReturnStatement other = (ReturnStatement) obj;
 		return Objects.equals(e, other.e);
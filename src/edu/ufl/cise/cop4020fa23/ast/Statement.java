@@ -12,7 +12,8 @@ package edu.ufl.cise.cop4020fa23.ast;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.ast.Block.BlockElem;
 
-public abstract class Statement extends BlockElem {
+public abstract sealed class Statement extends BlockElem permits AssignmentStatement, DoStatement, IfStatement,
+		ReturnStatement, StatementBlock, WriteStatement {
 
 	public Statement(IToken firstToken) {
 		super(firstToken);
@@ -17,7 +17,7 @@ import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 /**
  * 
  */
-public class StatementBlock extends Statement {
+public final class StatementBlock extends Statement {
 
 	final Block block;
 	
@@ -37,23 +37,24 @@ public class StatementBlock extends Statement {
 		return v.visitBlockStatement(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitBlockStatement(this, arg);
+	}
+
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(block);
 		return result;
 	}
 
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		StatementBlock other = (StatementBlock) obj;
 		return Objects.equals(block, other.block);
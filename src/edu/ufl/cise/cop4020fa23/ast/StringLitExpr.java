@@ -13,7 +13,7 @@ package edu.ufl.cise.cop4020fa23.ast;
 import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class StringLitExpr extends Expr {
+public final class StringLitExpr extends Expr {
 
 	public StringLitExpr(IToken firstToken) {
 		super(firstToken);
@@ -24,6 +24,21 @@ public class StringLitExpr extends Expr {
 		return v.visitStringLitExpr(this, arg);
 	}
 
+	@Override
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitStringLitExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntStringLitExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanStringLitExpr(this, arg);
+	}
+
 	public String getText() {
 		return firstToken.text();
 	}
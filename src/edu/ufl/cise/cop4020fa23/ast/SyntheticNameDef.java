@@ -16,7 +16,7 @@ import edu.ufl.cise.cop4020fa23.IToken;
 /**
  * 
  */
-public class SyntheticNameDef extends NameDef {
+public final class SyntheticNameDef extends NameDef {
 
 	/** Declaration for implicitly declared variables.  This class is not used in the Parser */
 	
@@ -38,20 +38,16 @@ public class SyntheticNameDef extends NameDef {
 	}
 
 	@Override
-	public int hashCode() {
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(name);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj))
-			return false;
-		if (getClass() != obj.getClass())
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		SyntheticNameDef other = (SyntheticNameDef) obj;
 		return Objects.equals(name, other.name);
@@ -20,7 +20,8 @@ public enum Type {
 	IMAGE,
 	VOID,
 	PIXEL,
-	STRING;
+	STRING,
+	ERROR; //given to expressions that failed to type check when the checker collects diagnostics
 	
 	public static Type kind2type(Kind kind) {
 		return switch(kind) {
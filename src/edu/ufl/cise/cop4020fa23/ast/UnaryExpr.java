@@ -15,7 +15,7 @@ import edu.ufl.cise.cop4020fa23.IToken;
 import edu.ufl.cise.cop4020fa23.Kind;
 import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
 
-public class UnaryExpr extends Expr {
+public final class UnaryExpr extends Expr {
 
 	final IToken op;
 	final Expr e;
@@ -37,18 +37,31 @@ public class UnaryExpr extends Expr {
 	}
 
 	@Override
-	public int hashCode() {
+	public <R, A> R accept(GenericASTVisitor<R, A> v, A arg) throws PLCCompilerException {
+		return v.visitUnaryExpr(this, arg);
+	}
+
+	@Override
+	public <A> int acceptInt(IntExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitIntUnaryExpr(this, arg);
+	}
+
+	@Override
+	public <A> boolean acceptBoolean(BooleanExprVisitor<A> v, A arg) throws PLCCompilerException {
+		return v.visitBooleanUnaryExpr(this, arg);
+	}
+
+	@Override
+	protected int structuralHashCode() {
 		final int prime = 31;
-		int result = super.hashCode();
+		int result = super.structuralHashCode();
 		result = prime * result + Objects.hash(e, op);
 		return result;
 	}
 
 	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (!super.equals(obj) || (getClass() != obj.getClass()))
+	protected boolean structuralEquals(AST obj) {
+		if (!super.structuralEquals(obj))
 			return false;
 		UnaryExpr other = (UnaryExpr) obj;
 		return Objects.equals(e, other.e) && Objects.equals(op, other.op);
@@ -58,6 +71,10 @@ public class UnaryExpr extends Expr {
 		return op.kind();
 	}
 
+	public IToken getOpToken() {
+		return op;
+	}
+
 	public Expr getExpr() {
 		return e;
 	}
@@ -0,0 +1,53 @@
+package edu.ufl.cise.cop4020fa23.codegen;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+
+/**
+ * Compiles a type checked Program to JVM bytecode, with no Java source in between, and loads it
+ * as a hidden class.  The class has one static method named after the program, with its
+ * parameters; see BytecodeGenerator for the mapping of types and variables.
+ *
+ * Hidden classes are not registered by name with their class loader, so a program may be compiled
+ * any number of times, and a class that is no longer referenced can be unloaded.
+ */
+public final class BytecodeCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private BytecodeCompiler() {
+    }
+
+    /**
+     * @return the class file for program
+     */
+    public static byte[] generate(Program program) throws PLCCompilerException {
+        if (program.getType() == null) {
+            throw new IllegalArgumentException("program " + program.getName() + " has not been type checked");
+        }
+        // a hidden class must be in the package of the lookup that defines it
+        ClassWriter classWriter = new ClassWriter(BytecodeCompiler.class.getPackageName().replace('.', '/') + "/" + program.getName());
+        ClassWriter.Code code = classWriter.method(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_STATIC, program.getName(),
+                BytecodeGenerator.methodDescriptor(program));
+        program.accept(new BytecodeGenerator(), code);
+        code.end();
+        return classWriter.toByteArray();
+    }
+
+    public static CompiledProgram compile(Program program) throws PLCCompilerException {
+        byte[] classFile = generate(program);
+        try {
+            Class<?> hidden = LOOKUP.defineHiddenClass(classFile, true).lookupClass();
+            MethodType type = MethodType.fromMethodDescriptorString(BytecodeGenerator.methodDescriptor(program),
+                    BytecodeCompiler.class.getClassLoader());
+            MethodHandle handle = LOOKUP.findStatic(hidden, program.getName(), type);
+            return new CompiledProgram(program.getName(), handle);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException("compiler bug: cannot load the class generated for " + program.getName(), e);
+        }
+    }
+}
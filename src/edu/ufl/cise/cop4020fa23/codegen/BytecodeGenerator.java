@@ -0,0 +1,709 @@
+package edu.ufl.cise.cop4020fa23.codegen;
+
+import static edu.ufl.cise.cop4020fa23.codegen.ClassWriter.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.ufl.cise.cop4020fa23.DeadCodeEliminator;
+import edu.ufl.cise.cop4020fa23.Kind;
+import edu.ufl.cise.cop4020fa23.SourceLocation;
+import edu.ufl.cise.cop4020fa23.TypeCheckVisitor;
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.codegen.ClassWriter.Code;
+import edu.ufl.cise.cop4020fa23.codegen.ClassWriter.Label;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.runtime.PixelOps;
+
+/*
+ * Emits the code of a Program as one static method, with the same behavior as the Interpreter.
+ *
+ * Parameters are the first locals and every variable uses its frame slot as its local.  Int,
+ * pixel and boolean values are ints on the JVM, strings are String and images Raster.  Each
+ * expression visit leaves the value of the expression on the operand stack; each statement visit
+ * leaves the stack as it found it.  A boolean expression pushes 0 or 1, which a guard tests with
+ * ifeq.  Operations that are not a JVM instruction call the runtime classes.
+ *
+ * Like the Interpreter, a runtime error is reported at the statement that fails: the code of each
+ * statement has an exception handler that gives a PLCRuntimeException without a location the one
+ * of the statement, and reads of image variables are checked with Checks.  A generator keeps the
+ * handlers of the method it emits, so it is used for one program.
+ */
+final class BytecodeGenerator implements GenericASTVisitor<Void, Code> {
+
+    static final String RASTER = "edu/ufl/cise/cop4020fa23/runtime/Raster";
+    static final String PIXEL_OPS = "edu/ufl/cise/cop4020fa23/runtime/PixelOps";
+    static final String INT_OPS = "edu/ufl/cise/cop4020fa23/runtime/IntOps";
+    static final String CONSOLE_IO = "edu/ufl/cise/cop4020fa23/runtime/ConsoleIO";
+    static final String CHECKS = "edu/ufl/cise/cop4020fa23/runtime/Checks";
+    static final String RUNTIME_EXCEPTION = "edu/ufl/cise/cop4020fa23/exceptions/PLCRuntimeException";
+    static final String KIND = "edu/ufl/cise/cop4020fa23/Kind";
+    static final String KIND_DESCRIPTOR = "L" + KIND + ";";
+    static final String RASTER_DESCRIPTOR = "L" + RASTER + ";";
+
+    // the start of the code that locates an exception thrown by a statement
+    private record Handler(Label label, SourceLocation location) {
+    }
+
+    private final List<Handler> handlers = new ArrayList<>();
+
+    // the location of the statement being generated
+    private SourceLocation location;
+
+    static String descriptor(Type type) {
+        return switch (type) {
+            case INT, PIXEL -> "I";
+            case BOOLEAN -> "Z";
+            case STRING -> "Ljava/lang/String;";
+            case IMAGE -> RASTER_DESCRIPTOR;
+            case VOID -> "V";
+            default -> throw new IllegalArgumentException("no JVM type for " + type);
+        };
+    }
+
+    static String methodDescriptor(Program program) {
+        StringBuilder sb = new StringBuilder("(");
+        for (NameDef param : program.getParams()) {
+            sb.append(descriptor(param.getType()));
+        }
+        return sb.append(')').append(descriptor(program.getType())).toString();
+    }
+
+    private static boolean isReference(Type type) {
+        return type == Type.STRING || type == Type.IMAGE;
+    }
+
+    private static void load(Code code, Type type, int slot) {
+        code.var(isReference(type) ? ALOAD : ILOAD, slot);
+    }
+
+    private static void store(Code code, Type type, int slot) {
+        code.var(isReference(type) ? ASTORE : ISTORE, slot);
+    }
+
+    private static void kind(Code code, Kind kind) {
+        code.getStatic(KIND, kind.name(), KIND_DESCRIPTOR);
+    }
+
+    // pushes the value of expr assigned to a pixel, where an int gives a gray pixel
+    private void pixelValue(Expr expr, Code code) throws PLCCompilerException {
+        expr.accept(this, code);
+        if (expr.getType() == Type.INT) {
+            code.invoke(INVOKESTATIC, PIXEL_OPS, "gray", "(I)I");
+        }
+    }
+
+    // pushes the value of expr assigned to an image, read from the location for a string
+    private void imageValue(Expr expr, Code code) throws PLCCompilerException {
+        expr.accept(this, code);
+        if (expr.getType() == Type.STRING) {
+            code.invoke(INVOKESTATIC, RASTER, "read", "(Ljava/lang/String;)" + RASTER_DESCRIPTOR);
+        }
+    }
+
+    // pushes the line and column of the statement being generated
+    private void location(Code code) {
+        code.intConst(location.line());
+        code.intConst(location.column());
+    }
+
+    // pushes 1 if the comparison jump is not taken, else 0
+    private static void booleanFromJump(Code code, int jumpIfFalse, int stackDelta) {
+        Label isFalse = new Label();
+        Label end = new Label();
+        code.jump(jumpIfFalse, isFalse, stackDelta);
+        code.intConst(1);
+        code.jump(GOTO, end, 0);
+        code.mark(isFalse);
+        code.intConst(0);
+        code.mark(end);
+    }
+
+
+    /* ======================= program and statements ======================= */
+
+    @Override
+    public Void visitProgram(Program program, Code code) throws PLCCompilerException {
+        List<NameDef> params = program.getParams();
+        for (int i = 0; i < params.size(); i++) {
+            if (params.get(i).getSlot() != i) {
+                throw new IllegalStateException("compiler bug: parameter " + params.get(i).getName() + " is not in slot " + i);
+            }
+        }
+        code.reserveLocals(program.getFrameSize());
+        program.getBlock().accept(this, code);
+        // reached when the program does not end with a return
+        switch (program.getType()) {
+            case VOID -> code.op(RETURN, 0);
+            case STRING, IMAGE -> {
+                code.op(ACONST_NULL, 1);
+                code.op(ARETURN, -1);
+            }
+            default -> {
+                code.intConst(0);
+                code.op(IRETURN, -1);
+            }
+        }
+        for (Handler handler : handlers) {
+            code.markHandler(handler.label());
+            code.intConst(handler.location().line());
+            code.intConst(handler.location().column());
+            code.invoke(INVOKESTATIC, CHECKS, "located", "(L" + RUNTIME_EXCEPTION + ";II)L" + RUNTIME_EXCEPTION + ";");
+            code.op(ATHROW, -1);
+        }
+        return null;
+    }
+
+    // the handler of a statement is added after the ones of the statements it contains, so these
+    // are tried first and locate an exception at the innermost statement
+    @Override
+    public Void visitBlock(Block block, Code code) throws PLCCompilerException {
+        SourceLocation outer = location;
+        for (Block.BlockElem elem : block.getElems()) {
+            location = TypeCheckVisitor.locate(elem);
+            Label start = new Label();
+            Label end = new Label();
+            Label handler = new Label();
+            code.mark(start);
+            elem.accept(this, code);
+            code.mark(end);
+            if (code.handler(start, end, handler, RUNTIME_EXCEPTION)) {
+                handlers.add(new Handler(handler, location));
+            }
+        }
+        location = outer;
+        return null;
+    }
+
+    @Override
+    public Void visitDeclaration(Declaration declaration, Code code) throws PLCCompilerException {
+        NameDef nameDef = declaration.getNameDef();
+        Expr initializer = declaration.getInitializer();
+        Type type = nameDef.getType();
+        if (type == Type.IMAGE) {
+            Dimension dimension = nameDef.getDimension();
+            if (dimension != null && initializer == null) {
+                code.newObject(RASTER);
+                code.op(DUP, 1);
+                dimension.getWidth().accept(this, code);
+                dimension.getHeight().accept(this, code);
+                code.invoke(INVOKESPECIAL, RASTER, "<init>", "(II)V");
+            } else if (dimension != null) {
+                imageValue(initializer, code);
+                dimension.getWidth().accept(this, code);
+                dimension.getHeight().accept(this, code);
+                code.invoke(INVOKEVIRTUAL, RASTER, "resized", "(II)" + RASTER_DESCRIPTOR);
+            } else if (initializer != null) {
+                imageValue(initializer, code);
+                code.invoke(INVOKEVIRTUAL, RASTER, "copy", "()" + RASTER_DESCRIPTOR);
+            } else {
+                code.op(ACONST_NULL, 1);
+            }
+        } else if (initializer != null) {
+            initializer.accept(this, code);
+        } else if (isReference(type)) {
+            code.op(ACONST_NULL, 1);
+        } else {
+            // the local may hold a value from an earlier iteration or another block
+            code.intConst(0);
+        }
+        store(code, type, nameDef.getSlot());
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentStatement(AssignmentStatement assignmentStatement, Code code) throws PLCCompilerException {
+        LValue lValue = assignmentStatement.getlValue();
+        Expr e = assignmentStatement.getE();
+        int slot = lValue.getSlot();
+        ChannelSelector channel = lValue.getChannelSelector();
+        switch (lValue.getVarType()) {
+            case INT, BOOLEAN, STRING -> {
+                e.accept(this, code);
+                store(code, lValue.getVarType(), slot);
+            }
+            case PIXEL -> {
+                if (channel == null) {
+                    pixelValue(e, code);
+                } else {
+                    code.var(ILOAD, slot);
+                    kind(code, channel.color());
+                    e.accept(this, code);
+                    code.invoke(INVOKESTATIC, PIXEL_OPS, "withChannel", "(I" + KIND_DESCRIPTOR + "I)I");
+                }
+                code.var(ISTORE, slot);
+            }
+            case IMAGE -> assignImage(lValue, e, code);
+            default -> throw new IllegalStateException("compiler bug: assignment to " + lValue.getName() + " of type " + lValue.getVarType());
+        }
+        return null;
+    }
+
+    private void assignImage(LValue lValue, Expr e, Code code) throws PLCCompilerException {
+        int slot = lValue.getSlot();
+        PixelSelector pixel = lValue.getPixelSelector();
+        ChannelSelector channel = lValue.getChannelSelector();
+        if (pixel == null && channel == null && (e.getType() == Type.IMAGE || e.getType() == Type.STRING)) {
+            code.var(ALOAD, slot);
+            imageValue(e, code);
+            code.invoke(INVOKESTATIC, RASTER, "assign", "(" + RASTER_DESCRIPTOR + RASTER_DESCRIPTOR + ")" + RASTER_DESCRIPTOR);
+            code.var(ASTORE, slot);
+            return;
+        }
+        code.var(ALOAD, slot);
+        code.stringConst(lValue.getName());
+        location(code);
+        code.invoke(INVOKESTATIC, CHECKS, "hasSize", "(" + RASTER_DESCRIPTOR + "Ljava/lang/String;II)V");
+        if (pixel == null) {
+            code.var(ALOAD, slot);
+            if (channel == null) {
+                pixelValue(e, code);
+                code.invoke(INVOKEVIRTUAL, RASTER, "fill", "(I)V");
+            } else {
+                kind(code, channel.color());
+                e.accept(this, code);
+                code.invoke(INVOKEVIRTUAL, RASTER, "setChannel", "(" + KIND_DESCRIPTOR + "I)V");
+            }
+            return;
+        }
+        Expr xExpr = pixel.xExpr();
+        Expr yExpr = pixel.yExpr();
+        boolean loopX = isImplicit(xExpr);
+        boolean loopY = isImplicit(yExpr);
+        if (loopX && loopY) {
+            pixelLoops(slot, ((IdentExpr) xExpr).getSlot(), ((IdentExpr) yExpr).getSlot(), channel, e, code);
+            return;
+        }
+        // for (x = 0; x < target.width(); x++) for (y = 0; y < target.height(); y++) target.set(x, y, e)
+        // where a coordinate that is not implicit is evaluated once, before the loops
+        int x = coordinate(xExpr, loopX, code);
+        int y = coordinate(yExpr, loopY, code);
+        Label xTest = new Label();
+        Label xEnd = new Label();
+        Label yTest = new Label();
+        Label yEnd = new Label();
+        if (loopX) {
+            startLoop(code, slot, x, "width", xTest, xEnd);
+        }
+        if (loopY) {
+            startLoop(code, slot, y, "height", yTest, yEnd);
+        }
+        code.var(ALOAD, slot);
+        code.var(ILOAD, x);
+        code.var(ILOAD, y);
+        if (channel == null) {
+            pixelValue(e, code);
+        } else {
+            code.var(ALOAD, slot);
+            code.var(ILOAD, x);
+            code.var(ILOAD, y);
+            code.invoke(INVOKEVIRTUAL, RASTER, "get", "(II)I");
+            kind(code, channel.color());
+            e.accept(this, code);
+            code.invoke(INVOKESTATIC, PIXEL_OPS, "withChannel", "(I" + KIND_DESCRIPTOR + "I)I");
+        }
+        code.invoke(INVOKEVIRTUAL, RASTER, "set", "(III)V");
+        if (loopY) {
+            endLoop(code, y, yTest, yEnd);
+        }
+        if (loopX) {
+            endLoop(code, x, xTest, xEnd);
+        }
+    }
+
+    /*
+     * im[x,y] = e, as loops over the int[] of im that index it directly:
+     *
+     *   int[] pixels = im.pixels(); int width = im.width(); int height = im.height();
+     *   for (x = 0; x < width; x++) for (y = 0, i = x; y < height; y++, i += width) pixels[i] = e;
+     *
+     * As e may read pixels of im, x is the outer loop like in the Interpreter, unless e cannot fail
+     * and reads no image; then the rows are the outer loop, with i = row + x.
+     */
+    private void pixelLoops(int image, int x, int y, ChannelSelector channel, Expr e, Code code) throws PLCCompilerException {
+        boolean byRows = DeadCodeEliminator.cannotFail(e) && DeadCodeEliminator.readsNoImage(e);
+        int pixels = code.newLocal();
+        int width = code.newLocal();
+        int height = code.newLocal();
+        int index = code.newLocal();
+        code.var(ALOAD, image);
+        code.invoke(INVOKEVIRTUAL, RASTER, "pixels", "()[I");
+        code.var(ASTORE, pixels);
+        code.var(ALOAD, image);
+        code.invoke(INVOKEVIRTUAL, RASTER, "width", "()I");
+        code.var(ISTORE, width);
+        code.var(ALOAD, image);
+        code.invoke(INVOKEVIRTUAL, RASTER, "height", "()I");
+        code.var(ISTORE, height);
+        int outer = byRows ? y : x;
+        int inner = byRows ? x : y;
+        Label outerTest = new Label();
+        Label outerEnd = new Label();
+        Label innerTest = new Label();
+        Label innerEnd = new Label();
+        if (byRows) {
+            // the index of the start of the row
+            code.intConst(0);
+            code.var(ISTORE, index);
+        }
+        startLoop(code, outer, byRows ? height : width, outerTest, outerEnd);
+        if (!byRows) {
+            code.var(ILOAD, x);
+            code.var(ISTORE, index);
+        }
+        startLoop(code, inner, byRows ? width : height, innerTest, innerEnd);
+        code.var(ALOAD, pixels);
+        code.var(ILOAD, index);
+        if (byRows) {
+            code.var(ILOAD, x);
+            code.op(IADD, -1);
+        }
+        if (channel == null) {
+            pixelValue(e, code);
+        } else {
+            code.op(DUP2, 2);
+            code.op(IALOAD, -1);
+            kind(code, channel.color());
+            e.accept(this, code);
+            code.invoke(INVOKESTATIC, PIXEL_OPS, "withChannel", "(I" + KIND_DESCRIPTOR + "I)I");
+        }
+        code.op(IASTORE, -3);
+        if (!byRows) {
+            step(code, index, width);
+        }
+        endLoop(code, inner, innerTest, innerEnd);
+        if (byRows) {
+            step(code, index, width);
+        }
+        endLoop(code, outer, outerTest, outerEnd);
+    }
+
+    // counter = 0; while (counter < bound) ...
+    private static void startLoop(Code code, int counter, int bound, Label test, Label end) {
+        code.intConst(0);
+        code.var(ISTORE, counter);
+        code.mark(test);
+        code.var(ILOAD, counter);
+        code.var(ILOAD, bound);
+        code.jump(IF_ICMPGE, end, -2);
+    }
+
+    private static void step(Code code, int index, int width) {
+        code.var(ILOAD, index);
+        code.var(ILOAD, width);
+        code.op(IADD, -1);
+        code.var(ISTORE, index);
+    }
+
+    // a coordinate that is a name bound by the assignment itself, like x in im[x,y] = ...
+    private static boolean isImplicit(Expr coordinate) {
+        return coordinate instanceof IdentExpr identExpr && identExpr.getNameDef() instanceof SyntheticNameDef;
+    }
+
+    // the local holding a coordinate: the slot of an implicit name, or a new local with its value
+    private int coordinate(Expr expr, boolean implicit, Code code) throws PLCCompilerException {
+        if (implicit) {
+            return ((IdentExpr) expr).getSlot();
+        }
+        int local = code.newLocal();
+        expr.accept(this, code);
+        code.var(ISTORE, local);
+        return local;
+    }
+
+    private static void startLoop(Code code, int image, int counter, String bound, Label test, Label end) {
+        code.intConst(0);
+        code.var(ISTORE, counter);
+        code.mark(test);
+        code.var(ILOAD, counter);
+        code.var(ALOAD, image);
+        code.invoke(INVOKEVIRTUAL, RASTER, bound, "()I");
+        code.jump(IF_ICMPGE, end, -2);
+    }
+
+    private static void endLoop(Code code, int counter, Label test, Label end) {
+        code.var(ILOAD, counter);
+        code.intConst(1);
+        code.op(IADD, -1);
+        code.var(ISTORE, counter);
+        code.jump(GOTO, test, 0);
+        code.mark(end);
+    }
+
+    @Override
+    public Void visitWriteStatement(WriteStatement writeStatement, Code code) throws PLCCompilerException {
+        Expr e = writeStatement.getExpr();
+        e.accept(this, code);
+        switch (e.getType()) {
+            case INT -> code.invoke(INVOKESTATIC, CONSOLE_IO, "write", "(I)V");
+            case PIXEL -> code.invoke(INVOKESTATIC, CONSOLE_IO, "writePixel", "(I)V");
+            case BOOLEAN -> code.invoke(INVOKESTATIC, CONSOLE_IO, "write", "(Z)V");
+            default -> code.invoke(INVOKESTATIC, CONSOLE_IO, "write", "(Ljava/lang/Object;)V");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIfStatement(IfStatement ifStatement, Code code) throws PLCCompilerException {
+        Label end = new Label();
+        for (GuardedBlock guardedBlock : ifStatement.getGuardedBlocks()) {
+            Label next = new Label();
+            guardedBlock.getGuard().accept(this, code);
+            code.jump(IFEQ, next, -1);
+            guardedBlock.getBlock().accept(this, code);
+            code.jump(GOTO, end, 0);
+            code.mark(next);
+        }
+        code.mark(end);
+        return null;
+    }
+
+    // after running a guarded block, all the guards are tested again from the first
+    @Override
+    public Void visitDoStatement(DoStatement doStatement, Code code) throws PLCCompilerException {
+        Label top = new Label();
+        code.mark(top);
+        for (GuardedBlock guardedBlock : doStatement.getGuardedBlocks()) {
+            Label next = new Label();
+            guardedBlock.getGuard().accept(this, code);
+            code.jump(IFEQ, next, -1);
+            guardedBlock.getBlock().accept(this, code);
+            code.jump(GOTO, top, 0);
+            code.mark(next);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStatement(ReturnStatement returnStatement, Code code) throws PLCCompilerException {
+        Expr e = returnStatement.getE();
+        e.accept(this, code);
+        code.op(isReference(e.getType()) ? ARETURN : IRETURN, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitBlockStatement(StatementBlock statementBlock, Code code) throws PLCCompilerException {
+        return statementBlock.getBlock().accept(this, code);
+    }
+
+    // the nodes below are generated by the node containing them
+
+    @Override
+    public Void visitGuardedBlock(GuardedBlock guardedBlock, Code code) {
+        throw new IllegalStateException("compiler bug: GuardedBlock is handled by its parent");
+    }
+
+    @Override
+    public Void visitNameDef(NameDef nameDef, Code code) {
+        throw new IllegalStateException("compiler bug: NameDef is handled by its parent");
+    }
+
+    @Override
+    public Void visitDimension(Dimension dimension, Code code) {
+        throw new IllegalStateException("compiler bug: Dimension is handled by its parent");
+    }
+
+    @Override
+    public Void visitLValue(LValue lValue, Code code) {
+        throw new IllegalStateException("compiler bug: LValue is handled by its parent");
+    }
+
+    @Override
+    public Void visitPixelSelector(PixelSelector pixelSelector, Code code) {
+        throw new IllegalStateException("compiler bug: PixelSelector is handled by its parent");
+    }
+
+    @Override
+    public Void visitChannelSelector(ChannelSelector channelSelector, Code code) {
+        throw new IllegalStateException("compiler bug: ChannelSelector is handled by its parent");
+    }
+
+
+    /* ======================= expressions ======================= */
+
+    @Override
+    public Void visitBinaryExpr(BinaryExpr binaryExpr, Code code) throws PLCCompilerException {
+        Kind op = binaryExpr.getOpKind();
+        Expr left = binaryExpr.getLeftExpr();
+        Expr right = binaryExpr.getRightExpr();
+        switch (binaryExpr.getType()) {
+            case STRING -> {
+                left.accept(this, code);
+                code.invoke(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;");
+                right.accept(this, code);
+                code.invoke(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;");
+                code.invoke(INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;");
+            }
+            case IMAGE -> {
+                left.accept(this, code);
+                kind(code, op);
+                right.accept(this, code);
+                code.invoke(INVOKEVIRTUAL, RASTER, right.getType() == Type.INT ? "binaryScalar" : "binary",
+                        "(" + KIND_DESCRIPTOR + (right.getType() == Type.INT ? "I" : RASTER_DESCRIPTOR) + ")" + RASTER_DESCRIPTOR);
+            }
+            case PIXEL -> {
+                kind(code, op);
+                left.accept(this, code);
+                right.accept(this, code);
+                code.invoke(INVOKESTATIC, PIXEL_OPS, right.getType() == Type.PIXEL ? "binary" : "binaryScalar",
+                        "(" + KIND_DESCRIPTOR + "II)I");
+            }
+            case INT -> {
+                left.accept(this, code);
+                right.accept(this, code);
+                switch (op) {
+                    case PLUS -> code.op(IADD, -1);
+                    case MINUS -> code.op(ISUB, -1);
+                    case TIMES -> code.op(IMUL, -1);
+                    case DIV -> code.invoke(INVOKESTATIC, INT_OPS, "div", "(II)I");
+                    case EXP -> code.invoke(INVOKESTATIC, INT_OPS, "pow", "(II)I");
+                    default -> throw new IllegalStateException("compiler bug: int operator " + op);
+                }
+            }
+            case BOOLEAN -> booleanBinaryExpr(op, left, right, code);
+            default -> throw new IllegalStateException("compiler bug: binary expression of type " + binaryExpr.getType());
+        }
+        return null;
+    }
+
+    private void booleanBinaryExpr(Kind op, Expr left, Expr right, Code code) throws PLCCompilerException {
+        switch (op) {
+            case AND, OR, PLUS -> {
+                // + on booleans is taken as or, as by the Interpreter
+                int shortCircuit = op == Kind.AND ? IFEQ : IFNE;
+                Label decided = new Label();
+                Label end = new Label();
+                left.accept(this, code);
+                code.jump(shortCircuit, decided, -1);
+                right.accept(this, code);
+                code.jump(shortCircuit, decided, -1);
+                code.intConst(op == Kind.AND ? 1 : 0);
+                code.jump(GOTO, end, 0);
+                code.mark(decided);
+                code.intConst(op == Kind.AND ? 0 : 1);
+                code.mark(end);
+            }
+            case EQ -> {
+                left.accept(this, code);
+                right.accept(this, code);
+                if (isReference(left.getType())) {
+                    code.invoke(INVOKESTATIC, "java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+                } else {
+                    booleanFromJump(code, IF_ICMPNE, -2);
+                }
+            }
+            default -> {
+                left.accept(this, code);
+                right.accept(this, code);
+                int jumpIfFalse = switch (op) {
+                    case LT -> IF_ICMPGE;
+                    case GT -> IF_ICMPLE;
+                    case LE -> IF_ICMPGT;
+                    case GE -> IF_ICMPLT;
+                    default -> throw new IllegalStateException("compiler bug: boolean operator " + op);
+                };
+                booleanFromJump(code, jumpIfFalse, -2);
+            }
+        }
+    }
+
+    @Override
+    public Void visitUnaryExpr(UnaryExpr unaryExpr, Code code) throws PLCCompilerException {
+        unaryExpr.getExpr().accept(this, code);
+        switch (unaryExpr.getOp()) {
+            case MINUS -> code.op(INEG, 0);
+            case BANG -> {
+                code.intConst(1);
+                code.op(IXOR, -1);
+            }
+            case RES_width -> code.invoke(INVOKEVIRTUAL, RASTER, "width", "()I");
+            case RES_height -> code.invoke(INVOKEVIRTUAL, RASTER, "height", "()I");
+            default -> throw new IllegalStateException("compiler bug: unary operator " + unaryExpr.getOp());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitConditionalExpr(ConditionalExpr conditionalExpr, Code code) throws PLCCompilerException {
+        Label isFalse = new Label();
+        Label end = new Label();
+        conditionalExpr.getGuardExpr().accept(this, code);
+        code.jump(IFEQ, isFalse, -1);
+        conditionalExpr.getTrueExpr().accept(this, code);
+        code.jump(GOTO, end, 0);
+        code.mark(isFalse);
+        conditionalExpr.getFalseExpr().accept(this, code);
+        code.mark(end);
+        return null;
+    }
+
+    @Override
+    public Void visitIdentExpr(IdentExpr identExpr, Code code) {
+        load(code, identExpr.getType(), identExpr.getSlot());
+        if (identExpr.getType() == Type.IMAGE) {
+            code.stringConst(identExpr.getName());
+            location(code);
+            code.invoke(INVOKESTATIC, CHECKS, "value", "(" + RASTER_DESCRIPTOR + "Ljava/lang/String;II)" + RASTER_DESCRIPTOR);
+        }
+        return null;
+    }
+
+    // image[x,y] is a PIXEL, image[x,y]:c and pixel:c are INT, image:c is an IMAGE
+    @Override
+    public Void visitPostfixExpr(PostfixExpr postfixExpr, Code code) throws PLCCompilerException {
+        Expr primary = postfixExpr.primary();
+        PixelSelector pixel = postfixExpr.pixel();
+        ChannelSelector channel = postfixExpr.channel();
+        primary.accept(this, code);
+        if (pixel != null) {
+            pixel.xExpr().accept(this, code);
+            pixel.yExpr().accept(this, code);
+            code.invoke(INVOKEVIRTUAL, RASTER, "get", "(II)I");
+        }
+        if (channel != null) {
+            kind(code, channel.color());
+            if (postfixExpr.getType() == Type.IMAGE) {
+                code.invoke(INVOKEVIRTUAL, RASTER, "channel", "(" + KIND_DESCRIPTOR + ")" + RASTER_DESCRIPTOR);
+            } else {
+                code.invoke(INVOKESTATIC, PIXEL_OPS, "channel", "(I" + KIND_DESCRIPTOR + ")I");
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitStringLitExpr(StringLitExpr stringLitExpr, Code code) {
+        String text = stringLitExpr.getText();
+        code.stringConst(text.substring(1, text.length() - 1));
+        return null;
+    }
+
+    @Override
+    public Void visitNumLitExpr(NumLitExpr numLitExpr, Code code) {
+        code.intConst(Integer.parseInt(numLitExpr.getText()));
+        return null;
+    }
+
+    @Override
+    public Void visitBooleanLitExpr(BooleanLitExpr booleanLitExpr, Code code) {
+        code.intConst(booleanLitExpr.getText().equals("TRUE") ? 1 : 0);
+        return null;
+    }
+
+    @Override
+    public Void visitConstExpr(ConstExpr constExpr, Code code) {
+        String name = constExpr.getName();
+        code.intConst(name.equals("Z") ? 255 : PixelOps.constant(name));
+        return null;
+    }
+
+    @Override
+    public Void visitExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Code code) throws PLCCompilerException {
+        expandedPixelExpr.getRed().accept(this, code);
+        expandedPixelExpr.getGreen().accept(this, code);
+        expandedPixelExpr.getBlue().accept(this, code);
+        code.invoke(INVOKESTATIC, PIXEL_OPS, "pack", "(III)I");
+        return null;
+    }
+}
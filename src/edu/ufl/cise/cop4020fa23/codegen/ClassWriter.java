@@ -0,0 +1,436 @@
+package edu.ufl.cise.cop4020fa23.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of the class file format (JVMS chapter 4) to write a class of static methods
+ * without a library.  The class file version is 49, which needs no StackMapTable: the verifier
+ * infers the types of the stack and locals itself, so the generator only has to count the depth
+ * of the operand stack (Code.maxStack) and may reuse a local for values of different types.
+ */
+final class ClassWriter {
+
+    static final int VERSION = 49;
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    // opcodes used by BytecodeGenerator
+    static final int ACONST_NULL = 0x01, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11, LDC = 0x12, LDC_W = 0x13;
+    static final int ILOAD = 0x15, ALOAD = 0x19, IALOAD = 0x2e, ISTORE = 0x36, ASTORE = 0x3a, IASTORE = 0x4f;
+    static final int POP = 0x57, DUP = 0x59, DUP2 = 0x5c, SWAP = 0x5f;
+    static final int IADD = 0x60, ISUB = 0x64, IMUL = 0x68, INEG = 0x74, IXOR = 0x82;
+    static final int IFEQ = 0x99, IFNE = 0x9a;
+    static final int IF_ICMPEQ = 0x9f, IF_ICMPNE = 0xa0, IF_ICMPLT = 0xa1, IF_ICMPGE = 0xa2, IF_ICMPGT = 0xa3, IF_ICMPLE = 0xa4;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac, ARETURN = 0xb0, RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2, INVOKEVIRTUAL = 0xb6, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8;
+    static final int NEW = 0xbb, ATHROW = 0xbf, WIDE = 0xc4;
+
+    private final String name;
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private int poolCount = 1;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * @param name internal name of the class, like java/lang/Object
+     */
+    ClassWriter(String name) {
+        this.name = name;
+    }
+
+    /* ======================= constant pool ======================= */
+
+    // Returns the index of the entry described by key, adding it with write if it is new.
+    private int entry(String key, PoolWriter write) {
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            write.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (poolCount > 0xFFFF) {
+            throw new IllegalStateException("constant pool of " + name + " is too large");
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    private interface PoolWriter {
+        void write() throws IOException;
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, () -> {
+            pool.writeByte(1);
+            pool.writeUTF(value);
+        });
+    }
+
+    int classRef(String internalName) {
+        int nameIndex = utf8(internalName);
+        return entry("C" + internalName, () -> {
+            pool.writeByte(7);
+            pool.writeShort(nameIndex);
+        });
+    }
+
+    int string(String value) {
+        int valueIndex = utf8(value);
+        return entry("S" + value, () -> {
+            pool.writeByte(8);
+            pool.writeShort(valueIndex);
+        });
+    }
+
+    int integer(int value) {
+        return entry("I" + value, () -> {
+            pool.writeByte(3);
+            pool.writeInt(value);
+        });
+    }
+
+    private int nameAndType(String memberName, String descriptor) {
+        int nameIndex = utf8(memberName);
+        int descriptorIndex = utf8(descriptor);
+        return entry("N" + memberName + " " + descriptor, () -> {
+            pool.writeByte(12);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        });
+    }
+
+    private int memberRef(int tag, String owner, String memberName, String descriptor) {
+        int classIndex = classRef(owner);
+        int nameAndTypeIndex = nameAndType(memberName, descriptor);
+        return entry(tag + owner + "." + memberName + " " + descriptor, () -> {
+            pool.writeByte(tag);
+            pool.writeShort(classIndex);
+            pool.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    int fieldRef(String owner, String fieldName, String descriptor) {
+        return memberRef(9, owner, fieldName, descriptor);
+    }
+
+    int methodRef(String owner, String methodName, String descriptor) {
+        return memberRef(10, owner, methodName, descriptor);
+    }
+
+    /* ======================= class ======================= */
+
+    /**
+     * Starts a method, whose parameters occupy the first locals.  Its code is added to the class
+     * by Code.end().
+     */
+    Code method(int access, String methodName, String descriptor) {
+        return new Code(access, methodName, descriptor);
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int thisIndex = classRef(name);
+            int superIndex = classRef("java/lang/Object");
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            pool.flush();
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // slots taken on the operand stack by the arguments and the result of a method descriptor
+    static int[] argumentAndResultSizes(String descriptor) {
+        int arguments = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            arguments += c == 'J' || c == 'D' ? 2 : 1;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+        }
+        char result = descriptor.charAt(i + 1);
+        return new int[] {arguments, result == 'V' ? 0 : result == 'J' || result == 'D' ? 2 : 1};
+    }
+
+
+    /**
+     * A position in the code, the target of jumps.  The depth of the operand stack at a label is
+     * taken from the first jump to it.
+     */
+    static final class Label {
+        private int position = -1;
+        private int stack = -1;
+        private int[] jumps = new int[2];
+        private int jumpCount;
+    }
+
+    /**
+     * The code of a method.  Each instruction is given with its effect on the depth of the operand
+     * stack, except calls and field accesses, whose effect is found from the descriptor.
+     */
+    final class Code {
+        private final int access;
+        private final String methodName;
+        private final String descriptor;
+        private byte[] code = new byte[256];
+        private int length;
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+        // start, end and handler labels and the class index of each entry of the exception table
+        private final List<Label> handlerLabels = new ArrayList<>();
+        private final List<Integer> catchTypes = new ArrayList<>();
+
+        private Code(int access, String methodName, String descriptor) {
+            this.access = access;
+            this.methodName = methodName;
+            this.descriptor = descriptor;
+            this.maxLocals = argumentAndResultSizes(descriptor)[0];
+        }
+
+        ClassWriter classWriter() {
+            return ClassWriter.this;
+        }
+
+        private void put(int b) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = (byte) b;
+        }
+
+        private void putShort(int s) {
+            put(s >> 8);
+            put(s);
+        }
+
+        private void adjust(int stackDelta) {
+            stack += stackDelta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        void op(int opcode, int stackDelta) {
+            put(opcode);
+            adjust(stackDelta);
+        }
+
+        void intConst(int value) {
+            if (value >= -1 && value <= 5) {
+                put(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                put(BIPUSH);
+                put(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                put(SIPUSH);
+                putShort(value);
+            } else {
+                constant(integer(value));
+                return;
+            }
+            adjust(1);
+        }
+
+        void stringConst(String value) {
+            constant(string(value));
+        }
+
+        private void constant(int index) {
+            if (index <= 0xFF) {
+                put(LDC);
+                put(index);
+            } else {
+                put(LDC_W);
+                putShort(index);
+            }
+            adjust(1);
+        }
+
+        /**
+         * A load or store of a local.
+         */
+        void var(int opcode, int local) {
+            if (local > 0xFF) {
+                put(WIDE);
+                put(opcode);
+                putShort(local);
+            } else {
+                put(opcode);
+                put(local);
+            }
+            maxLocals = Math.max(maxLocals, local + 1);
+            adjust(opcode == ILOAD || opcode == ALOAD ? 1 : -1);
+        }
+
+        void invoke(int opcode, String owner, String name, String methodDescriptor) {
+            put(opcode);
+            putShort(methodRef(owner, name, methodDescriptor));
+            int[] sizes = argumentAndResultSizes(methodDescriptor);
+            adjust(sizes[1] - sizes[0] - (opcode == INVOKESTATIC ? 0 : 1));
+        }
+
+        void getStatic(String owner, String name, String fieldDescriptor) {
+            put(GETSTATIC);
+            putShort(fieldRef(owner, name, fieldDescriptor));
+            adjust(1);
+        }
+
+        void newObject(String internalName) {
+            put(NEW);
+            putShort(classRef(internalName));
+            adjust(1);
+        }
+
+        /**
+         * A goto or conditional branch to target.
+         */
+        void jump(int opcode, Label target, int stackDelta) {
+            int at = length;
+            put(opcode);
+            adjust(stackDelta);
+            if (target.stack < 0) {
+                target.stack = stack;
+            }
+            if (target.position >= 0) {
+                putShort(offset(target.position - at));
+            } else {
+                if (target.jumpCount == target.jumps.length) {
+                    target.jumps = Arrays.copyOf(target.jumps, target.jumpCount * 2);
+                }
+                target.jumps[target.jumpCount++] = at;
+                putShort(0);
+            }
+        }
+
+        void mark(Label label) {
+            label.position = length;
+            for (int i = 0; i < label.jumpCount; i++) {
+                int at = label.jumps[i];
+                int offset = offset(length - at);
+                code[at + 1] = (byte) (offset >> 8);
+                code[at + 2] = (byte) offset;
+            }
+            if (label.stack >= 0) {
+                stack = label.stack;
+            } else {
+                label.stack = stack;
+            }
+        }
+
+        /**
+         * Adds an entry to the exception table: an exception of class catchType (an internal name)
+         * thrown by the code from start up to end continues at handler, which is marked with
+         * markHandler.  Entries added first are tried first, so an inner range goes before the
+         * ranges around it.
+         *
+         * @return false if the range is empty, so there is no entry and no handler to mark
+         */
+        boolean handler(Label start, Label end, Label handler, String catchType) {
+            if (start.position == end.position) {
+                return false;
+            }
+            handlerLabels.add(start);
+            handlerLabels.add(end);
+            handlerLabels.add(handler);
+            catchTypes.add(classRef(catchType));
+            return true;
+        }
+
+        /**
+         * Marks the start of an exception handler, where the exception is the only value on the
+         * operand stack.
+         */
+        void markHandler(Label label) {
+            label.stack = 1;
+            mark(label);
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private int offset(int offset) {
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new IllegalStateException("method " + methodName + " is too large for 16 bit jumps");
+            }
+            return offset;
+        }
+
+        /**
+         * Makes the locals below count (all the variables) unavailable to newLocal().
+         */
+        void reserveLocals(int count) {
+            maxLocals = Math.max(maxLocals, count);
+        }
+
+        /**
+         * @return a local not used by the parameters, the reserved locals or an earlier newLocal()
+         */
+        int newLocal() {
+            return maxLocals++;
+        }
+
+        /**
+         * Adds the method to the class.
+         */
+        void end() {
+            if (length > 0xFFFF) {
+                throw new IllegalStateException("method " + methodName + " is too large");
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeShort(access);
+                out.writeShort(utf8(methodName));
+                out.writeShort(utf8(descriptor));
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                out.writeInt(12 + length + 8 * catchTypes.size());
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(length);
+                out.write(code, 0, length);
+                out.writeShort(catchTypes.size());
+                for (int i = 0; i < catchTypes.size(); i++) {
+                    out.writeShort(handlerLabels.get(3 * i).position);
+                    out.writeShort(handlerLabels.get(3 * i + 1).position);
+                    out.writeShort(handlerLabels.get(3 * i + 2).position);
+                    out.writeShort(catchTypes.get(i));
+                }
+                out.writeShort(0); // attributes
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            methods.add(bytes.toByteArray());
+        }
+    }
+}
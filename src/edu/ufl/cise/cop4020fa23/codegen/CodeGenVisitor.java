@@ -0,0 +1,623 @@
+package edu.ufl.cise.cop4020fa23.codegen;
+
+import java.util.List;
+import java.util.Set;
+
+import edu.ufl.cise.cop4020fa23.DeadCodeEliminator;
+import edu.ufl.cise.cop4020fa23.Kind;
+import edu.ufl.cise.cop4020fa23.SourceLocation;
+import edu.ufl.cise.cop4020fa23.TypeCheckVisitor;
+import edu.ufl.cise.cop4020fa23.ast.*;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.runtime.PixelOps;
+
+/*
+ * Generates readable Java source for a type checked Program, with the same behavior as the
+ * Interpreter and the BytecodeGenerator.  The program becomes a class named after it with one
+ * method, apply, taking the program's parameters.  Variables keep their names with their slot
+ * appended (NameDef.getJavaName), so that a name declared again in a nested block stays distinct.
+ *
+ * Expression visits return the Java expression, always parenthesized where precedence could
+ * matter; statement visits append lines to the Source passed as arg and return null.
+ *
+ * javac rejects statements it can prove unreachable, so a block is cut after a statement that
+ * cannot complete normally (a return, or a nested block ending with one).
+ *
+ * Like the Interpreter, a runtime error is reported at the statement that fails.  A statement that
+ * can fail is put in a try statement whose catch gives a PLCRuntimeException without a location the
+ * one of the statement, and reads of image variables are checked with Checks.  The variable of a
+ * declaration in a try is declared before it, so that it stays in scope.
+ */
+public class CodeGenVisitor implements GenericASTVisitor<String, CodeGenVisitor.Source> {
+
+    public static final class Source {
+        private final StringBuilder sb = new StringBuilder();
+        private int indent;
+
+        Source line(String line) {
+            if (!line.isEmpty()) {
+                sb.append("    ".repeat(indent)).append(line);
+            }
+            sb.append('\n');
+            return this;
+        }
+
+        // a line ending with '{', after which lines are indented
+        Source open(String line) {
+            line(line);
+            indent++;
+            return this;
+        }
+
+        Source close(String line) {
+            indent--;
+            return line(line);
+        }
+
+        // a line like '} else {' that closes a block and opens the next
+        Source next(String line) {
+            indent--;
+            line(line);
+            indent++;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    static final String METHOD = "apply";
+
+    private static final Set<String> RESERVED = Set.of("abstract", "assert", "boolean", "break", "byte", "case",
+            "catch", "char", "class", "const", "continue", "default", "do", "double", "else", "enum", "extends",
+            "final", "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
+            "interface", "long", "native", "new", "package", "private", "protected", "public", "return", "short",
+            "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try",
+            "void", "volatile", "while", "true", "false", "null", "var", "yield", "record", "sealed", "permits",
+            "_", "String", "Kind", "Objects", "Checks", "ConsoleIO", "IntOps", "PixelOps", "Raster", "PLCRuntimeException");
+
+    // the location of the statement being generated
+    private SourceLocation location;
+
+    /**
+     * @return the name of the class generated for program, which is its name unless that is
+     *   reserved in Java or is a class the generated code names, from java.lang or an import
+     */
+    public static String className(Program program) {
+        String name = program.getName();
+        return RESERVED.contains(name) ? name + "$" : name;
+    }
+
+    /**
+     * @return the source of a compilation unit with the class for program
+     */
+    public String generate(Program program) throws PLCCompilerException {
+        if (program.getType() == null) {
+            throw new IllegalArgumentException("program " + program.getName() + " has not been type checked");
+        }
+        Source source = new Source();
+        program.accept(this, source);
+        return source.toString();
+    }
+
+    static String javaType(Type type) {
+        return switch (type) {
+            case INT, PIXEL -> "int";
+            case BOOLEAN -> "boolean";
+            case STRING -> "String";
+            case IMAGE -> "Raster";
+            case VOID -> "void";
+            default -> throw new IllegalArgumentException("no Java type for " + type);
+        };
+    }
+
+    private static String javaName(IdentExpr identExpr) {
+        // not identExpr.getNameDef().getJavaName(): the implicit x and y are shared NameDefs
+        // whose slot changes with each assignment
+        return NameDef.javaName(identExpr.getName(), identExpr.getSlot());
+    }
+
+    private static String kind(Kind kind) {
+        return "Kind." + kind.name();
+    }
+
+    static String stringLiteral(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < ' ') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private String pixelValue(Expr expr, Source source) throws PLCCompilerException {
+        String value = expr.accept(this, source);
+        return expr.getType() == Type.INT ? "PixelOps.gray(" + value + ")" : value;
+    }
+
+    private String imageValue(Expr expr, Source source) throws PLCCompilerException {
+        String value = expr.accept(this, source);
+        return expr.getType() == Type.STRING ? "Raster.read(" + value + ")" : value;
+    }
+
+    // e without the parentheses around all of it, if it has them
+    private static String unparenthesized(String e) {
+        if (!e.startsWith("(") || !e.endsWith(")")) {
+            return e;
+        }
+        int depth = 0;
+        for (int i = 0; i < e.length() - 1; i++) {
+            char c = e.charAt(i);
+            if (c == '"') {
+                // a string literal may hold parentheses; keep them all
+                return e;
+            }
+            depth += c == '(' ? 1 : c == ')' ? -1 : 0;
+            if (depth == 0) {
+                return e;
+            }
+        }
+        return e.substring(1, e.length() - 1);
+    }
+
+    // the arguments of a check that reports the location of the statement being generated
+    private String location() {
+        return location.line() + ", " + location.column();
+    }
+
+    // whether elem is put in a try statement that locates its runtime errors
+    private static boolean mayFail(Block.BlockElem elem) {
+        if (elem instanceof Declaration declaration) {
+            Expr initializer = declaration.getInitializer();
+            if (declaration.getNameDef().getType() == Type.IMAGE) {
+                return initializer != null || declaration.getNameDef().getDimension() != null;
+            }
+            return initializer != null && !DeadCodeEliminator.cannotFail(initializer);
+        } else if (elem instanceof AssignmentStatement assignmentStatement) {
+            return assignmentStatement.getlValue().getVarType() == Type.IMAGE
+                    || !DeadCodeEliminator.cannotFail(assignmentStatement.getE());
+        } else if (elem instanceof WriteStatement writeStatement) {
+            return !DeadCodeEliminator.cannotFail(writeStatement.getExpr());
+        } else if (elem instanceof ReturnStatement returnStatement) {
+            return !DeadCodeEliminator.cannotFail(returnStatement.getE());
+        } else if (elem instanceof IfStatement ifStatement) {
+            return guardsMayFail(ifStatement.getGuardedBlocks());
+        } else if (elem instanceof DoStatement doStatement) {
+            return guardsMayFail(doStatement.getGuardedBlocks());
+        }
+        // the statements of a block are located by themselves
+        return false;
+    }
+
+    private static boolean guardsMayFail(List<GuardedBlock> guardedBlocks) {
+        for (GuardedBlock guardedBlock : guardedBlocks) {
+            if (!DeadCodeEliminator.cannotFail(guardedBlock.getGuard())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean completesNormally(Block block) {
+        for (Block.BlockElem elem : block.getElems()) {
+            if (!completesNormally(elem)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean completesNormally(Block.BlockElem elem) {
+        if (elem instanceof ReturnStatement) {
+            return false;
+        }
+        return !(elem instanceof StatementBlock statementBlock) || completesNormally(statementBlock.getBlock());
+    }
+
+
+    /* ======================= program and statements ======================= */
+
+    @Override
+    public String visitProgram(Program program, Source source) throws PLCCompilerException {
+        StringBuilder params = new StringBuilder();
+        for (NameDef param : program.getParams()) {
+            if (params.length() > 0) {
+                params.append(", ");
+            }
+            params.append(javaType(param.getType())).append(' ').append(param.getJavaName());
+        }
+        source.line("import java.util.Objects;")
+                .line("")
+                .line("import edu.ufl.cise.cop4020fa23.Kind;")
+                .line("import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;")
+                .line("import edu.ufl.cise.cop4020fa23.runtime.Checks;")
+                .line("import edu.ufl.cise.cop4020fa23.runtime.ConsoleIO;")
+                .line("import edu.ufl.cise.cop4020fa23.runtime.IntOps;")
+                .line("import edu.ufl.cise.cop4020fa23.runtime.PixelOps;")
+                .line("import edu.ufl.cise.cop4020fa23.runtime.Raster;")
+                .line("")
+                .open("public class " + className(program) + " {")
+                .line("")
+                .open("public static " + javaType(program.getType()) + " " + METHOD + "(" + params + ") throws PLCRuntimeException {");
+        program.getBlock().accept(this, source);
+        if (completesNormally(program.getBlock())) {
+            // the program does not end with a return
+            switch (program.getType()) {
+                case VOID -> {
+                }
+                case STRING, IMAGE -> source.line("return null;");
+                case BOOLEAN -> source.line("return false;");
+                default -> source.line("return 0;");
+            }
+        }
+        source.close("}").close("}");
+        return null;
+    }
+
+    @Override
+    public String visitBlock(Block block, Source source) throws PLCCompilerException {
+        SourceLocation outer = location;
+        for (Block.BlockElem elem : block.getElems()) {
+            location = TypeCheckVisitor.locate(elem);
+            if (mayFail(elem)) {
+                if (elem instanceof Declaration declaration) {
+                    NameDef nameDef = declaration.getNameDef();
+                    source.line(javaType(nameDef.getType()) + " " + nameDef.getJavaName() + ";");
+                }
+                source.open("try {");
+                elem.accept(this, source);
+                source.next("} catch (PLCRuntimeException $e) {")
+                        .line("throw Checks.located($e, " + location() + ");")
+                        .close("}");
+            } else {
+                elem.accept(this, source);
+            }
+            if (!completesNormally(elem)) {
+                break;
+            }
+        }
+        location = outer;
+        return null;
+    }
+
+    @Override
+    public String visitDeclaration(Declaration declaration, Source source) throws PLCCompilerException {
+        NameDef nameDef = declaration.getNameDef();
+        Expr initializer = declaration.getInitializer();
+        Type type = nameDef.getType();
+        String value;
+        if (type == Type.IMAGE) {
+            Dimension dimension = nameDef.getDimension();
+            if (dimension != null) {
+                String width = dimension.getWidth().accept(this, source);
+                String height = dimension.getHeight().accept(this, source);
+                value = initializer == null ? "new Raster(" + width + ", " + height + ")"
+                        : imageValue(initializer, source) + ".resized(" + width + ", " + height + ")";
+            } else {
+                value = initializer == null ? "null" : imageValue(initializer, source) + ".copy()";
+            }
+        } else if (initializer != null) {
+            value = initializer.accept(this, source);
+        } else {
+            // javac requires a value, and the variable may be read before it is assigned
+            value = switch (type) {
+                case STRING -> "null";
+                case BOOLEAN -> "false";
+                default -> "0";
+            };
+        }
+        // in a try, the variable is declared before it (see visitBlock)
+        String declared = mayFail(declaration) ? "" : javaType(type) + " ";
+        source.line(declared + nameDef.getJavaName() + " = " + value + ";");
+        return null;
+    }
+
+    @Override
+    public String visitAssignmentStatement(AssignmentStatement assignmentStatement, Source source) throws PLCCompilerException {
+        LValue lValue = assignmentStatement.getlValue();
+        Expr e = assignmentStatement.getE();
+        String name = NameDef.javaName(lValue.getName(), lValue.getSlot());
+        ChannelSelector channel = lValue.getChannelSelector();
+        switch (lValue.getVarType()) {
+            case INT, BOOLEAN, STRING -> source.line(name + " = " + e.accept(this, source) + ";");
+            case PIXEL -> source.line(name + " = " + (channel == null ? pixelValue(e, source)
+                    : "PixelOps.withChannel(" + name + ", " + kind(channel.color()) + ", " + e.accept(this, source) + ")") + ";");
+            case IMAGE -> assignImage(lValue, name, e, source);
+            default -> throw new IllegalStateException("compiler bug: assignment to " + lValue.getName() + " of type " + lValue.getVarType());
+        }
+        return null;
+    }
+
+    private void assignImage(LValue lValue, String name, Expr e, Source source) throws PLCCompilerException {
+        PixelSelector pixel = lValue.getPixelSelector();
+        ChannelSelector channel = lValue.getChannelSelector();
+        if (pixel == null && channel == null && (e.getType() == Type.IMAGE || e.getType() == Type.STRING)) {
+            source.line(name + " = Raster.assign(" + name + ", " + imageValue(e, source) + ");");
+            return;
+        }
+        source.line("Checks.hasSize(" + name + ", " + stringLiteral(lValue.getName()) + ", " + location() + ");");
+        if (pixel == null && channel == null) {
+            source.line(name + ".fill(" + pixelValue(e, source) + ");");
+        } else if (pixel == null) {
+            source.line(name + ".setChannel(" + kind(channel.color()) + ", " + e.accept(this, source) + ");");
+        } else {
+            // a coordinate that is not implicit is evaluated once, before the loops
+            Expr xExpr = pixel.xExpr();
+            Expr yExpr = pixel.yExpr();
+            boolean loopX = isImplicit(xExpr);
+            boolean loopY = isImplicit(yExpr);
+            if (loopX && loopY) {
+                pixelLoops(name, javaName((IdentExpr) xExpr), javaName((IdentExpr) yExpr), channel, e, source);
+                return;
+            }
+            String x = loopX ? javaName((IdentExpr) xExpr) : "$x";
+            String y = loopY ? javaName((IdentExpr) yExpr) : "$y";
+            if (!loopX || !loopY) {
+                source.open("{");
+            }
+            if (!loopX) {
+                source.line("int $x = " + xExpr.accept(this, source) + ";");
+            }
+            if (!loopY) {
+                source.line("int $y = " + yExpr.accept(this, source) + ";");
+            }
+            if (loopX) {
+                source.open("for (int " + x + " = 0; " + x + " < " + name + ".width(); " + x + "++) {");
+            }
+            if (loopY) {
+                source.open("for (int " + y + " = 0; " + y + " < " + name + ".height(); " + y + "++) {");
+            }
+            String value = channel == null ? pixelValue(e, source)
+                    : "PixelOps.withChannel(" + name + ".get(" + x + ", " + y + "), " + kind(channel.color()) + ", " + e.accept(this, source) + ")";
+            source.line(name + ".set(" + x + ", " + y + ", " + value + ");");
+            if (loopY) {
+                source.close("}");
+            }
+            if (loopX) {
+                source.close("}");
+            }
+            if (!loopX || !loopY) {
+                source.close("}");
+            }
+        }
+    }
+
+    // im[x,y] = e over the pixels of im, with x the outer loop unless e cannot fail and reads no image
+    private void pixelLoops(String name, String x, String y, ChannelSelector channel, Expr e, Source source) throws PLCCompilerException {
+        boolean byRows = DeadCodeEliminator.cannotFail(e) && DeadCodeEliminator.readsNoImage(e);
+        String index = byRows ? "$row + " + x : "$i";
+        String value = channel == null ? pixelValue(e, source)
+                : "PixelOps.withChannel($pixels[" + index + "], " + kind(channel.color()) + ", " + e.accept(this, source) + ")";
+        source.open("{");
+        source.line("int[] $pixels = " + name + ".pixels();");
+        source.line("int $width = " + name + ".width();");
+        source.line("int $height = " + name + ".height();");
+        if (byRows) {
+            source.open("for (int " + y + " = 0, $row = 0; " + y + " < $height; " + y + "++, $row += $width) {");
+            source.open("for (int " + x + " = 0; " + x + " < $width; " + x + "++) {");
+        } else {
+            source.open("for (int " + x + " = 0; " + x + " < $width; " + x + "++) {");
+            source.open("for (int " + y + " = 0, $i = " + x + "; " + y + " < $height; " + y + "++, $i += $width) {");
+        }
+        source.line("$pixels[" + index + "] = " + value + ";");
+        source.close("}");
+        source.close("}");
+        source.close("}");
+    }
+
+    // a coordinate that is a name bound by the assignment itself, like x in im[x,y] = ...
+    private static boolean isImplicit(Expr coordinate) {
+        return coordinate instanceof IdentExpr identExpr && identExpr.getNameDef() instanceof SyntheticNameDef;
+    }
+
+    @Override
+    public String visitWriteStatement(WriteStatement writeStatement, Source source) throws PLCCompilerException {
+        Expr e = writeStatement.getExpr();
+        String method = e.getType() == Type.PIXEL ? "writePixel" : "write";
+        source.line("ConsoleIO." + method + "(" + e.accept(this, source) + ");");
+        return null;
+    }
+
+    private void guardedBlocks(List<GuardedBlock> guardedBlocks, String otherwise, Source source) throws PLCCompilerException {
+        String keyword = "if";
+        for (GuardedBlock guardedBlock : guardedBlocks) {
+            source.open(keyword + " (" + unparenthesized(guardedBlock.getGuard().accept(this, source)) + ") {");
+            guardedBlock.getBlock().accept(this, source);
+            source.close("}");
+            keyword = "else if";
+        }
+        if (otherwise != null) {
+            source.open("else {").line(otherwise).close("}");
+        }
+    }
+
+    @Override
+    public String visitIfStatement(IfStatement ifStatement, Source source) throws PLCCompilerException {
+        guardedBlocks(ifStatement.getGuardedBlocks(), null, source);
+        return null;
+    }
+
+    // after running a guarded block, all the guards are tested again from the first
+    @Override
+    public String visitDoStatement(DoStatement doStatement, Source source) throws PLCCompilerException {
+        source.open("while (true) {");
+        guardedBlocks(doStatement.getGuardedBlocks(), "break;", source);
+        source.close("}");
+        return null;
+    }
+
+    @Override
+    public String visitReturnStatement(ReturnStatement returnStatement, Source source) throws PLCCompilerException {
+        source.line("return " + returnStatement.getE().accept(this, source) + ";");
+        return null;
+    }
+
+    @Override
+    public String visitBlockStatement(StatementBlock statementBlock, Source source) throws PLCCompilerException {
+        source.open("{");
+        statementBlock.getBlock().accept(this, source);
+        source.close("}");
+        return null;
+    }
+
+    // the nodes below are generated by the node containing them
+
+    @Override
+    public String visitGuardedBlock(GuardedBlock guardedBlock, Source source) {
+        throw new IllegalStateException("compiler bug: GuardedBlock is handled by its parent");
+    }
+
+    @Override
+    public String visitNameDef(NameDef nameDef, Source source) {
+        throw new IllegalStateException("compiler bug: NameDef is handled by its parent");
+    }
+
+    @Override
+    public String visitDimension(Dimension dimension, Source source) {
+        throw new IllegalStateException("compiler bug: Dimension is handled by its parent");
+    }
+
+    @Override
+    public String visitLValue(LValue lValue, Source source) {
+        throw new IllegalStateException("compiler bug: LValue is handled by its parent");
+    }
+
+    @Override
+    public String visitPixelSelector(PixelSelector pixelSelector, Source source) {
+        throw new IllegalStateException("compiler bug: PixelSelector is handled by its parent");
+    }
+
+    @Override
+    public String visitChannelSelector(ChannelSelector channelSelector, Source source) {
+        throw new IllegalStateException("compiler bug: ChannelSelector is handled by its parent");
+    }
+
+
+    /* ======================= expressions ======================= */
+
+    @Override
+    public String visitBinaryExpr(BinaryExpr binaryExpr, Source source) throws PLCCompilerException {
+        Kind op = binaryExpr.getOpKind();
+        Expr leftExpr = binaryExpr.getLeftExpr();
+        Expr rightExpr = binaryExpr.getRightExpr();
+        String left = leftExpr.accept(this, source);
+        String right = rightExpr.accept(this, source);
+        return switch (binaryExpr.getType()) {
+            case STRING -> "(" + left + " + " + right + ")";
+            case IMAGE -> left + "." + (rightExpr.getType() == Type.INT ? "binaryScalar" : "binary") + "(" + kind(op) + ", " + right + ")";
+            case PIXEL -> "PixelOps." + (rightExpr.getType() == Type.PIXEL ? "binary" : "binaryScalar") + "(" + kind(op) + ", " + left + ", " + right + ")";
+            case INT -> switch (op) {
+                case PLUS -> "(" + left + " + " + right + ")";
+                case MINUS -> "(" + left + " - " + right + ")";
+                case TIMES -> "(" + left + " * " + right + ")";
+                case DIV -> "IntOps.div(" + left + ", " + right + ")";
+                case EXP -> "IntOps.pow(" + left + ", " + right + ")";
+                default -> throw new IllegalStateException("compiler bug: int operator " + op);
+            };
+            case BOOLEAN -> switch (op) {
+                case AND -> "(" + left + " && " + right + ")";
+                // + on booleans is taken as or, as by the Interpreter
+                case OR, PLUS -> "(" + left + " || " + right + ")";
+                case LT -> "(" + left + " < " + right + ")";
+                case GT -> "(" + left + " > " + right + ")";
+                case LE -> "(" + left + " <= " + right + ")";
+                case GE -> "(" + left + " >= " + right + ")";
+                case EQ -> leftExpr.getType() == Type.STRING || leftExpr.getType() == Type.IMAGE
+                        ? "Objects.equals(" + left + ", " + right + ")"
+                        : "(" + left + " == " + right + ")";
+                default -> throw new IllegalStateException("compiler bug: boolean operator " + op);
+            };
+            default -> throw new IllegalStateException("compiler bug: binary expression of type " + binaryExpr.getType());
+        };
+    }
+
+    @Override
+    public String visitUnaryExpr(UnaryExpr unaryExpr, Source source) throws PLCCompilerException {
+        String e = unaryExpr.getExpr().accept(this, source);
+        return switch (unaryExpr.getOp()) {
+            case MINUS -> "(-" + e + ")";
+            case BANG -> "(!" + e + ")";
+            case RES_width -> e + ".width()";
+            case RES_height -> e + ".height()";
+            default -> throw new IllegalStateException("compiler bug: unary operator " + unaryExpr.getOp());
+        };
+    }
+
+    @Override
+    public String visitConditionalExpr(ConditionalExpr conditionalExpr, Source source) throws PLCCompilerException {
+        return "(" + conditionalExpr.getGuardExpr().accept(this, source) + " ? " + conditionalExpr.getTrueExpr().accept(this, source)
+                + " : " + conditionalExpr.getFalseExpr().accept(this, source) + ")";
+    }
+
+    @Override
+    public String visitIdentExpr(IdentExpr identExpr, Source source) {
+        if (identExpr.getType() == Type.IMAGE) {
+            return "Checks.value(" + javaName(identExpr) + ", " + stringLiteral(identExpr.getName()) + ", " + location() + ")";
+        }
+        return javaName(identExpr);
+    }
+
+    // image[x,y] is a PIXEL, image[x,y]:c and pixel:c are INT, image:c is an IMAGE
+    @Override
+    public String visitPostfixExpr(PostfixExpr postfixExpr, Source source) throws PLCCompilerException {
+        String e = postfixExpr.primary().accept(this, source);
+        PixelSelector pixel = postfixExpr.pixel();
+        ChannelSelector channel = postfixExpr.channel();
+        if (pixel != null) {
+            e = e + ".get(" + pixel.xExpr().accept(this, source) + ", " + pixel.yExpr().accept(this, source) + ")";
+        }
+        if (channel != null) {
+            e = postfixExpr.getType() == Type.IMAGE ? e + ".channel(" + kind(channel.color()) + ")"
+                    : "PixelOps.channel(" + e + ", " + kind(channel.color()) + ")";
+        }
+        return e;
+    }
+
+    @Override
+    public String visitStringLitExpr(StringLitExpr stringLitExpr, Source source) {
+        String text = stringLitExpr.getText();
+        return stringLiteral(text.substring(1, text.length() - 1));
+    }
+
+    @Override
+    public String visitNumLitExpr(NumLitExpr numLitExpr, Source source) {
+        // a pixel or a negative number is the result of ConstantFolder
+        String text = numLitExpr.getText();
+        if (numLitExpr.getType() == Type.PIXEL) {
+            return String.format("0x%08x", Integer.parseInt(text));
+        }
+        return text.startsWith("-") ? "(" + text + ")" : text;
+    }
+
+    @Override
+    public String visitBooleanLitExpr(BooleanLitExpr booleanLitExpr, Source source) {
+        return booleanLitExpr.getText().equals("TRUE") ? "true" : "false";
+    }
+
+    @Override
+    public String visitConstExpr(ConstExpr constExpr, Source source) {
+        String name = constExpr.getName();
+        return name.equals("Z") ? "255" : String.format("0x%08x /* %s */", PixelOps.constant(name), name);
+    }
+
+    @Override
+    public String visitExpandedPixelExpr(ExpandedPixelExpr expandedPixelExpr, Source source) throws PLCCompilerException {
+        return "PixelOps.pack(" + expandedPixelExpr.getRed().accept(this, source) + ", " + expandedPixelExpr.getGreen().accept(this, source)
+                + ", " + expandedPixelExpr.getBlue().accept(this, source) + ")";
+    }
+}
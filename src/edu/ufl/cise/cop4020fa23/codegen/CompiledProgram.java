@@ -0,0 +1,68 @@
+package edu.ufl.cise.cop4020fa23.codegen;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+
+/**
+ * A program compiled to a JVM method.  Call handle() directly for the best performance, or run()
+ * with the arguments the Interpreter takes.
+ */
+public final class CompiledProgram {
+
+    private final String name;
+    private final MethodHandle handle;
+
+    CompiledProgram(String name, MethodHandle handle) {
+        this.name = name;
+        this.handle = handle;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return a handle to the static method, whose type has the JVM types of the parameters and
+     *   the result: int for int and pixel, boolean, String and Raster
+     */
+    public MethodHandle handle() {
+        return handle;
+    }
+
+    /**
+     * Runs the program as Interpreter.run does.
+     *
+     * @throws PLCRuntimeException if the program fails while running
+     */
+    public Object run(Object... args) throws PLCCompilerException {
+        MethodType type = handle.type();
+        if (args.length != type.parameterCount()) {
+            throw new IllegalArgumentException(name + " expects " + type.parameterCount() + " arguments, found " + args.length);
+        }
+        // checked here, so that a ClassCastException from the program itself is not taken for a bad argument
+        for (int i = 0; i < args.length; i++) {
+            Class<?> parameterType = type.parameterType(i);
+            if (args[i] == null ? parameterType.isPrimitive() : !type.wrap().parameterType(i).isInstance(args[i])) {
+                throw new IllegalArgumentException("argument " + i + " of " + name + " is not a " + parameterType.getSimpleName() + ": " + args[i]);
+            }
+        }
+        try {
+            return handle.invokeWithArguments(args);
+        } catch (WrongMethodTypeException e) {
+            throw new IllegalArgumentException("arguments of " + name + " do not match its parameters", e);
+        } catch (PLCCompilerException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledProgram " + name + handle.type();
+    }
+}
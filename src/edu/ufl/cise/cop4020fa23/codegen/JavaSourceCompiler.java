@@ -0,0 +1,195 @@
+package edu.ufl.cise.cop4020fa23.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import edu.ufl.cise.cop4020fa23.ast.Program;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCCompilerException;
+import edu.ufl.cise.cop4020fa23.runtime.Raster;
+
+/**
+ * Compiles the Java source generated by CodeGenVisitor with javac, in memory: the source is not
+ * written to a file and the class files are loaded from the bytes javac produced.  Needs a JDK,
+ * not only a JRE.
+ *
+ * Running javac takes far longer than anything else here, so classes are cached by the SHA-256 of
+ * their source, and compiling a program again (or another with the same source) reuses the class.
+ * The cache keeps the CACHE_SIZE classes used last, so that the others and their class loaders
+ * can be unloaded.  Each compilation has its own class loader, so classes of different programs
+ * with the same name do not clash.
+ */
+public final class JavaSourceCompiler {
+
+    public static final int CACHE_SIZE = 256;
+
+    // guarded by itself; javac runs outside the lock, so two threads may compile the same source
+    // and the class of the first is kept
+    private static final Map<String, Class<?>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Class<?>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private JavaSourceCompiler() {
+    }
+
+    public static CompiledProgram compile(Program program) throws PLCCompilerException {
+        String source = new CodeGenVisitor().generate(program);
+        Class<?> compiled = compile(CodeGenVisitor.className(program), source);
+        Method apply = null;
+        for (Method method : compiled.getMethods()) {
+            if (method.getName().equals(CodeGenVisitor.METHOD)) {
+                apply = method;
+            }
+        }
+        if (apply == null) {
+            throw new IllegalStateException("compiler bug: no method " + CodeGenVisitor.METHOD + " in the class generated for " + program.getName());
+        }
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(apply);
+            return new CompiledProgram(program.getName(), handle);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("compiler bug: cannot access the method generated for " + program.getName(), e);
+        }
+    }
+
+    /**
+     * @return the class named className (in the unnamed package) compiled from source, or the one
+     *   compiled earlier from the same source
+     * @throws IllegalStateException if there is no Java compiler or source does not compile
+     */
+    public static Class<?> compile(String className, String source) {
+        String key = hash(source);
+        synchronized (cache) {
+            Class<?> cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Class<?> compiled = javac(className, source);
+        synchronized (cache) {
+            Class<?> cached = cache.putIfAbsent(key, compiled);
+            return cached != null ? cached : compiled;
+        }
+    }
+
+    public static int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static String hash(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Class<?> javac(String className, String source) {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            throw new IllegalStateException("no Java compiler, which needs a JDK");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classFiles = new HashMap<>();
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("mem:///" + className + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = List.of("-g", "-proc:none", "-classpath", classPath());
+        boolean compiled;
+        try (StandardJavaFileManager standardFileManager = javac.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaFileManager fileManager = new ForwardingJavaFileManager<>(standardFileManager) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                    return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                        @Override
+                        public OutputStream openOutputStream() {
+                            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            classFiles.put(name, bytes);
+                            return bytes;
+                        }
+                    };
+                }
+            };
+            compiled = javac.getTask(null, fileManager, diagnostics, options, null, List.of(sourceFile)).call();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!compiled) {
+            StringBuilder message = new StringBuilder("compiler bug: generated source for " + className + " does not compile");
+            diagnostics.getDiagnostics().forEach(diagnostic -> message.append('\n').append(diagnostic));
+            throw new IllegalStateException(message.toString());
+        }
+        ClassLoader loader = new ClassLoader(JavaSourceCompiler.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = classFiles.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+            }
+        };
+        try {
+            return loader.loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("compiler bug: javac did not produce " + className, e);
+        }
+    }
+
+    // the class path of this JVM, and the location of the runtime classes in case they were
+    // loaded from elsewhere
+    private static String classPath() {
+        String classPath = System.getProperty("java.class.path");
+        CodeSource codeSource = Raster.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            try {
+                classPath = classPath + File.pathSeparator + new File(codeSource.getLocation().toURI()).getPath();
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // keep the class path of the JVM
+            }
+        }
+        return classPath;
+    }
+}
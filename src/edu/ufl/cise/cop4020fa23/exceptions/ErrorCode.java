@@ -0,0 +1,22 @@
+/*Copyright 2023 by Beverly A Sanders
+ * 
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the 
+ * University of Florida during the fall semester 2023 as part of the course project.  
+ * 
+ * No other use is authorized. 
+ * 
+ * This code may not be posted on a public web site either during or after the course.  
+ */
+package edu.ufl.cise.cop4020fa23.exceptions;
+
+/**
+ * Category of a compilation error, one for each class of PLCCompilerException, for callers that
+ * switch on the kind of a failure (see CompileResult.errorCode()).
+ */
+public enum ErrorCode {
+	LEXICAL,
+	SYNTAX,
+	TYPE,
+	RUNTIME, // raised while running a checked program, e.g. by the Interpreter
+	OTHER;
+}
@@ -30,4 +30,10 @@ public class LexicalException extends PLCCompilerException {
 		super(location, message);
 	}
 
+
+	@Override
+	public ErrorCode getErrorCode() {
+		return ErrorCode.LEXICAL;
+	}
+
 }
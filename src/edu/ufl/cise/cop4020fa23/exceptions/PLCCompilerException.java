@@ -15,20 +15,59 @@ import edu.ufl.cise.cop4020fa23.SourceLocation;
  * Superclass of all Exceptions thrown during compilation.
  * This class includes all constructors belonging to the superclass. 
  * See documentation of java.lang.Exception for information about constructor parameters.
+ * 
+ * Each exception carries, when known, the SourceLocation of the error, and has the ErrorCode of
+ * its class.
+ * 
+ * When the front end is used to reject large numbers of programs, filling in a stack trace
+ * for each rejection dominates the cost.  Stack trace capture can be turned off with
+ * setCaptureStackTrace(false) or by starting the JVM with -Dplc.stacklessExceptions=true.
+ * The setting is read when an exception is constructed.
  */
 @SuppressWarnings("serial")
 public class PLCCompilerException extends Exception {
 
+	private static volatile boolean captureStackTrace = !Boolean.getBoolean("plc.stacklessExceptions");
+
+	public static void setCaptureStackTrace(boolean capture) {
+		captureStackTrace = capture;
+	}
+
+	public static boolean isCaptureStackTrace() {
+		return captureStackTrace;
+	}
+
+	private final SourceLocation location;
 
 	public PLCCompilerException() {
+		this(null, null);
 	}
 
 	public PLCCompilerException(String message) {
-		super(message);
+		this(null, message);
 	}
 
+	/**
+	 * @param location   may be null
+	 * @param message
+	 */
 	public PLCCompilerException(SourceLocation location, String message) {
-		super(location + ": " + message);
+		super(location == null ? message : location + ": " + message, null, true, captureStackTrace);
+		this.location = location;
+	}
+
+	/**
+	 * @return the code of the class of this exception, which subclasses override
+	 */
+	public ErrorCode getErrorCode() {
+		return ErrorCode.OTHER;
+	}
+
+	/**
+	 * @return the location of the error, or null if it is not known
+	 */
+	public SourceLocation getLocation() {
+		return location;
 	}
 
 }
@@ -0,0 +1,36 @@
+/*Copyright 2023 by Beverly A Sanders
+ * 
+ * This code is provided for solely for use of students in COP4020 Programming Language Concepts at the 
+ * University of Florida during the fall semester 2023 as part of the course project.  
+ * 
+ * No other use is authorized. 
+ * 
+ * This code may not be posted on a public web site either during or after the course.  
+ */
+package edu.ufl.cise.cop4020fa23.exceptions;
+
+import edu.ufl.cise.cop4020fa23.SourceLocation;
+
+/**
+ * Thrown when a program that type checked fails while running, for example on a division by
+ * zero or a pixel outside of an image.
+ */
+@SuppressWarnings("serial")
+public class PLCRuntimeException extends PLCCompilerException {
+
+
+	public PLCRuntimeException(String message) {
+		super(message);
+	}
+
+
+	public PLCRuntimeException(SourceLocation location, String message) {
+		super(location, message);
+	}
+
+	@Override
+	public ErrorCode getErrorCode() {
+		return ErrorCode.RUNTIME;
+	}
+
+}
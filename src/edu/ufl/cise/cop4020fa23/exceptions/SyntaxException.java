@@ -31,4 +31,10 @@ public class SyntaxException extends PLCCompilerException {
 		super(message);
 	}
 
+
+	@Override
+	public ErrorCode getErrorCode() {
+		return ErrorCode.SYNTAX;
+	}
+
 }
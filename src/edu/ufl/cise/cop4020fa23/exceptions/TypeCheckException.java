@@ -29,4 +29,10 @@ public class TypeCheckException extends PLCCompilerException {
 		super(location, message);
 	}
 
+
+	@Override
+	public ErrorCode getErrorCode() {
+		return ErrorCode.TYPE;
+	}
+
 }
@@ -0,0 +1,41 @@
+package edu.ufl.cise.cop4020fa23.runtime;
+
+import edu.ufl.cise.cop4020fa23.SourceLocation;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+
+/**
+ * Checks made by compiled code for the statement at line:column, which fail with the same
+ * located PLCRuntimeException as the Interpreter.
+ */
+public final class Checks {
+
+    private Checks() {
+    }
+
+    /**
+     * @return image, the value of the image variable name
+     * @throws PLCRuntimeException if image is null, as the variable has no value
+     */
+    public static Raster value(Raster image, String name, int line, int column) throws PLCRuntimeException {
+        if (image == null) {
+            throw new PLCRuntimeException(new SourceLocation(line, column), "image " + name + " has no value");
+        }
+        return image;
+    }
+
+    /**
+     * Checks that image, whose pixels or channels are assigned in the variable name, has a size.
+     */
+    public static void hasSize(Raster image, String name, int line, int column) throws PLCRuntimeException {
+        if (image == null) {
+            throw new PLCRuntimeException(new SourceLocation(line, column), "image " + name + " has no size");
+        }
+    }
+
+    /**
+     * @return e if it has a location, else e with the location line:column
+     */
+    public static PLCRuntimeException located(PLCRuntimeException e, int line, int column) {
+        return e.getLocation() != null ? e : new PLCRuntimeException(new SourceLocation(line, column), e.getMessage());
+    }
+}
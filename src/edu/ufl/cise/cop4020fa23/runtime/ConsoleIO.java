@@ -0,0 +1,41 @@
+package edu.ufl.cise.cop4020fa23.runtime;
+
+import java.io.PrintStream;
+
+/**
+ * Output of the write statement in compiled programs, printed as the Interpreter prints it.
+ * Compiled code has no Interpreter to hold its stream, so the stream is global; it defaults to
+ * System.out.
+ */
+public final class ConsoleIO {
+
+    private static volatile PrintStream out = System.out;
+
+    private ConsoleIO() {
+    }
+
+    public static PrintStream getOut() {
+        return out;
+    }
+
+    public static void setOut(PrintStream out) {
+        ConsoleIO.out = out;
+    }
+
+    public static void write(int value) {
+        out.println(value);
+    }
+
+    public static void write(boolean value) {
+        out.println(value ? "TRUE" : "FALSE");
+    }
+
+    public static void writePixel(int pixel) {
+        out.println(PixelOps.toString(pixel));
+    }
+
+    // a string or an image
+    public static void write(Object value) {
+        out.println(value);
+    }
+}
@@ -0,0 +1,23 @@
+package edu.ufl.cise.cop4020fa23.runtime;
+
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+
+/**
+ * The int operators that are not a single JVM instruction.
+ */
+public final class IntOps {
+
+    private IntOps() {
+    }
+
+    public static int div(int left, int right) throws PLCRuntimeException {
+        if (right == 0) {
+            throw new PLCRuntimeException("division by zero");
+        }
+        return left / right;
+    }
+
+    public static int pow(int base, int exponent) {
+        return (int) Math.round(Math.pow(base, exponent));
+    }
+}
@@ -0,0 +1,129 @@
+package edu.ufl.cise.cop4020fa23.runtime;
+
+import java.awt.Color;
+
+import edu.ufl.cise.cop4020fa23.Kind;
+
+/**
+ * Operations on pixels packed into an int as 0xAARRGGBB.  Pixels built here are always opaque
+ * (alpha 0xFF), and every channel result is clamped to 0..255, so arithmetic on pixels saturates
+ * instead of carrying into the neighbouring channel.
+ */
+public final class PixelOps {
+
+    public static final int OPAQUE = 0xFF000000;
+
+    private PixelOps() {
+    }
+
+    public static int clamp(int channel) {
+        return channel < 0 ? 0 : channel > 255 ? 255 : channel;
+    }
+
+    public static int pack(int red, int green, int blue) {
+        return OPAQUE | clamp(red) << 16 | clamp(green) << 8 | clamp(blue);
+    }
+
+    // the pixel assigned for an int, as in pixel p = 100;
+    public static int gray(int value) {
+        return pack(value, value, value);
+    }
+
+    public static int red(int pixel) {
+        return pixel >> 16 & 0xFF;
+    }
+
+    public static int green(int pixel) {
+        return pixel >> 8 & 0xFF;
+    }
+
+    public static int blue(int pixel) {
+        return pixel & 0xFF;
+    }
+
+    /**
+     * @param color RES_red, RES_green or RES_blue
+     */
+    public static int channel(int pixel, Kind color) {
+        return switch (color) {
+            case RES_red -> red(pixel);
+            case RES_green -> green(pixel);
+            case RES_blue -> blue(pixel);
+            default -> throw new IllegalArgumentException("not a color channel: " + color);
+        };
+    }
+
+    /**
+     * @return pixel with the channel color set to value, clamped
+     */
+    public static int withChannel(int pixel, Kind color, int value) {
+        int shift = switch (color) {
+            case RES_red -> 16;
+            case RES_green -> 8;
+            case RES_blue -> 0;
+            default -> throw new IllegalArgumentException("not a color channel: " + color);
+        };
+        return pixel & ~(0xFF << shift) | clamp(value) << shift;
+    }
+
+    /**
+     * @return the pixel of a named color constant, as java.awt.Color defines it
+     */
+    public static int constant(String name) {
+        Color color = switch (name) {
+            case "BLACK" -> Color.BLACK;
+            case "BLUE" -> Color.BLUE;
+            case "CYAN" -> Color.CYAN;
+            case "DARK_GRAY" -> Color.DARK_GRAY;
+            case "GRAY" -> Color.GRAY;
+            case "GREEN" -> Color.GREEN;
+            case "LIGHT_GRAY" -> Color.LIGHT_GRAY;
+            case "MAGENTA" -> Color.MAGENTA;
+            case "ORANGE" -> Color.ORANGE;
+            case "PINK" -> Color.PINK;
+            case "RED" -> Color.RED;
+            case "WHITE" -> Color.WHITE;
+            case "YELLOW" -> Color.YELLOW;
+            default -> throw new IllegalArgumentException("not a color constant: " + name);
+        };
+        return color.getRGB();
+    }
+
+    // A channel divided by 0 gives 0: a pixel with a zero channel is common and should not stop
+    // a program the way an int division by zero does.
+    private static int channelOp(Kind op, int left, int right) {
+        return switch (op) {
+            case PLUS -> left + right;
+            case MINUS -> left - right;
+            case TIMES -> left * right;
+            case DIV -> right == 0 ? 0 : left / right;
+            case EXP -> (int) Math.min(255, Math.round(Math.pow(left, right)));
+            default -> throw new IllegalArgumentException("not a pixel operator: " + op);
+        };
+    }
+
+    /**
+     * @return left op right, for the operators TypeRules allows on two pixels
+     */
+    public static int binary(Kind op, int left, int right) {
+        return switch (op) {
+            case BITAND -> left & right;
+            case BITOR -> left | right;
+            default -> pack(channelOp(op, red(left), red(right)), channelOp(op, green(left), green(right)),
+                    channelOp(op, blue(left), blue(right)));
+        };
+    }
+
+    /**
+     * @return pixel op scalar, applied to each channel
+     */
+    public static int binaryScalar(Kind op, int pixel, int scalar) {
+        return pack(channelOp(op, red(pixel), scalar), channelOp(op, green(pixel), scalar),
+                channelOp(op, blue(pixel), scalar));
+    }
+
+    // written like the expression [r,g,b] that builds it
+    public static String toString(int pixel) {
+        return "[" + red(pixel) + "," + green(pixel) + "," + blue(pixel) + "]";
+    }
+}
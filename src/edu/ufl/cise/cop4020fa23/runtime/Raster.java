@@ -0,0 +1,250 @@
+package edu.ufl.cise.cop4020fa23.runtime;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import edu.ufl.cise.cop4020fa23.Kind;
+import edu.ufl.cise.cop4020fa23.exceptions.PLCRuntimeException;
+
+/**
+ * The value of an image: width * height packed pixels (see PixelOps) in row major order, so the
+ * pixel at (x, y) is pixels()[y * width() + x].  A Raster is mutable and is shared by reference,
+ * as images are; the operations that build a new image say so.
+ */
+public final class Raster {
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    /**
+     * A black image.
+     */
+    public Raster(int width, int height) throws PLCRuntimeException {
+        this(width, height, blank(width, height));
+    }
+
+    public Raster(int width, int height, int[] pixels) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException(pixels.length + " pixels for a " + width + "x" + height + " image");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    private static int[] blank(int width, int height) throws PLCRuntimeException {
+        if (width <= 0 || height <= 0) {
+            throw new PLCRuntimeException("image size must be positive, found " + width + "x" + height);
+        }
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, PixelOps.OPAQUE);
+        return pixels;
+    }
+
+    /**
+     * @return image, the value of the image variable name
+     * @throws PLCRuntimeException if image is null, as the variable has no value
+     */
+    public static Raster valueOf(Raster image, String name) throws PLCRuntimeException {
+        if (image == null) {
+            throw new PLCRuntimeException("image " + name + " has no value");
+        }
+        return image;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int[] pixels() {
+        return pixels;
+    }
+
+    private int index(int x, int y) throws PLCRuntimeException {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new PLCRuntimeException("pixel (" + x + "," + y + ") is outside of a " + width + "x" + height + " image");
+        }
+        return y * width + x;
+    }
+
+    public int get(int x, int y) throws PLCRuntimeException {
+        return pixels[index(x, y)];
+    }
+
+    public void set(int x, int y, int pixel) throws PLCRuntimeException {
+        pixels[index(x, y)] = pixel;
+    }
+
+    public void fill(int pixel) {
+        Arrays.fill(pixels, pixel);
+    }
+
+    /**
+     * @return a new image with the pixels of this one
+     */
+    public Raster copy() {
+        return new Raster(width, height, pixels.clone());
+    }
+
+    /**
+     * @return a new image of the given size with this one scaled to it, by nearest neighbour
+     */
+    public Raster resized(int newWidth, int newHeight) throws PLCRuntimeException {
+        if (newWidth == width && newHeight == height) {
+            return copy();
+        }
+        Raster result = new Raster(newWidth, newHeight);
+        result.copyScaled(this);
+        return result;
+    }
+
+    /**
+     * Overwrites this image with source, scaled to the size of this image.
+     */
+    public void copyFrom(Raster source) {
+        if (source.width == width && source.height == height) {
+            System.arraycopy(source.pixels, 0, pixels, 0, pixels.length);
+        } else {
+            copyScaled(source);
+        }
+    }
+
+    /**
+     * Assigns value to an image variable holding target: an image without a size (null) gets a
+     * copy of value, any other is overwritten with value scaled to its size.
+     *
+     * @return the new value of the variable
+     */
+    public static Raster assign(Raster target, Raster value) {
+        if (target == null) {
+            return value.copy();
+        }
+        if (target != value) {
+            target.copyFrom(value);
+        }
+        return target;
+    }
+
+    private void copyScaled(Raster source) {
+        for (int y = 0; y < height; y++) {
+            int row = (int) ((long) y * source.height / height) * source.width;
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = source.pixels[row + (int) ((long) x * source.width / width)];
+            }
+        }
+    }
+
+    /**
+     * Sets the channel color of every pixel to value.
+     */
+    public void setChannel(Kind color, int value) {
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = PixelOps.withChannel(pixels[i], color, value);
+        }
+    }
+
+    /**
+     * @return a new image holding only the channel color of this one, as in im:red
+     */
+    public Raster channel(Kind color) {
+        int mask = switch (color) {
+            case RES_red -> 0xFF0000;
+            case RES_green -> 0xFF00;
+            case RES_blue -> 0xFF;
+            default -> throw new IllegalArgumentException("not a color channel: " + color);
+        };
+        int[] result = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            result[i] = PixelOps.OPAQUE | pixels[i] & mask;
+        }
+        return new Raster(width, height, result);
+    }
+
+    /**
+     * @return a new image, this op right pixel by pixel
+     */
+    public Raster binary(Kind op, Raster right) throws PLCRuntimeException {
+        if (right.width != width || right.height != height) {
+            throw new PLCRuntimeException("operands of " + op + " have different sizes, " + width + "x" + height
+                    + " and " + right.width + "x" + right.height);
+        }
+        int[] result = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            result[i] = PixelOps.binary(op, pixels[i], right.pixels[i]);
+        }
+        return new Raster(width, height, result);
+    }
+
+    /**
+     * @return a new image, each pixel op scalar
+     */
+    public Raster binaryScalar(Kind op, int scalar) {
+        int[] result = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            result[i] = PixelOps.binaryScalar(op, pixels[i], scalar);
+        }
+        return new Raster(width, height, result);
+    }
+
+    /**
+     * Reads the image at source, a URL or a file name.
+     */
+    public static Raster read(String source) throws PLCRuntimeException {
+        if (source == null) {
+            throw new PLCRuntimeException("cannot read an image from a string that has no value");
+        }
+        BufferedImage image;
+        try {
+            image = source.contains("://") ? ImageIO.read(URI.create(source).toURL()) : ImageIO.read(new File(source));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new PLCRuntimeException("cannot read image " + source + ": " + e.getMessage());
+        }
+        if (image == null) {
+            throw new PLCRuntimeException("cannot read image " + source + ": unknown format");
+        }
+        return of(image);
+    }
+
+    public static Raster of(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, w, h, null, 0, w);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] |= PixelOps.OPAQUE;
+        }
+        return new Raster(w, h, pixels);
+    }
+
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    // images are equal when they have the same size and pixels, as for == in a program
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Raster other && width == other.width && height == other.height
+                && Arrays.equals(pixels, other.pixels);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(pixels);
+    }
+
+    @Override
+    public String toString() {
+        return "image[" + width + "," + height + "]";
+    }
+}